@@ -75,6 +75,8 @@ class OperatorToken extends CalculationToken {
 	}
 
 	private final Operation operation;
+	private final String doubleResultName;
+	private final String arrayResultName;
 
 	/**
 	 * construct a new {@link OperatorToken}
@@ -87,6 +89,8 @@ class OperatorToken extends CalculationToken {
 	OperatorToken(String value, Operation operation) {
 		super(value);
 		this.operation = operation;
+		this.doubleResultName = "double " + operation.name() + " result, ";
+		this.arrayResultName = "array " + operation.name() + " result, ";
 	}
 	
 	/**
@@ -109,7 +113,7 @@ class OperatorToken extends CalculationToken {
 					inputs[i] = values[i].getDoubleValue();
 				}
 				double result = applyOperation(inputs);
-				return new Variable("double " + operation.name()+" result, ", result);
+				return new Variable(doubleResultName, result);
 			
 			case ARRAY:
 				int maxLength = values[0].getArrayValue().length;
@@ -122,13 +126,39 @@ class OperatorToken extends CalculationToken {
 					results[i] = applyOperation(inputs);
 				}
 				//System.out.println("Done applying operation "+operation.name());
-				return new Variable("array " + operation.name()+" result, ", results);
+				return new Variable(arrayResultName, results);
 				
 			default:
 				return new Variable("Invalid");
 		}
 	}
 	
+	/*
+	 * Apply the operation on primitive operands, y is ignored for unary operations
+	 */
+	double applyOperation(double x, double y) {
+		switch (operation) {
+		case ADDITION:
+			return x + y;
+		case SUBTRACTION:
+			return x - y;
+		case MULTIPLICATION:
+			return x * y;
+		case EXPONENTIATION:
+			return Math.pow(x, y);
+		case DIVISION:
+			return x / y;
+		case UNARY_MINUS:
+			return -x;
+		case UNARY_PLUS:
+			return x;
+		case MODULO:
+			return x % y;
+		default:
+			return 0;
+		}
+	}
+	
 	private double applyOperation(double[] values){
 				
 		//System.out.println("Applying "+operation.toString()+" to values starting "+values[0]);
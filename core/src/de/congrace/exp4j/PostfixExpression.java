@@ -16,6 +16,8 @@
  */
 package de.congrace.exp4j;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.Stack;
 
@@ -30,6 +32,12 @@ public final class PostfixExpression extends AbstractExpression implements Calcu
 	
 	private final VariableSet variables = new VariableSet();
 	
+	/* compiled form for calculate(double[]), built on first use */
+	private String[] referencedVariables;
+	private int[] variableSlots;
+	private double[] valueStack;
+	private boolean primitive;
+	
 	/**
 	 * Factory method for creating {@link PostfixExpression}s from human
 	 * readable infix expressions
@@ -115,4 +123,108 @@ public final class PostfixExpression extends AbstractExpression implements Calcu
 	public void setVariable(Variable value) {
 		variables.add(value);
 	}
+	
+	/**
+	 * return the distinct names of the variables used in the expression, in order of first use.
+	 * These define the order of the values passed to {@link #calculate(double[])}
+	 * 
+	 * @return the names of the referenced variables
+	 */
+	public String[] getReferencedVariables() {
+		compile();
+		return referencedVariables.clone();
+	}
+	
+	/**
+	 * check whether the expression can be calculated by {@link #calculate(double[])}, i.e. it is well
+	 * formed and consists of numbers, variables, operators and built-in functions only
+	 * 
+	 * @return true if the expression can be calculated on primitive values
+	 */
+	public boolean isPrimitive() {
+		compile();
+		return primitive;
+	}
+	
+	/**
+	 * calculate the result of the expression for double valued variables without creating
+	 * intermediate {@link Variable}s.  The result equals that of {@link #calculate()} with
+	 * the same variable values set.  The values set by {@link #setVariable(Variable)} are not used.
+	 * 
+	 * @param values
+	 *            the values of the variables, in the order of {@link #getReferencedVariables()}
+	 * @return the result of the calculation
+	 * @throws IllegalStateException
+	 *             if the expression is not primitive
+	 */
+	public double calculate(double[] values) {
+		compile();
+		if (!primitive) {
+			throw new IllegalStateException("Expression " + getExpression() + " cannot be calculated on primitive values");
+		}
+		final Token[] tokens = getTokens();
+		final double[] stack = valueStack;
+		int top = 0;
+		for (int i = 0; i < tokens.length; i++) {
+			final Token t = tokens[i];
+			if (t instanceof NumberToken) {
+				stack[top++] = ((NumberToken) t).getDoubleValue();
+			} else if (t instanceof VariableToken) {
+				stack[top++] = values[variableSlots[i]];
+			} else if (t instanceof OperatorToken) {
+				final OperatorToken op = (OperatorToken) t;
+				if (op.getOperandCount() == 2) {
+					top--;
+					stack[top - 1] = op.applyOperation(stack[top - 1], stack[top]);
+				} else if (op.getOperandCount() == 1) {
+					stack[top - 1] = op.applyOperation(stack[top - 1], Double.NaN);
+				}
+			} else {
+				stack[top - 1] = ((FunctionToken) t).applyFunction(stack[top - 1]);
+			}
+		}
+		return stack[0];
+	}
+	
+	/*
+	 * resolve the variable slots and check the stack depth of the expression
+	 */
+	private void compile() {
+		if (referencedVariables != null) {
+			return;
+		}
+		final Token[] tokens = getTokens();
+		final List<String> names = new ArrayList<String>();
+		final int[] slots = new int[tokens.length];
+		boolean valid = true;
+		int depth = 0, maxDepth = 0;
+		for (int i = 0; i < tokens.length; i++) {
+			final Token t = tokens[i];
+			slots[i] = -1;
+			if (t instanceof NumberToken) {
+				depth++;
+			} else if (t instanceof VariableToken) {
+				int slot = names.indexOf(t.getValue());
+				if (slot < 0) {
+					slot = names.size();
+					names.add(t.getValue());
+				}
+				slots[i] = slot;
+				depth++;
+			} else if (t instanceof OperatorToken) {
+				final int count = ((OperatorToken) t).getOperandCount();
+				valid &= (count == 1 || count == 2) && depth >= count;
+				depth -= count - 1;
+			} else if (t instanceof FunctionToken) {
+				valid &= depth >= 1;
+			} else {
+				valid = false;
+			}
+			maxDepth = Math.max(maxDepth, depth);
+		}
+		primitive = valid && depth == 1;
+		valueStack = new double[maxDepth];
+		variableSlots = slots;
+		referencedVariables = names.toArray(new String[names.size()]);
+	}
 }
@@ -1,26 +1,67 @@
 package de.congrace.exp4j;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
 
 public class VariableSet extends HashSet<Variable> {
 
+	// index of the variables by name, so that lookups do not iterate over the set
+	private final Map<String, Variable> byName = new HashMap<String, Variable>();
+	
 	@Override
 	public boolean add(Variable v){
-		Variable previous = getVariableNamed(v.getName());
+		Variable previous = byName.put(v.getName(), v);
 		if ( previous != null ){
-			this.remove( previous );
+			super.remove( previous );
 		}
 			
 		return super.add(v);
 	}
 	
-	public Variable getVariableNamed(String name){
-		for (Variable var : this){
-			if (var.getName().equals(name) ){
-				return var;
-			}
+	@Override
+	public boolean remove(Object o){
+		boolean removed = super.remove(o);
+		if (removed){
+			byName.remove(((Variable) o).getName());
 		}
-		return null;
+		return removed;
+	}
+	
+	@Override
+	public void clear(){
+		super.clear();
+		byName.clear();
+	}
+	
+	@Override
+	public Iterator<Variable> iterator(){
+		final Iterator<Variable> iterator = super.iterator();
+		return new Iterator<Variable>() {
+			private Variable current;
+			
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+			
+			@Override
+			public Variable next() {
+				current = iterator.next();
+				return current;
+			}
+			
+			@Override
+			public void remove() {
+				iterator.remove();
+				byName.remove(current.getName());
+			}
+		};
+	}
+	
+	public Variable getVariableNamed(String name){
+		return byName.get(name);
 	}
 	
 	public String[] getVariableNames(){
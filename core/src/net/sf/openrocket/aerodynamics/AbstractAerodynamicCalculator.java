@@ -1,10 +1,19 @@
 package net.sf.openrocket.aerodynamics;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import net.sf.openrocket.logging.WarningSet;
 import net.sf.openrocket.rocketcomponent.FlightConfiguration;
+import net.sf.openrocket.rocketcomponent.Rocket;
 import net.sf.openrocket.rocketcomponent.RocketComponent;
+import net.sf.openrocket.util.BugException;
 import net.sf.openrocket.util.MathUtil;
 import net.sf.openrocket.util.Coordinate;
 
@@ -21,6 +30,9 @@ public abstract class AbstractAerodynamicCalculator implements AerodynamicCalcul
 	/** Number of divisions used when calculating worst CP. */
 	public static final int DIVISIONS = 360;
 	
+	/** Number of divisions between the coarse samples of the worst CP search within a symmetry sector. */
+	private static final int WORST_CP_COARSE_STEP = 10;
+	
 	/**
 	 * A <code>WarningSet</code> that can be used if <code>null</code> is passed
 	 * to a calculation method.
@@ -29,6 +41,7 @@ public abstract class AbstractAerodynamicCalculator implements AerodynamicCalcul
 	
 	/** The aerodynamic modification ID of the latest rocket */
 	private int rocketAeroModID = -1;
+	private int rocketGlobalAeroModID = -1;
 	private int rocketTreeModID = -1;
 	
 	
@@ -56,22 +69,173 @@ public abstract class AbstractAerodynamicCalculator implements AerodynamicCalcul
 	@Override
 	public Coordinate getWorstCP(FlightConfiguration configuration, FlightConditions conditions,
 			WarningSet warnings) {
+		return getWorstCP(configuration, conditions, warnings, null);
+	}
+	
+	/**
+	 * Calculate the worst CP occurring for any lateral wind angle, optionally spreading the
+	 * CP calculations over a fork-join pool.  The theta angles are the same {@link #DIVISIONS}
+	 * divisions of the full circle as in a full scan, but only those in the symmetry sector
+	 * returned by {@link #getWorstCPSector(FlightConfiguration)} are searched, first coarsely
+	 * and then around the coarse minimum.  If the coarse scan shows more than one local
+	 * minimum, all divisions of the sector are calculated instead.  The worst theta angle is
+	 * stored in conditions.
+	 * <p>
+	 * In the pool each task uses its own calculator obtained from {@link #newInstance()}, and
+	 * the configuration is only read.
+	 * 
+	 * @param configuration		the rocket configuration.
+	 * @param conditions		the flight conditions.
+	 * @param warnings			the set in which to place warnings, or <code>null</code>.
+	 * @param pool				the pool for the CP calculations, or <code>null</code> to calculate
+	 * 							them in the calling thread.
+	 * @return					the worst (foremost) CP position for any lateral wind angle.
+	 */
+	public Coordinate getWorstCP(FlightConfiguration configuration, FlightConditions conditions,
+			WarningSet warnings, ForkJoinPool pool) {
+		final int sector = MathUtil.clamp(getWorstCPSector(configuration), 1, DIVISIONS);
+		final Coordinate[] cps = new Coordinate[sector];
+		
+		// The first calculation also initializes the caches shared with new instances
 		FlightConditions cond = conditions.clone();
-		Coordinate worst = new Coordinate(Double.MAX_VALUE);
-		Coordinate cp;
-		double theta = 0;
+		cond.setTheta(0);
+		cps[0] = getCP(configuration, cond, warnings);
+		
+		// Coarse scan of the sector, refined around the coarse minimum
+		final int step = (sector < DIVISIONS) ? WORST_CP_COARSE_STEP : 1;
+		int[] indices = new int[(sector + step - 1) / step];
+		for (int n = 0; n < indices.length; n++) {
+			indices[n] = n * step;
+		}
+		calculateCPs(configuration, conditions, warnings, pool, indices, cps);
+		int worst = findWorstCP(cps);
 		
-		for (int i = 0; i < DIVISIONS; i++) {
-			cond.setTheta(2 * Math.PI * i / DIVISIONS);
-			cp = getCP(configuration, cond, warnings);
-			if ((cp.weight > MathUtil.EPSILON) && (cp.x < worst.x)) {
-				worst = cp;
-				theta = cond.getTheta();
+		if (step > 1) {
+			// Fall back to the whole sector if the coarse scan does not show a single minimum
+			final boolean full = (worst < 0) || (countLocalMinima(cps, indices) > 1);
+			final int center = full ? 0 : worst;
+			final int count = full ? sector : Math.min(2 * step - 1, sector);
+			indices = new int[count];
+			for (int n = 0; n < count; n++) {
+				indices[n] = Math.floorMod(center - count / 2 + n, sector);
 			}
+			calculateCPs(configuration, conditions, warnings, pool, indices, cps);
+			worst = findWorstCP(cps);
 		}
 		
-		conditions.setTheta(theta);
+		if (worst < 0) {
+			conditions.setTheta(0);
+			return new Coordinate(Double.MAX_VALUE);
+		}
+		conditions.setTheta(2 * Math.PI * worst / DIVISIONS);
+		return cps[worst];
+	}
+	
+	/**
+	 * Return the number of theta divisions over which the CP repeats itself, i.e. the CP at
+	 * theta division <code>i + sector</code> is the same as at division <code>i</code>.  The
+	 * CP should have a single minimum within the sector, so that a coarse scan can be refined
+	 * around its minimum; the whole sector is calculated if the coarse scan finds several.
+	 * A sector of 1 means that the CP does not depend on theta.
+	 * <p>
+	 * The default implementation makes no assumptions and returns {@link #DIVISIONS}, in which
+	 * case all divisions are calculated.
+	 * 
+	 * @param configuration		the rocket configuration.
+	 * @return					the number of divisions in the symmetry sector, between 1 and {@link #DIVISIONS}.
+	 */
+	protected int getWorstCPSector(FlightConfiguration configuration) {
+		return DIVISIONS;
+	}
+	
+	/*
+	 * Calculate the CPs of the given theta divisions not yet calculated.
+	 */
+	private void calculateCPs(final FlightConfiguration configuration, final FlightConditions conditions,
+			final WarningSet warnings, ForkJoinPool pool, int[] indices, final Coordinate[] cps) {
+		final int[] missing = Arrays.stream(indices).filter(i -> cps[i] == null).distinct().toArray();
+		
+		if (pool == null || missing.length < 2) {
+			FlightConditions cond = conditions.clone();
+			for (int i : missing) {
+				cond.setTheta(2 * Math.PI * i / DIVISIONS);
+				cps[i] = getCP(configuration, cond, warnings);
+			}
+			return;
+		}
+		
+		// Contiguous chunks, each calculated by its own calculator instance
+		final int chunkCount = Math.min(pool.getParallelism(), missing.length);
+		List<Callable<WarningSet>> tasks = new ArrayList<Callable<WarningSet>>(chunkCount);
+		for (int c = 0; c < chunkCount; c++) {
+			final int from = c * missing.length / chunkCount;
+			final int to = (c + 1) * missing.length / chunkCount;
+			tasks.add(new Callable<WarningSet>() {
+				@Override
+				public WarningSet call() {
+					AerodynamicCalculator calculator = newInstance();
+					FlightConditions cond = conditions.clone();
+					WarningSet taskWarnings = new WarningSet();
+					for (int n = from; n < to; n++) {
+						final int i = missing[n];
+						cond.setTheta(2 * Math.PI * i / DIVISIONS);
+						cps[i] = calculator.getCP(configuration, cond, taskWarnings);
+					}
+					return taskWarnings;
+				}
+			});
+		}
 		
+		for (Future<WarningSet> future : pool.invokeAll(tasks)) {
+			try {
+				WarningSet taskWarnings = future.get();
+				if (warnings != null) {
+					warnings.addAll(taskWarnings);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new BugException("Interrupted while calculating the worst CP", e);
+			} catch (ExecutionException e) {
+				throw new BugException("Failed to calculate the worst CP", e.getCause());
+			}
+		}
+	}
+	
+	/*
+	 * Return the number of local minima of the CPs at the given cyclic sequence of divisions.
+	 * CPs without weight are not minima.
+	 */
+	private static int countLocalMinima(Coordinate[] cps, int[] indices) {
+		if (indices.length < 3) {
+			return indices.length;
+		}
+		int minima = 0;
+		for (int n = 0; n < indices.length; n++) {
+			final double previous = cpPosition(cps[indices[Math.floorMod(n - 1, indices.length)]]);
+			final double current = cpPosition(cps[indices[n]]);
+			final double next = cpPosition(cps[indices[(n + 1) % indices.length]]);
+			if (current < Double.MAX_VALUE && current < previous && current <= next) {
+				minima++;
+			}
+		}
+		return minima;
+	}
+	
+	private static double cpPosition(Coordinate cp) {
+		return (cp.weight > MathUtil.EPSILON) ? cp.x : Double.MAX_VALUE;
+	}
+	
+	/*
+	 * Return the first theta division of the foremost calculated CP, or -1 if none has weight.
+	 */
+	private static int findWorstCP(Coordinate[] cps) {
+		int worst = -1;
+		for (int i = 0; i < cps.length; i++) {
+			final Coordinate cp = cps[i];
+			if (cp != null && (cp.weight > MathUtil.EPSILON) && (worst < 0 || cp.x < cps[worst].x)) {
+				worst = i;
+			}
+		}
 		return worst;
 	}
 	
@@ -83,21 +247,33 @@ public abstract class AbstractAerodynamicCalculator implements AerodynamicCalcul
 	 * performed.  If the rocket has changed since the previous call to
 	 * <code>checkCache()</code>, then {@link #voidAerodynamicCache()} is called.
 	 * <p>
+	 * If only changes local to single components have occurred (such as fin cant
+	 * changes), {@link #voidComponentCache(FlightConfiguration)} is called instead.
+	 * <p>
 	 * This method performs the checking based on the rocket's modification IDs,
 	 * so that these method may be called from listeners of the rocket itself.
 	 * 
 	 * @param	configuration	the configuration of the current call
 	 */
 	protected final void checkCache(FlightConfiguration configuration) {
-		if (rocketAeroModID != configuration.getRocket().getAerodynamicModID() ||
-				rocketTreeModID != configuration.getRocket().getTreeModID()) {
+		final Rocket rocket = configuration.getRocket();
+		if (rocketAeroModID != rocket.getAerodynamicModID() ||
+				rocketTreeModID != rocket.getTreeModID()) {
 			// // vvvv DEVEL vvvv
 			// log.error("Voiding the aerodynamic cache because modIDs changed...", new BugException(" unsure why modID has changed..."));
 			// // ^^^^ DEVEL ^^^^
 			
-			rocketAeroModID = configuration.getRocket().getAerodynamicModID();
-			rocketTreeModID = configuration.getRocket().getTreeModID();
-			voidAerodynamicCache();
+			boolean local = (rocketTreeModID == rocket.getTreeModID() &&
+					rocketGlobalAeroModID == rocket.getGlobalAerodynamicModID());
+			
+			rocketAeroModID = rocket.getAerodynamicModID();
+			rocketGlobalAeroModID = rocket.getGlobalAerodynamicModID();
+			rocketTreeModID = rocket.getTreeModID();
+			if (local) {
+				voidComponentCache(configuration);
+			} else {
+				voidAerodynamicCache();
+			}
 		}
 	}
 	
@@ -114,5 +290,17 @@ public abstract class AbstractAerodynamicCalculator implements AerodynamicCalcul
 		// No-op
 	}
 	
+	/**
+	 * Void cached data of the components whose
+	 * {@link RocketComponent#getComponentAerodynamicModID()} has changed.  This method is
+	 * called instead of {@link #voidAerodynamicCache()} when only component-local changes
+	 * have occurred.  The default implementation voids all cached data.
+	 * 
+	 * @param	configuration	the configuration of the current call
+	 */
+	protected void voidComponentCache(FlightConfiguration configuration) {
+		voidAerodynamicCache();
+	}
+	
 
 }
@@ -10,6 +10,10 @@ import net.sf.openrocket.util.Monitorable;
 
 /**
  * An interface for performing aerodynamic calculations on rockets.
+ * <p>
+ * Calculators cache data of the latest calculation and are not thread-safe.  An instance
+ * must be used by one thread at a time; concurrent simulations each use their own
+ * instance obtained from {@link #newInstance()}.
  * 
  * @author Sampo Niskanen <sampo.niskanen@iki.fi>
  */
@@ -62,7 +66,8 @@ public interface AerodynamicCalculator extends Monitorable {
 			WarningSet warnings);
 	
 	/**
-	 * Return a new instance of this aerodynamic calculator type.
+	 * Return a new instance of this aerodynamic calculator type.  The new instance may
+	 * share immutable data with this instance, but may be used concurrently with it.
 	 * 
 	 * @return	a new, independent instance of this aerodynamic calculator type
 	 */
@@ -30,22 +30,24 @@ import net.sf.openrocket.unit.UnitGroup;
 import net.sf.openrocket.util.Coordinate;
 import net.sf.openrocket.util.MathUtil;
 import net.sf.openrocket.util.PolyInterpolator;
-import net.sf.openrocket.util.Reflection;
 
 
 /**
  * An aerodynamic calculator that uses the extended Barrowman method to 
  * calculate the CP of a rocket.
+ * <p>
+ * The component calculators are held in a {@link CompiledAerodynamicModel}, which is
+ * immutable and shared with the instances created by {@link #newInstance()}.  Only the
+ * warning set and the damping cache are kept per instance, so each thread uses its own
+ * instance while the model of the same rocket is built only once.
  * 
  * @author Sampo Niskanen <sampo.niskanen@iki.fi>
  */
 public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 	private static final Logger log = LoggerFactory.getLogger(BarrowmanCalculator.class);
 	
-	private static final String BARROWMAN_PACKAGE = "net.sf.openrocket.aerodynamics.barrowman";
-	private static final String BARROWMAN_SUFFIX = "Calc";
-	
-	private Map<RocketComponent, RocketComponentCalc> calcMap = null;
+	// The compiled model of the latest rocket, shared with the instances created by newInstance()
+	private CompiledAerodynamicModel model = null;
 	
 	private double cacheDiameter = -1;
 	private double cacheLength = -1;
@@ -54,10 +56,21 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 		
 	}
 	
+	/**
+	 * Construct a calculator that starts from the compiled model of another calculator.
+	 */
+	protected BarrowmanCalculator(BarrowmanCalculator other) {
+		this.model = other.model;
+	}
+	
 	
+	/**
+	 * Return a new calculator sharing the compiled model of this calculator, so that the
+	 * new calculator does not need to rebuild the component calculators of the same rocket.
+	 */
 	@Override
 	public BarrowmanCalculator newInstance() {
-		return new BarrowmanCalculator();
+		return new BarrowmanCalculator(this);
 	}
 	
 	
@@ -72,16 +85,45 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 
 		return forces.getCP();
 	}
-	
-	
-	
+
+
+	/**
+	 * The CP depends on theta only through the normal force of each fin, which is
+	 * proportional to sin^2(theta - fin angle); fin sets are the only components whose
+	 * calculation depends on theta.  The CP therefore repeats every 180 degrees, and the
+	 * normal force of a fin set does not depend on theta at all if the second harmonics of
+	 * its fin angles cancel out, as for three or more evenly spaced fins.
+	 * <p>
+	 * With any number of fin sets the CP is a ratio (A + B cos(2 theta - a)) / (C + D cos(2 theta - b)),
+	 * whose derivative vanishes where E sin(2 theta - c) + F does, at most twice per 180 degrees.
+	 * The CP thus has a single minimum in the sector.
+	 */
+	@Override
+	protected int getWorstCPSector(FlightConfiguration configuration) {
+		for (Map.Entry<RocketComponent, ArrayList<InstanceContext>> entry : configuration.getActiveInstances().entrySet()) {
+			if (!(entry.getKey() instanceof FinSet)) {
+				continue;
+			}
+			double cos = 0;
+			double sin = 0;
+			for (InstanceContext context : entry.getValue()) {
+				final double angle = 2 * context.transform.getXrotation();
+				cos += Math.cos(angle);
+				sin += Math.sin(angle);
+			}
+			if (MathUtil.hypot(cos, sin) > 1e-9 * entry.getValue().size()) {
+				return DIVISIONS / 2;
+			}
+		}
+		return 1;
+	}
+
+
 	@Override
 	public Map<RocketComponent, AerodynamicForces> getForceAnalysis(FlightConfiguration configuration,
 																	FlightConditions conditions,
 																	WarningSet warnings) {
-		if (calcMap == null){
-			buildCalcMap(configuration);
-		}
+		updateModel(configuration);
 
 		InstanceMap instMap = configuration.getActiveInstances();
 		Map<RocketComponent, AerodynamicForces> eachMap = new LinkedHashMap<>();
@@ -151,7 +193,7 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 
 		// forces for this component, _only_
 		if(comp.isAerodynamic() || comp instanceof ComponentAssembly) {
-			RocketComponentCalc calcObj = calcMap.get(comp);
+			RocketComponentCalc calcObj = model.getCalc(comp);
 			if (null == calcObj) {
 				throw new NullPointerException("Could not find a CalculationObject for aerodynamic Component!: " + comp.getComponentName());
 			} else {
@@ -256,8 +298,7 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 		if (conditions.getAOA() > 17.5 * Math.PI / 180)
 			warnings.add(new Warning.LargeAOA(conditions.getAOA()));
 
-		if (calcMap == null)
-		buildCalcMap(configuration); //ERROR MODE: doesn't build a calc map with updated fin values, so calcs are wrong
+		updateModel(configuration);
 
 		checkGeometry(configuration, configuration.getRocket(), warnings);
 		
@@ -270,7 +311,7 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 			final RocketComponent comp = mapEntry.getKey();
 			final List<InstanceContext> contextList = mapEntry.getValue();
 
-			RocketComponentCalc calcObj = calcMap.get(comp);
+			RocketComponentCalc calcObj = model.getCalc(comp);
 			if (null != calcObj) {
 				// calculated across all component instances
 				final AerodynamicForces componentForces = calculateComponentNonAxialForces(conditions, comp, calcObj, contextList, warnings);
@@ -282,6 +323,29 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 		return assemblyForces;
 	}
 
+	/**
+	 * Calculate the non-axial forces of a single component, summed over its active instances.
+	 * This is used by calculators that tabulate the forces of individual components.
+	 */
+	AerodynamicForces calculateComponentNonAxialForces(FlightConfiguration configuration, FlightConditions conditions,
+			RocketComponent component, WarningSet warnings) {
+		RocketComponentCalc calcObj = getComponentCalc(configuration, component);
+		List<InstanceContext> contextList = configuration.getActiveInstances().get(component);
+		if (calcObj == null || contextList == null) {
+			return new AerodynamicForces().zero();
+		}
+		return calculateComponentNonAxialForces(conditions, component, calcObj, contextList, warnings);
+	}
+
+	/**
+	 * Return the calculator of a component, or <code>null</code> if the component has no aerodynamic effect.
+	 */
+	RocketComponentCalc getComponentCalc(FlightConfiguration configuration, RocketComponent component) {
+		checkCache(configuration);
+		updateModel(configuration);
+		return model.getCalc(component);
+	}
+
 	@Override
 	public void checkGeometry(FlightConfiguration configuration, final RocketComponent treeRoot, WarningSet warnings ){
 		Queue<RocketComponent> queue = new LinkedList<>();
@@ -430,8 +494,7 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 
 		double roughnessCorrection = calculateRoughnessCorrection(mach);
 		
-		if (calcMap == null)
-			buildCalcMap(configuration);
+		updateModel(configuration);
 		
 		/*
 		 * Calculate the friction drag coefficient.
@@ -490,7 +553,7 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 				
 			}
 
-			double componentFrictionCD = calcMap.get(c).calculateFrictionCD(conditions, componentCf, warningSet);
+			double componentFrictionCD = model.getCalc(c).calculateFrictionCD(conditions, componentCf, warningSet);
 			int instanceCount = entry.getValue().size();
 			
 			if (c instanceof SymmetricComponent) {
@@ -674,8 +737,7 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 			Map<RocketComponent, AerodynamicForces> forceMap, WarningSet warningSet) {
 
 		double total, stagnation, base;
-		if (calcMap == null)
-			buildCalcMap(configuration);
+		updateModel(configuration);
 		
 		stagnation = calculateStagnationCD(conditions.getMach());
 		base = calculateBaseCD(conditions.getMach());
@@ -697,7 +759,7 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 			int instanceCount = entry.getValue().size();
 
 			// Pressure drag of this component
-			double cd = calcMap.get(c).calculatePressureCD(conditions, stagnation, base,
+			double cd = model.getCalc(c).calculatePressureCD(conditions, stagnation, base,
 															   warningSet);
 
 			if (forceMap != null) {
@@ -752,8 +814,7 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 		
 		double base, total;
 		
-		if (calcMap == null)
-			buildCalcMap(configuration);
+		updateModel(configuration);
 		
 		base = calculateBaseCD(conditions.getMach());
 		total = 0;
@@ -863,7 +924,7 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 	 * @param cd
 	 * @return
 	 */
-	private double calculateAxialCD(FlightConditions conditions, double cd) {
+	double calculateAxialCD(FlightConditions conditions, double cd) {
 		double aoa = MathUtil.clamp(conditions.getAOA(), 0, Math.PI);
 		double mul;
 		
@@ -898,8 +959,7 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 									   Map<RocketComponent, AerodynamicForces> assemblyMap,				   
 									   WarningSet warningSet) {
 		
-		if (calcMap == null)
-			buildCalcMap(configuration);
+		updateModel(configuration);
 
 		double total = 0;
 		final InstanceMap imap = configuration.getActiveInstances();
@@ -938,6 +998,18 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 		// Calculate pitch and yaw damping moments
 		double mul = getDampingMultiplier(configuration, conditions,
 										  conditions.getPitchCenter().x);
+		calculateDampingMoments(conditions, total, mul);
+	}
+	
+	/**
+	 * Calculate the pitch and yaw damping moments from a precomputed damping multiplier
+	 * and add them to the given forces.
+	 * 
+	 * @param conditions		flight conditions in consideration
+	 * @param total				acting aerodynamic forces
+	 * @param mul				the damping multiplier about the pitch center
+	 */
+	void calculateDampingMoments(FlightConditions conditions, AerodynamicForces total, double mul) {
 		double pitchRate = conditions.getPitchRate();
 		double yawRate = conditions.getYawRate();
 		double velocity = conditions.getVelocity();
@@ -957,6 +1029,27 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 
 	private double getDampingMultiplier(FlightConfiguration configuration, FlightConditions conditions,
 			double cgx) {
+		double mul = getBodyDampingMultiplier(configuration, conditions, cgx);
+
+		// Fins
+		// TODO: LOW: This could be optimized a lot...
+		for (RocketComponent c : configuration.getActiveComponents()) {
+			if (c instanceof FinSet) {
+				FinSet f = (FinSet) c;
+				mul += getFinDampingCoefficient(f) *
+						MathUtil.pow3(Math.abs(getFinDampingPosition(f) - cgx)) /
+						(conditions.getRefArea() * conditions.getRefLength());
+			}
+		}
+		
+		return mul;
+	}
+	
+	/**
+	 * Return the body tube part of the damping multiplier.
+	 */
+	double getBodyDampingMultiplier(FlightConfiguration configuration, FlightConditions conditions,
+			double cgx) {
 		if (cacheDiameter < 0) {
 			double area = 0;
 			cacheLength = 0;
@@ -979,54 +1072,73 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 		// Body
 		mul = 0.275 * cacheDiameter / (conditions.getRefArea() * conditions.getRefLength());
 		mul *= (MathUtil.pow4(cgx) + MathUtil.pow4(cacheLength - cgx));
-
-
-		// Fins
-		// TODO: LOW: This could be optimized a lot...
-		for (RocketComponent c : configuration.getActiveComponents()) {
-			if (c instanceof FinSet) {
-				FinSet f = (FinSet) c;
-
-
-				mul += 0.6 * Math.min(f.getFinCount(), 4) * f.getPlanformArea() *
-						MathUtil.pow3(Math.abs(f.toAbsolute(new Coordinate(
-								((FinSetCalc) calcMap.get(f)).getMidchordPos()))[0].x
-								- cgx)) /
-						(conditions.getRefArea() * conditions.getRefLength());
-			}
-		}
-		
 		return mul;
 	}
 	
+	/**
+	 * Return the damping coefficient of a fin set, which is multiplied by the cube of the
+	 * distance of its midchord from the pitch center.
+	 */
+	static double getFinDampingCoefficient(FinSet f) {
+		return 0.6 * Math.min(f.getFinCount(), 4) * f.getPlanformArea();
+	}
+	
+	/**
+	 * Return the absolute axial position of the midchord of a fin set.
+	 */
+	double getFinDampingPosition(FinSet f) {
+		return f.toAbsolute(new Coordinate(((FinSetCalc) model.getCalc(f)).getMidchordPos()))[0].x;
+	}
+	
 	
 	
-	////////  The calculator map
+	////////  The compiled model
 	
 	@Override
 	protected void voidAerodynamicCache() {
 		super.voidAerodynamicCache();
 		
-		calcMap = null;
 		cacheDiameter = -1;
 		cacheLength = -1;
 	}
 	
 	
-	private void buildCalcMap(FlightConfiguration configuration) {
-		calcMap = new HashMap<>();
-
-		for (RocketComponent comp: configuration.getAllComponents()) {
-			if (!comp.isAerodynamic() && !(comp instanceof ComponentAssembly)) {
-				continue;
-			}
-
-			RocketComponentCalc calcObj = (RocketComponentCalc) Reflection.construct(BARROWMAN_PACKAGE, comp, BARROWMAN_SUFFIX, comp);
-
-			calcMap.put(comp, calcObj ); 
+	/*
+	 * Local changes, e.g. fin cant changes, are handled by updateModel(), and the damping
+	 * cache remains valid.
+	 */
+	@Override
+	protected void voidComponentCache(FlightConfiguration configuration) {
+	}
+	
+	
+	/**
+	 * Bring the compiled model up to date with the rocket of the configuration.  The model
+	 * is recompiled after structural changes.  After local changes, e.g. a fin set whose cant
+	 * angle was changed, only the calculators of the changed components are rebuilt.
+	 */
+	private void updateModel(FlightConfiguration configuration) {
+		final Rocket rocket = configuration.getRocket();
+		if (model == null || !model.isCompatible(rocket)) {
+			model = CompiledAerodynamicModel.compile(configuration);
+		} else if (!model.isCurrent(rocket)) {
+			model = model.update(rocket);
 		}
 	}
 	
+	/**
+	 * Return the compiled model, up to date with the rocket of the configuration.
+	 */
+	CompiledAerodynamicModel getModel(FlightConfiguration configuration) {
+		updateModel(configuration);
+		return model;
+	}
+	
+	/** Return the cached calculator of a component, for testing. */
+	RocketComponentCalc getComponentCalc(RocketComponent comp) {
+		return (model == null) ? null : model.getCalc(comp);
+	}
+	
 	@Override
 	public int getModID() {
 		// Only cached data is stored, return constant mod ID
@@ -0,0 +1,129 @@
+package net.sf.openrocket.aerodynamics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sf.openrocket.aerodynamics.barrowman.RocketComponentCalc;
+import net.sf.openrocket.rocketcomponent.ComponentAssembly;
+import net.sf.openrocket.rocketcomponent.FlightConfiguration;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.rocketcomponent.RocketComponent;
+import net.sf.openrocket.util.Reflection;
+
+/**
+ * The geometry-derived state of the extended Barrowman method for one rocket, i.e. the
+ * calculators of its components.
+ * <p>
+ * A model is immutable once compiled, and may be shared by any number of calculators in
+ * any number of threads.  Components are looked up by their ID, so a model compiled
+ * for a rocket is valid for its copies, e.g. the per-simulation copies of concurrent
+ * simulations.  A model is valid for a rocket as long as its tree and global aerodynamic
+ * modification IDs are unchanged.  Local changes, such as fin cant changes, are handled
+ * by {@link #update(Rocket)}, which returns a new model sharing the calculators of the
+ * unchanged components.
+ */
+final class CompiledAerodynamicModel {
+
+	private static final String BARROWMAN_PACKAGE = "net.sf.openrocket.aerodynamics.barrowman";
+	private static final String BARROWMAN_SUFFIX = "Calc";
+
+	private final String rocketID;
+	private final int treeModID;
+	private final int globalAeroModID;
+	private final int aeroModID;
+
+	private final Map<RocketComponent, RocketComponentCalc> calcMap;
+	// Component aerodynamic mod IDs from when each calculator in calcMap was built
+	private final Map<RocketComponent, Integer> calcModIDs;
+
+
+	private CompiledAerodynamicModel(Rocket rocket, Map<RocketComponent, RocketComponentCalc> calcMap,
+			Map<RocketComponent, Integer> calcModIDs) {
+		this.rocketID = rocket.getID();
+		this.treeModID = rocket.getTreeModID();
+		this.globalAeroModID = rocket.getGlobalAerodynamicModID();
+		this.aeroModID = rocket.getAerodynamicModID();
+		this.calcMap = Collections.unmodifiableMap(calcMap);
+		this.calcModIDs = Collections.unmodifiableMap(calcModIDs);
+	}
+
+
+	/**
+	 * Compile the model of a configuration.  The calculators are built for all components
+	 * of the rocket, so the model is valid for any configuration of the rocket.
+	 *
+	 * @param configuration		the configuration to compile.
+	 * @return					the compiled model.
+	 */
+	public static CompiledAerodynamicModel compile(FlightConfiguration configuration) {
+		Map<RocketComponent, RocketComponentCalc> calcMap = new HashMap<>();
+		Map<RocketComponent, Integer> calcModIDs = new HashMap<>();
+
+		for (RocketComponent comp : configuration.getAllComponents()) {
+			if (!comp.isAerodynamic() && !(comp instanceof ComponentAssembly)) {
+				continue;
+			}
+
+			calcMap.put(comp, buildCalc(comp));
+			calcModIDs.put(comp, comp.getComponentAerodynamicModID());
+		}
+
+		return new CompiledAerodynamicModel(configuration.getRocket(), calcMap, calcModIDs);
+	}
+
+
+	/**
+	 * Return whether this model describes the structure of the given rocket or one of its copies.
+	 * Component-local changes may still require an {@link #update(Rocket)}.
+	 */
+	public boolean isCompatible(Rocket rocket) {
+		return treeModID == rocket.getTreeModID() &&
+				globalAeroModID == rocket.getGlobalAerodynamicModID() &&
+				rocketID.equals(rocket.getID());
+	}
+
+	/**
+	 * Return whether this model is up to date with the given compatible rocket.
+	 */
+	public boolean isCurrent(Rocket rocket) {
+		return aeroModID == rocket.getAerodynamicModID();
+	}
+
+	/**
+	 * Return a model with the calculators of the locally changed components of a compatible
+	 * rocket rebuilt, e.g. a fin set whose cant angle was changed.  The calculators of the
+	 * other components are shared with this model.
+	 *
+	 * @param rocket	a rocket compatible with this model.
+	 * @return			the updated model.
+	 */
+	public CompiledAerodynamicModel update(Rocket rocket) {
+		Map<RocketComponent, RocketComponentCalc> newCalcMap = new HashMap<>(calcMap);
+		Map<RocketComponent, Integer> newCalcModIDs = new HashMap<>(calcModIDs);
+
+		for (RocketComponent comp : rocket) {
+			Integer modID = calcModIDs.get(comp);
+			if (modID != null && modID != comp.getComponentAerodynamicModID()) {
+				newCalcMap.put(comp, buildCalc(comp));
+				newCalcModIDs.put(comp, comp.getComponentAerodynamicModID());
+			}
+		}
+
+		return new CompiledAerodynamicModel(rocket, newCalcMap, newCalcModIDs);
+	}
+
+
+	/**
+	 * Return the calculator of a component, or <code>null</code> if the component has no aerodynamic effect.
+	 */
+	public RocketComponentCalc getCalc(RocketComponent component) {
+		return calcMap.get(component);
+	}
+
+
+	private static RocketComponentCalc buildCalc(RocketComponent comp) {
+		return (RocketComponentCalc) Reflection.construct(BARROWMAN_PACKAGE, comp, BARROWMAN_SUFFIX, comp);
+	}
+
+}
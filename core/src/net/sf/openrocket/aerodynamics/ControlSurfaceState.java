@@ -0,0 +1,148 @@
+package net.sf.openrocket.aerodynamics;
+
+import java.util.Arrays;
+
+import net.sf.openrocket.rocketcomponent.FinSet;
+import net.sf.openrocket.util.MathUtil;
+
+/**
+ * The state of the actuated control surfaces of a rocket during a simulation.  Currently
+ * this holds cant angle overrides of fin sets, keyed by component ID so that they apply
+ * to the simulation's copy of the rocket as well.
+ * <p>
+ * Controllers update this state instead of modifying the fin sets of the rocket, so that
+ * no component change events are fired and several simulations of the same design may be
+ * controlled concurrently.  The state is passed to the aerodynamic calculator through
+ * {@link FlightConditions#setControlSurfaceState(ControlSurfaceState)}.  An overridden
+ * cant changes the aerodynamic roll forcing of the fin set; the small displacement of the
+ * fin roots caused by canting the component itself is not modeled.
+ * <p>
+ * This class is not thread-safe; each simulation has its own instance.
+ */
+public class ControlSurfaceState {
+
+	private static final int INITIAL_CAPACITY = 4;
+
+	private String[] ids = new String[INITIAL_CAPACITY];
+	private double[] cantAngles = new double[INITIAL_CAPACITY];
+	private int count = 0;
+
+
+	public ControlSurfaceState() {
+	}
+
+	/**
+	 * Construct a copy of another control surface state.
+	 */
+	public ControlSurfaceState(ControlSurfaceState other) {
+		copyFrom(other);
+	}
+
+
+	/**
+	 * Set the cant angle of a fin set, overriding the cant angle of the component.  The
+	 * angle is limited to the same range as {@link FinSet#setCantAngle(double)}.
+	 *
+	 * @param finSet	the fin set to cant.
+	 * @param cant		the cant angle in radians.
+	 * @return			the cant angle that was set.
+	 */
+	public double setCantAngle(FinSet finSet, double cant) {
+		return setCantAngle(finSet.getID(), cant);
+	}
+
+	/**
+	 * Set the cant angle of the fin set with the given component ID.
+	 *
+	 * @param componentId	the ID of the fin set.
+	 * @param cant			the cant angle in radians.
+	 * @return				the cant angle that was set.
+	 */
+	public double setCantAngle(String componentId, double cant) {
+		cant = MathUtil.clamp(cant, -FinSet.MAX_CANT_RADIANS, FinSet.MAX_CANT_RADIANS);
+		int index = indexOf(componentId);
+		if (index < 0) {
+			if (count == ids.length) {
+				ids = Arrays.copyOf(ids, count * 2);
+				cantAngles = Arrays.copyOf(cantAngles, count * 2);
+			}
+			index = count++;
+			ids[index] = componentId;
+		}
+		cantAngles[index] = cant;
+		return cant;
+	}
+
+	/**
+	 * Return the cant angle of a fin set.
+	 *
+	 * @param componentId	the ID of the fin set.
+	 * @param defaultCant	the value to return if the cant angle is not overridden.
+	 * @return				the overridden cant angle, or <code>defaultCant</code>.
+	 */
+	public double getCantAngle(String componentId, double defaultCant) {
+		int index = indexOf(componentId);
+		return (index < 0) ? defaultCant : cantAngles[index];
+	}
+
+	public boolean isCantOverridden(String componentId) {
+		return indexOf(componentId) >= 0;
+	}
+
+	/**
+	 * Remove the override of a fin set, reverting to the cant angle of the component.
+	 */
+	public void clearCantAngle(String componentId) {
+		int index = indexOf(componentId);
+		if (index < 0) {
+			return;
+		}
+		count--;
+		ids[index] = ids[count];
+		cantAngles[index] = cantAngles[count];
+		ids[count] = null;
+	}
+
+	/**
+	 * Remove all overrides.
+	 */
+	public void clear() {
+		Arrays.fill(ids, 0, count, null);
+		count = 0;
+	}
+
+	public int getOverrideCount() {
+		return count;
+	}
+
+	/**
+	 * Replace the contents of this state with those of another.
+	 */
+	public void copyFrom(ControlSurfaceState other) {
+		this.ids = other.ids.clone();
+		this.cantAngles = other.cantAngles.clone();
+		this.count = other.count;
+	}
+
+
+	private int indexOf(String componentId) {
+		for (int i = 0; i < count; i++) {
+			if (ids[i] == componentId || ids[i].equals(componentId)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("ControlSurfaceState[");
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append(ids[i]).append('=').append(Math.toDegrees(cantAngles[i])).append("\u00b0");
+		}
+		return sb.append(']').toString();
+	}
+}
@@ -74,6 +74,9 @@ public class FlightConditions implements Cloneable, ChangeSource, Monitorable {
 	
 	private AtmosphericConditions atmosphericConditions = new AtmosphericConditions();
 	
+	/** Actuated control surface state of a simulation, or null */
+	private ControlSurfaceState controlSurfaceState = null;
+	
 	
 	private int modID;
 	private int modIDadd = 0;
@@ -394,6 +397,27 @@ public class FlightConditions implements Cloneable, ChangeSource, Monitorable {
 	}
 	
 	
+	/**
+	 * Return the state of the actuated control surfaces, such as fin cant overrides, or
+	 * <code>null</code> if the rocket components are used as-is.  The state is shared,
+	 * not copied, by {@link #clone()}.
+	 */
+	public ControlSurfaceState getControlSurfaceState() {
+		return controlSurfaceState;
+	}
+	
+	/**
+	 * Set the state of the actuated control surfaces.  Changes made to the state object
+	 * will NOT generate change events.
+	 */
+	public void setControlSurfaceState(ControlSurfaceState controlSurfaceState) {
+		if (this.controlSurfaceState == controlSurfaceState)
+			return;
+		this.controlSurfaceState = controlSurfaceState;
+		fireChangeEvent();
+	}
+	
+	
 	/**
 	 * Retrieve the modification count of this object.  Each time it is modified
 	 * the modification count is increased by one.
@@ -0,0 +1,438 @@
+package net.sf.openrocket.aerodynamics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.openrocket.aerodynamics.barrowman.FinSetCalc;
+import net.sf.openrocket.aerodynamics.barrowman.RocketComponentCalc;
+import net.sf.openrocket.aerodynamics.barrowman.TubeFinSetCalc;
+import net.sf.openrocket.logging.Warning;
+import net.sf.openrocket.logging.WarningSet;
+import net.sf.openrocket.models.atmosphere.AtmosphericConditions;
+import net.sf.openrocket.rocketcomponent.FinSet;
+import net.sf.openrocket.rocketcomponent.FlightConfiguration;
+import net.sf.openrocket.rocketcomponent.FlightConfigurationId;
+import net.sf.openrocket.rocketcomponent.InstanceContext;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.rocketcomponent.RocketComponent;
+import net.sf.openrocket.rocketcomponent.TubeFinSet;
+import net.sf.openrocket.util.Coordinate;
+import net.sf.openrocket.util.MathUtil;
+
+/**
+ * An aerodynamic calculator that samples the extended Barrowman method once over a
+ * Mach x angle-of-attack grid and serves {@link #getAerodynamicForces} by bilinear
+ * interpolation of the table.  This is intended for campaigns of many simulations of
+ * the same configuration, such as Monte Carlo and optimization runs.
+ * <p>
+ * The table holds the normal force, pitching moment, CP and drag coefficients.  These
+ * are sampled at zero roll angle (theta), zero body rates and in standard sea level
+ * atmosphere, so that Reynolds number effects on the friction drag are those at sea
+ * level.  The roll forcing of each fin set is tabulated per radian of cant, so that
+ * actuated control surfaces need no new table.  The roll, pitch and
+ * yaw damping moments depend on the body rates and are calculated directly on every call.
+ * Mach numbers beyond the table, and rockets with more than 64 stages, are calculated
+ * directly as well.
+ * <p>
+ * The CP and force analysis methods are not tabulated.  The table is rebuilt when the
+ * rocket, the configuration or its active stages change.  The table is immutable and
+ * shared with the instances created by {@link #newInstance()}, and it is valid for copies
+ * of the rocket, so concurrent simulations of the same design sample it only once.  See
+ * {@link TabulatedAerodynamicsReport} for the accuracy of the table against the
+ * direct calculation.
+ */
+public class TabulatedAerodynamicCalculator extends BarrowmanCalculator {
+	private static final Logger log = LoggerFactory.getLogger(TabulatedAerodynamicCalculator.class);
+
+	/**
+	 * Default Mach number grid, denser at low speeds where the friction drag changes rapidly, in the
+	 * transonic region, and just above Mach 1 where the supersonic pressure drag peaks.
+	 */
+	public static final double[] DEFAULT_MACH_GRID = createGrid(new double[] { 0, 0.01, 0.05, 0.8, 1.0, 1.01, 1.2, 2.0 },
+			new double[] { 0.0025, 0.01, 0.05, 0.025, 0.0025, 0.019, 0.1 });
+
+	/** Default angle of attack grid, denser at small angles of attack. */
+	public static final double[] DEFAULT_AOA_GRID = createGrid(
+			new double[] { 0, Math.toRadians(10), Math.toRadians(20), Math.toRadians(90), Math.PI },
+			new double[] { Math.toRadians(1), Math.toRadians(2), Math.toRadians(5), Math.toRadians(10) });
+
+	// Tabulated values
+	private static final int CNA = 0;
+	private static final int CN = 1;
+	private static final int CM = 2;
+	private static final int CSIDE = 3;
+	private static final int CYAW = 4;
+	private static final int CPX = 5;
+	private static final int FRICTION_CD = 6;
+	private static final int PRESSURE_CD = 7;
+	private static final int BASE_CD = 8;
+	private static final int OVERRIDE_CD = 9;
+	private static final int VALUE_COUNT = 10;
+
+	private final double[] machGrid;
+	private final double[] aoaGrid;
+
+	// The table of the latest configuration, shared with the instances created by newInstance()
+	private Table table = null;
+
+
+	public TabulatedAerodynamicCalculator() {
+		this(DEFAULT_MACH_GRID, DEFAULT_AOA_GRID);
+	}
+
+	/**
+	 * Construct a calculator with the given grid.
+	 *
+	 * @param machGrid	the Mach numbers to sample, in increasing order starting from 0.
+	 * @param aoaGrid	the angles of attack to sample, in increasing order from 0 to PI.
+	 */
+	public TabulatedAerodynamicCalculator(double[] machGrid, double[] aoaGrid) {
+		checkGrid(machGrid, "Mach");
+		checkGrid(aoaGrid, "AOA");
+		if (machGrid[0] != 0 || aoaGrid[0] != 0 || !MathUtil.equals(aoaGrid[aoaGrid.length - 1], Math.PI)) {
+			throw new IllegalArgumentException("Mach grid must start at 0 and AOA grid must span 0..PI");
+		}
+		this.machGrid = machGrid.clone();
+		this.aoaGrid = aoaGrid.clone();
+	}
+
+	private TabulatedAerodynamicCalculator(TabulatedAerodynamicCalculator other) {
+		super(other);
+		this.machGrid = other.machGrid;
+		this.aoaGrid = other.aoaGrid;
+		this.table = other.table;
+	}
+
+
+	/**
+	 * Return a new calculator sharing the grid, the compiled model and the table of this
+	 * calculator, so that simulations of the same design sample the table only once.
+	 */
+	@Override
+	public TabulatedAerodynamicCalculator newInstance() {
+		return new TabulatedAerodynamicCalculator(this);
+	}
+
+	/**
+	 * Return the highest tabulated Mach number.  Faster flight conditions are calculated directly.
+	 */
+	public double getMaxMach() {
+		return machGrid[machGrid.length - 1];
+	}
+
+	/**
+	 * Return the number of grid points, i.e. the number of direct calculations needed to build the table.
+	 */
+	public int getGridSize() {
+		return machGrid.length * aoaGrid.length;
+	}
+
+
+	@Override
+	public AerodynamicForces getAerodynamicForces(FlightConfiguration configuration,
+			FlightConditions conditions, WarningSet warnings) {
+		checkCache(configuration);
+
+		final double mach = conditions.getMach();
+		if (!(mach <= getMaxMach()) || configuration.getRocket().getStageCount() > 64) {
+			return super.getAerodynamicForces(configuration, conditions, warnings);
+		}
+
+		if (warnings == null)
+			warnings = ignoreWarningSet;
+
+		final Table table = getTable(configuration, conditions, warnings);
+		final double[][] values = table.values;
+		final CompiledAerodynamicModel model = getModel(configuration);
+
+		if (conditions.getAOA() > 17.5 * Math.PI / 180)
+			warnings.add(new Warning.LargeAOA(conditions.getAOA()));
+
+		// Bilinear interpolation weights
+		final double aoa = MathUtil.clamp(conditions.getAOA(), 0, Math.PI);
+		final int i = findInterval(machGrid, mach);
+		final int j = findInterval(aoaGrid, aoa);
+		final double u = (mach - machGrid[i]) / (machGrid[i + 1] - machGrid[i]);
+		final double v = (aoa - aoaGrid[j]) / (aoaGrid[j + 1] - aoaGrid[j]);
+		final int i00 = i * aoaGrid.length + j;
+		final int i01 = i00 + 1;
+		final int i10 = i00 + aoaGrid.length;
+		final int i11 = i10 + 1;
+		final double w00 = (1 - u) * (1 - v);
+		final double w01 = (1 - u) * v;
+		final double w10 = u * (1 - v);
+		final double w11 = u * v;
+
+		final double[] result = new double[values.length];
+		for (int n = 0; n < values.length; n++) {
+			final double[] column = values[n];
+			result[n] = w00 * column[i00] + w01 * column[i01] + w10 * column[i10] + w11 * column[i11];
+		}
+
+		AerodynamicForces total = new AerodynamicForces().zero();
+		total.setCNa(result[CNA]);
+		total.setCP(new Coordinate(result[CPX], 0, 0, result[CNA]));
+		total.setCN(result[CN]);
+		total.setCm(result[CM]);
+		total.setCside(result[CSIDE]);
+		total.setCyaw(result[CYAW]);
+
+		total.setFrictionCD(result[FRICTION_CD]);
+		total.setPressureCD(result[PRESSURE_CD]);
+		total.setBaseCD(result[BASE_CD]);
+		total.setOverrideCD(result[OVERRIDE_CD]);
+		total.setCD(total.getFrictionCD() + total.getPressureCD() + total.getBaseCD() + total.getOverrideCD());
+		total.setCDaxial(calculateAxialCD(conditions, total.getCD()));
+
+		// Roll forcing is linear in the cant angle, which may be actuated during the flight
+		final ControlSurfaceState controlSurfaces = conditions.getControlSurfaceState();
+		double rollForce = 0;
+		double rollDamp = 0;
+		for (int k = 0; k < table.rollComponents.length; k++) {
+			// the calculators of the current model follow the cant of the fin sets
+			final RocketComponentCalc calc = model.getCalc(table.rollComponents[k]);
+			final double damping;
+			if (calc instanceof FinSetCalc) {
+				final FinSetCalc finCalc = (FinSetCalc) calc;
+				double cant = finCalc.getCantAngle();
+				if (controlSurfaces != null) {
+					cant = controlSurfaces.getCantAngle(table.rollComponents[k].getID(), cant);
+				}
+				rollForce += result[VALUE_COUNT + k] * cant;
+				damping = finCalc.calculateDampingMoment(conditions);
+			} else {
+				rollForce += result[VALUE_COUNT + k];
+				damping = ((TubeFinSetCalc) calc).calculateDampingMoment(conditions);
+			}
+			rollDamp += table.rollInstanceCounts[k] * damping;
+		}
+		total.setCrollForce(rollForce);
+		total.setCrollDamp(rollDamp);
+		total.setCroll(rollForce - rollDamp);
+
+		// Pitch and yaw damping, with the fin terms of the multiplier precomputed
+		final double cgx = conditions.getPitchCenter().x;
+		double mul = getBodyDampingMultiplier(configuration, conditions, cgx);
+		for (int k = 0; k < table.dampingFinCoefficients.length; k++) {
+			mul += table.dampingFinCoefficients[k] * MathUtil.pow3(Math.abs(table.dampingFinPositions[k] - cgx)) /
+					(conditions.getRefArea() * conditions.getRefLength());
+		}
+		calculateDampingMoments(conditions, total, mul);
+		total.setCm(total.getCm() - total.getPitchDampingMoment());
+		total.setCyaw(total.getCyaw() - total.getYawDampingMoment());
+
+		return total;
+	}
+
+
+	/*
+	 * Return the table of the configuration, sampling a new one if the current table was
+	 * sampled for another rocket state, configuration, set of active stages or reference
+	 * length.  Fin cant changes of the rocket also move the fin roots slightly and need a new
+	 * table, while the actuated cant of the control surfaces does not.
+	 */
+	private Table getTable(FlightConfiguration configuration, FlightConditions conditions, WarningSet warnings) {
+		final long stageMask = getStageMask(configuration);
+		final Table current = table;
+		if (current != null && current.matches(configuration, stageMask, conditions.getRefLength())) {
+			return current;
+		}
+
+		final long start = System.nanoTime();
+
+		// Fin sets producing roll moments, in the order of their tabulated forcing
+		List<RocketComponent> rollComponents = new ArrayList<RocketComponent>();
+		List<Integer> instanceCounts = new ArrayList<Integer>();
+		for (Map.Entry<RocketComponent, ArrayList<InstanceContext>> entry : configuration.getActiveInstances().entrySet()) {
+			final RocketComponent component = entry.getKey();
+			if ((component instanceof FinSet || component instanceof TubeFinSet) &&
+					getComponentCalc(configuration, component) != null) {
+				rollComponents.add(component);
+				instanceCounts.add(entry.getValue().size());
+			}
+		}
+		final int rollCount = rollComponents.size();
+		int[] counts = new int[rollCount];
+		ControlSurfaceState sampleCant = new ControlSurfaceState();
+		for (int k = 0; k < rollCount; k++) {
+			counts[k] = instanceCounts.get(k);
+			if (rollComponents.get(k) instanceof FinSet) {
+				sampleCant.setCantAngle((FinSet) rollComponents.get(k), FinSet.MAX_CANT_RADIANS);
+			}
+		}
+
+		List<FinSet> dampingFins = new ArrayList<FinSet>();
+		for (RocketComponent component : configuration.getActiveInstances().keySet()) {
+			if (component instanceof FinSet) {
+				getComponentCalc(configuration, component);
+				dampingFins.add((FinSet) component);
+			}
+		}
+		double[] finCoefficients = new double[dampingFins.size()];
+		double[] finPositions = new double[dampingFins.size()];
+		for (int k = 0; k < dampingFins.size(); k++) {
+			finCoefficients[k] = getFinDampingCoefficient(dampingFins.get(k));
+			finPositions[k] = getFinDampingPosition(dampingFins.get(k));
+		}
+
+		FlightConditions sample = new FlightConditions(configuration);
+		sample.setAtmosphericConditions(new AtmosphericConditions());
+		sample.setRefLength(conditions.getRefLength());
+
+		final int aoaCount = aoaGrid.length;
+		double[][] values = new double[VALUE_COUNT + rollCount][machGrid.length * aoaCount];
+		for (int i = 0; i < machGrid.length; i++) {
+			sample.setMach(machGrid[i]);
+			for (int j = 0; j < aoaCount; j++) {
+				sample.setAOA(aoaGrid[j]);
+				sample.setControlSurfaceState(null);
+				AerodynamicForces forces = super.getAerodynamicForces(configuration, sample, warnings);
+
+				final int index = i * aoaCount + j;
+				values[CNA][index] = forces.getCNa();
+				values[CN][index] = forces.getCN();
+				// the damping moments are calculated on each call, tabulate the moments without them
+				values[CM][index] = forces.getCm() + forces.getPitchDampingMoment();
+				values[CSIDE][index] = forces.getCside();
+				values[CYAW][index] = forces.getCyaw() + forces.getYawDampingMoment();
+				values[CPX][index] = forces.getCP().x;
+				values[FRICTION_CD][index] = forces.getFrictionCD();
+				values[PRESSURE_CD][index] = forces.getPressureCD();
+				values[BASE_CD][index] = forces.getBaseCD();
+				values[OVERRIDE_CD][index] = forces.getOverrideCD();
+
+				// the sample has no roll rate, so the roll moment is the forcing alone
+				sample.setControlSurfaceState(sampleCant);
+				for (int k = 0; k < rollCount; k++) {
+					double forcing = calculateComponentNonAxialForces(configuration, sample, rollComponents.get(k), warnings).getCrollForce();
+					if (rollComponents.get(k) instanceof FinSet) {
+						forcing /= FinSet.MAX_CANT_RADIANS;
+					}
+					values[VALUE_COUNT + k][index] = forcing;
+				}
+			}
+		}
+
+		table = new Table(configuration, stageMask, conditions.getRefLength(), values,
+				rollComponents.toArray(new RocketComponent[0]), counts, finCoefficients, finPositions);
+
+		log.debug("Built aerodynamic table of " + getGridSize() + " points in " + (System.nanoTime() - start) / 1000000 + " ms");
+		return table;
+	}
+
+	/*
+	 * Active stages are not reflected in the configuration modID in all cases, so they are part of
+	 * the table key.  Rockets with more than 64 stages are calculated directly.
+	 */
+	private static long getStageMask(FlightConfiguration configuration) {
+		long mask = 0;
+		final int stageCount = configuration.getRocket().getStageCount();
+		for (int stageNumber = 0; stageNumber < stageCount; stageNumber++) {
+			if (configuration.isStageActive(stageNumber)) {
+				mask |= 1L << stageNumber;
+			}
+		}
+		return mask;
+	}
+
+	/*
+	 * Return the index i of the grid interval grid[i]..grid[i+1] containing the value.
+	 * The value must be within the grid.
+	 */
+	private static int findInterval(double[] grid, double value) {
+		int index = Arrays.binarySearch(grid, value);
+		if (index < 0) {
+			index = -index - 2;
+		}
+		return MathUtil.clamp(index, 0, grid.length - 2);
+	}
+
+	private static void checkGrid(double[] grid, String name) {
+		if (grid.length < 2) {
+			throw new IllegalArgumentException(name + " grid must contain at least 2 points");
+		}
+		for (int i = 1; i < grid.length; i++) {
+			if (!(grid[i] > grid[i - 1])) {
+				throw new IllegalArgumentException(name + " grid must be strictly increasing");
+			}
+		}
+	}
+
+	/*
+	 * Create a grid of points from bounds[n] to bounds[n+1] with spacing steps[n].
+	 */
+	private static double[] createGrid(double[] bounds, double[] steps) {
+		double[] grid = new double[0];
+		for (int n = 0; n < steps.length; n++) {
+			int count = (int) Math.round((bounds[n + 1] - bounds[n]) / steps[n]);
+			int offset = grid.length;
+			grid = Arrays.copyOf(grid, offset + count + ((n == steps.length - 1) ? 1 : 0));
+			for (int k = 0; k < count; k++) {
+				grid[offset + k] = bounds[n] + (bounds[n + 1] - bounds[n]) * k / count;
+			}
+		}
+		grid[grid.length - 1] = bounds[bounds.length - 1];
+		return grid;
+	}
+
+
+	/**
+	 * An immutable table and the rocket state it was sampled for.  Components are identified
+	 * by their IDs, so the table is valid for copies of the rocket.
+	 */
+	private static final class Table {
+		private final String rocketID;
+		private final int treeModID;
+		private final int aeroModID;
+		private final FlightConfigurationId configId;
+		private final long stageMask;
+		private final double refLength;
+
+		// values[value][machIndex * aoaGrid.length + aoaIndex]
+		private final double[][] values;
+
+		/*
+		 * The fin sets producing roll moments.  Their roll forcing per radian of cant is tabulated
+		 * after the other values, the roll damping is calculated directly.  Tube fin sets have no
+		 * cant, so their forcing is tabulated as is.
+		 */
+		private final RocketComponent[] rollComponents;
+		private final int[] rollInstanceCounts;
+
+		// Fin terms of the pitch and yaw damping multiplier
+		private final double[] dampingFinCoefficients;
+		private final double[] dampingFinPositions;
+
+		private Table(FlightConfiguration configuration, long stageMask, double refLength, double[][] values,
+				RocketComponent[] rollComponents, int[] rollInstanceCounts,
+				double[] dampingFinCoefficients, double[] dampingFinPositions) {
+			final Rocket rocket = configuration.getRocket();
+			this.rocketID = rocket.getID();
+			this.treeModID = rocket.getTreeModID();
+			this.aeroModID = rocket.getAerodynamicModID();
+			this.configId = configuration.getId();
+			this.stageMask = stageMask;
+			this.refLength = refLength;
+			this.values = values;
+			this.rollComponents = rollComponents;
+			this.rollInstanceCounts = rollInstanceCounts;
+			this.dampingFinCoefficients = dampingFinCoefficients;
+			this.dampingFinPositions = dampingFinPositions;
+		}
+
+		private boolean matches(FlightConfiguration configuration, long stageMask, double refLength) {
+			final Rocket rocket = configuration.getRocket();
+			return this.stageMask == stageMask && this.refLength == refLength &&
+					treeModID == rocket.getTreeModID() &&
+					aeroModID == rocket.getAerodynamicModID() &&
+					rocketID.equals(rocket.getID()) &&
+					configId.equals(configuration.getId());
+		}
+	}
+
+}
@@ -0,0 +1,200 @@
+package net.sf.openrocket.aerodynamics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import net.sf.openrocket.models.atmosphere.AtmosphericModel;
+import net.sf.openrocket.models.atmosphere.ExtendedISAModel;
+import net.sf.openrocket.rocketcomponent.FinSet;
+import net.sf.openrocket.rocketcomponent.FlightConfiguration;
+import net.sf.openrocket.rocketcomponent.RocketComponent;
+
+/**
+ * Accuracy and speed of a {@link TabulatedAerodynamicCalculator} compared to the direct
+ * Barrowman calculation, over random flight conditions within the table.  The flight
+ * conditions vary Mach number, angle of attack, roll, pitch and yaw rates, the cant of
+ * the fin sets and altitude, so the errors include those of the sea level Reynolds number
+ * of the table.  The largest drag errors occur just above Mach 1, where the supersonic
+ * pressure drag of the direct calculation has a narrow peak, and at speeds below a few
+ * meters per second.
+ */
+public class TabulatedAerodynamicsReport {
+
+	/** The compared coefficients. */
+	public enum Coefficient {
+		CN, CM, CD, CPX, CROLL
+	}
+
+	private final int sampleCount;
+	private final double[] maxError = new double[Coefficient.values().length];
+	private final double[] rmsError = new double[Coefficient.values().length];
+	private final double[] maxValue = new double[Coefficient.values().length];
+	private double tableNanos;
+	private double directNanos;
+	private double tabulatedNanos;
+
+
+	private TabulatedAerodynamicsReport(int sampleCount) {
+		this.sampleCount = sampleCount;
+	}
+
+
+	/**
+	 * Compare the tabulated calculator to the direct calculation for the given configuration.
+	 *
+	 * @param configuration	the configuration to compare.
+	 * @param tabulated		the tabulated calculator; its table is built for the configuration.
+	 * @param sampleCount	the number of random flight conditions.
+	 * @param maxAOA		the maximum angle of attack of the flight conditions.
+	 * @param seed			the random seed of the flight conditions.
+	 * @return				the report.
+	 */
+	public static TabulatedAerodynamicsReport compare(FlightConfiguration configuration, TabulatedAerodynamicCalculator tabulated,
+			int sampleCount, double maxAOA, long seed) {
+		BarrowmanCalculator direct = new BarrowmanCalculator();
+		FlightConditions[] conditions = createConditions(configuration, tabulated.getMaxMach(), maxAOA, sampleCount, seed);
+		TabulatedAerodynamicsReport report = new TabulatedAerodynamicsReport(sampleCount);
+
+		long start = System.nanoTime();
+		tabulated.getAerodynamicForces(configuration, conditions[0], null);
+		report.tableNanos = System.nanoTime() - start;
+
+		AerodynamicForces[] directForces = new AerodynamicForces[sampleCount];
+		AerodynamicForces[] tabulatedForces = new AerodynamicForces[sampleCount];
+		// The first rounds warm up both calculators
+		for (int round = 0; round < 5; round++) {
+			start = System.nanoTime();
+			for (int i = 0; i < sampleCount; i++) {
+				directForces[i] = direct.getAerodynamicForces(configuration, conditions[i], null);
+			}
+			report.directNanos = (double) (System.nanoTime() - start) / sampleCount;
+
+			start = System.nanoTime();
+			for (int i = 0; i < sampleCount; i++) {
+				tabulatedForces[i] = tabulated.getAerodynamicForces(configuration, conditions[i], null);
+			}
+			report.tabulatedNanos = (double) (System.nanoTime() - start) / sampleCount;
+		}
+
+		for (int i = 0; i < sampleCount; i++) {
+			report.add(Coefficient.CN, directForces[i].getCN(), tabulatedForces[i].getCN());
+			report.add(Coefficient.CM, directForces[i].getCm(), tabulatedForces[i].getCm());
+			report.add(Coefficient.CD, directForces[i].getCD(), tabulatedForces[i].getCD());
+			report.add(Coefficient.CPX, directForces[i].getCP().x, tabulatedForces[i].getCP().x);
+			report.add(Coefficient.CROLL, directForces[i].getCroll(), tabulatedForces[i].getCroll());
+		}
+		for (int n = 0; n < report.rmsError.length; n++) {
+			report.rmsError[n] = Math.sqrt(report.rmsError[n] / sampleCount);
+		}
+
+		return report;
+	}
+
+	private static FlightConditions[] createConditions(FlightConfiguration configuration, double maxMach, double maxAOA,
+			int sampleCount, long seed) {
+		Random random = new Random(seed);
+		AtmosphericModel atmosphere = new ExtendedISAModel();
+		List<FinSet> finSets = new ArrayList<FinSet>();
+		for (RocketComponent component : configuration.getActiveInstances().keySet()) {
+			if (component instanceof FinSet) {
+				finSets.add((FinSet) component);
+			}
+		}
+		FlightConditions[] conditions = new FlightConditions[sampleCount];
+		for (int i = 0; i < sampleCount; i++) {
+			FlightConditions cond = new FlightConditions(configuration);
+			cond.setAtmosphericConditions(atmosphere.getConditions(3000 * random.nextDouble()));
+			cond.setMach(maxMach * random.nextDouble());
+			cond.setAOA(maxAOA * random.nextDouble());
+			cond.setRollRate(20 * (2 * random.nextDouble() - 1));
+			cond.setPitchRate(2 * (2 * random.nextDouble() - 1));
+			cond.setYawRate(2 * (2 * random.nextDouble() - 1));
+			ControlSurfaceState controlSurfaces = new ControlSurfaceState();
+			for (FinSet finSet : finSets) {
+				controlSurfaces.setCantAngle(finSet, FinSet.MAX_CANT_RADIANS * (2 * random.nextDouble() - 1));
+			}
+			cond.setControlSurfaceState(controlSurfaces);
+			conditions[i] = cond;
+		}
+		return conditions;
+	}
+
+	private void add(Coefficient coefficient, double expected, double actual) {
+		final int n = coefficient.ordinal();
+		final double error = Math.abs(actual - expected);
+		maxError[n] = Math.max(maxError[n], error);
+		rmsError[n] += error * error;
+		maxValue[n] = Math.max(maxValue[n], Math.abs(expected));
+	}
+
+
+	public int getSampleCount() {
+		return sampleCount;
+	}
+
+	/**
+	 * Return the maximum absolute error of a coefficient.
+	 */
+	public double getMaxError(Coefficient coefficient) {
+		return maxError[coefficient.ordinal()];
+	}
+
+	/**
+	 * Return the root mean square error of a coefficient.
+	 */
+	public double getRMSError(Coefficient coefficient) {
+		return rmsError[coefficient.ordinal()];
+	}
+
+	/**
+	 * Return the maximum absolute error of a coefficient relative to its largest magnitude
+	 * in the direct calculation.
+	 */
+	public double getRelativeMaxError(Coefficient coefficient) {
+		final int n = coefficient.ordinal();
+		return (maxValue[n] > 0) ? maxError[n] / maxValue[n] : maxError[n];
+	}
+
+	/**
+	 * Return the time to build the table, in milliseconds.
+	 */
+	public double getTableTime() {
+		return tableNanos / 1.0e6;
+	}
+
+	/**
+	 * Return the average time of a direct calculation, in microseconds.
+	 */
+	public double getDirectTime() {
+		return directNanos / 1000;
+	}
+
+	/**
+	 * Return the average time of a tabulated calculation, in microseconds.
+	 */
+	public double getTabulatedTime() {
+		return tabulatedNanos / 1000;
+	}
+
+	/**
+	 * Return how many times faster the tabulated calculation is than the direct one.
+	 */
+	public double getSpeedup() {
+		return directNanos / tabulatedNanos;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("Tabulated aerodynamics, %d samples%n", sampleCount));
+		sb.append(String.format("%-6s %12s %12s %12s%n", "", "max error", "rms error", "relative"));
+		for (Coefficient coefficient : Coefficient.values()) {
+			sb.append(String.format("%-6s %12.3g %12.3g %11.2f%%%n", coefficient, getMaxError(coefficient),
+					getRMSError(coefficient), 100 * getRelativeMaxError(coefficient)));
+		}
+		sb.append(String.format("Table %.1f ms, direct %.2f us/call, tabulated %.2f us/call, speedup %.1fx",
+				getTableTime(), getDirectTime(), getTabulatedTime(), getSpeedup()));
+		return sb.toString();
+	}
+}
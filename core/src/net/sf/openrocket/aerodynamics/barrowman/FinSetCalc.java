@@ -6,6 +6,7 @@ import static net.sf.openrocket.util.MathUtil.pow2;
 import java.util.Arrays;
 
 import net.sf.openrocket.aerodynamics.AerodynamicForces;
+import net.sf.openrocket.aerodynamics.ControlSurfaceState;
 import net.sf.openrocket.aerodynamics.FlightConditions;
 import net.sf.openrocket.logging.Warning;
 import net.sf.openrocket.logging.WarningSet;
@@ -50,6 +51,7 @@ public class FinSetCalc extends RocketComponentCalc {
 	private final double bodyRadius;
 	private final int finCount;
 	private final double cantAngle;
+	private final String componentId;
 	private final FinSet.CrossSection crossSection;
 	
 	/**
@@ -66,6 +68,7 @@ public class FinSetCalc extends RocketComponentCalc {
 		this.finCount = component.getFinCount();
 
 		this.cantAngle = component.getCantAngle();
+		this.componentId = component.getID();
 		this.span = component.getSpan();
 		this.finArea = component.getPlanformArea();
 		this.crossSection = component.getCrossSection();
@@ -188,7 +191,13 @@ public class FinSetCalc extends RocketComponentCalc {
 		//		forces.CrollForce = fins * (macSpan+r) * cna1 * component.getCantAngle() / 
 		//			conditions.getRefLength();
 		// With body-fin interference effect:
-		forces.setCrollForce((macSpan + r) * cna1 * (1 + tau) * cantAngle / conditions.getRefLength());
+		// The cant may be actuated by the simulation
+		double cant = cantAngle;
+		ControlSurfaceState controlSurfaces = conditions.getControlSurfaceState();
+		if (controlSurfaces != null) {
+			cant = controlSurfaces.getCantAngle(componentId, cantAngle);
+		}
+		forces.setCrollForce((macSpan + r) * cna1 * (1 + tau) * cant / conditions.getRefLength());
 		
 		if (conditions.getAOA() > STALL_ANGLE) {
 			//			System.out.println("Fin stalling in roll");
@@ -471,7 +480,20 @@ public class FinSetCalc extends RocketComponentCalc {
 		return cnaInterpolator.interpolate(mach, subV, superV, subD, superD, 0);
 	}
 	
-	private double calculateDampingMoment(FlightConditions conditions) {
+	/**
+	 * Return the cant angle of the fin set, in radians.
+	 */
+	public double getCantAngle() {
+		return cantAngle;
+	}
+	
+	/**
+	 * Return the roll damping moment coefficient of one fin set instance.
+	 * 
+	 * @param conditions	the flight conditions.
+	 * @return			the roll damping moment coefficient.
+	 */
+	public double calculateDampingMoment(FlightConditions conditions) {
 		double rollRate = conditions.getRollRate();
 
 
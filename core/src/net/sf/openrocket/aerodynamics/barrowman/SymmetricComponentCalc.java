@@ -87,12 +87,33 @@ public class SymmetricComponentCalc extends RocketComponentCalc {
 			throw new UnsupportedOperationException("Unknown component type " +
 					component.getComponentName());
 		}
+		
+		// Pre-calculate and store the results, so that the calculator is not modified
+		// by the calculations and may be shared between threads
+		if (MathUtil.equals(foreRadius, aftRadius)) {
+			isTube = true;
+			cnaCache = 0;
+			cpCache = Double.NaN;
+		} else {
+			isTube = false;
+			
+			final double A0 = Math.PI * pow2(foreRadius);
+			final double A1 = Math.PI * pow2(aftRadius);
+			
+			cnaCache = 2 * (A1 - A0);
+			//System.out.println("cnaCache = " + cnaCache);
+			cpCache = (length * A1 - fullVolume) / (A1 - A0);
+		}
+		
+		if (!isTube && length >= 0.001 && aftRadius >= foreRadius) {
+			calculateNoseInterpolator();
+		}
 	}
 	
 	
-	private boolean isTube = false;
-	private double cnaCache = Double.NaN;
-	private double cpCache = Double.NaN;
+	private final boolean isTube;
+	private final double cnaCache;
+	private final double cpCache;
 	
 	
 	/**
@@ -109,26 +130,6 @@ public class SymmetricComponentCalc extends RocketComponentCalc {
 	public void calculateNonaxialForces(FlightConditions conditions, Transformation transform,
 			AerodynamicForces forces, WarningSet warnings) {
 		
-		// Pre-calculate and store the results
-		if (Double.isNaN(cnaCache)) {
-			final double r0 = foreRadius;
-			final double r1 = aftRadius;
-			
-			if (MathUtil.equals(r0, r1)) {
-				isTube = true;
-				cnaCache = 0;
-			} else {
-				isTube = false;
-				
-				final double A0 = Math.PI * pow2(r0);
-				final double A1 = Math.PI * pow2(r1);
-				
-				cnaCache = 2 * (A1 - A0);
-				//System.out.println("cnaCache = " + cnaCache);
-				cpCache = (length * A1 - fullVolume) / (A1 - A0);
-			}
-		}
-		
 		Coordinate cp;
 		
 		// If fore == aft, only body lift is encountered
@@ -187,7 +188,8 @@ public class SymmetricComponentCalc extends RocketComponentCalc {
 		return componentCf * wetArea / conditions.getRefArea();
 	}
 
-	private LinearInterpolator interpolator = null;
+	// Calculated in the constructor for nose cones and shoulders
+	private LinearInterpolator interpolator;
 	
 	@Override
 	public double calculatePressureCD(FlightConditions conditions,
@@ -218,10 +220,6 @@ public class SymmetricComponentCalc extends RocketComponentCalc {
 		
 
 		// All nose cones and shoulders from pre-calculated and interpolating 
-		if (interpolator == null) {
-			calculateNoseInterpolator();
-		}
-		
 		return interpolator.getValue(conditions.getMach()) * frontalArea / conditions.getRefArea();
 	}
 	
@@ -133,6 +133,20 @@ public class TubeFinSetCalc extends TubeCalc {
 		log.debug("ar " + ar + ", cnaconst " + cnaconst);
 	}
 	
+	/**
+	 * Return the roll damping moment coefficient of one tube fin set instance.
+	 * 
+	 * @param conditions	the flight conditions.
+	 * @return			the roll damping moment coefficient.
+	 */
+	public double calculateDampingMoment(FlightConditions conditions) {
+		if (outerRadius < 0.001) {
+			return 0;
+		}
+		final double cna = cnaconst / conditions.getRefArea();
+		return (bodyRadius + outerRadius) * conditions.getRollRate()/conditions.getVelocity() * cna / conditions.getRefLength();
+	}
+
 	/*
 	 * Calculates the non-axial forces produced by the fins (normal and side forces,
 	 * pitch, yaw and roll moments, CP position, CNa).
@@ -173,7 +187,7 @@ public class TubeFinSetCalc extends TubeCalc {
 								 MathUtil.clamp(1 - (conditions.getAOA() - STALL_ANGLE) / (STALL_ANGLE / 2), 0, 1));
 		}
 
-		forces.setCrollDamp((bodyRadius + outerRadius) * conditions.getRollRate()/conditions.getVelocity() * cna / conditions.getRefLength());
+		forces.setCrollDamp(calculateDampingMoment(conditions));
 		
 		forces.setCroll(forces.getCrollForce() - forces.getCrollDamp());
 		
@@ -0,0 +1,216 @@
+package net.sf.openrocket.batch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonWriter;
+
+/**
+ * The result of one task of a batch run, a simulation or an optimization, as a row of named
+ * values.  Numerical values are in SI units.
+ */
+public class BatchResult {
+
+	/** The kind of a simulation result. */
+	public static final String SIMULATION = "simulation";
+	/** The kind of an optimization result. */
+	public static final String OPTIMIZATION = "optimization";
+
+	/** The status of a task that completed. */
+	public static final String OK = "ok";
+	/** The status of a task that failed. */
+	public static final String FAILED = "failed";
+
+	private static final String[] FIXED_COLUMNS = { "file", "kind", "name", "status", "message" };
+
+	private final String file;
+	private final String kind;
+	private final String name;
+	private String status = OK;
+	private String message = "";
+	private final Map<String, Object> values = new LinkedHashMap<String, Object>();
+
+
+	/**
+	 * @param file	the name of the rocket file.
+	 * @param kind	the kind of task, {@link #SIMULATION} or {@link #OPTIMIZATION}.
+	 * @param name	the name of the simulation or optimization.
+	 */
+	public BatchResult(String file, String kind, String name) {
+		this.file = file;
+		this.kind = kind;
+		this.name = name;
+	}
+
+
+	public String getFile() {
+		return file;
+	}
+
+	public String getKind() {
+		return kind;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public boolean isFailed() {
+		return FAILED.equals(status);
+	}
+
+	/**
+	 * Mark the task failed.
+	 *
+	 * @param message	a description of the failure.
+	 */
+	public void setFailed(String message) {
+		this.status = FAILED;
+		this.message = message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	/**
+	 * Set a value of the result.  Values are kept in the order they are first set.
+	 *
+	 * @param key		the name of the value.
+	 * @param value		a number, a string or a boolean.
+	 */
+	public void put(String key, Object value) {
+		values.put(key, value);
+	}
+
+	/**
+	 * Return a value of the result, or <code>null</code> if not set.
+	 */
+	public Object get(String key) {
+		return values.get(key);
+	}
+
+	public Map<String, Object> getValues() {
+		return Collections.unmodifiableMap(values);
+	}
+
+
+	/**
+	 * Write results as CSV, one row per result.  The columns are the union of the values of
+	 * the results, with empty fields for values a result does not have.
+	 *
+	 * @param results	the results to write.
+	 * @param out		the stream to write to, not closed.
+	 */
+	public static void writeCSV(List<BatchResult> results, OutputStream out) throws IOException {
+		Set<String> keys = new LinkedHashSet<String>();
+		for (BatchResult r : results) {
+			keys.addAll(r.values.keySet());
+		}
+
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		List<String> header = new ArrayList<String>();
+		Collections.addAll(header, FIXED_COLUMNS);
+		header.addAll(keys);
+		writeCSVRow(writer, header);
+
+		for (BatchResult r : results) {
+			List<String> row = new ArrayList<String>();
+			row.add(r.file);
+			row.add(r.kind);
+			row.add(r.name);
+			row.add(r.status);
+			row.add(r.message);
+			for (String key : keys) {
+				Object value = r.values.get(key);
+				row.add((value != null) ? value.toString() : "");
+			}
+			writeCSVRow(writer, row);
+		}
+		writer.flush();
+		if (writer.checkError()) {
+			throw new IOException("Error writing CSV results");
+		}
+	}
+
+	private static void writeCSVRow(PrintWriter writer, List<String> fields) {
+		for (int i = 0; i < fields.size(); i++) {
+			if (i > 0) {
+				writer.print(',');
+			}
+			String field = fields.get(i);
+			if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0) {
+				field = "\"" + field.replace("\"", "\"\"") + "\"";
+			}
+			writer.print(field);
+		}
+		writer.print("\r\n");
+	}
+
+
+	/**
+	 * Write results as a JSON array of objects.  Non-finite numbers are written as
+	 * <code>null</code>.
+	 *
+	 * @param results	the results to write.
+	 * @param out		the stream to write to, not closed.
+	 */
+	public static void writeJSON(List<BatchResult> results, OutputStream out) throws IOException {
+		JsonArrayBuilder array = Json.createArrayBuilder();
+		for (BatchResult r : results) {
+			JsonObjectBuilder object = Json.createObjectBuilder()
+					.add("file", r.file)
+					.add("kind", r.kind)
+					.add("name", r.name)
+					.add("status", r.status)
+					.add("message", r.message);
+			for (Map.Entry<String, Object> e : r.values.entrySet()) {
+				Object value = e.getValue();
+				if (value instanceof Integer || value instanceof Long) {
+					object.add(e.getKey(), ((Number) value).longValue());
+				} else if (value instanceof Number) {
+					double d = ((Number) value).doubleValue();
+					if (Double.isNaN(d) || Double.isInfinite(d)) {
+						object.addNull(e.getKey());
+					} else {
+						object.add(e.getKey(), d);
+					}
+				} else if (value instanceof Boolean) {
+					object.add(e.getKey(), (Boolean) value);
+				} else if (value == null) {
+					object.addNull(e.getKey());
+				} else {
+					object.add(e.getKey(), value.toString());
+				}
+			}
+			array.add(object);
+		}
+
+		OutputStreamWriter writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+		JsonWriter json = Json.createWriter(writer);
+		json.writeArray(array.build());
+		writer.write(System.lineSeparator());
+		writer.flush();
+	}
+}
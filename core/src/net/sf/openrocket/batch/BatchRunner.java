@@ -0,0 +1,579 @@
+package net.sf.openrocket.batch;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Guice;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.ConsoleAppender;
+import net.sf.openrocket.document.OpenRocketDocument;
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.file.CSVExport;
+import net.sf.openrocket.file.GeneralRocketLoader;
+import net.sf.openrocket.file.GeneralRocketSaver;
+import net.sf.openrocket.logging.Warning;
+import net.sf.openrocket.optimization.rocketoptimization.OptimizableParameter;
+import net.sf.openrocket.optimization.rocketoptimization.SimulationModifier;
+import net.sf.openrocket.optimization.services.OptimizationServiceHelper;
+import net.sf.openrocket.plugin.PluginModule;
+import net.sf.openrocket.simulation.FlightData;
+import net.sf.openrocket.simulation.FlightDataBranch;
+import net.sf.openrocket.simulation.FlightDataRecording;
+import net.sf.openrocket.simulation.FlightDataType;
+import net.sf.openrocket.startup.Application;
+import net.sf.openrocket.startup.HeadlessModule;
+import net.sf.openrocket.unit.Unit;
+
+/**
+ * Command line batch runner, running the simulations and optimizations of rocket files
+ * without a user interface, for example for regression runs and design sweeps on compute
+ * nodes.  Run without arguments for the options.
+ * <p>
+ * The optimizations are run first, each over all processors, and modify their simulation
+ * to the optimum found.  The simulations are then run in parallel.  A summary row is written
+ * for each simulation and optimization, and the rocket files with the results and the flight
+ * data can be saved.  AWT is never initialized.
+ * <p>
+ * The exit code is {@link #EXIT_OK} when all tasks succeed, {@link #EXIT_FAILED} when some
+ * task failed and {@link #EXIT_USAGE} for invalid arguments.
+ */
+public class BatchRunner {
+	private static final Logger log = LoggerFactory.getLogger(BatchRunner.class);
+
+	public static final int EXIT_OK = 0;
+	public static final int EXIT_FAILED = 1;
+	public static final int EXIT_USAGE = 2;
+
+	/** The kind of the results of reading and saving rocket files. */
+	public static final String FILE = "file";
+
+	private static final String USAGE =
+			"Usage:  java -cp OpenRocket.jar " + BatchRunner.class.getName() + " [options] <file.ork>...\n" +
+			"Options:\n" +
+			"  --simulation <name>  run the named simulation, may be repeated (default: all simulations)\n" +
+			"  --optimize <file>    run the optimization of a properties file before the simulations,\n" +
+			"                       may be repeated\n" +
+			"  --threads <n>        number of parallel simulations (default: number of processors)\n" +
+			"  --branch-threads <n> number of threads simulating the separated branches of each\n" +
+			"                       simulation (default: from the preferences, 1)\n" +
+			"  --save               save the results into the rocket files\n" +
+			"  --output <dir>       save the rocket files with the results into a directory\n" +
+			"  --summary <file>     write the summary into a file, JSON if the name ends with .json,\n" +
+			"                       otherwise CSV (default: CSV to standard output)\n" +
+			"  --csv <dir>          write the flight data of each simulation as CSV into a directory\n" +
+			"  --motors <path>      load motor files from a file or directory, may be repeated\n" +
+			"  --list               list the simulations, optimization parameters and modifiers\n";
+
+	private final PrintStream out;
+	private final PrintStream err;
+
+	private final List<File> rocketFiles = new ArrayList<File>();
+	private final Set<String> simulationNames = new LinkedHashSet<String>();
+	private final List<File> optimizationFiles = new ArrayList<File>();
+	private final List<File> motorFiles = new ArrayList<File>();
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int branchThreads = 0;
+	private boolean save = false;
+	private File outputDirectory = null;
+	private File summaryFile = null;
+	private File csvDirectory = null;
+	private boolean list = false;
+
+
+	/**
+	 * @param out	the stream for the summary and listings.
+	 * @param err	the stream for error messages.
+	 */
+	public BatchRunner(PrintStream out, PrintStream err) {
+		this.out = out;
+		this.err = err;
+	}
+
+
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		initializeLogging();
+
+		BatchRunner runner = new BatchRunner(System.out, System.err);
+		if (!runner.parseArguments(args)) {
+			System.exit(EXIT_USAGE);
+		}
+		Application.setInjector(Guice.createInjector(new HeadlessModule(runner.getMotorFiles()), new PluginModule()));
+		System.exit(runner.run());
+	}
+
+
+	/**
+	 * Parse the command line arguments.  Invalid arguments are reported with the usage.
+	 *
+	 * @param args	the command line arguments.
+	 * @return		whether the arguments are valid.
+	 */
+	public boolean parseArguments(String[] args) {
+		try {
+			for (int i = 0; i < args.length; i++) {
+				String arg = args[i];
+				if (!arg.startsWith("--")) {
+					rocketFiles.add(new File(arg));
+					continue;
+				}
+				switch (arg) {
+				case "--simulation":
+					simulationNames.add(value(args, ++i, arg));
+					break;
+				case "--optimize":
+					optimizationFiles.add(new File(value(args, ++i, arg)));
+					break;
+				case "--threads":
+					threads = Integer.parseInt(value(args, ++i, arg));
+					if (threads <= 0) {
+						throw new IllegalArgumentException("The number of threads must be positive");
+					}
+					break;
+				case "--branch-threads":
+					branchThreads = Integer.parseInt(value(args, ++i, arg));
+					if (branchThreads <= 0) {
+						throw new IllegalArgumentException("The number of branch threads must be positive");
+					}
+					break;
+				case "--save":
+					save = true;
+					break;
+				case "--output":
+					outputDirectory = new File(value(args, ++i, arg));
+					break;
+				case "--summary":
+					summaryFile = new File(value(args, ++i, arg));
+					break;
+				case "--csv":
+					csvDirectory = new File(value(args, ++i, arg));
+					break;
+				case "--motors":
+					motorFiles.add(new File(value(args, ++i, arg)));
+					break;
+				case "--list":
+					list = true;
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option " + arg);
+				}
+			}
+			if (rocketFiles.isEmpty()) {
+				throw new IllegalArgumentException("No rocket files given");
+			}
+			if (save && outputDirectory != null) {
+				throw new IllegalArgumentException("Only one of --save and --output may be given");
+			}
+		} catch (IllegalArgumentException e) {
+			// Also a NumberFormatException
+			err.println(e.getMessage());
+			err.println();
+			err.print(USAGE);
+			return false;
+		}
+		return true;
+	}
+
+	private static String value(String[] args, int i, String option) {
+		if (i >= args.length) {
+			throw new IllegalArgumentException("Missing value of " + option);
+		}
+		return args[i];
+	}
+
+	/**
+	 * Return the motor files given with <code>--motors</code>, to load into the motor database.
+	 */
+	public List<File> getMotorFiles() {
+		return motorFiles;
+	}
+
+
+	/**
+	 * Run the batch defined by the parsed arguments.  The application injector must be set.
+	 *
+	 * @return	the exit code.
+	 */
+	public int run() {
+		List<BatchResult> results = new ArrayList<BatchResult>();
+		List<OptimizationSpec> optimizations = new ArrayList<OptimizationSpec>();
+		for (File file : optimizationFiles) {
+			try {
+				optimizations.add(OptimizationSpec.load(file));
+			} catch (IOException e) {
+				err.println(e.getMessage());
+				return EXIT_USAGE;
+			}
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<OpenRocketDocument> documents = loadDocuments(executor, results);
+			if (branchThreads > 0) {
+				// Optimization evaluations copy the options of their simulation
+				for (OpenRocketDocument document : documents) {
+					if (document != null) {
+						for (Simulation simulation : document.getSimulations()) {
+							simulation.getOptions().setBranchThreadCount(branchThreads);
+						}
+					}
+				}
+			}
+
+			if (list) {
+				for (int i = 0; i < rocketFiles.size(); i++) {
+					if (documents.get(i) != null) {
+						list(rocketFiles.get(i), documents.get(i));
+					}
+				}
+				return hasFailures(results) ? EXIT_FAILED : EXIT_OK;
+			}
+
+			for (OptimizationSpec spec : optimizations) {
+				results.addAll(optimize(spec, documents));
+			}
+			results.addAll(simulate(executor, documents));
+			results.addAll(saveDocuments(documents));
+			writeSummary(results);
+		} catch (InterruptedException e) {
+			err.println("Interrupted");
+			Thread.currentThread().interrupt();
+			return EXIT_FAILED;
+		} catch (IOException e) {
+			err.println("Unable to write the summary: " + e.getMessage());
+			return EXIT_FAILED;
+		} finally {
+			executor.shutdownNow();
+		}
+
+		for (BatchResult r : results) {
+			if (r.isFailed()) {
+				err.println(r.getFile() + ": " + r.getKind() + " " + r.getName() + " failed: " + r.getMessage());
+			}
+		}
+		return hasFailures(results) ? EXIT_FAILED : EXIT_OK;
+	}
+
+
+	/**
+	 * Load the rocket files in parallel.  The documents are in the order of the files, with
+	 * <code>null</code> for the files that could not be read.
+	 */
+	private List<OpenRocketDocument> loadDocuments(ExecutorService executor, List<BatchResult> results)
+			throws InterruptedException {
+		List<Future<OpenRocketDocument>> futures = new ArrayList<Future<OpenRocketDocument>>();
+		for (final File file : rocketFiles) {
+			futures.add(executor.submit(new Callable<OpenRocketDocument>() {
+				@Override
+				public OpenRocketDocument call() throws Exception {
+					GeneralRocketLoader loader = new GeneralRocketLoader(file);
+					OpenRocketDocument document = loader.load();
+					for (Warning w : loader.getWarnings()) {
+						log.warn("Warning reading " + file + ": " + w);
+					}
+					return document;
+				}
+			}));
+		}
+
+		List<OpenRocketDocument> documents = new ArrayList<OpenRocketDocument>();
+		for (int i = 0; i < futures.size(); i++) {
+			try {
+				documents.add(futures.get(i).get());
+			} catch (ExecutionException e) {
+				BatchResult result = new BatchResult(rocketFiles.get(i).getName(), FILE, "load");
+				result.setFailed(String.valueOf(e.getCause().getMessage()));
+				results.add(result);
+				documents.add(null);
+			}
+		}
+		return documents;
+	}
+
+
+	/**
+	 * Run an optimization on every document containing its simulation.
+	 */
+	private List<BatchResult> optimize(OptimizationSpec spec, List<OpenRocketDocument> documents) {
+		List<BatchResult> results = new ArrayList<BatchResult>();
+		for (int i = 0; i < documents.size(); i++) {
+			OpenRocketDocument document = documents.get(i);
+			if (document == null || findSimulation(document, spec.getSimulationName()) == null) {
+				continue;
+			}
+			String fileName = rocketFiles.get(i).getName();
+			try {
+				results.add(spec.optimize(document, fileName, threads));
+			} catch (Exception e) {
+				// Failing simulations are reported as a BugException by the optimizer
+				log.warn("Optimization " + fileName + " / " + spec.getName() + " failed", e);
+				BatchResult result = new BatchResult(fileName, BatchResult.OPTIMIZATION, spec.getName());
+				result.setFailed(String.valueOf(e.getMessage()));
+				results.add(result);
+			}
+		}
+		if (results.isEmpty()) {
+			BatchResult result = new BatchResult("", BatchResult.OPTIMIZATION, spec.getName());
+			result.setFailed("No file contains the simulation '" + spec.getSimulationName() + "'");
+			results.add(result);
+		}
+		return results;
+	}
+
+
+	/**
+	 * Run the selected simulations of all documents in parallel.
+	 */
+	private List<BatchResult> simulate(ExecutorService executor, List<OpenRocketDocument> documents)
+			throws InterruptedException {
+		List<BatchResult> results = new ArrayList<BatchResult>();
+		List<Future<BatchResult>> futures = new ArrayList<Future<BatchResult>>();
+		Set<String> found = new LinkedHashSet<String>();
+		for (int i = 0; i < documents.size(); i++) {
+			OpenRocketDocument document = documents.get(i);
+			if (document == null) {
+				continue;
+			}
+			final String fileName = rocketFiles.get(i).getName();
+			for (final Simulation simulation : document.getSimulations()) {
+				if (!simulationNames.isEmpty() && !simulationNames.contains(simulation.getName())) {
+					continue;
+				}
+				found.add(simulation.getName());
+				futures.add(executor.submit(new Callable<BatchResult>() {
+					@Override
+					public BatchResult call() {
+						return simulate(fileName, simulation);
+					}
+				}));
+			}
+		}
+
+		for (Future<BatchResult> future : futures) {
+			try {
+				results.add(future.get());
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Unexpected exception running a simulation", e.getCause());
+			}
+		}
+		for (String name : simulationNames) {
+			if (!found.contains(name)) {
+				BatchResult result = new BatchResult("", BatchResult.SIMULATION, name);
+				result.setFailed("No file contains the simulation '" + name + "'");
+				results.add(result);
+			}
+		}
+		return results;
+	}
+
+	private BatchResult simulate(String fileName, Simulation simulation) {
+		BatchResult result = new BatchResult(fileName, BatchResult.SIMULATION, simulation.getName());
+		// The full flight data is only needed for saving it
+		boolean saveData = save || outputDirectory != null || csvDirectory != null;
+		try {
+			long t0 = System.currentTimeMillis();
+			simulation.simulate(saveData ? FlightDataRecording.ALL : FlightDataRecording.SUMMARY);
+			log.info("Simulated " + fileName + " / " + simulation.getName() + " in " + (System.currentTimeMillis() - t0) + " ms");
+		} catch (Exception e) {
+			log.warn("Simulation " + fileName + " / " + simulation.getName() + " failed", e);
+			result.setFailed(String.valueOf(e.getMessage()));
+		}
+
+		FlightData data = simulation.getSimulatedData();
+		if (data == null) {
+			return result;
+		}
+		result.put("maxAltitude", data.getMaxAltitude());
+		result.put("maxVelocity", data.getMaxVelocity());
+		result.put("maxAcceleration", data.getMaxAcceleration());
+		result.put("maxMachNumber", data.getMaxMachNumber());
+		result.put("timeToApogee", data.getTimeToApogee());
+		result.put("flightTime", data.getFlightTime());
+		result.put("groundHitVelocity", data.getGroundHitVelocity());
+		result.put("launchRodVelocity", data.getLaunchRodVelocity());
+		result.put("deploymentVelocity", data.getDeploymentVelocity());
+		result.put("optimumDelay", data.getOptimumDelay());
+		result.put("branches", data.getBranchCount());
+		StringBuilder warnings = new StringBuilder();
+		for (Warning w : data.getWarningSet()) {
+			if (warnings.length() > 0) {
+				warnings.append("; ");
+			}
+			warnings.append(w.toString());
+		}
+		result.put("warnings", warnings.toString());
+
+		if (csvDirectory != null && !result.isFailed()) {
+			try {
+				writeFlightData(fileName, simulation, data);
+			} catch (IOException e) {
+				result.setFailed("Unable to write the flight data: " + e.getMessage());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Write the flight data of each branch of a simulation as CSV, in SI units.
+	 */
+	private void writeFlightData(String fileName, Simulation simulation, FlightData data) throws IOException {
+		if (!csvDirectory.isDirectory() && !csvDirectory.mkdirs() && !csvDirectory.isDirectory()) {
+			throw new IOException("Unable to create directory " + csvDirectory);
+		}
+		String base = (baseName(fileName) + "-" + simulation.getName()).replaceAll("[^A-Za-z0-9._-]+", "_");
+		for (int b = 0; b < data.getBranchCount(); b++) {
+			FlightDataBranch branch = data.getBranch(b);
+			FlightDataType[] types = branch.getTypes();
+			Unit[] units = new Unit[types.length];
+			for (int i = 0; i < types.length; i++) {
+				units[i] = types[i].getUnitGroup().getSIUnit();
+			}
+			File file = new File(csvDirectory, base + ((data.getBranchCount() > 1) ? "-" + (b + 1) : "") + ".csv");
+			try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
+				CSVExport.exportCSV(os, simulation, branch, types, units, ",", 10, false, "#", true, true, true);
+			}
+		}
+	}
+
+
+	/**
+	 * Save the documents into the rocket files or the output directory.
+	 */
+	private List<BatchResult> saveDocuments(List<OpenRocketDocument> documents) {
+		List<BatchResult> results = new ArrayList<BatchResult>();
+		if (!save && outputDirectory == null) {
+			return results;
+		}
+		if (outputDirectory != null && !outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+			BatchResult result = new BatchResult("", FILE, "save");
+			result.setFailed("Unable to create directory " + outputDirectory);
+			results.add(result);
+			return results;
+		}
+
+		for (int i = 0; i < documents.size(); i++) {
+			OpenRocketDocument document = documents.get(i);
+			if (document == null) {
+				continue;
+			}
+			File source = rocketFiles.get(i);
+			File dest = save ? source : new File(outputDirectory, source.getName());
+			try {
+				new GeneralRocketSaver().save(dest, document);
+			} catch (Exception e) {
+				log.warn("Unable to save " + dest, e);
+				BatchResult result = new BatchResult(source.getName(), FILE, "save");
+				result.setFailed(String.valueOf(e.getMessage()));
+				results.add(result);
+			}
+		}
+		return results;
+	}
+
+
+	private void writeSummary(List<BatchResult> results) throws IOException {
+		if (summaryFile == null) {
+			BatchResult.writeCSV(results, out);
+			return;
+		}
+		try (OutputStream os = new BufferedOutputStream(new FileOutputStream(summaryFile))) {
+			if (summaryFile.getName().toLowerCase().endsWith(".json")) {
+				BatchResult.writeJSON(results, os);
+			} else {
+				BatchResult.writeCSV(results, os);
+			}
+		}
+	}
+
+
+	/**
+	 * List the names to use in the options and optimization specifications.
+	 */
+	private void list(File file, OpenRocketDocument document) {
+		out.println(file.getName());
+		out.println("  Simulations:");
+		for (Simulation s : document.getSimulations()) {
+			out.println("    " + s.getName());
+		}
+		out.println("  Optimization parameters:");
+		for (OptimizableParameter p : OptimizationServiceHelper.getOptimizableParameters(document)) {
+			out.println("    " + p.getName());
+		}
+		out.println("  Modifiers (default range in SI units):");
+		for (SimulationModifier m : OptimizationServiceHelper.getSimulationModifiers(document)) {
+			out.println("    " + OptimizationSpec.describe(m) + " : " + m.getMinValue() + " : " + m.getMaxValue());
+		}
+	}
+
+
+	private static Simulation findSimulation(OpenRocketDocument document, String name) {
+		for (Simulation s : document.getSimulations()) {
+			if (s.getName().equals(name)) {
+				return s;
+			}
+		}
+		return null;
+	}
+
+	private static boolean hasFailures(List<BatchResult> results) {
+		for (BatchResult r : results) {
+			if (r.isFailed()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String baseName(String fileName) {
+		int dot = fileName.lastIndexOf('.');
+		return (dot > 0) ? fileName.substring(0, dot) : fileName;
+	}
+
+
+	/**
+	 * Log warnings and errors to the standard error stream, keeping the standard output for
+	 * the summary, unless a logback configuration is given.
+	 */
+	private static void initializeLogging() {
+		if (System.getProperty("logback.configurationFile") != null ||
+				!(LoggerFactory.getILoggerFactory() instanceof LoggerContext)) {
+			return;
+		}
+		LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+		ch.qos.logback.classic.Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+		root.detachAndStopAllAppenders();
+		root.setLevel(Level.WARN);
+
+		ConsoleAppender<ILoggingEvent> appender = new ConsoleAppender<ILoggingEvent>();
+		appender.setName("console");
+		appender.setContext(context);
+		appender.setTarget("System.err");
+		PatternLayoutEncoder layout = new PatternLayoutEncoder();
+		layout.setContext(context);
+		layout.setPattern("%-8relative %-5level [%thread] %logger{2} - %message%n");
+		layout.start();
+		appender.setEncoder(layout);
+		appender.start();
+		root.addAppender(appender);
+	}
+}
@@ -0,0 +1,376 @@
+package net.sf.openrocket.batch;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.openrocket.document.OpenRocketDocument;
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.optimization.general.FunctionOptimizer;
+import net.sf.openrocket.optimization.general.OptimizationController;
+import net.sf.openrocket.optimization.general.OptimizationException;
+import net.sf.openrocket.optimization.general.ParallelExecutorCache;
+import net.sf.openrocket.optimization.general.ParallelFunctionCache;
+import net.sf.openrocket.optimization.general.Point;
+import net.sf.openrocket.optimization.general.SurrogateFunctionCache;
+import net.sf.openrocket.optimization.general.multidim.MultidirectionalSearchOptimizer;
+import net.sf.openrocket.optimization.general.onedim.GoldenSectionSearchOptimizer;
+import net.sf.openrocket.optimization.rocketoptimization.OptimizableParameter;
+import net.sf.openrocket.optimization.rocketoptimization.OptimizationGoal;
+import net.sf.openrocket.optimization.rocketoptimization.RocketOptimizationFunction;
+import net.sf.openrocket.optimization.rocketoptimization.RocketOptimizationListener;
+import net.sf.openrocket.optimization.rocketoptimization.SimulationDomain;
+import net.sf.openrocket.optimization.rocketoptimization.SimulationModifier;
+import net.sf.openrocket.optimization.rocketoptimization.domains.IdentitySimulationDomain;
+import net.sf.openrocket.optimization.rocketoptimization.domains.StabilityDomain;
+import net.sf.openrocket.optimization.rocketoptimization.goals.MaximizationGoal;
+import net.sf.openrocket.optimization.rocketoptimization.goals.MinimizationGoal;
+import net.sf.openrocket.optimization.rocketoptimization.goals.ValueSeekGoal;
+import net.sf.openrocket.optimization.services.OptimizationServiceHelper;
+import net.sf.openrocket.rocketcomponent.RocketComponent;
+import net.sf.openrocket.unit.Value;
+
+/**
+ * An optimization to run in a batch, read from a properties file such as
+ * <pre>
+ * simulation = Simulation 1
+ * parameter = Apogee altitude
+ * goal = maximize
+ * modifier.1 = Nose cone/Length : 0.05 : 0.2
+ * modifier.2 = Body tube/Length
+ * stability.min = 1.0
+ * surrogate = true
+ * </pre>
+ * The parameter and the modifiers are named as in the optimization dialog, the modifiers
+ * by the name of the component and the name of the modifier.  The modifier range is
+ * optional and in SI units, the default range is that of the optimization dialog.  The goal
+ * is <code>maximize</code>, <code>minimize</code> or the value to seek in SI units.  The
+ * optional stability limits are in calibers.  With <code>surrogate</code> the points
+ * unlikely to improve the optimum are screened by a {@link SurrogateFunctionCache}.  The
+ * optimization ends after <code>maxSteps</code> steps (default {@value #DEFAULT_MAX_STEPS})
+ * or when the step size is below <code>stepLimit</code> (default {@value #DEFAULT_STEP_LIMIT}).
+ * <p>
+ * Running the optimization modifies the simulation, and the rocket of the document, to the
+ * optimum found.
+ */
+public class OptimizationSpec {
+	private static final Logger log = LoggerFactory.getLogger(OptimizationSpec.class);
+
+	public static final int DEFAULT_MAX_STEPS = 1000;
+	public static final double DEFAULT_STEP_LIMIT = 0.005;
+
+	private final String name;
+	private final String simulationName;
+	private final String parameterName;
+	private final String goal;
+	private final List<String> modifiers;
+	private final double minStability;
+	private final double maxStability;
+	private final boolean surrogate;
+	private final int maxSteps;
+	private final double stepLimit;
+
+
+	/**
+	 * Read an optimization specification from a properties file.
+	 *
+	 * @param file	the file to read.
+	 * @return		the optimization specification.
+	 * @throws IOException	if the file cannot be read or is not a valid specification.
+	 */
+	public static OptimizationSpec load(File file) throws IOException {
+		Properties properties = new Properties();
+		try (InputStream is = Files.newInputStream(file.toPath());
+				Reader reader = new InputStreamReader(is, StandardCharsets.UTF_8)) {
+			properties.load(reader);
+		}
+		try {
+			return new OptimizationSpec(file.getName(), properties);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Invalid optimization specification " + file + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Construct an optimization specification from properties.
+	 *
+	 * @param name			the name of the optimization.
+	 * @param properties	the properties of the specification.
+	 * @throws IllegalArgumentException	if the specification is not valid.
+	 */
+	public OptimizationSpec(String name, Properties properties) {
+		this.name = name;
+		this.simulationName = required(properties, "simulation");
+		this.parameterName = required(properties, "parameter");
+		this.goal = required(properties, "goal");
+		if (!goal.equalsIgnoreCase("maximize") && !goal.equalsIgnoreCase("minimize")) {
+			parseDouble("goal", goal);
+		}
+
+		// Modifiers in the order of their numbers
+		Map<Integer, String> ordered = new TreeMap<Integer, String>();
+		for (String key : properties.stringPropertyNames()) {
+			if (key.startsWith("modifier.")) {
+				int n;
+				try {
+					n = Integer.parseInt(key.substring("modifier.".length()));
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException("Invalid modifier key " + key);
+				}
+				ordered.put(n, properties.getProperty(key).trim());
+			}
+		}
+		if (ordered.isEmpty()) {
+			throw new IllegalArgumentException("No modifiers defined");
+		}
+		this.modifiers = Collections.unmodifiableList(new ArrayList<String>(ordered.values()));
+		for (String modifier : modifiers) {
+			parseRange(modifier);
+		}
+
+		this.minStability = optionalDouble(properties, "stability.min", Double.NaN);
+		this.maxStability = optionalDouble(properties, "stability.max", Double.NaN);
+		this.surrogate = Boolean.parseBoolean(properties.getProperty("surrogate", "false").trim());
+		this.maxSteps = (int) optionalDouble(properties, "maxSteps", DEFAULT_MAX_STEPS);
+		this.stepLimit = optionalDouble(properties, "stepLimit", DEFAULT_STEP_LIMIT);
+		if (maxSteps <= 0 || !(stepLimit > 0)) {
+			throw new IllegalArgumentException("maxSteps and stepLimit must be positive");
+		}
+	}
+
+
+	public String getName() {
+		return name;
+	}
+
+	public String getSimulationName() {
+		return simulationName;
+	}
+
+	public String getParameterName() {
+		return parameterName;
+	}
+
+	public List<String> getModifiers() {
+		return modifiers;
+	}
+
+	public boolean isSurrogate() {
+		return surrogate;
+	}
+
+
+	/**
+	 * Run the optimization on a simulation of a document, and modify the simulation to the
+	 * optimum found.
+	 *
+	 * @param document	the document containing the simulation.
+	 * @param fileName	the name of the document file, for the result.
+	 * @param threads	the number of simulations to run in parallel.
+	 * @return			the result, with the parameter value and the modifier values at the optimum.
+	 * @throws OptimizationException	if the specification does not match the document or the
+	 * 									optimization fails.
+	 */
+	public BatchResult optimize(OpenRocketDocument document, String fileName, int threads) throws OptimizationException {
+		Simulation simulation = null;
+		for (Simulation s : document.getSimulations()) {
+			if (s.getName().equals(simulationName)) {
+				simulation = s;
+				break;
+			}
+		}
+		if (simulation == null) {
+			throw new OptimizationException("No simulation named '" + simulationName + "'");
+		}
+
+		OptimizableParameter parameter = findParameter(document);
+		SimulationModifier[] mods = new SimulationModifier[modifiers.size()];
+		for (int i = 0; i < mods.length; i++) {
+			mods[i] = findModifier(document, modifiers.get(i));
+			mods[i].initialize(simulation);
+		}
+
+		OptimizationGoal optimizationGoal;
+		if (goal.equalsIgnoreCase("maximize")) {
+			optimizationGoal = new MaximizationGoal();
+		} else if (goal.equalsIgnoreCase("minimize")) {
+			optimizationGoal = new MinimizationGoal();
+		} else {
+			optimizationGoal = new ValueSeekGoal(Double.parseDouble(goal));
+		}
+
+		SimulationDomain domain;
+		if (Double.isNaN(minStability) && Double.isNaN(maxStability)) {
+			domain = new IdentitySimulationDomain();
+		} else {
+			domain = new StabilityDomain(minStability, false, maxStability, false);
+		}
+
+		RocketOptimizationFunction function = new RocketOptimizationFunction(simulation, parameter,
+				optimizationGoal, domain, mods);
+		final Map<Point, Value> parameterValues = new ConcurrentHashMap<Point, Value>();
+		final AtomicInteger evaluations = new AtomicInteger();
+		function.addRocketOptimizationListener(new RocketOptimizationListener() {
+			@Override
+			public void evaluated(Point point, Value[] state, Value domainReference, Value parameterValue, double goalValue) {
+				evaluations.incrementAndGet();
+				if (parameterValue != null) {
+					parameterValues.put(point, parameterValue);
+				}
+			}
+		});
+
+		ParallelExecutorCache executor = new ParallelExecutorCache(threads);
+		try {
+			ParallelFunctionCache cache = surrogate ? new SurrogateFunctionCache(executor) : executor;
+			cache.setFunction(function);
+			FunctionOptimizer optimizer;
+			if (mods.length == 1) {
+				optimizer = new GoldenSectionSearchOptimizer(cache);
+			} else {
+				optimizer = new MultidirectionalSearchOptimizer(cache);
+			}
+
+			double[] current = new double[mods.length];
+			for (int i = 0; i < mods.length; i++) {
+				current[i] = mods[i].getCurrentScaledValue(simulation);
+			}
+			final AtomicInteger steps = new AtomicInteger();
+			optimizer.optimize(new Point(current), new OptimizationController() {
+				@Override
+				public boolean stepTaken(Point oldPoint, double oldValue, Point newPoint, double newValue, double stepSize) {
+					return steps.incrementAndGet() < maxSteps && stepSize >= stepLimit;
+				}
+			});
+
+			Point optimum = optimizer.getOptimumPoint();
+			log.info("Optimization " + name + " ended after " + steps.get() + " steps and " + evaluations.get() +
+					" evaluations at " + optimum + ", goal value " + optimizer.getOptimumValue());
+			for (int i = 0; i < mods.length; i++) {
+				mods[i].modify(simulation, optimum.get(i));
+			}
+
+			BatchResult result = new BatchResult(fileName, BatchResult.OPTIMIZATION, name);
+			result.put("simulation", simulationName);
+			result.put("parameter", parameter.getName());
+			Value value = parameterValues.get(optimum);
+			result.put("parameterValue", (value != null) ? value.getValue() : Double.NaN);
+			for (int i = 0; i < mods.length; i++) {
+				result.put(describe(mods[i]), mods[i].getCurrentSIValue(simulation));
+			}
+			result.put("steps", steps.get());
+			result.put("evaluations", evaluations.get());
+			if (cache instanceof SurrogateFunctionCache) {
+				result.put("screened", ((SurrogateFunctionCache) cache).getScreenedCount());
+			}
+			if (value == null) {
+				result.setMessage("The optimum is outside of the simulation domain");
+			}
+			return result;
+		} finally {
+			executor.getExecutor().shutdownNow();
+		}
+	}
+
+
+	/**
+	 * Return the name of a modifier as used in the specification, the name of the component
+	 * it modifies and the name of the modifier separated by a slash.
+	 */
+	public static String describe(SimulationModifier modifier) {
+		Object related = modifier.getRelatedObject();
+		String object = (related instanceof RocketComponent) ? ((RocketComponent) related).getName() : String.valueOf(related);
+		return object + "/" + modifier.getName();
+	}
+
+
+	private OptimizableParameter findParameter(OpenRocketDocument document) throws OptimizationException {
+		for (OptimizableParameter p : OptimizationServiceHelper.getOptimizableParameters(document)) {
+			if (p.getName().equalsIgnoreCase(parameterName)) {
+				return p;
+			}
+		}
+		throw new OptimizationException("No optimization parameter named '" + parameterName + "'");
+	}
+
+	private static SimulationModifier findModifier(OpenRocketDocument document, String spec) throws OptimizationException {
+		String key = spec.split(":")[0].trim();
+		SimulationModifier found = null;
+		for (SimulationModifier m : OptimizationServiceHelper.getSimulationModifiers(document)) {
+			if (describe(m).equalsIgnoreCase(key)) {
+				if (found != null) {
+					throw new OptimizationException("Modifier name '" + key + "' is ambiguous");
+				}
+				found = m;
+			}
+		}
+		if (found == null) {
+			throw new OptimizationException("No modifier named '" + key + "'");
+		}
+
+		double[] range = parseRange(spec);
+		if (range != null) {
+			found.setMinValue(range[0]);
+			found.setMaxValue(range[1]);
+		}
+		return found;
+	}
+
+	/**
+	 * Return the range of a modifier specification, or <code>null</code> if not specified.
+	 */
+	private static double[] parseRange(String spec) {
+		String[] parts = spec.split(":");
+		if (parts.length == 1) {
+			return null;
+		}
+		if (parts.length != 3) {
+			throw new IllegalArgumentException("Invalid modifier '" + spec + "', expected name or name:min:max");
+		}
+		double min = parseDouble("modifier minimum", parts[1]);
+		double max = parseDouble("modifier maximum", parts[2]);
+		if (!(min < max)) {
+			throw new IllegalArgumentException("Empty modifier range in '" + spec + "'");
+		}
+		return new double[] { min, max };
+	}
+
+	private static String required(Properties properties, String key) {
+		String value = properties.getProperty(key);
+		if (value == null || value.trim().isEmpty()) {
+			throw new IllegalArgumentException("Missing property " + key);
+		}
+		return value.trim();
+	}
+
+	private static double optionalDouble(Properties properties, String key, double defaultValue) {
+		String value = properties.getProperty(key);
+		if (value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+		return parseDouble(key, value);
+	}
+
+	private static double parseDouble(String what, String value) {
+		try {
+			return Double.parseDouble(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid " + what + " '" + value.trim() + "'");
+		}
+	}
+}
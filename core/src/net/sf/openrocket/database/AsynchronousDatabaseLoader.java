@@ -1,5 +1,16 @@
 package net.sf.openrocket.database;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import net.sf.openrocket.util.BugException;
+
 /**
  * A class that manages calling a DatabaseLoader in the background.
  * 
@@ -123,6 +134,45 @@ public abstract class AsynchronousDatabaseLoader {
 	 */
 	protected abstract void loadDatabase();
 	
+	/**
+	 * Run tasks in parallel on daemon threads, one per processor, and return their
+	 * results in the order of the tasks so that the loaded database does not depend
+	 * on the order the tasks complete.
+	 * 
+	 * @param tasks	the tasks to run, for example parsing one file each
+	 * @return		the results of the tasks, in order
+	 * @throws InterruptedException	if interrupted while waiting for the tasks
+	 * @throws BugException	if a task throws an exception
+	 */
+	protected static <T> List<T> runInParallel(List<? extends Callable<T>> tasks) throws InterruptedException {
+		final int threads = Math.max(1, Math.min(tasks.size(), Runtime.getRuntime().availableProcessors()));
+		final ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private ThreadFactory factory = Executors.defaultThreadFactory();
+			
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = factory.newThread(r);
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		try {
+			List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+			for (Callable<T> task : tasks) {
+				futures.add(executor.submit(task));
+			}
+			List<T> results = new ArrayList<T>(tasks.size());
+			for (Future<T> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		} catch (ExecutionException e) {
+			throw new BugException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
 	
 	/**
 	 * Background thread for loading the database.
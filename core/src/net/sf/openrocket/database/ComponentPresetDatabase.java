@@ -1,8 +1,12 @@
 package net.sf.openrocket.database;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.slf4j.Logger;
@@ -11,14 +15,59 @@ import org.slf4j.LoggerFactory;
 import net.sf.openrocket.preset.ComponentPreset;
 import net.sf.openrocket.startup.Application;
 
+/**
+ * The database of component presets.
+ * 
+ * The positions of the presets of each type are indexed, so that listing the presets
+ * of a type does not scan the whole database.  The index is rebuilt when first needed
+ * after the database changes.  The presets are kept in order of manufacturer and part
+ * number, so they are found by a binary search.
+ */
 public class ComponentPresetDatabase extends Database<ComponentPreset> implements ComponentPresetDao {
 
 	private static final Logger logger = LoggerFactory.getLogger(ComponentPresetDatabase.class);
 	
+	/** The positions in the database of the presets of each type, or null if not built yet */
+	private Map<ComponentPreset.Type, int[]> typeIndex = null;
+	
 	public ComponentPresetDatabase() {
 		super();
 	}
 	
+	@Override
+	protected void listChanged() {
+		typeIndex = null;
+	}
+	
+	private int[] getPositions( ComponentPreset.Type type ) {
+		Map<ComponentPreset.Type, int[]> index = typeIndex;
+		if ( index == null ) {
+			int[] counts = new int[ComponentPreset.Type.values().length];
+			for( ComponentPreset preset : list ) {
+				counts[preset.get(ComponentPreset.TYPE).ordinal()]++;
+			}
+			index = new EnumMap<ComponentPreset.Type, int[]>(ComponentPreset.Type.class);
+			for( ComponentPreset.Type t : ComponentPreset.Type.values() ) {
+				index.put(t, new int[counts[t.ordinal()]]);
+				counts[t.ordinal()] = 0;
+			}
+			for( int i = 0; i < list.size(); i++ ) {
+				ComponentPreset.Type t = list.get(i).get(ComponentPreset.TYPE);
+				index.get(t)[counts[t.ordinal()]++] = i;
+			}
+			typeIndex = index;
+		}
+		return index.get(type);
+	}
+	
+	private List<ComponentPreset> getPresets( int[] positions ) {
+		List<ComponentPreset> result = new ArrayList<ComponentPreset>(positions.length);
+		for( int position : positions ) {
+			result.add(list.get(position));
+		}
+		return result;
+	}
+	
 	@Override
 	public List<ComponentPreset> listAll() {
 		return list;
@@ -26,7 +75,7 @@ public class ComponentPresetDatabase extends Database<ComponentPreset> implement
 
 	@Override
 	public void insert( ComponentPreset preset ) {
-		list.add(preset);
+		add(preset);
 	}
 
 	@Override
@@ -34,16 +83,7 @@ public class ComponentPresetDatabase extends Database<ComponentPreset> implement
 		if ( type == null ) {
 			return Collections.emptyList();
 		}
-
-		List<ComponentPreset> result = new ArrayList<ComponentPreset>(list.size()/6);
-
-		for( ComponentPreset preset : list ) {
-			if ( preset.get(ComponentPreset.TYPE).equals(type) ) {
-				result.add(preset);
-			}
-		}
-		return result;
-
+		return getPresets(getPositions(type));
 	}
 
 	/**
@@ -60,12 +100,13 @@ public class ComponentPresetDatabase extends Database<ComponentPreset> implement
 			return listForType(type);
 		}
 
-		List<ComponentPreset> result = new ArrayList<ComponentPreset>(list.size()/6);
+		List<ComponentPreset> result = new ArrayList<ComponentPreset>();
 
 		Set<String> favorites = Application.getPreferences().getComponentFavorites(type);
 
-		for( ComponentPreset preset : list ) {
-			if ( preset.get(ComponentPreset.TYPE).equals(type) && favorites.contains(preset.preferenceKey())) {
+		for( int position : getPositions(type) ) {
+			ComponentPreset preset = list.get(position);
+			if ( favorites.contains(preset.preferenceKey()) ) {
 				result.add(preset);
 			}
 		}
@@ -82,19 +123,21 @@ public class ComponentPresetDatabase extends Database<ComponentPreset> implement
 			return listForType(type[0]);
 		}
 
-		List<ComponentPreset> result = new ArrayList<ComponentPreset>(list.size()/6);
-
-		for( ComponentPreset preset : list ) {
-			ComponentPreset.Type presetType = preset.get(ComponentPreset.TYPE);
-			typeLoop: for( int i=0; i<type.length; i++ ) {
-				if ( presetType.equals(type[i]) ) {
-					result.add(preset);
-					break typeLoop; // from inner loop.
-				}
-			}
-
+		Set<ComponentPreset.Type> types = EnumSet.of(type[0], type);
+		int count = 0;
+		for( ComponentPreset.Type t : types ) {
+			count += getPositions(t).length;
 		}
-		return result;
+		int[] positions = new int[count];
+		count = 0;
+		for( ComponentPreset.Type t : types ) {
+			int[] p = getPositions(t);
+			System.arraycopy(p, 0, positions, count, p.length);
+			count += p.length;
+		}
+		// Merge the presets of the types into database order
+		Arrays.sort(positions);
+		return getPresets(positions);
 	}
 
 	@Override
@@ -105,14 +148,39 @@ public class ComponentPresetDatabase extends Database<ComponentPreset> implement
 	@Override
 	public List<ComponentPreset> find(String manufacturer, String partNo) {
 		List<ComponentPreset> presets = new ArrayList<ComponentPreset>();
-		for( ComponentPreset preset : list ) {
-			if ( preset.getManufacturer().getSimpleName().equals(manufacturer) && preset.getPartNo().equals(partNo) ) {
-				presets.add(preset);
+		if ( manufacturer == null || partNo == null ) {
+			return presets;
+		}
+
+		// Find the first preset not before the manufacturer and part number
+		int low = 0;
+		int high = list.size();
+		while ( low < high ) {
+			int mid = (low + high) >>> 1;
+			if ( compare(list.get(mid), manufacturer, partNo) < 0 ) {
+				low = mid + 1;
+			} else {
+				high = mid;
 			}
 		}
+		for( int i = low; i < list.size() && compare(list.get(i), manufacturer, partNo) == 0; i++ ) {
+			presets.add(list.get(i));
+		}
 		return presets;
 	}
 
+	/**
+	 * Compare a preset to a manufacturer and part number in the order of
+	 * {@link ComponentPreset#compareTo(ComponentPreset)}.
+	 */
+	private static int compare( ComponentPreset preset, String manufacturer, String partNo ) {
+		int manuCompare = preset.getManufacturer().getSimpleName().compareTo(manufacturer);
+		if ( manuCompare != 0 ) {
+			return manuCompare;
+		}
+		return preset.getPartNo().compareTo(partNo);
+	}
+
 	@Override
 	public void setFavorite( ComponentPreset preset, ComponentPreset.Type type, boolean favorite ) {
 		Application.getPreferences().setComponentFavorite( preset, type, favorite );
@@ -2,6 +2,7 @@ package net.sf.openrocket.database;
 
 import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -52,10 +53,58 @@ public class Database<T extends Comparable<T>> extends AbstractSet<T> {
 			index = -(index + 1);
 		}
 		list.add(index, element);
+		listChanged();
 		fireAddEvent(element);
 		return true;
 	}
 	
+	/**
+	 * {@inheritDoc}
+	 * The elements are sorted once and merged into the database, and a single
+	 * add event is fired for all the elements added.
+	 */
+	@Override
+	public boolean addAll(Collection<? extends T> elements) {
+		List<T> sorted = new ArrayList<T>(elements);
+		Collections.sort(sorted);
+		
+		List<T> merged = new ArrayList<T>(list.size() + sorted.size());
+		List<T> added = new ArrayList<T>(sorted.size());
+		int index = 0;
+		for (T element : sorted) {
+			while (index < list.size() && list.get(index).compareTo(element) <= 0) {
+				merged.add(list.get(index++));
+			}
+			if (!containsEqual(merged, element)) {
+				merged.add(element);
+				added.add(element);
+			}
+		}
+		if (added.isEmpty()) {
+			return false;
+		}
+		merged.addAll(list.subList(index, list.size()));
+		
+		list.clear();
+		list.addAll(merged);
+		listChanged();
+		fireAddEvent(added);
+		return true;
+	}
+	
+	/**
+	 * Return whether the sorted list contains the element, checking the elements
+	 * at the end of the list that compare equal to it.
+	 */
+	private static <T extends Comparable<T>> boolean containsEqual(List<T> sorted, T element) {
+		for (int i = sorted.size() - 1; i >= 0 && sorted.get(i).compareTo(element) == 0; i--) {
+			if (sorted.get(i).equals(element)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
 	
 	/**
 	 * Get the element with the specified index.
@@ -93,6 +142,14 @@ public class Database<T extends Comparable<T>> extends AbstractSet<T> {
 	}
 	
 	
+	/**
+	 * Called after elements have been added to or removed from the list.  Subclasses
+	 * that keep data derived from the list update it here.
+	 */
+	protected void listChanged() {
+	}
+	
+	
 	/**
 	 * wake up call for database listeners for when elements are added
 	 * @param element	the element added
@@ -105,6 +162,18 @@ public class Database<T extends Comparable<T>> extends AbstractSet<T> {
 		}
 	}
 	
+	/**
+	 * wake up call for database listeners for when several elements are added at once
+	 * @param elements	the elements added
+	 */
+	@SuppressWarnings("unchecked")
+	protected void fireAddEvent(List<T> elements) {
+		Object[] array = listeners.toArray();
+		for (Object l : array) {
+			((DatabaseListener<T>) l).elementsAdded(elements, this);
+		}
+	}
+	
 	/**
 	 * wake up call for database listeners when elements are removed
 	 * @param element	the removed element
@@ -142,6 +211,7 @@ public class Database<T extends Comparable<T>> extends AbstractSet<T> {
 		@Override
 		public void remove() {
 			iterator.remove();
+			listChanged();
 			fireRemoveEvent(current);
 		}
 	}
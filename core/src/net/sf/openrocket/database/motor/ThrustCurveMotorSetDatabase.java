@@ -1,25 +1,66 @@
 package net.sf.openrocket.database.motor;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sf.openrocket.motor.Manufacturer;
 import net.sf.openrocket.motor.Motor;
 import net.sf.openrocket.motor.ThrustCurveMotor;
+import net.sf.openrocket.util.MathUtil;
 
 /**
  * A database containing ThrustCurveMotorSet objects and allowing adding a motor
  * to the database.
+ * <p>
+ * The motor sets are indexed by the digests of their motors, manufacturer, designation,
+ * common name, diameter and length, so that neither searching nor adding motors requires
+ * iterating over the whole database.
  * 
  * @author Sampo Niskanen <sampo.niskanen@iki.fi>
  */
 public class ThrustCurveMotorSetDatabase implements MotorDatabase {
 	private static final Logger log = LoggerFactory.getLogger(ThrustCurveMotorSetDatabase.class);
 	
+	/** The tolerance of the diameter and length search criteria */
+	private static final double SIZE_TOLERANCE = 0.005;
+
 	private final List<ThrustCurveMotorSet> motorSets = new ArrayList<ThrustCurveMotorSet>();
+
+	/** The position of each set in motorSets, used to return the search results in order */
+	private final Map<ThrustCurveMotorSet, Integer> setIndex = new IdentityHashMap<ThrustCurveMotorSet, Integer>();
+
+	/** Sets by the digests of their motors */
+	private final Map<String, List<ThrustCurveMotorSet>> digestIndex = new HashMap<String, List<ThrustCurveMotorSet>>();
+	/** Sets by manufacturer */
+	private final Map<Manufacturer, List<ThrustCurveMotorSet>> manufacturerIndex = new HashMap<Manufacturer, List<ThrustCurveMotorSet>>();
+	/** Sets by upper case designation and common name, used to find the set of an added motor */
+	private final Map<String, List<ThrustCurveMotorSet>> nameIndex = new HashMap<String, List<ThrustCurveMotorSet>>();
+	/** Sets by upper case common name */
+	private final Map<String, List<ThrustCurveMotorSet>> commonNameIndex = new HashMap<String, List<ThrustCurveMotorSet>>();
+	/** Sets by all suffixes of their upper case designation, for finding the designations containing a string */
+	private final NavigableMap<String, List<ThrustCurveMotorSet>> designationSuffixIndex = new TreeMap<String, List<ThrustCurveMotorSet>>();
+	/** Sets by diameter */
+	private final NavigableMap<Double, List<ThrustCurveMotorSet>> diameterIndex = new TreeMap<Double, List<ThrustCurveMotorSet>>();
+	/** Sets by length */
+	private final NavigableMap<Double, List<ThrustCurveMotorSet>> lengthIndex = new TreeMap<Double, List<ThrustCurveMotorSet>>();
+
+	private final Comparator<ThrustCurveMotorSet> setOrder = new Comparator<ThrustCurveMotorSet>() {
+		@Override
+		public int compare(ThrustCurveMotorSet a, ThrustCurveMotorSet b) {
+			return Integer.compare(setIndex.get(a), setIndex.get(b));
+		}
+	};
 	
 	@Override
 	public List<ThrustCurveMotor> findMotors(String digest, Motor.Type type, String manufacturer, String designation,
@@ -28,39 +69,21 @@ public class ThrustCurveMotorSetDatabase implements MotorDatabase {
 		ArrayList<ThrustCurveMotor> digestMatches = new ArrayList<ThrustCurveMotor>();
 		ArrayList<ThrustCurveMotor> descriptionMatches = new ArrayList<ThrustCurveMotor>();
 
-		// Apply filters to see if we can find any motors that match the given criteria.  We'll return
-		// the most restrictive nonempty list we find, or empty list if no matches at all
-		for (ThrustCurveMotorSet set : motorSets) {
-			for (ThrustCurveMotor m : set.getMotors()) {
-				boolean matchDescription = true;
-				boolean matchDigest = true;
-				
-				// unlike the description, digest must be present in search criteria to get a match
-				if (digest == null || digest != m.getDigest())
-					matchDigest = false;
-
-				// match description
-				if (type != null && type != set.getType())
-					matchDescription = false;
-				else if (manufacturer != null && !m.getManufacturer().matches(manufacturer))
-					matchDescription = false;
-				else if (designation != null &&
-						 !m.getDesignation().toUpperCase().contains(designation.toUpperCase()) &&
-						 !designation.toUpperCase().contains(m.getCommonName().toUpperCase()))
-					matchDescription = false;
-				else if (!Double.isNaN(diameter) && (Math.abs(diameter - m.getDiameter()) > 0.005))
-					matchDescription = false;
-				else if (!Double.isNaN(length) && (Math.abs(length - m.getLength()) > 0.005))
-					matchDescription = false;
-
-				if (matchDigest)
-					digestMatches.add(m);
-
-				if (matchDescription)
-					descriptionMatches.add(m);
+		final String upperDesignation = (designation != null) ? designation.toUpperCase() : null;
 
-				if (matchDigest && matchDescription)
-					fullMatches.add(m);
+		// Apply filters to see if we can find any motors that match the given criteria.  We'll return
+		// the most restrictive nonempty list we find, or empty list if no matches at all.
+		// Unlike the description, digest must be present in search criteria to get a match.
+		if (digest != null) {
+			for (ThrustCurveMotorSet set : getSets(digestIndex, digest)) {
+				for (ThrustCurveMotor m : set.getMotors()) {
+					if (digest.equals(m.getDigest())) {
+						digestMatches.add(m);
+						if (matchesDescription(set, m, type, manufacturer, upperDesignation, diameter, length)) {
+							fullMatches.add(m);
+						}
+					}
+				}
 			}
 		}
 		
@@ -70,8 +93,122 @@ public class ThrustCurveMotorSetDatabase implements MotorDatabase {
 		if (!digestMatches.isEmpty())
 			return digestMatches;
 
+		for (ThrustCurveMotorSet set : findCandidateSets(manufacturer, upperDesignation, diameter, length)) {
+			for (ThrustCurveMotor m : set.getMotors()) {
+				if (matchesDescription(set, m, type, manufacturer, upperDesignation, diameter, length)) {
+					descriptionMatches.add(m);
+				}
+			}
+		}
 		return descriptionMatches;
+	}
 
+	private static boolean matchesDescription(ThrustCurveMotorSet set, ThrustCurveMotor m, Motor.Type type,
+			String manufacturer, String upperDesignation, double diameter, double length) {
+		if (type != null && type != set.getType())
+			return false;
+		if (manufacturer != null && !m.getManufacturer().matches(manufacturer))
+			return false;
+		if (upperDesignation != null &&
+				!m.getDesignation().toUpperCase().contains(upperDesignation) &&
+				!upperDesignation.contains(m.getCommonName().toUpperCase()))
+			return false;
+		if (!Double.isNaN(diameter) && (Math.abs(diameter - m.getDiameter()) > SIZE_TOLERANCE))
+			return false;
+		if (!Double.isNaN(length) && (Math.abs(length - m.getLength()) > SIZE_TOLERANCE))
+			return false;
+		return true;
+	}
+
+	/**
+	 * Return the sets that may contain motors matching the description, in database order.
+	 * Each search criterion selects a superset of the matching sets from an index, and the
+	 * smallest one is returned.
+	 */
+	private List<ThrustCurveMotorSet> findCandidateSets(String manufacturer, String upperDesignation,
+			double diameter, double length) {
+		List<ThrustCurveMotorSet> candidates = motorSets;
+
+		if (manufacturer != null) {
+			List<ThrustCurveMotorSet> sets = new ArrayList<ThrustCurveMotorSet>();
+			for (Map.Entry<Manufacturer, List<ThrustCurveMotorSet>> entry : manufacturerIndex.entrySet()) {
+				if (entry.getKey().matches(manufacturer)) {
+					sets.addAll(entry.getValue());
+				}
+			}
+			candidates = smaller(candidates, sets);
+		}
+		if (upperDesignation != null) {
+			List<ThrustCurveMotorSet> sets = new ArrayList<ThrustCurveMotorSet>();
+			// Designations containing the search string
+			for (List<ThrustCurveMotorSet> list : designationSuffixIndex.subMap(upperDesignation, true,
+					upperDesignation + Character.MAX_VALUE, false).values()) {
+				sets.addAll(list);
+			}
+			// Common names contained in the search string
+			for (int start = 0; start <= upperDesignation.length(); start++) {
+				for (int end = start; end <= upperDesignation.length(); end++) {
+					sets.addAll(getSets(commonNameIndex, upperDesignation.substring(start, end)));
+				}
+			}
+			candidates = smaller(candidates, sets);
+		}
+		if (!Double.isNaN(diameter)) {
+			candidates = smaller(candidates, getSetsInRange(diameterIndex, diameter));
+		}
+		if (!Double.isNaN(length)) {
+			candidates = smaller(candidates, getSetsInRange(lengthIndex, length));
+		}
+
+		if (candidates == motorSets) {
+			return motorSets;
+		}
+		return sortAndRemoveDuplicates(candidates);
+	}
+
+	private static List<ThrustCurveMotorSet> smaller(List<ThrustCurveMotorSet> a, List<ThrustCurveMotorSet> b) {
+		return (b.size() < a.size()) ? b : a;
+	}
+
+	private static List<ThrustCurveMotorSet> getSetsInRange(NavigableMap<Double, List<ThrustCurveMotorSet>> index, double value) {
+		// The sizes of the motors in a set may differ from those of the set by MathUtil.EPSILON
+		final double tolerance = SIZE_TOLERANCE + MathUtil.EPSILON;
+		List<ThrustCurveMotorSet> sets = new ArrayList<ThrustCurveMotorSet>();
+		for (List<ThrustCurveMotorSet> list : index.subMap(value - tolerance, true, value + tolerance, true).values()) {
+			sets.addAll(list);
+		}
+		return sets;
+	}
+
+	private List<ThrustCurveMotorSet> sortAndRemoveDuplicates(List<ThrustCurveMotorSet> sets) {
+		Collections.sort(sets, setOrder);
+		List<ThrustCurveMotorSet> result = new ArrayList<ThrustCurveMotorSet>(sets.size());
+		for (ThrustCurveMotorSet set : sets) {
+			if (result.isEmpty() || result.get(result.size() - 1) != set) {
+				result.add(set);
+			}
+		}
+		return result;
+	}
+
+	private static <K> List<ThrustCurveMotorSet> getSets(Map<K, List<ThrustCurveMotorSet>> index, K key) {
+		List<ThrustCurveMotorSet> sets = index.get(key);
+		if (sets == null) {
+			return Collections.emptyList();
+		}
+		return sets;
+	}
+
+	private static <K> void addToIndex(Map<K, List<ThrustCurveMotorSet>> index, K key, ThrustCurveMotorSet set) {
+		List<ThrustCurveMotorSet> sets = index.get(key);
+		if (sets == null) {
+			sets = new ArrayList<ThrustCurveMotorSet>(1);
+			index.put(key, sets);
+		}
+		// Sets are added in database order, so a set already in the list is the last one
+		if (sets.isEmpty() || sets.get(sets.size() - 1) != set) {
+			sets.add(set);
+		}
 	}
 	
 	
@@ -91,18 +228,55 @@ public class ThrustCurveMotorSetDatabase implements MotorDatabase {
 	 * @param motor		the motor to add
 	 */
 	public void addMotor(ThrustCurveMotor motor) {
+		final String nameKey = getNameKey(motor.getDesignation(), motor.getCommonName());
+		final List<ThrustCurveMotorSet> sets = getSets(nameIndex, nameKey);
+
 		// Iterate from last to first, as this is most likely to hit early when loading files
-		for (int i = motorSets.size() - 1; i >= 0; i--) {
-			ThrustCurveMotorSet set = motorSets.get(i);
+		for (int i = sets.size() - 1; i >= 0; i--) {
+			ThrustCurveMotorSet set = sets.get(i);
 			if (set.matches(motor)) {
 				set.addMotor(motor);
+				addToIndex(digestIndex, motor.getDigest(), set);
 				return;
 			}
 		}
 		
 		ThrustCurveMotorSet newSet = new ThrustCurveMotorSet();
 		newSet.addMotor(motor);
+		setIndex.put(newSet, motorSets.size());
 		motorSets.add(newSet);
+
+		addToIndex(digestIndex, motor.getDigest(), newSet);
+		addToIndex(manufacturerIndex, newSet.getManufacturer(), newSet);
+		addToIndex(nameIndex, nameKey, newSet);
+		addToIndex(commonNameIndex, newSet.getCommonName().toUpperCase(), newSet);
+		final String upperDesignation = newSet.getDesignation().toUpperCase();
+		for (int i = 0; i <= upperDesignation.length(); i++) {
+			addToIndex(designationSuffixIndex, upperDesignation.substring(i), newSet);
+		}
+		addToIndex(diameterIndex, newSet.getDiameter(), newSet);
+		addToIndex(lengthIndex, newSet.getLength(), newSet);
+	}
+
+	/**
+	 * Add motors to the database.
+	 *
+	 * @param motors	the motors to add
+	 * @see #addMotor(ThrustCurveMotor)
+	 */
+	public void addMotors(Collection<ThrustCurveMotor> motors) {
+		for (ThrustCurveMotor motor : motors) {
+			addMotor(motor);
+		}
+		log.debug("Added " + motors.size() + " motors, database contains " + motorSets.size() + " motor sets");
+	}
+
+	/**
+	 * Return the key of the name index.  The motors of a set have the same designation and
+	 * common name ignoring case.
+	 */
+	private static String getNameKey(String designation, String commonName) {
+		return designation.toUpperCase() + '\n' + commonName.toUpperCase();
 	}
 	
 }
@@ -0,0 +1,331 @@
+package net.sf.openrocket.document;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A trial result sink that writes results into a compact binary columnar file.
+ * <p>
+ * Trials are buffered into blocks of a fixed number of rows.  Each block is written
+ * column by column, so memory use is bounded by the block size regardless of the
+ * number of trials.  The file format is:
+ * <pre>
+ *   int     magic ("ORTR")
+ *   int     format version
+ *   int     column count
+ *   UTF     column name, for each column
+ *   block*  int rowCount, int[rowCount] trial numbers, double[rowCount] for each column
+ * </pre>
+ * A block that was only partially written when a campaign stopped is ignored by
+ * {@link #readCompletedTrials(File)} and discarded when the sink is opened in
+ * append mode, so the campaign can be resumed.
+ */
+public class BinaryTrialResultSink implements TrialResultSink {
+	
+	public static final int MAGIC = 0x4F525452;
+	public static final int VERSION = 1;
+	
+	public static final int DEFAULT_BLOCK_SIZE = 256;
+	
+	private final File file;
+	private final boolean append;
+	private final int blockSize;
+	
+	private DataOutputStream out = null;
+	private int columnCount;
+	private int[] trials;
+	private double[][] columns;
+	private int rows = 0;
+	
+	
+	/**
+	 * Create a sink that overwrites the file.
+	 */
+	public BinaryTrialResultSink(File file) {
+		this(file, false, DEFAULT_BLOCK_SIZE);
+	}
+	
+	/**
+	 * Create a sink.
+	 * 
+	 * @param file		the file to write.
+	 * @param append	whether to append to an existing file, e.g. to resume a campaign.
+	 * @param blockSize	the number of trials written per block.
+	 */
+	public BinaryTrialResultSink(File file, boolean append, int blockSize) {
+		if (blockSize < 1) {
+			throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+		}
+		this.file = file;
+		this.append = append;
+		this.blockSize = blockSize;
+	}
+	
+	
+	@Override
+	public void begin(String[] columnNames) throws IOException {
+		if (out != null) {
+			throw new IllegalStateException("Sink already started");
+		}
+		columnCount = columnNames.length;
+		trials = new int[blockSize];
+		columns = new double[columnCount][blockSize];
+		
+		if (append && file.length() > 0) {
+			Scan scan = scan(file);
+			if (!Arrays.equals(scan.columnNames, columnNames)) {
+				throw new IOException("Existing file " + file + " has different columns: " +
+						Arrays.toString(scan.columnNames));
+			}
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				raf.setLength(scan.completeLength);
+			}
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+		} else {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, false)));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(columnCount);
+			for (String name : columnNames) {
+				out.writeUTF(name);
+			}
+			out.flush();
+		}
+	}
+	
+	@Override
+	public void append(int trial, double[] values) throws IOException {
+		if (out == null) {
+			throw new IllegalStateException("Sink not started");
+		}
+		if (values.length != columnCount) {
+			throw new IllegalArgumentException("Expected " + columnCount + " values, got " + values.length);
+		}
+		trials[rows] = trial;
+		for (int i = 0; i < columnCount; i++) {
+			columns[i][rows] = values[i];
+		}
+		rows++;
+		if (rows == blockSize) {
+			writeBlock();
+		}
+	}
+	
+	@Override
+	public void flush() throws IOException {
+		if (out != null) {
+			writeBlock();
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if (out != null) {
+			writeBlock();
+			out.close();
+			out = null;
+		}
+	}
+	
+	private void writeBlock() throws IOException {
+		if (rows == 0) {
+			return;
+		}
+		out.writeInt(rows);
+		for (int i = 0; i < rows; i++) {
+			out.writeInt(trials[i]);
+		}
+		for (double[] column : columns) {
+			for (int i = 0; i < rows; i++) {
+				out.writeDouble(column[i]);
+			}
+		}
+		out.flush();
+		rows = 0;
+	}
+	
+	
+	/**
+	 * Read the numbers of the trials stored in a binary result file.
+	 * 
+	 * @param file	the file to read.
+	 * @return		the set of completed trial numbers, empty if the file does not exist.
+	 * @throws IOException	if the file cannot be read or is not a result file.
+	 */
+	public static BitSet readCompletedTrials(File file) throws IOException {
+		if (!file.isFile() || file.length() == 0) {
+			return new BitSet();
+		}
+		return scan(file).trials;
+	}
+	
+	/**
+	 * Read all values of one column of a binary result file.
+	 * 
+	 * @param file		the file to read.
+	 * @param column	the column index.
+	 * @return			the values indexed by trial number, NaN for trials not in the file.
+	 * @throws IOException	if the file cannot be read or is not a result file.
+	 */
+	public static double[] readColumn(File file, int column) throws IOException {
+		double[] values = new double[0];
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			String[] names = readHeader(in, file);
+			if (column < 0 || column >= names.length) {
+				throw new IndexOutOfBoundsException("column=" + column);
+			}
+			int[] trials = new int[0];
+			double[] block = new double[0];
+			while (true) {
+				int rows;
+				try {
+					rows = in.readInt();
+					if (trials.length < rows) {
+						trials = new int[rows];
+						block = new double[rows];
+					}
+					for (int i = 0; i < rows; i++) {
+						trials[i] = in.readInt();
+					}
+					for (int c = 0; c < names.length; c++) {
+						for (int i = 0; i < rows; i++) {
+							double value = in.readDouble();
+							if (c == column) {
+								block[i] = value;
+							}
+						}
+					}
+				} catch (EOFException e) {
+					break;
+				}
+				for (int i = 0; i < rows; i++) {
+					if (trials[i] >= values.length) {
+						int length = Math.max(trials[i] + 1, values.length * 2);
+						int old = values.length;
+						values = Arrays.copyOf(values, length);
+						Arrays.fill(values, old, length, Double.NaN);
+					}
+					values[trials[i]] = block[i];
+				}
+			}
+		}
+		return values;
+	}
+	
+	
+	private static class Scan {
+		private String[] columnNames;
+		private final BitSet trials = new BitSet();
+		private long completeLength;
+	}
+	
+	private static Scan scan(File file) throws IOException {
+		Scan scan = new Scan();
+		try (CountingInputStream counter = new CountingInputStream(new FileInputStream(file));
+				DataInputStream in = new DataInputStream(counter)) {
+			scan.columnNames = readHeader(in, file);
+			scan.completeLength = counter.count;
+			int[] trials = new int[0];
+			while (true) {
+				int rows;
+				try {
+					rows = in.readInt();
+					if (rows < 0) {
+						break;
+					}
+					if (trials.length < rows) {
+						trials = new int[rows];
+					}
+					for (int i = 0; i < rows; i++) {
+						trials[i] = in.readInt();
+					}
+					if (!skipFully(in, (long) rows * scan.columnNames.length * Double.BYTES)) {
+						break;
+					}
+				} catch (EOFException e) {
+					break;
+				}
+				scan.completeLength = counter.count;
+				for (int i = 0; i < rows; i++) {
+					scan.trials.set(trials[i]);
+				}
+			}
+		}
+		return scan;
+	}
+	
+	private static boolean skipFully(DataInputStream in, long n) throws IOException {
+		while (n > 0) {
+			long skipped = in.skip(n);
+			if (skipped <= 0) {
+				if (in.read() < 0) {
+					return false;
+				}
+				skipped = 1;
+			}
+			n -= skipped;
+		}
+		return true;
+	}
+	
+	private static String[] readHeader(DataInputStream in, File file) throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new IOException(file + " is not a trial result file");
+		}
+		int version = in.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported trial result file version " + version + " in " + file);
+		}
+		String[] names = new String[in.readInt()];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = in.readUTF();
+		}
+		return names;
+	}
+	
+	/**
+	 * Buffered input stream that counts the bytes consumed by the reader.
+	 */
+	private static class CountingInputStream extends BufferedInputStream {
+		private long count = 0;
+		
+		CountingInputStream(FileInputStream in) {
+			super(in);
+		}
+		
+		@Override
+		public synchronized int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				count++;
+			}
+			return b;
+		}
+		
+		@Override
+		public synchronized int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n > 0) {
+				count += n;
+			}
+			return n;
+		}
+		
+		@Override
+		public synchronized long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+	}
+}
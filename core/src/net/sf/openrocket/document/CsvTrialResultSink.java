@@ -0,0 +1,189 @@
+package net.sf.openrocket.document;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+/**
+ * A trial result sink that streams results into a CSV file, one line per trial.  Each
+ * line is written and flushed as soon as the trial is appended, so memory use does
+ * not depend on the number of trials and a partially finished campaign can be resumed
+ * by reading back the trial numbers with {@link #readCompletedTrials(File)} and opening
+ * the sink in append mode.
+ * <p>
+ * The first column of the file is the trial number, followed by the result columns.
+ * Values are written with full precision.
+ */
+public class CsvTrialResultSink implements TrialResultSink {
+	
+	private static final String TRIAL_COLUMN = "trial";
+	private static final char SEPARATOR = ',';
+	
+	private final File file;
+	private final boolean append;
+	
+	private Writer writer = null;
+	private int columnCount;
+	private final StringBuilder line = new StringBuilder();
+	
+	
+	/**
+	 * Create a sink that overwrites the file.
+	 */
+	public CsvTrialResultSink(File file) {
+		this(file, false);
+	}
+	
+	/**
+	 * Create a sink.
+	 * 
+	 * @param file		the file to write.
+	 * @param append	whether to append to an existing file, e.g. to resume a campaign.
+	 */
+	public CsvTrialResultSink(File file, boolean append) {
+		this.file = file;
+		this.append = append;
+	}
+	
+	
+	@Override
+	public void begin(String[] columnNames) throws IOException {
+		if (writer != null) {
+			throw new IllegalStateException("Sink already started");
+		}
+		columnCount = columnNames.length;
+		
+		String header = header(columnNames);
+		boolean writeHeader = true;
+		if (append && file.length() > 0) {
+			try (BufferedReader reader = newReader(file)) {
+				String existing = reader.readLine();
+				if (!header.equals(existing)) {
+					throw new IOException("Existing file " + file + " has different columns: " + existing);
+				}
+			}
+			writeHeader = false;
+			
+			// Drop a line that was only partially written when the previous run stopped
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				raf.setLength(completeLength(raf));
+			}
+		}
+		
+		writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, append && !writeHeader),
+				StandardCharsets.UTF_8));
+		if (writeHeader) {
+			writer.write(header);
+			writer.write('\n');
+			writer.flush();
+		}
+	}
+	
+	@Override
+	public void append(int trial, double[] values) throws IOException {
+		if (writer == null) {
+			throw new IllegalStateException("Sink not started");
+		}
+		if (values.length != columnCount) {
+			throw new IllegalArgumentException("Expected " + columnCount + " values, got " + values.length);
+		}
+		line.setLength(0);
+		line.append(trial);
+		for (double value : values) {
+			line.append(SEPARATOR).append(value);
+		}
+		line.append('\n');
+		writer.write(line.toString());
+		writer.flush();
+	}
+	
+	@Override
+	public void flush() throws IOException {
+		if (writer != null) {
+			writer.flush();
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if (writer != null) {
+			writer.close();
+			writer = null;
+		}
+	}
+	
+	
+	/**
+	 * Read the numbers of the trials stored in a CSV result file.  A trailing line that
+	 * was only partially written is ignored.
+	 * 
+	 * @param file	the file to read.
+	 * @return		the set of completed trial numbers, empty if the file does not exist.
+	 * @throws IOException	if the file cannot be read.
+	 */
+	public static BitSet readCompletedTrials(File file) throws IOException {
+		BitSet completed = new BitSet();
+		if (!file.isFile()) {
+			return completed;
+		}
+		long length;
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			length = completeLength(raf);
+		}
+		
+		try (BufferedReader reader = newReader(file)) {
+			String header = reader.readLine();
+			if (header == null) {
+				return completed;
+			}
+			long position = header.getBytes(StandardCharsets.UTF_8).length + 1;
+			String row;
+			while ((row = reader.readLine()) != null) {
+				position += row.getBytes(StandardCharsets.UTF_8).length + 1;
+				if (position > length) {
+					break;
+				}
+				int end = row.indexOf(SEPARATOR);
+				completed.set(Integer.parseInt(end < 0 ? row : row.substring(0, end)));
+			}
+		}
+		return completed;
+	}
+	
+	
+	private static String header(String[] columnNames) {
+		StringBuilder sb = new StringBuilder(TRIAL_COLUMN);
+		for (String name : columnNames) {
+			sb.append(SEPARATOR).append(name.replace(SEPARATOR, ' '));
+		}
+		return sb.toString();
+	}
+	
+	/**
+	 * Return the length of the file up to and including the last line feed.
+	 */
+	private static long completeLength(RandomAccessFile raf) throws IOException {
+		long length = raf.length();
+		while (length > 0) {
+			raf.seek(length - 1);
+			if (raf.read() == '\n') {
+				break;
+			}
+			length--;
+		}
+		return length;
+	}
+	
+	private static BufferedReader newReader(File file) throws IOException {
+		return new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+	}
+}
@@ -1,7 +1,7 @@
 package net.sf.openrocket.document;
 
 import net.sf.openrocket.aerodynamics.FlightConditions;
-import net.sf.openrocket.simulation.SimulationStatus;
+import net.sf.openrocket.simulation.TrajectoryRecorder;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -160,9 +160,10 @@ public class DataAnalyzer {
 //        }
 //        rollArr = datainfo.getAllRolls();
         //extracts all values after roll rate
-        for (int i = 0; i < datainfo.getFullFlightStatus().size(); i ++){
-            if (datainfo.getFullFlightStatus().get(i).getSimulationTime() >= startTime){
-                simulationTimes.add(datainfo.getFullFlightStatus().get(i).getSimulationTime());
+        TrajectoryRecorder flightStatus = datainfo.getFullFlightStatus();
+        for (int i = 0; i < flightStatus.getSampleCount(); i ++){
+            if (flightStatus.get(i, TrajectoryRecorder.TIME) >= startTime){
+                simulationTimes.add(flightStatus.get(i, TrajectoryRecorder.TIME));
                 rollRate.add(datainfo.getAllFlightConds().get(i).getRollRate());
                 velocity.add(datainfo.getAllFlightConds().get(i).getVelocity());
             }
@@ -170,7 +171,7 @@ public class DataAnalyzer {
 
         //removes the irrelevant rolls (ones before start time)
         rollArr = (ArrayList<Double>)datainfo.getAllRolls().clone();
-        for(int i = 0; i < datainfo.getFullFlightStatus().size()-simulationTimes.size(); i++ ){
+        for(int i = 0; i < flightStatus.getSampleCount()-simulationTimes.size(); i++ ){
             rollArr.remove(0);
         }
 
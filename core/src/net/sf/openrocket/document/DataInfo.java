@@ -6,6 +6,7 @@ package net.sf.openrocket.document;
 
 import net.sf.openrocket.aerodynamics.FlightConditions;
 import net.sf.openrocket.simulation.SimulationStatus;
+import net.sf.openrocket.simulation.TrajectoryRecorder;
 import net.sf.openrocket.util.Coordinate;
 
 import java.util.ArrayList;
@@ -13,7 +14,8 @@ import java.util.ArrayList;
 public class DataInfo {
 
     //Instance variables
-    private ArrayList<SimulationStatus> fullFlightStatus = new ArrayList<>(); //used to store all flight conditions every time step
+    //used to store the rocket state every time step, as primitive state vectors instead of status clones
+    private TrajectoryRecorder fullFlightStatus = TrajectoryRecorder.everyNth(1);
 
     private ArrayList<FlightConditions> allFlightConds = new ArrayList<>();
 
@@ -38,7 +40,7 @@ public class DataInfo {
 
     //adders
     public void addFlightStatus(SimulationStatus flightStatus) {
-        this.fullFlightStatus.add(flightStatus);
+        this.fullFlightStatus.record(flightStatus);
     }
 
 
@@ -66,7 +68,7 @@ public class DataInfo {
 
     //Getters
 
-    public ArrayList<SimulationStatus> getFullFlightStatus() {
+    public TrajectoryRecorder getFullFlightStatus() {
         return fullFlightStatus;
     }
 
@@ -1,39 +1,30 @@
 package net.sf.openrocket.document;
 
 
-import java.io.File;
-import java.lang.reflect.InvocationTargetException;
-import java.util.*;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.concurrent.ConcurrentHashMap;
-
-import net.sf.openrocket.aerodynamics.AerodynamicCalculator;
-import net.sf.openrocket.aerodynamics.BarrowmanCalculator;
-import net.sf.openrocket.aerodynamics.FlightConditions;
-import net.sf.openrocket.masscalc.MassCalculator;
-import net.sf.openrocket.models.atmosphere.AtmosphericModel;
-import net.sf.openrocket.models.atmosphere.ExtendedISAModel;
-import net.sf.openrocket.models.gravity.GravityModel;
-import net.sf.openrocket.models.gravity.WGSGravityModel;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+
 import net.sf.openrocket.models.wind.PinkNoiseWindModel;
-import net.sf.openrocket.models.wind.WindModel;
 import net.sf.openrocket.rocketcomponent.*;
 import net.sf.openrocket.simulation.*;
 import net.sf.openrocket.simulation.exception.SimulationException;
-import net.sf.openrocket.simulation.listeners.SimulationListener;
 import net.sf.openrocket.util.*;
-import net.sf.openrocket.simulation.SimulationEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.swing.JFrame;
-import javax.swing.JScrollPane;
-import javax.swing.JTable;
-
 
 //This file will generate an entire simulation based on inputted data.
 public class DispersionAnalysis {
 
+    private static final Logger log = LoggerFactory.getLogger(DispersionAnalysis.class);
+
 
     //Notes:
     //How calls flow: Simulator -> simulationEngine interface, specifically BasicEventSimulationEngine,
@@ -47,19 +38,35 @@ public class DispersionAnalysis {
      * OpenRocketComponentLoader - this was to fix the parachute database not appearing mysteriously
      */
 
+    /**
+     * Names of the values stored for each trial in the result store
+     */
+    public static final String[] COLUMN_NAMES = {"number", "avg Wind speed", "windSpeed standard dev", "wind direction",
+            "wind Turbulence", "deploymentTime Drogue", "deploymentTime Main", "positionEast of Launch (m)",
+            "position North of Launch (m)", "altitude(m)", "Max altitude", "deployment Velocity", "groundSpeedVelocity"};
+
     //Fundamental variables: DO NOT CHANGE
-    private SimulationConditions conditions;
-    private final Class<? extends SimulationEngine> simulationEngineClass = BasicEventSimulationEngine.class;
-    private SimulationEngine simulator;
+    //Prototype conditions and rocket, each trial works on its own clone/copy of these
+    private final SimulationConditions conditions;
+    private final Rocket rocket;
 
 
     //DATA variables
-    private Double[][] data;
-    private int index;
+    private DispersionResultStore results; //in-memory results, only used when no result sink is set
+    private TrialResultSink resultSink; //receives every trial as it finishes, e.g. a CSV or binary file
+    private BitSet completedTrials = new BitSet(); //trials already in the sink when resuming a campaign
+
+
+    //Campaign variables
+    /**
+     * Seed from which the seeds of all trials are derived, the results only depend on this and not on thread count
+     */
+    private long masterSeed;
+    private int trialCount;
+    private int threadCount;
 
 
     //Changable Variables (set values for simulation condition)
-    private FlightData flightSummary;
     private double launchRodLength; //in meters LMAO
 
     /**
@@ -88,49 +95,32 @@ public class DispersionAnalysis {
     private double[] altToWindMap;
     private double[] altToWindDirectionMap;
 
-
-    private PinkNoiseWindModel windModel;
+    private boolean variableWind = false; // boolean determines if variable wind model is used. Default is avg wind model
 
 
-    /* Whether to calculate additional data or only primary simulation figures */
-    private int randomSeed;
-
     //ROCKET VARS
-
-    private ArrayList<RecoveryDevice> recoveryDevices;
     private double deploymentTimeDrogue;
     private double depolymentAltitudeDrogue;
 
     private double deploymentTimeMain;
+    private double deploymentTimeMainStep; //added to the main deployment time for every following trial
     private double depolymentAltitudeMain;
 
 
     /**
-     * Constructor, sets up the simulationEngineClass, simulatorEngine (which actually runs the sim),
-     * All SimulationCondition values, and some user set values for simulationConditions like wind speed
+     * Constructor, stores the prototype simulation conditions and rocket, and sets up some user set values for
+     * simulationConditions like wind speed
      */
     public DispersionAnalysis(SimulationConditions presetConditions) {
 
         //FUNDAMENTAL vars
-        try {
-            simulator = simulationEngineClass.getConstructor().newInstance();
-        } catch (InstantiationException e) {
-            throw new IllegalStateException("Cannot instantiate simulator.", e);
-        } catch (IllegalAccessException e) {
-            throw new IllegalStateException("Cannot access simulator instance?! BUG!", e);
-        } catch (InvocationTargetException | NoSuchMethodException e) {
-            throw new RuntimeException(e);
-        }
         conditions = presetConditions.clone();
+        rocket = presetConditions.getRocket();
 
-
-        //DATA, values can change depending on how many iterations occur
-        data = new Double[1000][12 + 1]; //plus 1 adds an extra row for index, 11 params, 6 output 6 input
-
-        //CHANGEABLE vars:
-
-        //BASIC vars
-        randomSeed = new Random().nextInt();
+        //CAMPAIGN vars
+        masterSeed = new Random().nextLong();
+        trialCount = 20;
+        threadCount = Runtime.getRuntime().availableProcessors();
 
         //LAUNCH Vars
         launchRodLength = 1;
@@ -148,89 +138,124 @@ public class DispersionAnalysis {
         altToWindMap = new double[windMapSize]; //asumes intervals of 100, alt = i*100
         altToWindDirectionMap = new double[windMapSize]; //represents the wind direction at certain altitude
 
-
-        //initialize wind model, and set values
-        windModel = new PinkNoiseWindModel(randomSeed);
-        windModel.setAverage(averageWindSpeed);
-        windModel.setStandardDeviation(windSpeedDeviation);
-        windModel.setDirection(windDirection);
-        windModel.setTurbulenceIntensity(windTurbulence);
-
         //ROCKET VARS
         deploymentTimeDrogue = 50;
         depolymentAltitudeDrogue = 15000;
 
         deploymentTimeMain = 50;
+        deploymentTimeMainStep = 5;
         depolymentAltitudeMain = 15000;
 
-        recoveryDevices = new ArrayList<>();
-        // finds the recover devices using recursive search
-        findRecoveryDevices(conditions.getSimulation().getRocket());
-
-
-
     }
 
     //This determines the parameters to be looped over
     public void loopSim() throws SimulationException {
+        runTrials();
+        exportData(); //after data is collected, it is exported
+    }
 
-        for (int i = 0; i <20; i++) {
-            configSimConditions();
-            runSimulation();
+    /**
+     * Runs all trials in parallel, every trial on its own engine, and appends every result to the result sink as
+     * soon as the trial finishes.  Without a result sink the results are collected in an in-memory result store.
+     * Trials marked as completed (when resuming a campaign) are skipped.  At most a few trials per thread are in
+     * flight at once, so memory stays flat no matter how many trials run.
+     *
+     * @return the in-memory result store, or null if a result sink is set
+     */
+    public DispersionResultStore runTrials() throws SimulationException {
 
-            randomSeed = new Random().nextInt();
-            deploymentTimeMain += 5;
+        if (variableWind) {
+            setVariableWindModel(); //defines the altitude to wind maps, shared read-only by all trials
+        }
 
+        final TrialResultSink sink;
+        if (resultSink == null) {
+            results = new DispersionResultStore(trialCount, COLUMN_NAMES);
+            sink = results;
+        } else {
+            results = null;
+            sink = resultSink;
+        }
 
-            //associates the 4 wind speed parameters to the wind model
-            setWindModel();
+        final long startTime = System.currentTimeMillis();
+        ForkJoinPool pool = new ForkJoinPool(threadCount);
+        CompletionService<Void> completionService = new ExecutorCompletionService<>(pool);
+        int inFlight = 0;
+        int run = 0;
+        try {
+            sink.begin(COLUMN_NAMES);
+            for (int i = 0; i < trialCount; i++) {
+                if (completedTrials.get(i)) {
+                    continue;
+                }
+                //bounds the number of queued trials
+                if (inFlight >= 2 * threadCount) {
+                    completionService.take().get();
+                    inFlight--;
+                }
+                final int trial = i;
+                completionService.submit(() -> {
+                    runSimulation(trial, sink);
+                    return null;
+                });
+                inFlight++;
+                run++;
+            }
+            while (inFlight > 0) {
+                completionService.take().get();
+                inFlight--;
+            }
+            sink.flush();
+        } catch (IOException e) {
+            throw new SimulationException("Unable to write dispersion results", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SimulationException("Dispersion analysis was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SimulationException) {
+                throw (SimulationException) e.getCause();
+            }
+            throw new SimulationException("Dispersion trial failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
         }
+        log.info("Dispersion analysis of " + run + " trials on " + threadCount + " threads took "
+                + (System.currentTimeMillis() - startTime) + "ms");
 
-        exportData(); //after data is collected, it is exported
+        return results;
     }
 
 
     //configures simulation conditions for single sim
     //TODO: Use debug to find values for variables in SimulationOptions.java
     //TODO: NOTE, USE Application.getpreferences() to retrieve the user's input!!
-    public void configSimConditions() throws SimulationException {
+    public void configSimConditions(SimulationConditions trialConditions, int randomSeed) {
 
-        //Configures rocket
-        configRocket();
         //ITERABLE PARAMETERS
 
-        conditions.setLaunchRodLength(launchRodLength);
-        conditions.setLaunchRodAngle(launchRodAngle);
-        conditions.setLaunchRodDirection(launchRodDirection);
-        conditions.setLaunchSite(launchSite);
+        trialConditions.setLaunchRodLength(launchRodLength);
+        trialConditions.setLaunchRodAngle(launchRodAngle);
+        trialConditions.setLaunchRodDirection(launchRodDirection);
+        trialConditions.setLaunchSite(launchSite);
 
 
-//        conditions.setGeodeticComputation(geodeticComputation);
-        conditions.setRandomSeed(randomSeed);
+//        trialConditions.setGeodeticComputation(geodeticComputation);
+        trialConditions.setRandomSeed(randomSeed);
 
-        boolean variableWind = false; // boolean determines if variable wind model is used. Default is avg wind model
-        if (variableWind) {
-            setVariableWindModel(); //defines instance variable int[] wind
-            //casts simulator to basic event simulator, and calls method to update wind model in engine to variable wind model
-            ((BasicEventSimulationEngine) simulator).setAltToWind(altToWindMap, altToWindDirectionMap);
-        } else {
-            conditions.setWindModel(windModel); //assuming normal wind, just set wind model directly
-            /**
-             * Note, this is allowed because per simulation, wind speed is constant. Therefore, the conditions object doesn't
-             need to change during a single simulation. However, for variable wind speed, the condition's average wind speed
-             needs to change over the simulation, which requires editing it directly in the Basic Simulation engine, hence
-             the different notations for doing variable wind vs. constant wind
-             */
-        }
+        //every trial has its own wind model, the variable wind model edits it during the simulation
+        trialConditions.setWindModel(createWindModel(randomSeed));
+
+        //the aerodynamic calculator caches per rocket, so every trial needs its own
+        trialConditions.setAerodynamicCalculator(conditions.getAerodynamicCalculator().newInstance());
 
     }
 
     //CONFIGURES ROCKET. Most important determines delay time of recovery devices
-    public void configRocket() {
+    public void configRocket(Rocket trialRocket, double deploymentTimeMain) {
         //Gets  object and its type (Parachute, streamer, something)
-        // Gets simulation -> rocket -> Sustainer -> Body (multiple, must pick correct) -> inner tube
-        //NOTE: this sequence of .getChild(int n) is arbitrary, depends on what the rocket tree looks like (can figure this out
-        //just by looking at the tree on the GUI, or using debug in intellij and looking down the inheritance.
+        //NOTE: recovery devices are looked up in the copy of the rocket used by the trial, never the shared rocket
+        ArrayList<RecoveryDevice> recoveryDevices = new ArrayList<>();
+        findRecoveryDevices(trialRocket, recoveryDevices);
 
         //one parachute, assume main
         if (recoveryDevices.size() ==1) {
@@ -238,7 +263,7 @@ public class DispersionAnalysis {
 
         }
         //Two parachutes, one main one drouge, need to figure out which is which
-        else {
+        else if (recoveryDevices.size() > 1) {
             //the main will be bigger. if .get(0) is bigger, then .get(0) is main
             if (((Parachute) recoveryDevices.get(0)).getDiameter() > ((Parachute) recoveryDevices.get(1)).getDiameter()) {
                 (recoveryDevices.get(0)).setDeploymentTime(deploymentTimeMain);
@@ -254,7 +279,7 @@ public class DispersionAnalysis {
 
     }
 
-    public void findRecoveryDevices(RocketComponent r){
+    public void findRecoveryDevices(RocketComponent r, List<RecoveryDevice> recoveryDevices){
         //base case 1: it is a recovery device
         if (r instanceof RecoveryDevice){
             recoveryDevices.add((RecoveryDevice) r);
@@ -265,71 +290,87 @@ public class DispersionAnalysis {
             return;
         }
         for (int i =0; i < r.getChildCount(); i++){
-            findRecoveryDevices(r.getChild(i));
+            findRecoveryDevices(r.getChild(i), recoveryDevices);
         }
 
     }
 
-    //Runs one single simulation
-    public void runSimulation() throws SimulationException {
-        flightSummary = simulator.simulate(conditions); //outputs flight vars, but not the important ones, also changes simulator
-        saveData();
+    //Runs one single trial, with its own engine, wind model, conditions and rocket copy
+    public void runSimulation(int trial, TrialResultSink sink) throws SimulationException, IOException {
+        final int randomSeed = trialSeed(masterSeed, trial);
+        final double trialDeploymentTimeMain = deploymentTimeMain + trial * deploymentTimeMainStep;
+
+        Rocket trialRocket;
+        synchronized (rocket) { //copying locks the component mutexes, so copies are made one at a time
+            trialRocket = rocket.copyWithOriginalID();
+        }
+        configRocket(trialRocket, trialDeploymentTimeMain);
+
+        SimulationConditions trialConditions = conditions.clone();
+        trialConditions.setRocket(trialRocket);
+        configSimConditions(trialConditions, randomSeed);
+        if (trialConditions.getSimulationListenerList().isEmpty()) {
+            trialConditions.setRecording(FlightDataRecording.SUMMARY); //only the summary values are saved
+        } //otherwise the listeners of the extensions may read any flight data
+
+        BasicEventSimulationEngine simulator = new BasicEventSimulationEngine();
+        simulator.setTrajectoryRecorder(TrajectoryRecorder.finalState()); //only the final position is needed
+        if (variableWind) {
+            //updates wind model in engine to variable wind model
+            simulator.setAltToWind(altToWindMap, altToWindDirectionMap);
+        }
+
+        FlightData flightSummary = simulator.simulate(trialConditions); //outputs flight vars
+        saveData(trial, flightSummary, simulator.getTrajectoryRecorder(), trialDeploymentTimeMain, sink);
     }
 
-    //saves data into dataTable
-    public void saveData() {
-        data[index][0] = index / 1.0;  //saves index, /1.0 casts to double
-        data[index][1] = averageWindSpeed;
-        data[index][2] = windSpeedDeviation;
-        data[index][3] = windDirection;
-        data[index][4] = windTurbulence;
-        data[index][5] = deploymentTimeDrogue;
-        data[index][6] = deploymentTimeMain;
-
-        //Full flight data contains all positions, velocities, accelerations, etc. during a flight
-        ArrayList<SimulationStatus> allflightData = ((BasicEventSimulationEngine) simulator).getAllStatus();
-        //We only care about final position, so get only position in last entry of flight data
-        data[index][7] = allflightData.get(allflightData.size() - 1).getRocketPosition().x;
-        data[index][8] = allflightData.get(allflightData.size() - 1).getRocketPosition().y;
-        data[index][9] = allflightData.get(allflightData.size() - 1).getRocketPosition().z;
-        data[index][10] = flightSummary.getMaxAltitude();
-        data[index][11] = flightSummary.getDeploymentVelocity();
-        data[index][12] = flightSummary.getGroundHitVelocity();
-        index++;
+    //saves data of one trial into the result sink
+    public void saveData(int trial, FlightData flightSummary, TrajectoryRecorder trajectory,
+                         double trialDeploymentTimeMain, TrialResultSink sink) throws IOException {
+        //We only care about final position, which is the only state recorded by the trajectory recorder
+
+        double[] row = {
+                trial,
+                averageWindSpeed,
+                windSpeedDeviation,
+                windDirection,
+                windTurbulence,
+                deploymentTimeDrogue,
+                trialDeploymentTimeMain,
+                trajectory.getLast(TrajectoryRecorder.POSITION_X),
+                trajectory.getLast(TrajectoryRecorder.POSITION_Y),
+                trajectory.getLast(TrajectoryRecorder.POSITION_Z),
+                flightSummary.getMaxAltitude(),
+                flightSummary.getDeploymentVelocity(),
+                flightSummary.getGroundHitVelocity()};
+        synchronized (sink) { //sinks are not thread-safe, trials finish on several threads
+            sink.append(trial, row);
+        }
     }
 
 
+    //Reports the collected data, the results themselves are already streamed to the result sink
     public void exportData() {
-        Object[] columnNames = {"number", "avg Wind speed", "windSpeed standard dev", "wind direction", "wind Turbulence",
-                "deploymentTime Drogue", "deploymentTime Main", "positionEast of Launch (m)", "position North of Launch (m)",
-                "altitude(m)", "Max altitude", "deployment Velocity", "groundSpeedVelocity"};
-
-        //suspicious, could cause problem cuz wrapping in double, not primitive type double
-        JTable tableData = new JTable(data, columnNames);
-        tableData.setBounds(30, 40, 200, 300);
-
-        //Sets up table details
-        JFrame frame = new JFrame();
-
-        // Frame Title
-        frame.setTitle("Sim data");
-
-        // adding it to JScrollPane
-        JScrollPane sp = new JScrollPane(tableData);
-        frame.add(sp);
-        // Frame Size
-        frame.setSize(500, 200);
-        // Frame Visible = true
-        frame.setVisible(true);
+        if (results == null) {
+            log.info("Dispersion results written to " + resultSink);
+            return;
+        }
+        double[] landingX = results.getColumn(7);
+        double[] landingY = results.getColumn(8);
+        for (int i = 0; i < results.getTrialCount(); i++) {
+            log.info(String.format("Trial %d: landing east %.1f m, north %.1f m", i, landingX[i], landingY[i]));
+        }
     }
 
     //Streamlines setting up the wind model, avoids a lot of needless lines of code doing
     //windModel.setAverage(windModel.getAverage+=.5);
-    public void setWindModel() {
+    public PinkNoiseWindModel createWindModel(int randomSeed) {
+        PinkNoiseWindModel windModel = new PinkNoiseWindModel(randomSeed);
         windModel.setAverage(averageWindSpeed);
         windModel.setStandardDeviation(windSpeedDeviation);
         windModel.setDirection(windDirection);
         windModel.setTurbulenceIntensity(windTurbulence);
+        return windModel;
     }
 
     //makes the array which represents the map from altitude to wind speed, used if variable wind speed mode is desired
@@ -344,4 +385,74 @@ public class DispersionAnalysis {
 //        }
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Derives the random seed of a trial from the master seed.  The seed only depends on the master seed and the trial
+     * number, so a campaign is reproducible no matter how many threads run it or in which order trials finish.
+     * (SplitMix64 finalizer)
+     */
+    public static int trialSeed(long masterSeed, int trial) {
+        long z = masterSeed + (trial + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (int) (z ^ (z >>> 32));
+    }
+
+
+    //Getters and setters for campaign
+    public DispersionResultStore getResults() {
+        return results;
+    }
+
+    public long getMasterSeed() {
+        return masterSeed;
+    }
+
+    public void setMasterSeed(long masterSeed) {
+        this.masterSeed = masterSeed;
+    }
+
+    public int getTrialCount() {
+        return trialCount;
+    }
+
+    public void setTrialCount(int trialCount) {
+        this.trialCount = trialCount;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("threadCount must be positive: " + threadCount);
+        }
+        this.threadCount = threadCount;
+    }
+
+    public TrialResultSink getResultSink() {
+        return resultSink;
+    }
+
+    /**
+     * Sets the sink that receives every trial result as soon as it finishes.  The sink is started and flushed by
+     * the analysis but closing it is left to the caller.
+     */
+    public void setResultSink(TrialResultSink resultSink) {
+        this.resultSink = resultSink;
+    }
+
+    /**
+     * Marks trials that are already stored in the result sink, these are skipped when resuming a campaign.
+     * See {@link CsvTrialResultSink#readCompletedTrials} and {@link BinaryTrialResultSink#readCompletedTrials}.
+     */
+    public void setCompletedTrials(BitSet completedTrials) {
+        this.completedTrials = (BitSet) completedTrials.clone();
+    }
+
+    public void setVariableWind(boolean variableWind) {
+        this.variableWind = variableWind;
+    }
+}
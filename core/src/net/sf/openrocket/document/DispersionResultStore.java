@@ -0,0 +1,143 @@
+package net.sf.openrocket.document;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A thread-safe store of per-trial results of a dispersion analysis.  The values of
+ * each trial are stored in a single preallocated primitive array, indexed by trial
+ * number, so that the contents of the store are independent of the order in which
+ * concurrently running trials finish.
+ * <p>
+ * This is the in-memory {@link TrialResultSink}; large campaigns should stream their
+ * results to a file sink instead.
+ */
+public class DispersionResultStore implements TrialResultSink {
+
+	private final String[] columnNames;
+	private final int trialCount;
+
+	private final double[] values;
+	private final boolean[] completed;
+	private int completedCount = 0;
+
+
+	/**
+	 * Construct an empty result store.
+	 *
+	 * @param trialCount	the number of trials the store holds.
+	 * @param columnNames	the names of the values stored for each trial.
+	 */
+	public DispersionResultStore(int trialCount, String... columnNames) {
+		if (trialCount < 0) {
+			throw new IllegalArgumentException("trialCount is negative: " + trialCount);
+		}
+		this.trialCount = trialCount;
+		this.columnNames = columnNames.clone();
+		this.values = new double[trialCount * columnNames.length];
+		this.completed = new boolean[trialCount];
+		Arrays.fill(values, Double.NaN);
+	}
+
+
+	/**
+	 * Store the values of a finished trial.
+	 *
+	 * @param trial		the trial number.
+	 * @param row		the trial values, one per column.
+	 */
+	public synchronized void set(int trial, double... row) {
+		checkTrial(trial);
+		if (row.length != columnNames.length) {
+			throw new IllegalArgumentException("Expected " + columnNames.length + " values, got " + row.length);
+		}
+		System.arraycopy(row, 0, values, trial * columnNames.length, row.length);
+		if (!completed[trial]) {
+			completed[trial] = true;
+			completedCount++;
+		}
+	}
+
+	@Override
+	public void begin(String[] columnNames) throws IOException {
+		if (columnNames.length != this.columnNames.length) {
+			throw new IOException("Store has " + this.columnNames.length + " columns, got " + columnNames.length);
+		}
+	}
+
+	@Override
+	public void append(int trial, double[] values) {
+		set(trial, values);
+	}
+
+	@Override
+	public void flush() {
+	}
+
+	@Override
+	public void close() {
+	}
+
+	/**
+	 * Return a single stored value, or NaN if the trial has not completed.
+	 */
+	public synchronized double get(int trial, int column) {
+		checkTrial(trial);
+		if (column < 0 || column >= columnNames.length) {
+			throw new IndexOutOfBoundsException("column=" + column);
+		}
+		return values[trial * columnNames.length + column];
+	}
+
+	/**
+	 * Return a copy of the values of one trial.
+	 */
+	public synchronized double[] getRow(int trial) {
+		checkTrial(trial);
+		int offset = trial * columnNames.length;
+		return Arrays.copyOfRange(values, offset, offset + columnNames.length);
+	}
+
+	/**
+	 * Return a copy of one column over all trials.
+	 */
+	public synchronized double[] getColumn(int column) {
+		double[] result = new double[trialCount];
+		for (int i = 0; i < trialCount; i++) {
+			result[i] = values[i * columnNames.length + column];
+		}
+		return result;
+	}
+
+	public synchronized boolean isCompleted(int trial) {
+		checkTrial(trial);
+		return completed[trial];
+	}
+
+	public synchronized int getCompletedCount() {
+		return completedCount;
+	}
+
+	public int getTrialCount() {
+		return trialCount;
+	}
+
+	public int getColumnCount() {
+		return columnNames.length;
+	}
+
+	public String getColumnName(int column) {
+		return columnNames[column];
+	}
+
+	public String[] getColumnNames() {
+		return columnNames.clone();
+	}
+
+
+	private void checkTrial(int trial) {
+		if (trial < 0 || trial >= trialCount) {
+			throw new IndexOutOfBoundsException("trial=" + trial + " trialCount=" + trialCount);
+		}
+	}
+}
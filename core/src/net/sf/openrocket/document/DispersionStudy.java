@@ -0,0 +1,40 @@
+package net.sf.openrocket.document;
+
+import net.sf.openrocket.simulation.FlightData;
+import net.sf.openrocket.simulation.SimulationConditions;
+import net.sf.openrocket.simulation.SimulationEngine;
+import net.sf.openrocket.simulation.SimulationStudy;
+import net.sf.openrocket.simulation.exception.SimulationException;
+
+/**
+ * Study running a dispersion campaign (see DispersionAnalysis) instead of a single flight.  The trials run on
+ * their own engines, so the campaign produces no flight data for the simulation.
+ */
+public class DispersionStudy implements SimulationStudy {
+
+    private final int trialCount;
+
+    public DispersionStudy(int trialCount) {
+        if (trialCount < 1) {
+            throw new IllegalArgumentException("trialCount must be positive: " + trialCount);
+        }
+        this.trialCount = trialCount;
+    }
+
+    @Override
+    public String getName() {
+        return "Dispersion analysis";
+    }
+
+    @Override
+    public FlightData run(SimulationEngine engine, SimulationConditions conditions) throws SimulationException {
+        DispersionAnalysis analysis = new DispersionAnalysis(conditions);
+        analysis.setTrialCount(trialCount);
+        analysis.loopSim();
+        return null;
+    }
+
+    public int getTrialCount() {
+        return trialCount;
+    }
+}
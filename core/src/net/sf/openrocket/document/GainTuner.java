@@ -0,0 +1,248 @@
+package net.sf.openrocket.document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.openrocket.models.wind.PinkNoiseWindModel;
+import net.sf.openrocket.models.wind.WindModel;
+import net.sf.openrocket.optimization.general.Function;
+import net.sf.openrocket.optimization.general.OptimizationController;
+import net.sf.openrocket.optimization.general.OptimizationException;
+import net.sf.openrocket.optimization.general.ParallelExecutorCache;
+import net.sf.openrocket.optimization.general.Point;
+import net.sf.openrocket.optimization.general.multidim.MultidirectionalSearchOptimizer;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.simulation.BasicEventSimulationEngineGuidance;
+import net.sf.openrocket.simulation.SimulationConditions;
+import net.sf.openrocket.simulation.exception.SimulationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Batch tuning of the (KP, KI, KD) gains of the RollControlModel.  Every candidate gain vector is
+ * flown in its own simulation, the candidates of a search step are simulated concurrently on a
+ * ParallelExecutorCache and the cost of each gain vector is cached, so a candidate is never simulated twice.
+ * <p>
+ * The optimizer works in the unit cube, gain i is mapped linearly from [0,1] onto [minGains[i], maxGains[i]].
+ * The public methods should be called from one thread at a time.
+ */
+public class GainTuner {
+
+    private static final Logger log = LoggerFactory.getLogger(GainTuner.class);
+
+    public static final int KP = 0;
+    public static final int KI = 1;
+    public static final int KD = 2;
+
+    //bounds around the hand tuned gains of RollControlModel
+    public static final double[] DEFAULT_MIN_GAINS = {0, -0.05, -0.01};
+    public static final double[] DEFAULT_MAX_GAINS = {1, 0, 0};
+
+    //Prototype conditions and rocket, each candidate works on its own clone/copy of these
+    private final SimulationConditions conditions;
+    private final Rocket rocket;
+
+    private final double[] minGains;
+    private final double[] maxGains;
+
+    //Control conditions, same as GuidanceEngine.defineControl()
+    private double setPointRoll = Math.toRadians(180);
+    private double startTime = 1.5;
+
+    private final Optimizer optimizer = new Optimizer(); //defines the cost of a flight
+    private final ParallelExecutorCache cache; //holds the cost of every gain vector simulated so far
+    private final AtomicInteger simulationCount = new AtomicInteger();
+
+
+    public GainTuner(SimulationConditions conditions) {
+        this(conditions, DEFAULT_MIN_GAINS, DEFAULT_MAX_GAINS, Runtime.getRuntime().availableProcessors());
+    }
+
+    public GainTuner(SimulationConditions conditions, double[] minGains, double[] maxGains, int threadCount) {
+        if (minGains.length != 3 || maxGains.length != 3) {
+            throw new IllegalArgumentException("Gain bounds must have 3 values (KP, KI, KD)");
+        }
+        for (int i = 0; i < 3; i++) {
+            if (!(minGains[i] < maxGains[i])) {
+                throw new IllegalArgumentException("Empty range for gain " + i + ": " + minGains[i] + " .. " + maxGains[i]);
+            }
+        }
+        this.conditions = conditions.clone();
+        this.rocket = conditions.getRocket();
+        this.minGains = minGains.clone();
+        this.maxGains = maxGains.clone();
+
+        //the function is set only once, setting it again would clear the cached costs
+        cache = new ParallelExecutorCache(threadCount);
+        cache.setFunction(new Function() {
+            @Override
+            public double evaluate(Point point) throws InterruptedException, OptimizationException {
+                return simulate(toGains(point));
+            }
+        });
+    }
+
+
+    /**
+     * Pattern search for the gains with the lowest cost, starting from the given gains.  The search
+     * stops after maxSteps steps or once the search step is smaller than minStep (in the unit cube).
+     *
+     * @return the best gains found, {KP, KI, KD}
+     */
+    public double[] tune(double[] initialGains, final int maxSteps, final double minStep) throws OptimizationException {
+        final long tuneStart = System.currentTimeMillis();
+        final int simulationsBefore = simulationCount.get();
+
+        MultidirectionalSearchOptimizer search = new MultidirectionalSearchOptimizer(cache);
+        OptimizationController control = new OptimizationController() {
+            private int stepCount = 0;
+
+            @Override
+            public boolean stepTaken(Point oldPoint, double oldValue, Point newPoint, double newValue, double stepSize) {
+                stepCount++;
+                log.debug("Tuning step " + stepCount + " gains=" + toString(toGains(newPoint)) + " cost=" + newValue);
+                return stepCount < maxSteps && !(stepSize < minStep);
+            }
+
+            private String toString(double[] gains) {
+                return "(" + gains[KP] + ", " + gains[KI] + ", " + gains[KD] + ")";
+            }
+        };
+        search.optimize(toPoint(initialGains), control);
+
+        double[] best = toGains(search.getOptimumPoint());
+        log.info("Gain tuning took " + (System.currentTimeMillis() - tuneStart) + "ms and "
+                + (simulationCount.get() - simulationsBefore) + " simulations, KP=" + best[KP] + " KI=" + best[KI]
+                + " KD=" + best[KD] + " cost=" + search.getOptimumValue());
+        return best;
+    }
+
+    /**
+     * Tunes starting from the current gains of the roll model and updates the roll model with the result.
+     */
+    public void tune(RollControlModel rollModel, int maxSteps, double minStep) throws OptimizationException {
+        double[] best = tune(new double[]{rollModel.getKP(), rollModel.getKI(), rollModel.getKD()}, maxSteps, minStep);
+        rollModel.setGains(best[KP], best[KI], best[KD]);
+    }
+
+    /**
+     * Evaluates a whole population of gain vectors concurrently.  Gain vectors outside the bounds get Double.MAX_VALUE.
+     *
+     * @return the cost of each gain vector, in the same order
+     */
+    public double[] evaluate(List<double[]> population) throws OptimizationException {
+        List<Point> points = new ArrayList<>(population.size());
+        for (double[] gains : population) {
+            points.add(toPoint(gains));
+        }
+        try {
+            cache.compute(points);
+            cache.waitFor(points);
+        } catch (InterruptedException e) {
+            cache.abortAll();
+            Thread.currentThread().interrupt();
+            throw new OptimizationException("Gain tuning was interrupted", e);
+        }
+        double[] costs = new double[points.size()];
+        for (int i = 0; i < costs.length; i++) {
+            costs[i] = cache.getValue(points.get(i));
+        }
+        return costs;
+    }
+
+    //Flies one candidate with its own engine, roll model, conditions and rocket copy, returns its cost
+    private double simulate(double[] gains) throws InterruptedException, OptimizationException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+
+        Rocket candidateRocket;
+        synchronized (rocket) { //copying locks the component mutexes, so copies are made one at a time
+            candidateRocket = rocket.copyWithOriginalID();
+        }
+        SimulationConditions candidateConditions = conditions.clone();
+        candidateConditions.setRocket(candidateRocket);
+        //the aerodynamic calculator caches per rocket and the wind model has state, so every candidate needs its own
+        candidateConditions.setAerodynamicCalculator(conditions.getAerodynamicCalculator().newInstance());
+        candidateConditions.setWindModel(copyWindModel(conditions.getWindModel()));
+
+        RollControlModel rollModel = new RollControlModel();
+        rollModel.setGains(gains[KP], gains[KI], gains[KD]);
+        rollModel.setSetPointRoll(setPointRoll);
+        rollModel.setStartTime(startTime);
+
+        BasicEventSimulationEngineGuidance simulator = new BasicEventSimulationEngineGuidance();
+        simulator.setRollControlModel(rollModel);
+        try {
+            simulator.simulate(candidateConditions);
+        } catch (SimulationException e) {
+            throw new OptimizationException("Simulation failed for gains KP=" + gains[KP] + " KI=" + gains[KI]
+                    + " KD=" + gains[KD], e);
+        }
+        simulationCount.incrementAndGet();
+
+        DataAnalyzer analyzer = new DataAnalyzer(simulator.getDataInfo());
+        analyzer.analyze(rollModel);
+        double cost = optimizer.cost(analyzer);
+        if (Double.isNaN(cost)) {
+            log.warn("Computed cost was NaN for gains KP=" + gains[KP] + " KI=" + gains[KI] + " KD=" + gains[KD]);
+            cost = Double.MAX_VALUE;
+        }
+        return cost;
+    }
+
+    //every candidate starts with the same wind, so that the costs only depend on the gains
+    private WindModel copyWindModel(WindModel windModel) {
+        if (!(windModel instanceof PinkNoiseWindModel)) {
+            return windModel;
+        }
+        PinkNoiseWindModel orig = (PinkNoiseWindModel) windModel;
+        PinkNoiseWindModel copy = new PinkNoiseWindModel(conditions.getRandomSeed());
+        copy.setAverage(orig.getAverage());
+        copy.setStandardDeviation(orig.getStandardDeviation());
+        copy.setDirection(orig.getDirection());
+        copy.setTurbulenceIntensity(orig.getTurbulenceIntensity());
+        return copy;
+    }
+
+
+    public Point toPoint(double[] gains) {
+        double[] value = new double[3];
+        for (int i = 0; i < 3; i++) {
+            value[i] = (gains[i] - minGains[i]) / (maxGains[i] - minGains[i]);
+        }
+        return new Point(value);
+    }
+
+    public double[] toGains(Point point) {
+        double[] gains = new double[3];
+        for (int i = 0; i < 3; i++) {
+            gains[i] = minGains[i] + point.get(i) * (maxGains[i] - minGains[i]);
+        }
+        return gains;
+    }
+
+    //Returns the number of simulations flown, gain vectors found in the cache are not counted
+    public int getSimulationCount() {
+        return simulationCount.get();
+    }
+
+    public void setSetPointRoll(double setPointRoll) {
+        this.setPointRoll = setPointRoll;
+        cache.clearCache(); //the cached costs were computed for the old control conditions
+    }
+
+    public void setStartTime(double startTime) {
+        this.startTime = startTime;
+        cache.clearCache();
+    }
+
+    //stops the tuning threads, the tuner cannot be used afterwards
+    public void shutdown() {
+        cache.abortAll();
+        cache.getExecutor().shutdownNow();
+    }
+
+}
@@ -1,20 +1,20 @@
 package net.sf.openrocket.document;
 
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
-import java.util.ArrayList;
 
 import net.sf.openrocket.aerodynamics.FlightConditions;
+import net.sf.openrocket.optimization.general.OptimizationException;
 import net.sf.openrocket.simulation.*;
 import net.sf.openrocket.simulation.exception.SimulationException;
 import net.sf.openrocket.simulation.SimulationEngine;
-import net.sf.openrocket.simulation.extension.example.RollControl;
-import net.sf.openrocket.util.Coordinate;
-
-import javax.swing.*;
-import javax.xml.crypto.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class GuidanceEngine {
 
+    private static final Logger log = LoggerFactory.getLogger(GuidanceEngine.class);
+
     private SimulationConditions presetConditions;
 
     private SimulationConditions conditions;
@@ -23,14 +23,24 @@ public class GuidanceEngine {
 
     private RollControlModel rollModel = new RollControlModel();
 
+    /**
+     * Names of the values written to the result sink for each step of an iteration
+     */
+    public static final String[] COLUMN_NAMES = {"simulation time", "positionEast of Launch (m)",
+            "position North of Launch (m)", "altitude(m)", "rocket roll", "rocket roll velocity", "Rocket velocity",
+            "Rotational acc y", "Rotational acc z", "canard 1 angle", "canard 2 angle"};
+
     //DATA variables
     private FlightData flightSummary;
 
-    private Double[][] data;
+    private TrialResultSink resultSink; //receives the step data of saved iterations, trial number is the iteration
+    private boolean sinkStarted = false;
 
     private DataInfo datainfo = new DataInfo();
     private Optimizer optimizer = new Optimizer();
 
+    private int iterationCount = 50; //number of simulate-analyze-optimize iterations run by loopSim()
+
 
     //Optimization
     private DataAnalyzer analyzer;
@@ -54,34 +64,58 @@ public class GuidanceEngine {
         this.presetConditions = presetConditions.clone();
         conditions = presetConditions.clone();
 
-        //Variable definition
-        data = new Double[20000][12];
-
         //Canard angle trackers
 
     }
     //chenlei suggestion: conduct a Z transform given PID inputs, see if the area is
     public void loopSim() throws SimulationException {
 
-        for(int i = 0; i < 50; i ++){
+        final long startTime = System.currentTimeMillis();
+        for(int i = 0; i < iterationCount; i ++){
             defineControl();
             runSim();
             analyzeData();
 
-            System.out.println(i + " KP: " + rollModel.getKP() + " KD: "+ rollModel.getKD() + " KI " + rollModel.getKI());
+            log.debug(i + " KP: " + rollModel.getKP() + " KD: "+ rollModel.getKD() + " KI " + rollModel.getKI());
 
             optimizer.optimize(analyzer, rollModel);
 //
             if (i%10 == 0){
                 saveData(i);
-                exportData();
             }
             clearDataVariables();
 
 
 
         }
+        exportData();
+        log.info("Guidance tuning of " + iterationCount + " iterations took "
+                + (System.currentTimeMillis() - startTime) + "ms");
+
+    }
+
+    /**
+     * Batch alternative to loopSim(): tunes the gains with a parallel pattern search (see GainTuner),
+     * then flies the tuned controller once and saves that run
+     */
+    public void tuneSim(int maxSteps) throws SimulationException {
+        defineControl();
+        GainTuner tuner = new GainTuner(presetConditions);
+        tuner.setSetPointRoll(rollModel.getSetPointRoll());
+        tuner.setStartTime(rollModel.getStartTime());
+        try {
+            tuner.tune(rollModel, maxSteps, 1.0e-3);
+        } catch (OptimizationException e) {
+            throw new SimulationException("Gain tuning failed", e);
+        } finally {
+            tuner.shutdown();
+        }
+        log.info("tuned KP: " + rollModel.getKP() + " KD: "+ rollModel.getKD() + " KI " + rollModel.getKI());
 
+        runSim();
+        saveData(0);
+        exportData();
+        clearDataVariables();
     }
 
     public void runSim() throws SimulationException {
@@ -121,46 +155,74 @@ public class GuidanceEngine {
         analyzer = new DataAnalyzer(datainfo);
         analyzer.analyze(rollModel);
     }
-    public void saveData(double iterationNum){
-        int count = 0;
-        for (SimulationStatus status: datainfo.getFullFlightStatus()){
-            data[count][0] = iterationNum;
-            data[count][1] = status.getSimulationTime();
-//            data[count][2] = status.getRocketPosition().x;
-//            data[count][3] = status.getRocketPosition().y;
-            data[count][4] = status.getRocketPosition().z;
-            data[count][5] = Math.toDegrees(datainfo.getAllRolls().get(count));
-            data[count][6] = (datainfo.getAllFlightConds().get(count) != null) ? Math.toDegrees(datainfo.getAllFlightConds().get(count).getRollRate()) : -1;
-            data[count][7] = datainfo.getAllFlightConds().get(count).getVelocity();
-//            data[count][8] = Math.toDegrees(datainfo.getRotationalAccelerations().get(count).y);
-            data[count][9] = Math.toDegrees(datainfo.getRotationalAccelerations().get(count).z);
-            data[count][10] = Math.toDegrees(datainfo.getCanard1Angle().get(count)); //ERRORMODE, canard1Angle not right size
-            data[count][11] = Math.toDegrees(datainfo.getCanard2Angle().get(count));
-            count++;
+    //streams the step data of one iteration to the result sink, one row per step
+    public void saveData(int iterationNum) throws SimulationException {
+        if (resultSink == null) {
+            return;
+        }
+        double[] row = new double[COLUMN_NAMES.length];
+        try {
+            if (!sinkStarted) {
+                resultSink.begin(COLUMN_NAMES);
+                sinkStarted = true;
+            }
+            TrajectoryRecorder flightStatus = datainfo.getFullFlightStatus();
+            for (int count = 0; count < flightStatus.getSampleCount(); count++){
+                FlightConditions flightConds = datainfo.getAllFlightConds().get(count);
+                row[0] = flightStatus.get(count, TrajectoryRecorder.TIME);
+                row[1] = flightStatus.get(count, TrajectoryRecorder.POSITION_X);
+                row[2] = flightStatus.get(count, TrajectoryRecorder.POSITION_Y);
+                row[3] = flightStatus.get(count, TrajectoryRecorder.POSITION_Z);
+                row[4] = Math.toDegrees(datainfo.getAllRolls().get(count));
+                row[5] = (flightConds != null) ? Math.toDegrees(flightConds.getRollRate()) : -1;
+                row[6] = (flightConds != null) ? flightConds.getVelocity() : Double.NaN;
+                row[7] = Math.toDegrees(datainfo.getRotationalAccelerations().get(count).y);
+                row[8] = Math.toDegrees(datainfo.getRotationalAccelerations().get(count).z);
+                row[9] = Math.toDegrees(datainfo.getCanard1Angle().get(count)); //ERRORMODE, canard1Angle not right size
+                row[10] = Math.toDegrees(datainfo.getCanard2Angle().get(count));
+                resultSink.append(iterationNum, row);
+            }
+        } catch (IOException e) {
+            throw new SimulationException("Unable to write guidance data", e);
         }
     }
-    public void exportData() {
-        Object[] columnNames = {"step #", "simulation time",  "positionEast of Launch (m)", "position North of Launch (m)",
-                "altitude(m)", "rocket roll" , "rocket roll velocity", "Rocket velocity", "Rotational acc y",
-                "Rotational acc z", "canard 1 angle", "canard 2 angle"};
-
-        //suspicious, could cause problem cuz wrapping in double, not primitive type double
-        JTable tableData = new JTable(data, columnNames);
-        tableData.setBounds(30, 40, 200, 300);
-
-        //Sets up table details
-        JFrame frame = new JFrame();
-
-        // Frame Title
-        frame.setTitle("Guidance Sim data");
-
-        // adding it to JScrollPane
-        JScrollPane sp = new JScrollPane(tableData);
-        frame.add(sp);
-        // Frame Size
-        frame.setSize(500, 200);
-        // Frame Visible = true
-        frame.setVisible(true);
+
+    //makes sure all saved data reached the result sink
+    public void exportData() throws SimulationException {
+        if (resultSink == null) {
+            return;
+        }
+        try {
+            resultSink.flush();
+        } catch (IOException e) {
+            throw new SimulationException("Unable to write guidance data", e);
+        }
+    }
+
+    /**
+     * Returns the flight data of the most recent run, or null if nothing has been run
+     */
+    public FlightData getFlightSummary() {
+        return flightSummary;
+    }
+
+    public int getIterationCount() {
+        return iterationCount;
+    }
+
+    public void setIterationCount(int iterationCount) {
+        if (iterationCount < 1) {
+            throw new IllegalArgumentException("iterationCount must be positive: " + iterationCount);
+        }
+        this.iterationCount = iterationCount;
+    }
+
+    /**
+     * Sets the sink that receives the step data of every 10th iteration.  Closing it is left to the caller.
+     */
+    public void setResultSink(TrialResultSink resultSink) {
+        this.resultSink = resultSink;
+        this.sinkStarted = false;
     }
 
     //removes data variables from recent past run, since that data has already been used
@@ -169,7 +231,6 @@ public class GuidanceEngine {
         conditions = presetConditions.clone(); //makes sure conditions aren't edited at all
         rollModel.resetRollControlModel(); //resets values in roll model (such as roll value)
         ((BasicEventSimulationEngineGuidance) simulator).resetEngine(); //resets engine values
-        data = new Double[20000][12];
 
 
     }
@@ -0,0 +1,40 @@
+package net.sf.openrocket.document;
+
+import net.sf.openrocket.simulation.FlightData;
+import net.sf.openrocket.simulation.SimulationConditions;
+import net.sf.openrocket.simulation.SimulationEngine;
+import net.sf.openrocket.simulation.SimulationStudy;
+import net.sf.openrocket.simulation.exception.SimulationException;
+
+/**
+ * Study tuning the roll controller iteratively with the GuidanceEngine instead of flying once.  The flight of
+ * the last iteration is stored in the simulation.
+ */
+public class GuidanceTuningStudy implements SimulationStudy {
+
+    private final int iterationCount;
+
+    public GuidanceTuningStudy(int iterationCount) {
+        if (iterationCount < 1) {
+            throw new IllegalArgumentException("iterationCount must be positive: " + iterationCount);
+        }
+        this.iterationCount = iterationCount;
+    }
+
+    @Override
+    public String getName() {
+        return "Guidance tuning";
+    }
+
+    @Override
+    public FlightData run(SimulationEngine engine, SimulationConditions conditions) throws SimulationException {
+        GuidanceEngine guidance = new GuidanceEngine(conditions);
+        guidance.setIterationCount(iterationCount);
+        guidance.loopSim();
+        return guidance.getFlightSummary();
+    }
+
+    public int getIterationCount() {
+        return iterationCount;
+    }
+}
@@ -40,14 +40,11 @@ public class OpenRocketDocument implements ComponentChangeListener, StateChangeL
 	private static final Preferences prefs = Application.getPreferences();
 	private final List<String> file_extensions = Arrays.asList("ork", "ork.gz", "rkt", "rkt.gz");	// Possible extensions of an OpenRocket document
 	/**
-	 * The minimum number of undo levels that are stored.
+	 * The default limit of the estimated memory used by the undo history, in bytes.  When the
+	 * history exceeds the limit, the oldest undo levels are removed.  At least one undo level
+	 * is always kept.
 	 */
-	public static final int UNDO_LEVELS = 50;
-	/**
-	 * The margin of the undo levels.  After the number of undo levels exceeds 
-	 * UNDO_LEVELS by this amount the undo is purged to that length.
-	 */
-	public static final int UNDO_MARGIN = 10;
+	public static final long UNDO_MEMORY_LIMIT = 64L * 1024 * 1024;
 	
 	public static final String SIMULATION_NAME_PREFIX = "Simulation ";
 	
@@ -68,11 +65,18 @@ public class OpenRocketDocument implements ComponentChangeListener, StateChangeL
 	
 	/** 
 	 * The undo history of the rocket.   Whenever a new undo position is created while the
-	 * rocket is in "dirty" state, the rocket is copied here.
+	 * rocket is in "dirty" state, a snapshot of the rocket is stored here.  Consecutive
+	 * snapshots share the copies of the unchanged components.
 	 */
-	private final LinkedList<Rocket> undoHistory = new LinkedList<Rocket>();
+	private final LinkedList<RocketSnapshot> undoHistory = new LinkedList<RocketSnapshot>();
 	private final LinkedList<String> undoDescription = new LinkedList<String>();
 	
+	/** The reference counts of the component copies in the undo history */
+	private final Map<Object, Integer> undoReferences = new IdentityHashMap<Object, Integer>();
+	/** The estimated memory used by the undo history in bytes */
+	private long undoMemory = 0;
+	private long undoMemoryLimit = UNDO_MEMORY_LIMIT;
+	
 	/**
 	 * The position in the undoHistory we are currently at.  If modifications have been
 	 * made to the rocket, the rocket is in "dirty" state and this points to the previous
@@ -514,12 +518,10 @@ public class OpenRocketDocument implements ComponentChangeListener, StateChangeL
 	 * 
 	 */
 	private void maintainMaximumUndoSize() {
-		if (undoHistory.size() > UNDO_LEVELS + UNDO_MARGIN && undoPosition > UNDO_MARGIN) {
-			for (int i = 0; i < UNDO_MARGIN; i++) {
-				undoHistory.removeFirst();
-				undoDescription.removeFirst();
-				undoPosition--;
-			}
+		while (undoMemory > undoMemoryLimit && undoPosition > 1) {
+			undoMemory -= undoHistory.removeFirst().release(undoReferences);
+			undoDescription.removeFirst();
+			undoPosition--;
 		}
 	}
 
@@ -528,11 +530,20 @@ public class OpenRocketDocument implements ComponentChangeListener, StateChangeL
 	 */
 	private void addStateToUndoHistory(String description) {
 		// Add the current state to the undo history
-		undoHistory.add(rocket.copyWithOriginalID());
-		undoDescription.add(null);
+		addSnapshot();
 		nextDescription = description;
 		undoPosition++;
 	}
+	
+	/**
+	 * Adds a snapshot of the current state of the rocket to the end of the undo history.
+	 */
+	private void addSnapshot() {
+		RocketSnapshot snapshot = RocketSnapshot.create(rocket, undoHistory.peekLast());
+		undoMemory += snapshot.retain(undoReferences);
+		undoHistory.add(snapshot);
+		undoDescription.add(null);
+	}
 
 	/**
 	 * checks if there was or not modification, and logs
@@ -616,9 +627,10 @@ public class OpenRocketDocument implements ComponentChangeListener, StateChangeL
 		//log.info("Clearing undo history of " + this);
 		undoHistory.clear();
 		undoDescription.clear();
+		undoReferences.clear();
+		undoMemory = 0;
 		
-		undoHistory.add(rocket.copyWithOriginalID());
-		undoDescription.add(null);
+		addSnapshot();
 		undoPosition = 0;
 		
 		fireUndoRedoChangeEvent();
@@ -660,11 +672,36 @@ public class OpenRocketDocument implements ComponentChangeListener, StateChangeL
 	 */
 	private void removeRedoInfo() {
 		while (undoPosition < undoHistory.size() - 1) {
-			undoHistory.removeLast();
+			undoMemory -= undoHistory.removeLast().release(undoReferences);
 			undoDescription.removeLast();
 		}
 	}
 	
+	/**
+	 * Return the limit of the estimated memory used by the undo history, in bytes.
+	 */
+	public long getUndoMemoryLimit() {
+		return undoMemoryLimit;
+	}
+	
+	/**
+	 * Set the limit of the estimated memory used by the undo history, in bytes.  The oldest
+	 * undo levels are removed at the next undo position if the history exceeds the limit.
+	 * 
+	 * @param limit	the memory limit in bytes.
+	 */
+	public void setUndoMemoryLimit(long limit) {
+		this.undoMemoryLimit = limit;
+	}
+	
+	/**
+	 * Return the estimated memory used by the undo history, in bytes.  Component copies
+	 * shared between undo levels are counted once.
+	 */
+	long getUndoMemory() {
+		return undoMemory;
+	}
+	
 	
 	/**
 	 * Return whether undo action is available.
@@ -738,12 +775,11 @@ public class OpenRocketDocument implements ComponentChangeListener, StateChangeL
 				logUndoError("undo position inconsistency");
 			}
 			// Modifications have been made, save the state and restore previous state
-			undoHistory.add(rocket.copyWithOriginalID());
-			undoDescription.add(null);
+			addSnapshot();
 		}
 		
 		rocket.checkComponentStructure();
-		rocket.loadFrom(undoHistory.get(undoPosition));
+		rocket.loadFrom(undoHistory.get(undoPosition).toRocket());
 		rocket.checkComponentStructure();
 	}
 	
@@ -765,7 +801,7 @@ public class OpenRocketDocument implements ComponentChangeListener, StateChangeL
 		
 		undoPosition++;
 		
-		rocket.loadFrom(undoHistory.get(undoPosition).copyWithOriginalID());
+		rocket.loadFrom(undoHistory.get(undoPosition).toRocket());
 	}
 	
 	
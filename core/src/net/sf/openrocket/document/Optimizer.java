@@ -34,6 +34,18 @@ public class Optimizer {
 
     }
 
+    /**
+     * Single cost of a controlled flight, used when tuning the gains by search (see GainTuner) instead of
+     * by the updates above. Every metric is scaled by its max tolerable value, so a cost of about 1 per term is acceptable
+     */
+    public double cost(DataAnalyzer dataAnalyzer){
+        double scaledSettling_20 = dataAnalyzer.getSpeed_metric()[-20+100]/maxSettlingTime_20;
+        double scaledSettling_5 = dataAnalyzer.getSpeed_metric()[-5+100]/maxSettlingTime_5;
+        double scaledOvershoot = Math.max(dataAnalyzer.getMaxOvershootPercent_metric(), 0)/ maxOvershootPercentage;
+        double scaledSteadStateError = Math.abs(dataAnalyzer.getSteadyStatePercent_metric())/maxSteadyStateError;
+        return (0.3)*scaledSettling_20 + (0.7)*scaledSettling_5 + scaledOvershoot + scaledSteadStateError;
+    }
+
     public double dKP(DataAnalyzer dataAnalyzer){
         double rocketVelocity = dataAnalyzer.getAverageRocketVelocity(-0.05);
 
@@ -185,6 +185,13 @@ public class RollControlModel {
         }
     }
 
+    //sets all coefficients at once, used by GainTuner for every candidate
+    public void setGains(double KP, double KI, double KD){
+        this.KP = KP;
+        this.KI = KI;
+        this.KD = KD;
+    }
+
     public double getKP(){
         return KP;
     }
@@ -20,12 +20,15 @@ import net.sf.openrocket.rocketcomponent.Rocket;
 import net.sf.openrocket.simulation.BasicEventSimulationEngine;
 import net.sf.openrocket.simulation.DefaultSimulationOptionFactory;
 import net.sf.openrocket.simulation.FlightData;
+import net.sf.openrocket.simulation.FlightDataRecording;
 import net.sf.openrocket.simulation.FlightEvent;
 import net.sf.openrocket.simulation.RK4SimulationStepper;
 import net.sf.openrocket.simulation.SimulationConditions;
 import net.sf.openrocket.simulation.SimulationEngine;
 import net.sf.openrocket.simulation.SimulationOptions;
 import net.sf.openrocket.simulation.SimulationStepper;
+import net.sf.openrocket.simulation.SimulationStudy;
+import net.sf.openrocket.simulation.customexpression.CustomExpressionSimulationListener;
 import net.sf.openrocket.simulation.exception.SimulationException;
 import net.sf.openrocket.simulation.extension.SimulationExtension;
 import net.sf.openrocket.simulation.listeners.SimulationListener;
@@ -257,6 +260,25 @@ public class Simulation implements ChangeSource, Cloneable {
 	}
 	
 	
+	/**
+	 * Return whether the simulation has extensions or custom expressions, which may read
+	 * flight data types not listed in a recording profile.
+	 */
+	private boolean readsAnyFlightData(SimulationListener[] additionalListeners) {
+		if (!simulationExtensions.isEmpty()) {
+			return true;
+		}
+		if (document != null && !document.getCustomExpressions().isEmpty()) {
+			return true;
+		}
+		for (SimulationListener l : additionalListeners) {
+			if (l instanceof CustomExpressionSimulationListener) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
 	/**
 	 * Get the list of simulation extensions.  The returned list is the one used by
 	 * this object; changes to it will reflect changes in the simulation.
@@ -395,6 +417,24 @@ public class Simulation implements ChangeSource, Cloneable {
 	 */
 	public void simulate(SimulationListener... additionalListeners)
 			throws SimulationException {
+		simulate(FlightDataRecording.ALL, additionalListeners);
+	}
+	
+	/**
+	 * Simulate the flight, storing only the flight data of a recording profile.  Batch
+	 * callers that only need a few values of the simulated data use this to make the
+	 * simulation cheaper.
+	 * <p>
+	 * Simulation extensions, their listeners and the custom expressions of the document
+	 * may read any flight data type, so all flight data is recorded when the simulation
+	 * has any of them, regardless of the profile.
+	 *
+	 * @param recording				the recording profile of the flight data to store.
+	 * @param additionalListeners	additional simulation listeners (those defined by the simulation are used in any case)
+	 * @throws SimulationException	if a problem occurs during simulation
+	 */
+	public void simulate(FlightDataRecording recording, SimulationListener... additionalListeners)
+			throws SimulationException {
 		mutex.lock("simulate");
 		try {
 			
@@ -416,6 +456,7 @@ public class Simulation implements ChangeSource, Cloneable {
 
 			SimulationConditions simulationConditions = options.toSimulationConditions();
 			simulationConditions.setSimulation(this);
+			simulationConditions.setRecording(recording);
 			for (SimulationListener l : additionalListeners) {
 				simulationConditions.getSimulationListenerList().add(l);
 			}
@@ -423,33 +464,19 @@ public class Simulation implements ChangeSource, Cloneable {
 			for (SimulationExtension extension : simulationExtensions) {
 				extension.initialize(simulationConditions);
 			}
+			if (!recording.isAll() && readsAnyFlightData(additionalListeners)) {
+				log.debug("Simulation has extensions or custom expressions, recording all flight data");
+				simulationConditions.setRecording(FlightDataRecording.ALL);
+			}
 			
+			SimulationStudy study = simulationConditions.getStudy();
 			long t1, t2;
-			log.debug("Simulation: calling simulator");
+			log.debug("Simulation: calling " + study.getName());
 			t1 = System.currentTimeMillis();
-
-			//TODO: NEW stuff from Eric
-			final long startTime = System.currentTimeMillis();
-			boolean dispAnalysis = false;
-			boolean guidance = true;
-			if (dispAnalysis){ //dispersion analysis for seb
-				DispersionAnalysis analysis = new DispersionAnalysis(simulationConditions);
-				analysis.loopSim();
-			}
-			else if (guidance) { //guidance for MEMS rocket proj
-				GuidanceEngine guideSim = new GuidanceEngine(simulationConditions);
-				guideSim.loopSim();
-			}
-			else{
-				simulatedData = simulator.simulate(simulationConditions);
-				t2 = System.currentTimeMillis();
-				log.debug("Simulation: returning from simulator, simulation took " + (t2 - t1) + "ms");
-			}
-			final long endtime = System.currentTimeMillis();
-			System.out.println("time elapsed "+  (endtime-startTime));
-			//end eric
-
-
+			simulatedData = study.run(simulator, simulationConditions);
+			t2 = System.currentTimeMillis();
+			log.debug("Simulation: returning from " + study.getName() + ", study took " + (t2 - t1) + "ms");
+			
 		} catch (SimulationException e) {
 			simulatedData = e.getFlightData();
 			throw e;
@@ -0,0 +1,42 @@
+package net.sf.openrocket.document;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A destination for per-trial results of a simulation campaign, such as a dispersion
+ * analysis or a guidance tuning run.  Every trial result is a row of primitive values,
+ * one per column, tagged with the trial number.  Results are appended as trials finish,
+ * which is not necessarily in trial order.
+ * <p>
+ * Implementations need not be thread-safe; callers appending from several threads
+ * must synchronize on the sink.
+ */
+public interface TrialResultSink extends Closeable {
+	
+	/**
+	 * Called once before any results are appended.
+	 * 
+	 * @param columnNames	the names of the values of each row.
+	 * @throws IOException	if the sink cannot be written to, or it already contains
+	 * 						results with different columns.
+	 */
+	public void begin(String[] columnNames) throws IOException;
+	
+	/**
+	 * Append the result of one trial.
+	 * 
+	 * @param trial		the trial number.
+	 * @param values	the values of the trial, one per column.
+	 * @throws IOException	if the result cannot be written.
+	 */
+	public void append(int trial, double[] values) throws IOException;
+	
+	/**
+	 * Write any buffered results to the underlying storage.
+	 * 
+	 * @throws IOException	if the results cannot be written.
+	 */
+	public void flush() throws IOException;
+	
+}
@@ -4,7 +4,6 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -93,10 +92,10 @@ public class CSVExport {
 			FlightDataType[] fields, Unit[] units, String fieldSeparator, int decimalPlaces, boolean isExponentialNotation,
 			boolean eventComments, String commentStarter) {
 		// Time variable
-		List<Double> time = branch.get(FlightDataType.TYPE_TIME);
+		double[] time = branch.getValues(FlightDataType.TYPE_TIME);
 
 		// Number of data points
-		int n = time != null ? time.size() : branch.getLength();
+		int n = time != null ? time.length : branch.getLength();
 
 		// Flight events in occurrence order
 		List<FlightEvent> events = branch.getEvents();
@@ -104,10 +103,9 @@ public class CSVExport {
 		int eventPosition = 0;
 
 		// List of field values
-		List<List<Double>> fieldValues = new ArrayList<>();
-		for (FlightDataType t : fields) {
-			List<Double> values = branch.get(t);
-			fieldValues.add(values);
+		double[][] fieldValues = new double[fields.length][];
+		for (int i = 0; i < fields.length; i++) {
+			fieldValues[i] = branch.getValues(fields[i]);
 		}
 
 		// If time information is not available, print events at beginning of file
@@ -124,7 +122,7 @@ public class CSVExport {
 
 			// Check for events to store
 			if (eventComments && time != null) {
-				double t = time.get(pos);
+				double t = time[pos];
 
 				while ((eventPosition < events.size()) &&
 						(events.get(eventPosition).getTime() <= t)) {
@@ -135,7 +133,7 @@ public class CSVExport {
 
 			// Store CSV line
 			for (int i = 0; i < fields.length; i++) {
-				double value = fieldValues.get(i).get(pos);
+				double value = fieldValues[i][pos];
 				writer.print(TextUtil.doubleToString(units[i].toUnit(value), decimalPlaces, isExponentialNotation));
 
 				if (i < fields.length - 1) {
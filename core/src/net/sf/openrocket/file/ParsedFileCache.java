@@ -0,0 +1,211 @@
+package net.sf.openrocket.file;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A persistent cache of the items parsed from files, so that only new or changed files
+ * need to be parsed again.  A file is identified by its absolute path, and its cached
+ * items are valid while its size and modification time are unchanged.
+ * <p>
+ * The cache file contains a table of the cached files followed by the items of all the
+ * files, encoded by the subclass.  The cache file is read when first needed, and an
+ * invalid or outdated cache file is ignored.  Saving the cache keeps only the files that
+ * were requested or added since it was loaded.  All methods are thread-safe.
+ *
+ * @param <T>	the type of the items parsed from the files.
+ */
+public abstract class ParsedFileCache<T> {
+	private static final Logger log = LoggerFactory.getLogger(ParsedFileCache.class);
+
+	private static final int VERSION = 1;
+
+	private final File cacheFile;
+	private final int magic;
+
+	/** The entries loaded from the cache file, by path */
+	private final Map<String, Entry<T>> loaded = new LinkedHashMap<String, Entry<T>>();
+	/** The entries requested or added, which are saved */
+	private final Map<String, Entry<T>> current = new LinkedHashMap<String, Entry<T>>();
+	private List<T> loadedItems = null;
+	private boolean initialized = false;
+	private boolean modified = false;
+
+
+	/**
+	 * Create a cache stored in the given file.
+	 *
+	 * @param cacheFile	the cache file.
+	 * @param magic		the magic number identifying the kind of cache file.
+	 */
+	protected ParsedFileCache(File cacheFile, int magic) {
+		this.cacheFile = cacheFile;
+		this.magic = magic;
+	}
+
+
+	/**
+	 * Read the items of all cached files from the cache file.  The list may decode the
+	 * items as they are accessed.
+	 *
+	 * @param stream	the stream to read, positioned after the file table.
+	 * @return			the items of all files in order.
+	 * @throws IOException	if the items cannot be read.
+	 */
+	protected abstract List<T> readItems(InputStream stream) throws IOException;
+
+	/**
+	 * Write the items of all cached files to the cache file.
+	 *
+	 * @param items		the items of all files in order.
+	 * @param stream	the stream to write to.
+	 * @throws IOException	if writing fails.
+	 */
+	protected abstract void writeItems(List<T> items, OutputStream stream) throws IOException;
+
+
+	private void initialize() {
+		if (initialized) {
+			return;
+		}
+		initialized = true;
+		if (cacheFile.isFile()) {
+			try {
+				load();
+			} catch (IOException | RuntimeException e) {
+				log.warn("Ignoring invalid cache " + cacheFile + ": " + e);
+				loaded.clear();
+				loadedItems = null;
+			}
+		}
+	}
+
+	private void load() throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+			if (in.readInt() != magic || in.readInt() != VERSION) {
+				throw new IOException("Unsupported cache file");
+			}
+			final int count = in.readInt();
+			int index = 0;
+			for (int i = 0; i < count; i++) {
+				final Entry<T> entry = new Entry<T>(in.readLong(), in.readLong());
+				entry.index = index;
+				entry.count = in.readInt();
+				index += entry.count;
+				loaded.put(in.readUTF(), entry);
+			}
+			loadedItems = readItems(in);
+			if (loadedItems.size() != index) {
+				throw new IOException("Item count " + loadedItems.size() + " does not match entries " + index);
+			}
+		}
+		log.debug("Loaded cache " + cacheFile + " with " + loaded.size() + " files");
+	}
+
+
+	/**
+	 * Return the cached items of a file, or <code>null</code> if the file is not cached or
+	 * has changed since.
+	 *
+	 * @param file	the parsed file.
+	 * @return		the items of the file, or <code>null</code>.
+	 */
+	public synchronized List<T> get(File file) {
+		initialize();
+		final String path = file.getAbsolutePath();
+		Entry<T> entry = current.get(path);
+		if (entry == null) {
+			entry = loaded.get(path);
+		}
+		if (entry == null || entry.size != file.length() || entry.lastModified != file.lastModified()) {
+			return null;
+		}
+		if (entry.items == null) {
+			entry.items = new ArrayList<T>(loadedItems.subList(entry.index, entry.index + entry.count));
+		}
+		current.put(path, entry);
+		return new ArrayList<T>(entry.items);
+	}
+
+	/**
+	 * Store the items parsed from a file.
+	 *
+	 * @param file		the parsed file.
+	 * @param items		the items of the file.
+	 */
+	public synchronized void put(File file, List<T> items) {
+		initialize();
+		final Entry<T> entry = new Entry<T>(file.length(), file.lastModified());
+		entry.items = new ArrayList<T>(items);
+		current.put(file.getAbsolutePath(), entry);
+		modified = true;
+	}
+
+	/**
+	 * Write the files requested or added since loading to the cache file, if the cache
+	 * has changed.
+	 *
+	 * @throws IOException	if writing the cache file fails.
+	 */
+	public synchronized void save() throws IOException {
+		initialize();
+		if (!modified && current.keySet().equals(loaded.keySet())) {
+			return;
+		}
+
+		final List<T> items = new ArrayList<T>();
+		final File parent = cacheFile.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+			throw new IOException("Unable to create directory " + parent);
+		}
+		final File tmp = new File(cacheFile.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+			out.writeInt(magic);
+			out.writeInt(VERSION);
+			out.writeInt(current.size());
+			for (Map.Entry<String, Entry<T>> e : current.entrySet()) {
+				final Entry<T> entry = e.getValue();
+				out.writeLong(entry.size);
+				out.writeLong(entry.lastModified);
+				out.writeInt(entry.items.size());
+				out.writeUTF(e.getKey());
+				items.addAll(entry.items);
+			}
+			writeItems(items, out);
+		}
+		Files.move(tmp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		log.debug("Saved cache " + cacheFile + " with " + current.size() + " files");
+		modified = false;
+	}
+
+
+	private static final class Entry<T> {
+		private final long size;
+		private final long lastModified;
+		private int index;
+		private int count;
+		private List<T> items;
+
+		Entry(long size, long lastModified) {
+			this.size = size;
+			this.lastModified = lastModified;
+		}
+	}
+}
@@ -7,6 +7,8 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -158,10 +160,42 @@ public class DirectoryIterator extends FileIterator {
 	
 	
 
+	/**
+	 * Return the files that a DirectoryIterator would iterate through, in the same order,
+	 * without opening them.
+	 * 
+	 * @param directory		the directory to read.
+	 * @param filter		the filter for selecting files.
+	 * @param recursive		true for recursive search
+	 * @return				the matching files.
+	 * @throws IOException	if the directory cannot be read.
+	 */
+	public static List<File> listFiles(File directory, FileFilter filter, boolean recursive) throws IOException {
+		File[] files = directory.listFiles(new DirSelectionFileFilter(filter, recursive));
+		if (files == null) {
+			throw new IOException("not a directory or IOException occurred when listing files " +
+					"from " + directory);
+		}
+		List<File> result = new ArrayList<>();
+		for (File file : files) {
+			if (recursive && file.isDirectory()) {
+				try {
+					result.addAll(listFiles(file, filter, recursive));
+				} catch (IOException e) {
+					logger.warn("Error opening file/directory " + file, e);
+				}
+			} else {
+				result.add(file);
+			}
+		}
+		return result;
+	}
+	
+	
 	/**
 	 * A FileFilter wrapper that accepts or discards directories.
 	 */
-	private class DirSelectionFileFilter implements FileFilter {
+	private static class DirSelectionFileFilter implements FileFilter {
 		
 		private final boolean acceptDirs;
 		private final FileFilter parentFilter;
@@ -0,0 +1,322 @@
+package net.sf.openrocket.file.motor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.openrocket.motor.Manufacturer;
+import net.sf.openrocket.motor.Motor;
+import net.sf.openrocket.motor.ThrustCurveMotor;
+import net.sf.openrocket.util.Coordinate;
+
+/**
+ * A compact binary file of thrust curve motors, used for the motor database distributed
+ * with OpenRocket.
+ * <p>
+ * The file consists of a header with a magic number and format version, a table of the
+ * distinct strings of all motors, the offsets of the motor records and the records
+ * themselves.  A record refers to its strings by index, or -1 for null, and stores the
+ * time, thrust and CG values as packed arrays of doubles.  The strings are decoded when
+ * the file is opened, while each motor is decoded when it is first requested.  All values
+ * are big-endian.
+ */
+public class MotorDatabaseFile {
+
+	/** The magic number at the start of the file, "ORTC" */
+	private static final int MAGIC = 0x4F525443;
+	/** The version of the file format, incremented on incompatible changes */
+	public static final int VERSION = 1;
+
+	private static final int FLAG_AVAILABLE = 1;
+	private static final int FLAG_CG_YZ = 2;
+
+	private final ByteBuffer buffer;
+	private final String[] strings;
+	/** The manufacturers by their index in strings, resolved when first needed */
+	private final Manufacturer[] manufacturers;
+	private final int[] offsets;
+	private final ThrustCurveMotor[] motors;
+
+
+	private MotorDatabaseFile(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.remaining() < 8 || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a motor database file");
+		}
+		final int version = buffer.getInt(4);
+		if (version != VERSION) {
+			throw new IOException("Unsupported motor database version " + version + ", expected " + VERSION);
+		}
+
+		int pos = 8;
+		strings = new String[buffer.getInt(pos)];
+		pos += 4;
+		for (int i = 0; i < strings.length; i++) {
+			final int length = buffer.getInt(pos);
+			pos += 4;
+			final byte[] bytes = new byte[length];
+			final ByteBuffer slice = buffer.duplicate();
+			slice.position(pos);
+			slice.get(bytes);
+			strings[i] = new String(bytes, StandardCharsets.UTF_8);
+			pos += length;
+		}
+		manufacturers = new Manufacturer[strings.length];
+
+		offsets = new int[buffer.getInt(pos)];
+		pos += 4;
+		for (int i = 0; i < offsets.length; i++) {
+			offsets[i] = buffer.getInt(pos);
+			pos += 4;
+		}
+		motors = new ThrustCurveMotor[offsets.length];
+	}
+
+
+	/**
+	 * Open a motor database file by memory-mapping it.
+	 *
+	 * @param file	the file to open.
+	 * @return		the motor database file.
+	 * @throws IOException	if the file cannot be read or is not a supported motor database file.
+	 */
+	public static MotorDatabaseFile open(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return new MotorDatabaseFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Read a motor database file from a stream, for example a resource within a JAR file.
+	 * The stream is not closed.
+	 *
+	 * @param stream	the stream to read.
+	 * @return			the motor database file.
+	 * @throws IOException	if the stream cannot be read or is not a supported motor database file.
+	 */
+	public static MotorDatabaseFile read(InputStream stream) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 20);
+		final byte[] buf = new byte[1 << 16];
+		int n;
+		while ((n = stream.read(buf)) >= 0) {
+			bytes.write(buf, 0, n);
+		}
+		return new MotorDatabaseFile(ByteBuffer.wrap(bytes.toByteArray()));
+	}
+
+
+	/**
+	 * Return the number of motors in the file.
+	 */
+	public int getMotorCount() {
+		return motors.length;
+	}
+
+	/**
+	 * Return a motor of the file, decoding it if it has not been requested before.
+	 *
+	 * @param index	the index of the motor.
+	 * @return		the motor.
+	 */
+	public synchronized ThrustCurveMotor getMotor(int index) {
+		ThrustCurveMotor motor = motors[index];
+		if (motor == null) {
+			motor = decodeMotor(offsets[index]);
+			motors[index] = motor;
+		}
+		return motor;
+	}
+
+	/**
+	 * Return a list view of the motors of the file.  The motors are decoded as they are
+	 * accessed.
+	 */
+	public List<ThrustCurveMotor> getMotors() {
+		return new AbstractList<ThrustCurveMotor>() {
+			@Override
+			public ThrustCurveMotor get(int index) {
+				return getMotor(index);
+			}
+
+			@Override
+			public int size() {
+				return getMotorCount();
+			}
+		};
+	}
+
+
+	private ThrustCurveMotor decodeMotor(int offset) {
+		final ByteBuffer in = buffer.duplicate();
+		in.position(offset);
+
+		final ThrustCurveMotor.Builder builder = new ThrustCurveMotor.Builder()
+				.setDigest(getString(in.getInt()))
+				.setManufacturer(getManufacturer(in.getInt()))
+				.setCode(getString(in.getInt()))
+				.setCommonName(getString(in.getInt()))
+				.setDesignation(getString(in.getInt()))
+				.setDescription(getString(in.getInt()))
+				.setCaseInfo(getString(in.getInt()))
+				.setPropellantInfo(getString(in.getInt()))
+				.setMotorType(Motor.Type.valueOf(getString(in.getInt())));
+		final int flags = in.get();
+		builder.setAvailability((flags & FLAG_AVAILABLE) != 0)
+				.setDiameter(in.getDouble())
+				.setLength(in.getDouble())
+				.setInitialMass(in.getDouble())
+				.setStandardDelays(readDoubles(in, in.getShort()));
+
+		final int points = in.getInt();
+		final double[] time = readDoubles(in, points);
+		final double[] thrust = readDoubles(in, points);
+		final double[] cgx = readDoubles(in, points);
+		final double[] weight = readDoubles(in, points);
+		final boolean hasYZ = (flags & FLAG_CG_YZ) != 0;
+		final double[] cgy = hasYZ ? readDoubles(in, points) : null;
+		final double[] cgz = hasYZ ? readDoubles(in, points) : null;
+		final Coordinate[] cg = new Coordinate[points];
+		for (int i = 0; i < points; i++) {
+			cg[i] = hasYZ ? new Coordinate(cgx[i], cgy[i], cgz[i], weight[i]) : new Coordinate(cgx[i], 0, 0, weight[i]);
+		}
+
+		return builder.setTimePoints(time).setThrustPoints(thrust).setCGPoints(cg).build();
+	}
+
+	private String getString(int index) {
+		return (index < 0) ? null : strings[index];
+	}
+
+	private Manufacturer getManufacturer(int index) {
+		if (manufacturers[index] == null) {
+			manufacturers[index] = Manufacturer.getManufacturer(strings[index]);
+		}
+		return manufacturers[index];
+	}
+
+	private static double[] readDoubles(ByteBuffer in, int count) {
+		final double[] values = new double[count];
+		in.asDoubleBuffer().get(values);
+		in.position(in.position() + 8 * count);
+		return values;
+	}
+
+
+	/**
+	 * Write motors to a motor database file.  The stream is not closed.
+	 *
+	 * @param motors	the motors to write.
+	 * @param stream	the stream to write to.
+	 * @throws IOException	if writing fails.
+	 */
+	public static void write(List<ThrustCurveMotor> motors, OutputStream stream) throws IOException {
+		final List<String> strings = new ArrayList<String>();
+		final Map<String, Integer> stringIndex = new HashMap<String, Integer>();
+
+		// Encode the motor records first to collect the strings
+		final ByteArrayOutputStream records = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(records);
+		final int[] offsets = new int[motors.size()];
+		for (int i = 0; i < motors.size(); i++) {
+			offsets[i] = out.size();
+			writeMotor(motors.get(i), out, strings, stringIndex);
+		}
+		out.flush();
+
+		final ByteArrayOutputStream header = new ByteArrayOutputStream();
+		final DataOutputStream headerOut = new DataOutputStream(header);
+		headerOut.writeInt(MAGIC);
+		headerOut.writeInt(VERSION);
+		headerOut.writeInt(strings.size());
+		for (String s : strings) {
+			final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			headerOut.writeInt(bytes.length);
+			headerOut.write(bytes);
+		}
+		headerOut.writeInt(offsets.length);
+		final int recordStart = headerOut.size() + 4 * offsets.length;
+		for (int offset : offsets) {
+			headerOut.writeInt(recordStart + offset);
+		}
+		headerOut.flush();
+
+		header.writeTo(stream);
+		records.writeTo(stream);
+		stream.flush();
+	}
+
+	private static void writeMotor(ThrustCurveMotor motor, DataOutputStream out, List<String> strings,
+			Map<String, Integer> stringIndex) throws IOException {
+		out.writeInt(indexOf(motor.getDigest(), strings, stringIndex));
+		out.writeInt(indexOf(motor.getManufacturer().getDisplayName(), strings, stringIndex));
+		out.writeInt(indexOf(motor.getCode(), strings, stringIndex));
+		out.writeInt(indexOf(motor.getCommonName(), strings, stringIndex));
+		out.writeInt(indexOf(motor.getDesignation(), strings, stringIndex));
+		out.writeInt(indexOf(motor.getDescription(), strings, stringIndex));
+		out.writeInt(indexOf(motor.getCaseInfo(), strings, stringIndex));
+		out.writeInt(indexOf(motor.getPropellantInfo(), strings, stringIndex));
+		out.writeInt(indexOf(motor.getMotorType().name(), strings, stringIndex));
+
+		final Coordinate[] cg = motor.getCGPoints();
+		boolean hasYZ = false;
+		for (Coordinate c : cg) {
+			hasYZ = hasYZ || c.y != 0 || c.z != 0;
+		}
+		out.writeByte((motor.isAvailable() ? FLAG_AVAILABLE : 0) | (hasYZ ? FLAG_CG_YZ : 0));
+		out.writeDouble(motor.getDiameter());
+		out.writeDouble(motor.getLength());
+		out.writeDouble(motor.getInitialMass());
+		final double[] delays = motor.getStandardDelays();
+		out.writeShort(delays.length);
+		writeDoubles(delays, out);
+
+		out.writeInt(cg.length);
+		writeDoubles(motor.getTimePoints(), out);
+		writeDoubles(motor.getThrustPoints(), out);
+		for (Coordinate c : cg) {
+			out.writeDouble(c.x);
+		}
+		for (Coordinate c : cg) {
+			out.writeDouble(c.weight);
+		}
+		if (hasYZ) {
+			for (Coordinate c : cg) {
+				out.writeDouble(c.y);
+			}
+			for (Coordinate c : cg) {
+				out.writeDouble(c.z);
+			}
+		}
+	}
+
+	private static void writeDoubles(double[] values, DataOutputStream out) throws IOException {
+		for (double v : values) {
+			out.writeDouble(v);
+		}
+	}
+
+	private static int indexOf(String s, List<String> strings, Map<String, Integer> stringIndex) {
+		if (s == null) {
+			return -1;
+		}
+		Integer index = stringIndex.get(s);
+		if (index == null) {
+			index = strings.size();
+			strings.add(s);
+			stringIndex.put(s, index);
+		}
+		return index;
+	}
+}
@@ -0,0 +1,39 @@
+package net.sf.openrocket.file.motor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import net.sf.openrocket.file.ParsedFileCache;
+import net.sf.openrocket.motor.ThrustCurveMotor;
+
+/**
+ * A persistent cache of the motors parsed from motor files.  The motors are stored as a
+ * {@link MotorDatabaseFile}, so that only the motors of the files requested are decoded.
+ */
+public class MotorFileCache extends ParsedFileCache<ThrustCurveMotor> {
+
+	/** The magic number at the start of the cache file, "ORMC" */
+	private static final int MAGIC = 0x4F524D43;
+
+	/**
+	 * Create a cache stored in the given file.
+	 *
+	 * @param cacheFile	the cache file.
+	 */
+	public MotorFileCache(File cacheFile) {
+		super(cacheFile, MAGIC);
+	}
+
+	@Override
+	protected List<ThrustCurveMotor> readItems(InputStream stream) throws IOException {
+		return MotorDatabaseFile.read(stream).getMotors();
+	}
+
+	@Override
+	protected void writeItems(List<ThrustCurveMotor> motors, OutputStream stream) throws IOException {
+		MotorDatabaseFile.write(motors, stream);
+	}
+}
@@ -490,9 +490,9 @@ public class OpenRocketSaver extends RocketSaver {
 			return;
 		
 		// Retrieve the data from the branch
-		List<List<Double>> data = new ArrayList<List<Double>>(types.length);
+		double[][] data = new double[types.length][];
 		for (int i = 0; i < types.length; i++) {
-			data.add(branch.get(types[i]));
+			data[i] = branch.getValues(types[i]);
 		}
 		
 		// Build the <databranch> tag
@@ -572,8 +572,7 @@ public class OpenRocketSaver extends RocketSaver {
 		if (types.length == 0)
 			return 0;
 		
-		List<Double> timeData = branch.get(FlightDataType.TYPE_TIME);
-		if (timeData == null) {
+		if (branch.getChannel(FlightDataType.TYPE_TIME) < 0) {
 			// If time data not available, store all points
 			return branch.getLength();
 		}
@@ -586,14 +585,14 @@ public class OpenRocketSaver extends RocketSaver {
 	
 	
 	
-	private void writeDataPointString(List<List<Double>> data, int index, StringBuilder sb)
+	private void writeDataPointString(double[][] data, int index, StringBuilder sb)
 			throws IOException {
 		sb.setLength(0);
 		sb.append("<datapoint>");
-		for (int j = 0; j < data.size(); j++) {
+		for (int j = 0; j < data.length; j++) {
 			if (j > 0)
 				sb.append(",");
-			sb.append(TextUtil.doubleToString(data.get(j).get(index)));
+			sb.append(TextUtil.doubleToString(data[j][index]));
 		}
 		sb.append("</datapoint>");
 		writeln(sb.toString());
@@ -1,11 +1,16 @@
 package net.sf.openrocket.masscalc;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import net.sf.openrocket.motor.Motor;
+import net.sf.openrocket.motor.MotorConfiguration;
 import net.sf.openrocket.rocketcomponent.FlightConfiguration;
+import net.sf.openrocket.rocketcomponent.MotorMount;
+import net.sf.openrocket.rocketcomponent.Rocket;
 import net.sf.openrocket.rocketcomponent.RocketComponent;
 import net.sf.openrocket.simulation.MotorClusterState;
 import net.sf.openrocket.simulation.SimulationStatus;
@@ -18,19 +23,193 @@ public class MassCalculator implements Monitorable {
 	/*
 	 * Cached data.  All CG data is in absolute coordinates.  All moments of inertia
 	 * are relative to their respective CG.
+	 *
+	 * The structure mass data and the motor cluster layout only change when the rocket,
+	 * the configuration or its active stages change, so they are cached keyed by these.
 	 */
-	//	private HashMap< Integer, MassData> stageMassCache = new HashMap<Integer, MassData >();
-	//	private MassData rocketSpentMassCache;
-	//	private MassData motorMassCache;
+	private FlightConfiguration cacheConfig = null;
+	private int cacheConfigModID = -1;
+	private int cacheRocketModID = -1;
+	private long cacheStageMask = 0;
+	private RigidBody structureMassCache = null;
+	private MotorCluster[] motorClusterCache = null;
 
 	private final int modId = 0;
-	
+
 	//////////////////  Constructors ///////////////////
 	public MassCalculator() {
 	}
-	
+
+	/**
+	 * Return a new instance of this mass calculator type, with an empty cache.
+	 *
+	 * @return	a new, independent instance of this mass calculator type
+	 */
+	public MassCalculator newInstance() {
+		return new MassCalculator();
+	}
+
+	////////////////// Cached Simulation Accessors ///////////////////
+
+	/**
+	 * Calculates mass data of the rocket's structure in the current configuration of the simulation.
+	 * The result is the same as that of {@link #calculateStructure(FlightConfiguration)}, but is
+	 * only recalculated when the rocket, the configuration or its active stages change.
+	 * <p>
+	 * Instances keep a single cache entry and are not thread-safe; every simulation should
+	 * use its own instance.
+	 *
+	 * @param status	the current simulation status
+	 * @return			the MassData struct of the rocket structure
+	 */
+	public RigidBody getStructureMass(final SimulationStatus status) {
+		updateCache(status.getConfiguration());
+		return structureMassCache;
+	}
+
+	/**
+	 * Calculates mass data of the motors in the current configuration of the simulation at the
+	 * current simulation time.  The result is the same as that of {@link #calculateMotor(SimulationStatus)},
+	 * but only the time-dependent motor mass and CG are calculated on each call, the
+	 * placement of the motor clusters is cached.
+	 *
+	 * @param status	the current simulation status
+	 * @return			combined mass data for all motors
+	 */
+	public RigidBody getMotorMass(final SimulationStatus status) {
+		updateCache(status.getConfiguration());
+
+		final double time = status.getSimulationTime();
+		final Collection<MotorClusterState> activeMotorList = status.getActiveMotors();
+
+		// calculate the CM first, and move the MOIs to it afterwards, as in MassCalculation
+		final RigidBody[] bodies = new RigidBody[motorClusterCache.length];
+		Coordinate cm = Coordinate.ZERO;
+		for (int i = 0; i < motorClusterCache.length; i++) {
+			bodies[i] = motorClusterCache[i].calculate(time, activeMotorList);
+			if (MIN_MASS > cm.weight) {
+				cm = bodies[i].cm;
+			} else {
+				cm = cm.average(bodies[i].cm);
+			}
+		}
+
+		double Ir = 0, It = 0;
+		for (RigidBody body : bodies) {
+			final RigidBody rebased = body.rebase(cm);
+			Ir += rebased.Ixx;
+			It += rebased.Iyy;
+		}
+		return new RigidBody(cm, Ir, It, It);
+	}
+
+	private void updateCache(final FlightConfiguration config) {
+		final Rocket rocket = config.getRocket();
+		final long stageMask = getStageMask(config);
+		if (rocket.getStageCount() <= 64 && config == cacheConfig && config.getModID() == cacheConfigModID &&
+				rocket.getModID() == cacheRocketModID && stageMask == cacheStageMask) {
+			return;
+		}
+
+		structureMassCache = calculateStructure(config);
+		List<MotorCluster> clusters = new ArrayList<MotorCluster>();
+		collectMotorClusters(config, rocket, Transformation.IDENTITY, clusters);
+		motorClusterCache = clusters.toArray(new MotorCluster[0]);
+
+		cacheConfig = config;
+		cacheConfigModID = config.getModID();
+		cacheRocketModID = rocket.getModID();
+		cacheStageMask = stageMask;
+	}
+
+	/*
+	 * Active stages are not reflected in the configuration modID in all cases, so they are part of
+	 * the cache key.  Rockets with more than 64 stages are not cached.
+	 */
+	private static long getStageMask(final FlightConfiguration config) {
+		long mask = 0;
+		final int stageCount = config.getRocket().getStageCount();
+		for (int stageNumber = 0; stageNumber < stageCount; stageNumber++) {
+			if (config.isStageActive(stageNumber)) {
+				mask |= 1L << (stageNumber & 63);
+			}
+		}
+		return mask;
+	}
+
+	/*
+	 * Walks the component tree the same way as MassCalculation.calculateMotors(), recording
+	 * each active motor cluster with its transformation.
+	 */
+	private static void collectMotorClusters(final FlightConfiguration config, final RocketComponent component,
+			final Transformation parentTransform, final List<MotorCluster> clusters) {
+		if (component.isMotorMount() && config.isComponentActive(component)) {
+			final MotorConfiguration motorConfig = ((MotorMount) component).getMotorConfig(config.getId());
+			if (!motorConfig.isEmpty()) {
+				clusters.add(new MotorCluster(component, motorConfig, parentTransform));
+			}
+		}
+
+		final Coordinate[] instanceLocations = component.getInstanceLocations();
+		for (Coordinate location : instanceLocations) {
+			final Transformation currentTransform = parentTransform.applyTransformation(Transformation.getTranslationTransform(location));
+			for (RocketComponent child : component.getChildren()) {
+				collectMotorClusters(config, child, currentTransform, clusters);
+			}
+		}
+	}
+
+	/**
+	 * The time-independent data of a cluster of motors in a motor mount, see
+	 * MassCalculation.calculateMountData().
+	 */
+	private static class MotorCluster {
+		private final Motor motor;
+		private final Transformation transform;
+		private final double motorPosition;
+		private final int instanceCount;
+		private final double unitRotationalInertia;
+		private final double unitLongitudinalInertia;
+		private final double offsetDistanceSquared;
+
+		MotorCluster(final RocketComponent mount, final MotorConfiguration motorConfig, final Transformation transform) {
+			this.motor = motorConfig.getMotor();
+			this.transform = transform;
+			this.motorPosition = mount.getPosition().x + motorConfig.getX();
+			this.instanceCount = mount.getInstanceCount();
+			this.unitRotationalInertia = motorConfig.getUnitRotationalInertia();
+			this.unitLongitudinalInertia = motorConfig.getUnitLongitudinalInertia();
+
+			double distanceSquared = 0;
+			if (1 < instanceCount) {
+				for (Coordinate coord : mount.getInstanceOffsets()) {
+					distanceSquared += Math.pow(Math.hypot(coord.y, coord.z), 2);
+				}
+			}
+			this.offsetDistanceSquared = distanceSquared;
+		}
+
+		RigidBody calculate(final double simulationTime, final Collection<MotorClusterState> activeMotorList) {
+			double motorTime = simulationTime;
+			for (MotorClusterState currentMotorState : activeMotorList) {
+				if (currentMotorState.getMotor() == motor) {
+					motorTime = currentMotorState.getMotorTime(simulationTime);
+					break;
+				}
+			}
+
+			final double eachMass = motor.getTotalMass(motorTime);
+			final double eachCMx = motor.getCMx(motorTime);
+
+			final Coordinate clusterLocalCM = new Coordinate(motorPosition + eachCMx, 0, 0, eachMass * instanceCount);
+			final double clusterIr = unitRotationalInertia * instanceCount * eachMass + eachMass * offsetDistanceSquared;
+			final double clusterIt = unitLongitudinalInertia * instanceCount * eachMass;
+			return new RigidBody(transform.transform(clusterLocalCM), clusterIr, clusterIt, clusterIt);
+		}
+	}
+
 	////////////////// Public Accessors ///////////////////
-	
+
 	
 	/**
 	 * Calculates mass data of the rocket's structure
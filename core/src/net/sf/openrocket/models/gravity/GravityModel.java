@@ -18,4 +18,12 @@ public interface GravityModel extends Monitorable {
 	 */
 	public double getGravity(WorldCoordinate wc);
 	
+	/**
+	 * Return a new instance of this gravity model.  Gravity models may cache values and are
+	 * not thread-safe, so every simulation uses its own instance.
+	 * 
+	 * @return	a new, independent gravity model
+	 */
+	public GravityModel newInstance();
+	
 }
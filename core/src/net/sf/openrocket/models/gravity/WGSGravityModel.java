@@ -29,6 +29,12 @@ public class WGSGravityModel implements GravityModel {
 	}
 	
 	
+	@Override
+	public GravityModel newInstance() {
+		return new WGSGravityModel();
+	}
+	
+	
 	@Override
 	public int getModID() {
 		// The model is immutable, so it can return a constant mod ID
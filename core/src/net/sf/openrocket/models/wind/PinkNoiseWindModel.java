@@ -162,6 +162,20 @@ public class PinkNoiseWindModel implements WindModel {
 	}
 	
 	
+	/**
+	 * Return a new wind model with the same seed and parameters.  The new model produces the
+	 * same wind as this model, regardless of the times this model has been queried at.
+	 */
+	@Override
+	public PinkNoiseWindModel newInstance() {
+		PinkNoiseWindModel copy = new PinkNoiseWindModel(seed ^ SEED_RANDOMIZATION);
+		copy.average = this.average;
+		copy.direction = this.direction;
+		copy.standardDeviation = this.standardDeviation;
+		return copy;
+	}
+	
+	
 	private void reset() {
 		randomSource = null;
 	}
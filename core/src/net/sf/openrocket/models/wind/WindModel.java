@@ -7,4 +7,12 @@ public interface WindModel extends Monitorable {
 
 	public Coordinate getWindVelocity(double time, double altitude);
 	
+	/**
+	 * Return a new instance of this wind model with the same parameters.  Wind models may keep
+	 * state between calls and are not thread-safe, so every simulation uses its own instance.
+	 * 
+	 * @return	a new, independent wind model producing the same wind
+	 */
+	public WindModel newInstance();
+	
 }
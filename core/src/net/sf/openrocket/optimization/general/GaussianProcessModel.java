@@ -0,0 +1,249 @@
+package net.sf.openrocket.optimization.general;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.openrocket.util.Pair;
+
+/**
+ * A Gaussian process (kriging) response surface interpolating function values at sample
+ * points.  The correlation of two points is a squared exponential of their distance, with a
+ * correlation length selected by maximum likelihood from a fixed set of candidates.  The
+ * model estimates the function value at a point together with the standard deviation of
+ * the estimate, which grows with the distance to the samples.
+ * <p>
+ * Points are expected in the unit hypercube used by the optimizers.  Only the latest
+ * {@link #MAX_SAMPLES} samples are used, as an optimization converges these are the
+ * samples closest to the points of interest.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class GaussianProcessModel {
+
+	/** The maximum number of samples used by the model. */
+	static final int MAX_SAMPLES = 150;
+
+	/** Candidate correlation lengths, in units of the optimization range. */
+	private static final double[] CORRELATION_LENGTHS = { 0.05, 0.1, 0.2, 0.35, 0.5, 0.75, 1.0 };
+
+	/** Value added to the diagonal of the correlation matrix for numerical stability. */
+	private static final double NUGGET = 1.0e-8;
+
+
+	private final List<Point> points = new ArrayList<Point>();
+	private final List<Double> values = new ArrayList<Double>();
+
+	// The fitted model, valid when fitted is true and length > 0
+	private boolean fitted = false;
+	private double length;
+	private double mean;
+	private double variance;
+	private double[][] cholesky;
+	private double[] weights;
+	private double[] inverseOnes;
+	private double sumInverseOnes;
+
+
+	/**
+	 * Add a sample of the function.
+	 *
+	 * @param point		the sample point.
+	 * @param value		the function value at the point.
+	 */
+	public void add(Point point, double value) {
+		points.add(point);
+		values.add(value);
+		if (points.size() > MAX_SAMPLES) {
+			points.remove(0);
+			values.remove(0);
+		}
+		fitted = false;
+	}
+
+	/**
+	 * Return the number of samples used by the model.
+	 */
+	public int size() {
+		return points.size();
+	}
+
+	/**
+	 * Remove all samples.
+	 */
+	public void clear() {
+		points.clear();
+		values.clear();
+		fitted = false;
+	}
+
+	/**
+	 * Return the correlation length of the fitted model, or zero if no model could be fitted.
+	 */
+	public double getCorrelationLength() {
+		fit();
+		return length;
+	}
+
+	/**
+	 * Estimate the function value at a point.
+	 *
+	 * @param point		the point at which to estimate.
+	 * @return			the estimated value and its standard deviation, or <code>null</code> if
+	 * 					there are too few samples or the model could not be fitted.
+	 */
+	public Pair<Double, Double> predict(Point point) {
+		fit();
+		if (length <= 0) {
+			return null;
+		}
+
+		int n = points.size();
+		double[] k = new double[n];
+		for (int i = 0; i < n; i++) {
+			k[i] = correlation(point, points.get(i), length);
+		}
+
+		double value = mean + dot(k, weights);
+
+		// Ordinary kriging variance, including the uncertainty of the estimated mean
+		double[] v = forwardSubstitute(cholesky, k);
+		double u = 1 - dot(inverseOnes, k);
+		double s2 = variance * (1 - dot(v, v) + u * u / sumInverseOnes);
+
+		return new Pair<Double, Double>(value, Math.sqrt(Math.max(s2, 0)));
+	}
+
+
+	/**
+	 * Fit the model to the current samples, selecting the correlation length with the
+	 * highest likelihood.
+	 */
+	private void fit() {
+		if (fitted) {
+			return;
+		}
+		fitted = true;
+		length = 0;
+
+		int n = points.size();
+		if (n < 2) {
+			return;
+		}
+		double[] y = new double[n];
+		double[] ones = new double[n];
+		for (int i = 0; i < n; i++) {
+			y[i] = values.get(i);
+			ones[i] = 1;
+		}
+
+		double bestLikelihood = Double.NEGATIVE_INFINITY;
+		for (double candidate : CORRELATION_LENGTHS) {
+			double[][] l = decompose(candidate);
+			if (l == null) {
+				continue;
+			}
+
+			double[] ry = solve(l, y);
+			double[] r1 = solve(l, ones);
+			double s1 = dot(ones, r1);
+			double mu = dot(ones, ry) / s1;
+			double[] residual = new double[n];
+			for (int i = 0; i < n; i++) {
+				residual[i] = y[i] - mu;
+			}
+			double[] w = solve(l, residual);
+			double sigma2 = dot(residual, w) / n;
+
+			// Concentrated log-likelihood, the variance of a perfect fit is floored
+			double logDeterminant = 0;
+			for (int i = 0; i < n; i++) {
+				logDeterminant += 2 * Math.log(l[i][i]);
+			}
+			double likelihood = -0.5 * n * Math.log(Math.max(sigma2, Double.MIN_NORMAL)) - 0.5 * logDeterminant;
+
+			if (likelihood > bestLikelihood) {
+				bestLikelihood = likelihood;
+				length = candidate;
+				mean = mu;
+				variance = sigma2;
+				cholesky = l;
+				weights = w;
+				inverseOnes = r1;
+				sumInverseOnes = s1;
+			}
+		}
+	}
+
+	/**
+	 * Return the Cholesky decomposition of the correlation matrix of the samples, or
+	 * <code>null</code> if the matrix is not numerically positive definite.
+	 */
+	private double[][] decompose(double correlationLength) {
+		int n = points.size();
+		double[][] l = new double[n][n];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j <= i; j++) {
+				double sum = correlation(points.get(i), points.get(j), correlationLength);
+				if (i == j) {
+					sum += NUGGET;
+				}
+				for (int m = 0; m < j; m++) {
+					sum -= l[i][m] * l[j][m];
+				}
+				if (i == j) {
+					if (!(sum > 0)) {
+						return null;
+					}
+					l[i][i] = Math.sqrt(sum);
+				} else {
+					l[i][j] = sum / l[j][j];
+				}
+			}
+		}
+		return l;
+	}
+
+	private static double correlation(Point a, Point b, double correlationLength) {
+		return Math.exp(-0.5 * a.sub(b).length2() / (correlationLength * correlationLength));
+	}
+
+	/**
+	 * Solve L y = b for y, where L is lower triangular.
+	 */
+	private static double[] forwardSubstitute(double[][] l, double[] b) {
+		int n = b.length;
+		double[] y = new double[n];
+		for (int i = 0; i < n; i++) {
+			double sum = b[i];
+			for (int j = 0; j < i; j++) {
+				sum -= l[i][j] * y[j];
+			}
+			y[i] = sum / l[i][i];
+		}
+		return y;
+	}
+
+	/**
+	 * Solve L L^T x = b for x.
+	 */
+	private static double[] solve(double[][] l, double[] b) {
+		int n = b.length;
+		double[] x = forwardSubstitute(l, b);
+		for (int i = n - 1; i >= 0; i--) {
+			double sum = x[i];
+			for (int j = i + 1; j < n; j++) {
+				sum -= l[j][i] * x[j];
+			}
+			x[i] = sum / l[i][i];
+		}
+		return x;
+	}
+
+	private static double dot(double[] a, double[] b) {
+		double sum = 0;
+		for (int i = 0; i < a.length; i++) {
+			sum += a[i] * b[i];
+		}
+		return sum;
+	}
+}
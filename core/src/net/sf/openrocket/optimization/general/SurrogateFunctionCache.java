@@ -0,0 +1,273 @@
+package net.sf.openrocket.optimization.general;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.openrocket.util.Pair;
+import net.sf.openrocket.util.Statistics;
+
+/**
+ * A ParallelFunctionCache that screens the points to compute using a surrogate model of the
+ * function, and passes on to another cache only the points worth computing.
+ * <p>
+ * The function values computed so far are interpolated by a Gaussian process model, which
+ * estimates the value at a new point together with the uncertainty of the estimate.  A point
+ * is computed only if its value may be lower than the lowest value computed so far, that is
+ * if the estimate minus the confidence factor times its standard deviation is below it.
+ * Other points are not computed, and {@link #getValue(Point)} returns their estimated value.
+ * Since the estimated value of a screened point is higher than the lowest computed value,
+ * optimizers comparing the values to their current best point, such as the
+ * multidirectional search, move nearly always to computed points.  Screening starts once
+ * more than twice as many points have been computed as the function has dimensions.
+ * <p>
+ * Function values of {@link #PENALTY_VALUE} and above, used for points outside the
+ * simulation domain, are passed through but not modelled.
+ * <p>
+ * As with the underlying cache, the public methods are NOT thread-safe and should be called
+ * from only one thread at a time.
+ */
+public class SurrogateFunctionCache implements ParallelFunctionCache, Statistics {
+	private static final Logger log = LoggerFactory.getLogger(SurrogateFunctionCache.class);
+
+	/** The default number of standard deviations by which a point must be estimated worse to be screened. */
+	public static final double DEFAULT_CONFIDENCE = 2.0;
+
+	/** Function values at or above this are penalties and are not modelled. */
+	public static final double PENALTY_VALUE = 1.0e100;
+
+	private final ParallelFunctionCache delegate;
+	private final GaussianProcessModel model = new GaussianProcessModel();
+
+	private final Map<Point, Double> screened = new HashMap<Point, Double>();
+	private final Set<Point> pending = new HashSet<Point>();
+	private final Set<Point> computed = new HashSet<Point>();
+
+	private double confidence = DEFAULT_CONFIDENCE;
+	private double lowestValue = Double.POSITIVE_INFINITY;
+
+	private int computedCount = 0;
+	private int screenedCount = 0;
+
+
+	/**
+	 * Construct a surrogate cache passing the points to compute on to the specified cache.
+	 *
+	 * @param delegate	the cache computing the function values.
+	 */
+	public SurrogateFunctionCache(ParallelFunctionCache delegate) {
+		this.delegate = delegate;
+	}
+
+
+	@Override
+	public void compute(Collection<Point> points) {
+		for (Point p : points) {
+			compute(p);
+		}
+	}
+
+
+	@Override
+	public void compute(Point point) {
+		if (screened.containsKey(point)) {
+			return;
+		}
+		if (isOutsideRange(point) || computed.contains(point) || pending.contains(point)) {
+			delegate.compute(point);
+			return;
+		}
+
+		if (model.size() > 2 * point.dim()) {
+			Pair<Double, Double> estimate = model.predict(point);
+			if (estimate != null && estimate.getU() - confidence * estimate.getV() > lowestValue) {
+				log.debug("Screened " + point + ", estimated value " + estimate.getU() + " +- " + estimate.getV());
+				screened.put(point, estimate.getU());
+				screenedCount++;
+				return;
+			}
+		}
+
+		pending.add(point);
+		delegate.compute(point);
+	}
+
+
+	@Override
+	public void waitFor(Collection<Point> points) throws InterruptedException, OptimizationException {
+		for (Point p : points) {
+			waitFor(p);
+		}
+	}
+
+
+	@Override
+	public void waitFor(Point point) throws InterruptedException, OptimizationException {
+		if (screened.containsKey(point)) {
+			return;
+		}
+		delegate.waitFor(point);
+		if (pending.remove(point)) {
+			double value = delegate.getValue(point);
+			addSample(point, value);
+			// Only the values waited for are values the optimizer may have accepted
+			if (value < lowestValue) {
+				lowestValue = value;
+			}
+		}
+	}
+
+
+	@Override
+	public List<Point> abort(Collection<Point> points) {
+		List<Point> list = new ArrayList<Point>(Math.min(points.size(), 10));
+
+		for (Point p : points) {
+			if (abort(p)) {
+				list.add(p);
+			}
+		}
+
+		return list;
+	}
+
+
+	@Override
+	public boolean abort(Point point) {
+		if (screened.containsKey(point)) {
+			return true;
+		}
+		boolean done = delegate.abort(point);
+		if (pending.remove(point) && done) {
+			addSample(point, delegate.getValue(point));
+		}
+		return done;
+	}
+
+
+	@Override
+	public void abortAll() {
+		abort(new ArrayList<Point>(pending));
+		delegate.abortAll();
+	}
+
+
+	@Override
+	public double getValue(Point point) {
+		Double d = screened.get(point);
+		if (d != null) {
+			return d;
+		}
+		return delegate.getValue(point);
+	}
+
+
+	@Override
+	public Function getFunction() {
+		return delegate.getFunction();
+	}
+
+	@Override
+	public void setFunction(Function function) {
+		delegate.setFunction(function);
+		clearModel();
+	}
+
+	@Override
+	public void clearCache() {
+		delegate.clearCache();
+		clearModel();
+	}
+
+
+	public ParallelFunctionCache getDelegate() {
+		return delegate;
+	}
+
+
+	public double getConfidence() {
+		return confidence;
+	}
+
+	/**
+	 * Set the number of standard deviations by which the estimated value of a point must be
+	 * above the lowest computed value for the point to be screened.  Larger values screen
+	 * fewer points.
+	 *
+	 * @param confidence	the confidence factor, non-negative.
+	 */
+	public void setConfidence(double confidence) {
+		if (!(confidence >= 0)) {
+			throw new IllegalArgumentException("confidence must be non-negative, was " + confidence);
+		}
+		this.confidence = confidence;
+	}
+
+
+	/**
+	 * Return the number of function values computed by the underlying cache.
+	 */
+	public int getComputedCount() {
+		return computedCount;
+	}
+
+	/**
+	 * Return the number of points screened by the surrogate model instead of being computed.
+	 */
+	public int getScreenedCount() {
+		return screenedCount;
+	}
+
+	@Override
+	public String getStatistics() {
+		return "SurrogateFunctionCache[computed=" + computedCount +
+				", screened=" + screenedCount +
+				", correlationLength=" + model.getCorrelationLength() + "]";
+	}
+
+	@Override
+	public void resetStatistics() {
+		computedCount = 0;
+		screenedCount = 0;
+	}
+
+
+	private void addSample(Point point, double value) {
+		computed.add(point);
+		computedCount++;
+		if (value < PENALTY_VALUE && !Double.isNaN(value)) {
+			model.add(point, value);
+		}
+	}
+
+	private void clearModel() {
+		model.clear();
+		screened.clear();
+		pending.clear();
+		computed.clear();
+		lowestValue = Double.POSITIVE_INFINITY;
+	}
+
+
+	/**
+	 * Check whether a point is outside of the valid optimization range.
+	 */
+	private boolean isOutsideRange(Point p) {
+		int n = p.dim();
+		for (int i = 0; i < n; i++) {
+			double d = p.get(i);
+			// Include NaN in disallowed range
+			if (!(d >= 0.0 && d <= 1.0)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
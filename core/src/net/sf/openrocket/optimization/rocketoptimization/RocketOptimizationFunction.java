@@ -126,14 +126,19 @@ public class RocketOptimizationFunction implements Function {
 
 
 	/**
-	 * Returns a new deep copy of the simulation and rocket.
+	 * Returns a new deep copy of the simulation and rocket.  The copy has the random seed of
+	 * the simulation, so that every evaluation flies in the same wind turbulence and the
+	 * value at a point does not change between evaluations.
 	 * <p>
 	 * Note:  This method is package-private for unit testing purposes.
 	 *
 	 * @return      a new deep copy of the simulation and rocket
 	 */
 	Simulation newSimulationInstance(Simulation simulation) {
-		return simulation.duplicateSimulation(simulation.getRocket().copyWithOriginalID());
+		Simulation copy = simulation.duplicateSimulation(simulation.getRocket().copyWithOriginalID());
+		// duplicateSimulation() copies the seed only if the other options differ from the copy's defaults
+		copy.getOptions().setRandomSeed(simulation.getOptions().getRandomSeed());
+		return copy;
 	}
 	
 	/**
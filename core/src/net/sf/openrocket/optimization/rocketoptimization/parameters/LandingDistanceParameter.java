@@ -2,6 +2,7 @@ package net.sf.openrocket.optimization.rocketoptimization.parameters;
 
 import net.sf.openrocket.l10n.Translator;
 import net.sf.openrocket.simulation.FlightData;
+import net.sf.openrocket.simulation.FlightDataRecording;
 import net.sf.openrocket.simulation.FlightDataType;
 import net.sf.openrocket.startup.Application;
 import net.sf.openrocket.unit.UnitGroup;
@@ -25,6 +26,11 @@ public class LandingDistanceParameter extends SimulationBasedParameter {
 		return simulatedData.getBranch(0).getLast(FlightDataType.TYPE_POSITION_XY);
 	}
 	
+	@Override
+	protected FlightDataRecording getRecording() {
+		return FlightDataRecording.summaryAnd(FlightDataType.TYPE_POSITION_XY);
+	}
+	
 	@Override
 	public UnitGroup getUnitGroup() {
 		return UnitGroup.UNITS_DISTANCE;
@@ -9,6 +9,7 @@ import net.sf.openrocket.document.Simulation;
 import net.sf.openrocket.optimization.general.OptimizationException;
 import net.sf.openrocket.optimization.rocketoptimization.OptimizableParameter;
 import net.sf.openrocket.simulation.FlightData;
+import net.sf.openrocket.simulation.FlightDataRecording;
 import net.sf.openrocket.simulation.exception.SimulationCalculationException;
 import net.sf.openrocket.simulation.exception.SimulationCancelledException;
 import net.sf.openrocket.simulation.exception.SimulationException;
@@ -33,7 +34,7 @@ public abstract class SimulationBasedParameter implements OptimizableParameter {
 			SimulationListener[] listeners = getSimulationListeners();
 			listeners = Arrays.copyOf(listeners, listeners.length + 1);
 			listeners[listeners.length - 1] = new InterruptListener();
-			simulation.simulate(listeners);
+			simulation.simulate(getRecording(), listeners);
 			
 			double value = getResultValue(simulation.getSimulatedData());
 			log.debug("Parameter '" + getName() + " was " + value);
@@ -72,4 +73,18 @@ public abstract class SimulationBasedParameter implements OptimizableParameter {
 		return new SimulationListener[0];
 	}
 	
+	/**
+	 * Return the recording profile of the flight data stored by the simulation.  Only the
+	 * flight data needed by {@link #getResultValue(FlightData)} should be recorded.  All flight
+	 * data is recorded anyway when the simulation has extensions or custom expressions, see
+	 * {@link Simulation#simulate(FlightDataRecording, SimulationListener...)}.
+	 * <p>
+	 * By default, this method returns {@link FlightDataRecording#SUMMARY}.
+	 * 
+	 * @return	the recording profile of the simulation.
+	 */
+	protected FlightDataRecording getRecording() {
+		return FlightDataRecording.SUMMARY;
+	}
+	
 }
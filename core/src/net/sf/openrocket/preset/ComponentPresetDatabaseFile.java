@@ -0,0 +1,351 @@
+package net.sf.openrocket.preset;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import net.sf.openrocket.database.Databases;
+import net.sf.openrocket.file.iterator.DirectoryIterator;
+import net.sf.openrocket.material.Material;
+import net.sf.openrocket.motor.Manufacturer;
+import net.sf.openrocket.rocketcomponent.ExternalComponent.Finish;
+import net.sf.openrocket.rocketcomponent.Transition.Shape;
+import net.sf.openrocket.startup.Application;
+import net.sf.openrocket.util.BugException;
+import net.sf.openrocket.util.TextUtil;
+
+/**
+ * A compact binary file of component presets, used for the component preset catalog
+ * distributed with OpenRocket instead of parsing its XML files at startup.
+ * <p>
+ * The file consists of a header with a magic number, format version and the hash of the
+ * source files the presets were compiled from, a table of the distinct strings of all
+ * presets, and the preset records.  A record lists the properties
+ * of a preset by the index of the property name, followed by the value in a form chosen
+ * by the type of the property.  Materials are stored by their base name, type and density,
+ * and are resolved through {@link Databases#findMaterial(Material.Type, String, double)}
+ * when read, as when loading the XML files.  All values are big-endian.
+ */
+public class ComponentPresetDatabaseFile {
+
+	/** The magic number at the start of the file, "ORCP" */
+	private static final int MAGIC = 0x4F524350;
+	/** The version of the file format, incremented on incompatible changes */
+	public static final int VERSION = 2;
+
+	/** All the property keys of presets, by name, in the order they are written */
+	private static final Map<String, TypedKey<?>> KEYS = new TreeMap<String, TypedKey<?>>();
+	static {
+		for (Field field : ComponentPreset.class.getFields()) {
+			if (Modifier.isStatic(field.getModifiers()) && field.getType() == TypedKey.class) {
+				try {
+					TypedKey<?> key = (TypedKey<?>) field.get(null);
+					KEYS.put(key.getName(), key);
+				} catch (IllegalAccessException e) {
+					throw new BugException(e);
+				}
+			}
+		}
+	}
+
+	private ComponentPresetDatabaseFile() {
+	}
+
+
+	/**
+	 * Read the presets of a component preset file.  The stream is not closed.
+	 *
+	 * @param stream	the stream to read.
+	 * @return			the presets of the file, in the order they were written.
+	 * @throws IOException	if the stream cannot be read or is not a supported preset file.
+	 */
+	public static List<ComponentPreset> read(InputStream stream) throws IOException {
+		final DataInputStream in = new DataInputStream(stream);
+		readHeader(in);
+
+		final String[] strings = new String[in.readInt()];
+		for (int i = 0; i < strings.length; i++) {
+			final byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			strings[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		final Decoder decoder = new Decoder(in, strings);
+		final int count = in.readInt();
+		final List<ComponentPreset> presets = new ArrayList<ComponentPreset>(count);
+		for (int i = 0; i < count; i++) {
+			presets.add(decoder.readPreset());
+		}
+		return presets;
+	}
+
+
+	/**
+	 * Read the hash of the source files of a component preset file, without reading the
+	 * presets.  The stream is not closed.
+	 *
+	 * @param stream	the stream to read.
+	 * @return			the source hash written with the presets, or <code>null</code> if none.
+	 * @throws IOException	if the stream cannot be read or is not a supported preset file.
+	 */
+	public static String readSourceHash(InputStream stream) throws IOException {
+		return readHeader(new DataInputStream(stream));
+	}
+
+	private static String readHeader(DataInputStream in) throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a component preset file");
+		}
+		final int version = in.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported component preset file version " + version + ", expected " + VERSION);
+		}
+		final String hash = in.readUTF();
+		return hash.isEmpty() ? null : hash;
+	}
+
+
+	/**
+	 * Compute the hash of a set of source files, as written with the presets compiled from
+	 * them.  The hash covers the path of each file relative to its directory and its contents,
+	 * so it changes whenever a file is added, removed, renamed or edited, regardless of the
+	 * file modification times.
+	 *
+	 * @param directories	the base directories of the source files, searched recursively.
+	 * @param filter		the filter for selecting the source files.
+	 * @return				the hash of the source files, as a hex string.
+	 * @throws IOException	if a directory or file cannot be read.
+	 */
+	public static String hashSources(List<File> directories, FileFilter filter) throws IOException {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new BugException(e);
+		}
+		for (File directory : directories) {
+			final Map<String, File> files = new TreeMap<String, File>();
+			for (File file : DirectoryIterator.listFiles(directory, filter, true)) {
+				final String name = directory.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+				files.put(name, file);
+			}
+			for (Map.Entry<String, File> entry : files.entrySet()) {
+				final byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+				final byte[] contents = Files.readAllBytes(entry.getValue().toPath());
+				digest.update(intBytes(name.length));
+				digest.update(name);
+				digest.update(intBytes(contents.length));
+				digest.update(contents);
+			}
+			// Separate the directories, so that moving a file between them changes the hash
+			digest.update(intBytes(-1));
+		}
+		return TextUtil.hexString(digest.digest());
+	}
+
+	private static byte[] intBytes(int value) {
+		return new byte[] { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value };
+	}
+
+
+	/**
+	 * Decoder of preset records, resolving the manufacturers and materials only once.
+	 */
+	private static class Decoder {
+		private final DataInputStream in;
+		private final String[] strings;
+		private final Manufacturer[] manufacturers;
+		private final Map<String, Material> materials = new HashMap<String, Material>();
+
+		Decoder(DataInputStream in, String[] strings) {
+			this.in = in;
+			this.strings = strings;
+			this.manufacturers = new Manufacturer[strings.length];
+		}
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		ComponentPreset readPreset() throws IOException {
+			final ComponentPreset preset = new ComponentPreset();
+			final int properties = in.readUnsignedByte();
+			for (int i = 0; i < properties; i++) {
+				final String name = readString();
+				final TypedKey key = KEYS.get(name);
+				if (key == null) {
+					throw new IOException("Unknown preset property " + name);
+				}
+				preset.put(key, readValue(key.getType()));
+			}
+			preset.computeDigest();
+			return preset;
+		}
+
+		private Object readValue(Class<?> type) throws IOException {
+			if (type == Double.class) {
+				return in.readDouble();
+			} else if (type == String.class) {
+				return readString();
+			} else if (type == Boolean.class) {
+				return in.readBoolean();
+			} else if (type == Integer.class) {
+				return in.readInt();
+			} else if (type == Manufacturer.class) {
+				final int index = in.readInt();
+				if (manufacturers[index] == null) {
+					manufacturers[index] = Manufacturer.getManufacturer(strings[index]);
+				}
+				return manufacturers[index];
+			} else if (type == ComponentPreset.Type.class) {
+				return ComponentPreset.Type.valueOf(readString());
+			} else if (type == Shape.class) {
+				return Shape.valueOf(readString());
+			} else if (type == Finish.class) {
+				return Finish.valueOf(readString());
+			} else if (type == Material.class) {
+				final String materialType = readString();
+				final String baseName = readString();
+				final double density = in.readDouble();
+				final String id = materialType + "|" + baseName + "|" + density;
+				Material material = materials.get(id);
+				if (material == null) {
+					material = Databases.findMaterial(Material.Type.valueOf(materialType), baseName, density);
+					materials.put(id, material);
+				}
+				return material;
+			} else if (type == byte[].class) {
+				final byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				return bytes;
+			}
+			throw new IOException("Unsupported preset property type " + type);
+		}
+
+		private String readString() throws IOException {
+			final int index = in.readInt();
+			return (index < 0) ? null : strings[index];
+		}
+	}
+
+
+	/**
+	 * Write presets to a component preset file.  The stream is not closed.
+	 *
+	 * @param presets	the presets to write.
+	 * @param stream	the stream to write to.
+	 * @throws IOException	if writing fails.
+	 */
+	public static void write(Collection<ComponentPreset> presets, OutputStream stream) throws IOException {
+		write(presets, null, stream);
+	}
+
+	/**
+	 * Write presets compiled from a set of source files to a component preset file.
+	 * The stream is not closed.
+	 *
+	 * @param presets		the presets to write.
+	 * @param sourceHash	the hash of the source files, see {@link #hashSources(List, FileFilter)},
+	 * 						or <code>null</code> if none.
+	 * @param stream		the stream to write to.
+	 * @throws IOException	if writing fails.
+	 */
+	public static void write(Collection<ComponentPreset> presets, String sourceHash, OutputStream stream) throws IOException {
+		final List<String> strings = new ArrayList<String>();
+		final Map<String, Integer> stringIndex = new HashMap<String, Integer>();
+
+		// Encode the preset records first to collect the strings
+		final ByteArrayOutputStream records = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(records);
+		out.writeInt(presets.size());
+		for (ComponentPreset preset : presets) {
+			writePreset(preset, out, strings, stringIndex);
+		}
+		out.flush();
+
+		final DataOutputStream header = new DataOutputStream(stream);
+		header.writeInt(MAGIC);
+		header.writeInt(VERSION);
+		header.writeUTF((sourceHash == null) ? "" : sourceHash);
+		header.writeInt(strings.size());
+		for (String s : strings) {
+			final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			header.writeInt(bytes.length);
+			header.write(bytes);
+		}
+		header.flush();
+		records.writeTo(stream);
+		stream.flush();
+	}
+
+	private static void writePreset(ComponentPreset preset, DataOutputStream out, List<String> strings,
+			Map<String, Integer> stringIndex) throws IOException {
+		final List<TypedKey<?>> keys = new ArrayList<TypedKey<?>>();
+		for (TypedKey<?> key : KEYS.values()) {
+			if (preset.has(key)) {
+				keys.add(key);
+			}
+		}
+		out.writeByte(keys.size());
+		for (TypedKey<?> key : keys) {
+			out.writeInt(indexOf(key.getName(), strings, stringIndex));
+			writeValue(key.getType(), preset.get(key), out, strings, stringIndex);
+		}
+	}
+
+	private static void writeValue(Class<?> type, Object value, DataOutputStream out, List<String> strings,
+			Map<String, Integer> stringIndex) throws IOException {
+		if (type == Double.class) {
+			out.writeDouble((Double) value);
+		} else if (type == String.class) {
+			out.writeInt(indexOf((String) value, strings, stringIndex));
+		} else if (type == Boolean.class) {
+			out.writeBoolean((Boolean) value);
+		} else if (type == Integer.class) {
+			out.writeInt((Integer) value);
+		} else if (type == Manufacturer.class) {
+			out.writeInt(indexOf(((Manufacturer) value).getDisplayName(), strings, stringIndex));
+		} else if (type == ComponentPreset.Type.class || type == Shape.class || type == Finish.class) {
+			out.writeInt(indexOf(((Enum<?>) value).name(), strings, stringIndex));
+		} else if (type == Material.class) {
+			final Material material = (Material) value;
+			final String baseName = Application.getTranslator().getBaseText("material", material.getName());
+			out.writeInt(indexOf(material.getType().name(), strings, stringIndex));
+			out.writeInt(indexOf(baseName, strings, stringIndex));
+			out.writeDouble(material.getDensity());
+		} else if (type == byte[].class) {
+			final byte[] bytes = (byte[]) value;
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		} else {
+			throw new BugException("Unsupported preset property type " + type);
+		}
+	}
+
+	private static int indexOf(String s, List<String> strings, Map<String, Integer> stringIndex) {
+		if (s == null) {
+			return -1;
+		}
+		Integer index = stringIndex.get(s);
+		if (index == null) {
+			index = strings.size();
+			strings.add(s);
+			stringIndex.put(s, index);
+		}
+		return index;
+	}
+}
@@ -0,0 +1,38 @@
+package net.sf.openrocket.preset;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import net.sf.openrocket.file.ParsedFileCache;
+
+/**
+ * A persistent cache of the component presets parsed from preset files.  The presets
+ * are stored as a {@link ComponentPresetDatabaseFile}.
+ */
+public class ComponentPresetFileCache extends ParsedFileCache<ComponentPreset> {
+
+	/** The magic number at the start of the cache file, "ORPC" */
+	private static final int MAGIC = 0x4F525043;
+
+	/**
+	 * Create a cache stored in the given file.
+	 *
+	 * @param cacheFile	the cache file.
+	 */
+	public ComponentPresetFileCache(File cacheFile) {
+		super(cacheFile, MAGIC);
+	}
+
+	@Override
+	protected List<ComponentPreset> readItems(InputStream stream) throws IOException {
+		return ComponentPresetDatabaseFile.read(stream);
+	}
+
+	@Override
+	protected void writeItems(List<ComponentPreset> presets, OutputStream stream) throws IOException {
+		ComponentPresetDatabaseFile.write(presets, stream);
+	}
+}
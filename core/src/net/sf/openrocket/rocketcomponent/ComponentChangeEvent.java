@@ -17,6 +17,7 @@ public class ComponentChangeEvent extends EventObject {
 		TEXTURE ( 128, "Texture"),
 		GRAPHIC( 256, "Configuration"),
 		TREE_CHILDREN( 512, "TREE_CHILDREN"),
+		LOCAL( 1024, "Local"),
 		;
 		
 		protected int value;
@@ -59,6 +60,8 @@ public class ComponentChangeEvent extends EventObject {
 	// when a flight configuration fires an event, it is of this type
 	// UI-only change, but does not effect the true
 	public static final int GRAPHIC_CHANGE = TYPE.GRAPHIC.value;
+	/** Marks an aerodynamic change that only affects the source component itself (e.g. fin cant) */
+	public static final int LOCAL_CHANGE = TYPE.LOCAL.value;
 	
 	//// A bit-field that contains all possible change types. 
 	//// Will output as -1. for an explanation, see "twos-complement" representation of signed integers
@@ -140,6 +143,10 @@ public class ComponentChangeEvent extends EventObject {
 		return TYPE.MOTOR.matches(this.type);
 	}
 	
+	public boolean isLocalChange() {
+		return TYPE.LOCAL.matches(this.type);
+	}
+	
 	public int getType() {
 		return this.type;
 	}
@@ -164,6 +171,8 @@ public class ComponentChangeEvent extends EventObject {
 			s += ",motor";
 		if (isEventChange())
 			s += ",event";
+		if (isLocalChange())
+			s += ",local";
 		
 		if (s.length() > 0)
 			s = s.substring(1);
@@ -235,7 +235,8 @@ public abstract class FinSet extends ExternalComponent implements AxialPositiona
 			return;
 		this.cantRadians = clampedCant;
 
-		fireComponentChangeEvent(ComponentChangeEvent.AERODYNAMIC_CHANGE);
+		// Only the calculations of this fin set depend on its cant
+		fireComponentChangeEvent(ComponentChangeEvent.AERODYNAMIC_CHANGE | ComponentChangeEvent.LOCAL_CHANGE);
 	}
 
 	public Transformation getCantRotation() {
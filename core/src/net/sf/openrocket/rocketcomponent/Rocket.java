@@ -38,15 +38,16 @@ public class Rocket extends ComponentAssembly {
 	private Set<EventListener> listenerList = new HashSet<>();
 	
 	/**
-	 * When freezeList != null, events are not dispatched but stored in the list.
+	 * When frozen != null, events are not dispatched but merged into it.
 	 * When the structure is thawed, a single combined event will be fired.
 	 */
-	private List<ComponentChangeEvent> freezeList = null;
+	private FrozenEvents frozen = null;
 	
 	
 	private int modID;
 	private int massModID;
 	private int aeroModID;
+	private int globalAeroModID;
 	private int treeModID;
 	private int functionalModID;
 	
@@ -76,6 +77,7 @@ public class Rocket extends ComponentAssembly {
 		modID = UniqueID.next();
 		massModID = modID;
 		aeroModID = modID;
+		globalAeroModID = modID;
 		treeModID = modID;
 		functionalModID = modID;
 
@@ -171,6 +173,18 @@ public class Rocket extends ComponentAssembly {
 		return aeroModID;
 	}
 	
+	/**
+	 * Return the aerodynamic modification ID of changes that are not local to a single
+	 * component.  Unlike {@link #getAerodynamicModID()}, this does not change for
+	 * {@link ComponentChangeEvent#LOCAL_CHANGE} events such as fin cant changes, which
+	 * are tracked per component by {@link RocketComponent#getComponentAerodynamicModID()}.
+	 *
+	 * @return   a unique ID number for this aerodynamic-modification state.
+	 */
+	public int getGlobalAerodynamicModID() {
+		return globalAeroModID;
+	}
+	
 	/**
 	 * Return the non-negative tree modification ID of this rocket.  See
 	 * {@link #getModID()} for details.
@@ -381,21 +395,67 @@ public class Rocket extends ComponentAssembly {
 			copyRocket.stageMap.put(entry.getKey(), stage);
 		}
 
+		copyRocket.copyConfigurationsFrom(this);
+		copyRocket.listenerList = new HashSet<>();
+		copyRocket.frozen = null;
+		
+		return copyRocket;
+	}
+	
+	/**
+	 * Make a copy of the rocket-level state of this rocket without its children, for the
+	 * purpose of {@link RocketSnapshot}.  The copy has no stages and only the default flight
+	 * configuration until {@link #copyConfigurationsFrom(Rocket, Collection)} is called.
+	 */
+	@Override
+	Rocket copyWithoutChildren() {
+		final List<RocketComponent> ownChildren = new ArrayList<>(children);
+		final Rocket copyRocket;
+		children.clear();
+		try {
+			copyRocket = (Rocket) super.copyWithOriginalID();
+		} finally {
+			children.addAll(ownChildren);
+		}
+		
+		copyRocket.stageMap = new ConcurrentHashMap<>();
+		copyRocket.configSet = new FlightConfigurableParameterSet<>(new FlightConfiguration(copyRocket));
+		copyRocket.selectedConfiguration = copyRocket.configSet.getDefault();
+		copyRocket.listenerList = new HashSet<>();
+		copyRocket.frozen = null;
+		
+		return copyRocket;
+	}
+	
+	/**
+	 * Track the given stages and bind copies of the flight configurations of the source to
+	 * this rocket.  This completes a copy made by {@link #copyWithoutChildren()}, whose
+	 * stages were copied separately.
+	 * 
+	 * @param source	the rocket whose flight configurations to copy.
+	 * @param stages	the copies of the stages of the source.
+	 */
+	void copyConfigurationsFrom(Rocket source, Collection<AxialStage> stages) {
+		stageMap = new ConcurrentHashMap<>();
+		for (AxialStage stage : stages) {
+			stageMap.put(stage.getStageNumber(), stage);
+		}
+		copyConfigurationsFrom(source);
+	}
+	
+	private void copyConfigurationsFrom(Rocket source) {
 		// these flight configurations need to reference the _new_ Rocket copy
 		// the default value needs to be explicitly set, because it has different semantics
-		copyRocket.configSet = new FlightConfigurableParameterSet<>(new FlightConfiguration(copyRocket));
-		for (FlightConfigurationId configID : this.configSet.getIds()) {
-			FlightConfiguration originalCfg = this.configSet.get(configID);
-			FlightConfiguration newCfg = new FlightConfiguration(copyRocket, configID);
+		configSet = new FlightConfigurableParameterSet<>(new FlightConfiguration(this));
+		for (FlightConfigurationId configID : source.configSet.getIds()) {
+			FlightConfiguration originalCfg = source.configSet.get(configID);
+			FlightConfiguration newCfg = new FlightConfiguration(this, configID);
 			newCfg.setName(originalCfg.getNameRaw());			// Copy config name
 			newCfg.copyStageActiveness(originalCfg);
-			copyRocket.configSet.set(configID, newCfg);
+			configSet.set(configID, newCfg);
 		}
 
-		copyRocket.selectedConfiguration = copyRocket.configSet.get( this.getSelectedConfiguration().getId());
-		copyRocket.listenerList = new HashSet<>();
-		
-		return copyRocket;
+		selectedConfiguration = configSet.get( source.getSelectedConfiguration().getId());
 	}
 	
 	public int getFlightConfigurationCount() {
@@ -431,6 +491,7 @@ public class Rocket extends ComponentAssembly {
 		this.modID = source.modID;
 		this.massModID = source.massModID;
 		this.aeroModID = source.aeroModID;
+		this.globalAeroModID = source.globalAeroModID;
 		this.treeModID = source.treeModID;
 		this.functionalModID = source.functionalModID;
 		this.refType = source.refType;
@@ -546,8 +607,16 @@ public class Rocket extends ComponentAssembly {
 				modID = UniqueID.next();
 				if (cce.isMassChange())
 					massModID = modID;
-				if (cce.isAerodynamicChange())
+				if (cce.isAerodynamicChange()) {
 					aeroModID = modID;
+					if (cce.isLocalChange()) {
+						cce.getSource().setComponentAerodynamicModID(modID);
+					} else {
+						globalAeroModID = modID;
+					}
+				}
+				if (cce.getSource() == this)
+					setComponentModID(modID);
 				if (cce.isTreeChange())
 					treeModID = modID;
 				if (cce.isFunctionalChange()) {
@@ -557,9 +626,8 @@ public class Rocket extends ComponentAssembly {
 			}
 
 			// Check whether frozen
-			if (freezeList != null) {
-				log.debug("Rocket is in frozen state, adding event " + cce + " info freeze list");
-				freezeList.add(cce);
+			if (frozen != null) {
+				frozen.add(cce, ids);
 				return;
 			}
 
@@ -674,8 +742,12 @@ public class Rocket extends ComponentAssembly {
 	
 	/**
 	 * Freezes the rocket structure from firing any events.  This may be performed to
-	 * combine several actions on the structure into a single large action.
+	 * combine several actions on the structure into a single large action, such as scaling
+	 * or importing components, so that the listeners are notified only once.
 	 * <code>thaw()</code> must always be called afterwards.
+	 * <p>
+	 * Freezing may be nested, in which case the events are fired only when the outermost
+	 * freeze is thawed.  The modification IDs are updated for each change as usual.
 	 *
 	 * NOTE:  Always use a try/finally to ensure <code>thaw()</code> is called:
 	 * <pre>
@@ -692,45 +764,93 @@ public class Rocket extends ComponentAssembly {
 	 */
 	public void freeze() {
 		checkState();
-		if (freezeList == null) {
-			freezeList = new LinkedList<>();
+		if (frozen == null) {
+			frozen = new FrozenEvents();
 			log.debug("Freezing Rocket");
-		} else {
-			Application.getExceptionHandler().handleErrorCondition("Attempting to freeze Rocket when it is already frozen, " +
-					"freezeList=" + freezeList);
 		}
+		frozen.depth++;
 	}
 	
 	/**
 	 * Thaws a frozen rocket structure and fires a combination of the events fired during
 	 * the freeze.  The event type is a combination of those fired and the source is the
-	 * last component to have been an event source.
+	 * last component to have been an event source.  The event is local only if all events
+	 * had the same source, and concerns the union of the flight configurations of the events.
+	 * Thawing a nested freeze does not fire any events.
 	 *
 	 * @see #freeze()
 	 */
 	public void thaw() {
 		checkState();
-		if (freezeList == null) {
+		if (frozen == null) {
 			Application.getExceptionHandler().handleErrorCondition("Attempting to thaw Rocket when it is not frozen");
 			return;
 		}
-		if (freezeList.size() == 0) {
-			log.warn("Thawing rocket with no changes made");
-			freezeList = null;
+		if (--frozen.depth > 0) {
+			return;
+		}
+		
+		final FrozenEvents events = frozen;
+		frozen = null;
+		if (events.count == 0) {
+			log.debug("Thawing rocket with no changes made");
 			return;
 		}
 		
-		log.debug("Thawing rocket, freezeList=" + freezeList);
+		log.debug("Thawing rocket, " + events.count + " events combined");
+		fireComponentChangeEvent(new ComponentChangeEvent(events.source, events.getType()), events.getIds());
+	}
+	
+	/**
+	 * Return whether the rocket structure is frozen.
+	 *
+	 * @see #freeze()
+	 */
+	public boolean isFrozen() {
+		return frozen != null;
+	}
+	
+	
+	/**
+	 * The events fired while the rocket structure is frozen, merged into a single event.
+	 */
+	private static final class FrozenEvents {
+		private int depth = 0;
+		private int count = 0;
+		private int type = 0;
+		private RocketComponent source = null;
+		private boolean singleSource = true;
+		private boolean allIds = false;
+		private final Set<FlightConfigurationId> ids = new LinkedHashSet<>();
+		
+		void add(ComponentChangeEvent cce, FlightConfigurationId[] eventIds) {
+			if (count > 0 && cce.getSource() != source) {
+				singleSource = false;
+			}
+			count++;
+			type |= cce.getType();
+			source = cce.getSource();
+			if (eventIds == null) {
+				allIds = true;
+			} else if (!allIds) {
+				ids.addAll(Arrays.asList(eventIds));
+			}
+		}
 		
-		int type = 0;
-		Object c = null;
-		for (ComponentChangeEvent e : freezeList) {
-			type = type | e.getType();
-			c = e.getSource();
+		int getType() {
+			if (!singleSource) {
+				// The combined event contains changes to several components
+				return type & ~ComponentChangeEvent.LOCAL_CHANGE;
+			}
+			return type;
 		}
-		freezeList = null;
 		
-		fireComponentChangeEvent(new ComponentChangeEvent((RocketComponent) c, type));
+		FlightConfigurationId[] getIds() {
+			if (allIds) {
+				return null;
+			}
+			return ids.toArray(new FlightConfigurationId[0]);
+		}
 	}
 	
 	
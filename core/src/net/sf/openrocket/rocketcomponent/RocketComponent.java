@@ -141,6 +141,12 @@ public abstract class RocketComponent implements ChangeSource, Cloneable, Iterab
 	// If set to true, presets will not be cleared
 	private boolean ignorePresetClearing = false;
 	
+	// Modification ID of the latest aerodynamic change local to this component
+	private int componentAeroModID = -1;
+	
+	// Modification ID of the latest change event fired by this component
+	private int componentModID = -1;
+	
 	// The realistic appearance of this component
 	private Appearance appearance = null;
 
@@ -317,6 +323,34 @@ public abstract class RocketComponent implements ChangeSource, Cloneable, Iterab
 //	}
 	
 	
+	/**
+	 * Return the modification ID of the latest {@link ComponentChangeEvent#LOCAL_CHANGE}
+	 * aerodynamic change of this component, or -1 if none has occurred.  Calculators may use
+	 * this to rebuild only the data of this component as long as
+	 * {@link Rocket#getGlobalAerodynamicModID()} has not changed.
+	 */
+	public int getComponentAerodynamicModID() {
+		return componentAeroModID;
+	}
+	
+	void setComponentAerodynamicModID(int modID) {
+		this.componentAeroModID = modID;
+	}
+	
+	/**
+	 * Return the modification ID of the latest change event fired by this component, or -1
+	 * if none has occurred.  The ID is updated even if the event is not delivered, and is
+	 * maintained by copies of the component.  {@link RocketSnapshot} uses it to detect
+	 * unchanged components.
+	 */
+	int getComponentModID() {
+		return componentModID;
+	}
+	
+	void setComponentModID(int modID) {
+		this.componentModID = modID;
+	}
+	
 	/**
 	 * Called when any component in the tree fires a ComponentChangeEvent.  This is by
 	 * default a no-op, but subclasses may override this method to e.g. invalidate
@@ -450,6 +484,23 @@ public abstract class RocketComponent implements ChangeSource, Cloneable, Iterab
 		}
 	}
 
+	/**
+	 * Make a copy of this component without its children while maintaining the component ID,
+	 * for the purpose of {@link RocketSnapshot}.  Mutable fields are copied as in
+	 * {@link #copyWithOriginalID()}.  This method does not fire any events.
+	 *
+	 * @return A copy of this component with no children.
+	 */
+	RocketComponent copyWithoutChildren() {
+		final List<RocketComponent> ownChildren = new ArrayList<RocketComponent>(children);
+		children.clear();
+		try {
+			return copyWithOriginalID();
+		} finally {
+			children.addAll(ownChildren);
+		}
+	}
+
 	@Override
 	public RocketComponent clone() throws CloneNotSupportedException {
 		RocketComponent clone = (RocketComponent) super.clone();
@@ -1229,13 +1280,12 @@ public abstract class RocketComponent implements ChangeSource, Cloneable, Iterab
 			
 			this.presetComponent = preset;
 			
+			fireComponentChangeEvent(ComponentChangeEvent.NONFUNCTIONAL_CHANGE);
 		} finally {
 			if (rocket != null) {
 				rocket.thaw();
 			}
 		}
-
-		fireComponentChangeEvent(ComponentChangeEvent.NONFUNCTIONAL_CHANGE);
 	}
 
 	public final void loadPreset(ComponentPreset preset) {
@@ -2586,6 +2636,9 @@ public abstract class RocketComponent implements ChangeSource, Cloneable, Iterab
 	 */
 	protected void fireComponentChangeEvent(ComponentChangeEvent e) {
 		checkState();
+		if (!e.isUndoChange()) {
+			componentModID = UniqueID.next();
+		}
 		if (parent == null || bypassComponentChangeEvent) {
 			/* Ignore if root invalid. */
 			return;
@@ -0,0 +1,255 @@
+package net.sf.openrocket.rocketcomponent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of the state of a rocket, used by the undo history.
+ * <p>
+ * A snapshot consists of copies of the components without their children, and the
+ * structure of the component tree.  When a snapshot is taken relative to a previous one,
+ * the copies of the components that have not fired a change event since are shared with
+ * the previous snapshot, as is the structure of the unchanged subtrees.  The rocket itself
+ * is always copied, and a change event fired by the rocket may concern any component, so
+ * after one no copies are shared.
+ * <p>
+ * The memory used by a snapshot is estimated from the components it copies.  The memory of
+ * a set of snapshots is accounted with {@link #retain(Map)} and {@link #release(Map)}, which
+ * count the copies shared between them only once.
+ */
+public final class RocketSnapshot {
+
+	// Estimated sizes of the copied objects, in bytes
+	private static final int COMPONENT_SIZE = 512;
+	private static final int NODE_SIZE = 32;
+	private static final int REFERENCE_SIZE = 8;
+	private static final int COORDINATE_SIZE = 48;
+	private static final int CONFIGURATION_SIZE = 128;
+	private static final int FLIGHT_CONFIGURATION_SIZE = 384;
+
+	private final Node root;
+	private final int modID;
+	private final int rocketModID;
+
+
+	private RocketSnapshot(Node root, int modID, int rocketModID) {
+		this.root = root;
+		this.modID = modID;
+		this.rocketModID = rocketModID;
+	}
+
+
+	/**
+	 * Take a snapshot of the current state of a rocket.
+	 *
+	 * @param rocket	the rocket.
+	 * @param previous	a previous snapshot of the rocket whose unchanged component copies
+	 * 					are shared, or <code>null</code> to copy all components.
+	 * @return			the snapshot.
+	 */
+	public static RocketSnapshot create(Rocket rocket, RocketSnapshot previous) {
+		final Map<String, Node> previousNodes = new HashMap<String, Node>();
+		if (previous != null && previous.rocketModID == rocket.getComponentModID()) {
+			for (Node child : previous.root.children) {
+				child.index(previousNodes);
+			}
+		}
+
+		final Node[] children = new Node[rocket.getChildCount()];
+		final List<AxialStage> stages = new ArrayList<AxialStage>();
+		for (int i = 0; i < children.length; i++) {
+			children[i] = snapshot(rocket.getChild(i), previousNodes, stages);
+		}
+
+		final Rocket copy = rocket.copyWithoutChildren();
+		copy.copyConfigurationsFrom(rocket, stages);
+		return new RocketSnapshot(new Node(copy, children), rocket.getModID(), rocket.getComponentModID());
+	}
+
+	private static Node snapshot(RocketComponent component, Map<String, Node> previousNodes, List<AxialStage> stages) {
+		final Node previous = previousNodes.get(component.getID());
+		final boolean changed = (previous == null || previous.copy.getComponentModID() != component.getComponentModID());
+		final RocketComponent copy = changed ? component.copyWithoutChildren() : previous.copy;
+		if (copy instanceof AxialStage) {
+			stages.add((AxialStage) copy);
+		}
+
+		final Node[] children = new Node[component.getChildCount()];
+		boolean unchanged = !changed && (previous.children.length == children.length);
+		for (int i = 0; i < children.length; i++) {
+			children[i] = snapshot(component.getChild(i), previousNodes, stages);
+			unchanged = unchanged && (children[i] == previous.children[i]);
+		}
+		return unchanged ? previous : new Node(copy, children);
+	}
+
+
+	/**
+	 * Return a new rocket with the state of this snapshot.  The rocket is a copy with the
+	 * original component IDs, as if made by {@link Rocket#copyWithOriginalID()}.
+	 */
+	public Rocket toRocket() {
+		final List<AxialStage> stages = new ArrayList<AxialStage>();
+		final Rocket rocket = ((Rocket) root.copy).copyWithoutChildren();
+		for (Node child : root.children) {
+			rocket.children.add(child.toComponent(rocket, stages));
+		}
+		rocket.copyConfigurationsFrom((Rocket) root.copy, stages);
+		rocket.checkComponentStructure();
+		return rocket;
+	}
+
+	/**
+	 * Return the modification ID of the rocket when the snapshot was taken.
+	 *
+	 * @see Rocket#getModID()
+	 */
+	public int getModID() {
+		return modID;
+	}
+
+	/**
+	 * Return the estimated memory used by this snapshot in bytes, including the copies
+	 * shared with other snapshots.
+	 */
+	public long getSize() {
+		return root.getSize();
+	}
+
+	/**
+	 * Add the references of this snapshot to its component copies to the given counts.
+	 *
+	 * @param references	the reference counts of the component copies of a set of snapshots.
+	 * @return				the estimated memory of the copies that were not referenced before, in bytes.
+	 */
+	public long retain(Map<Object, Integer> references) {
+		return root.retain(references);
+	}
+
+	/**
+	 * Remove the references of this snapshot to its component copies from the given counts.
+	 *
+	 * @param references	the reference counts of the component copies of a set of snapshots.
+	 * @return				the estimated memory of the copies that are no longer referenced, in bytes.
+	 */
+	public long release(Map<Object, Integer> references) {
+		return root.release(references);
+	}
+
+
+	/**
+	 * Return the estimated memory used by the copy of a component, excluding its children.
+	 */
+	private static long estimateSize(RocketComponent component) {
+		long size = COMPONENT_SIZE + 2 * (component.getName().length() + component.getComment().length());
+		if (component instanceof FreeformFinSet) {
+			size += (long) ((FreeformFinSet) component).getPointCount() * COORDINATE_SIZE;
+		}
+		if (component instanceof MotorMount) {
+			size += (long) ((MotorMount) component).getMotorConfigurationSet().size() * CONFIGURATION_SIZE;
+		}
+		if (component instanceof RecoveryDevice) {
+			size += (long) ((RecoveryDevice) component).getDeploymentConfigurations().size() * CONFIGURATION_SIZE;
+		}
+		if (component instanceof AxialStage) {
+			size += (long) ((AxialStage) component).getSeparationConfigurations().size() * CONFIGURATION_SIZE;
+		}
+		if (component instanceof Rocket) {
+			size += (long) ((Rocket) component).getConfigurationCount() * FLIGHT_CONFIGURATION_SIZE;
+		}
+		return size;
+	}
+
+
+	/**
+	 * A copy of a component and the nodes of its children.  Nodes and copies are shared
+	 * between snapshots, so the copies have no parent or children of their own.
+	 */
+	private static final class Node {
+		private final RocketComponent copy;
+		private final Node[] children;
+		private final long copySize;
+
+		Node(RocketComponent copy, Node[] children) {
+			this.copy = copy;
+			this.children = children;
+			this.copySize = estimateSize(copy);
+		}
+
+		long getNodeSize() {
+			return NODE_SIZE + REFERENCE_SIZE * children.length;
+		}
+
+		void index(Map<String, Node> nodes) {
+			nodes.put(copy.getID(), this);
+			for (Node child : children) {
+				child.index(nodes);
+			}
+		}
+
+		RocketComponent toComponent(RocketComponent parent, List<AxialStage> stages) {
+			final RocketComponent component = copy.copyWithoutChildren();
+			component.parent = parent;
+			for (Node child : children) {
+				component.children.add(child.toComponent(component, stages));
+			}
+			if (component instanceof AxialStage) {
+				stages.add((AxialStage) component);
+			}
+			return component;
+		}
+
+		long getSize() {
+			long total = getNodeSize() + copySize;
+			for (Node child : children) {
+				total += child.getSize();
+			}
+			return total;
+		}
+
+		long retain(Map<Object, Integer> references) {
+			final Integer count = references.get(this);
+			if (count != null) {
+				// The subtree of a shared node is shared as well
+				references.put(this, count + 1);
+				return 0;
+			}
+			references.put(this, 1);
+			long total = getNodeSize();
+			final Integer copyCount = references.get(copy);
+			if (copyCount == null) {
+				references.put(copy, 1);
+				total += copySize;
+			} else {
+				references.put(copy, copyCount + 1);
+			}
+			for (Node child : children) {
+				total += child.retain(references);
+			}
+			return total;
+		}
+
+		long release(Map<Object, Integer> references) {
+			final int count = references.get(this);
+			if (count > 1) {
+				references.put(this, count - 1);
+				return 0;
+			}
+			references.remove(this);
+			long total = getNodeSize();
+			final int copyCount = references.get(copy);
+			if (copyCount > 1) {
+				references.put(copy, copyCount - 1);
+			} else {
+				references.remove(copy);
+				total += copySize;
+			}
+			for (Node child : children) {
+				total += child.release(references);
+			}
+			return total;
+		}
+	}
+}
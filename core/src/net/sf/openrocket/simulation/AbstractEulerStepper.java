@@ -126,63 +126,92 @@ public abstract class AbstractEulerStepper extends AbstractSimulationStepper {
 
 		// Store data
 		FlightDataBranch data = status.getFlightData();
+		FlightDataRecording recording = status.getSimulationConditions().getRecording();
 		data.addPoint();
 		
 		data.setValue(FlightDataType.TYPE_TIME, status.getSimulationTime());
 		data.setValue(FlightDataType.TYPE_ALTITUDE, status.getRocketPosition().z);
-		data.setValue(FlightDataType.TYPE_POSITION_X, status.getRocketPosition().x);
-		data.setValue(FlightDataType.TYPE_POSITION_Y, status.getRocketPosition().y);
+		if (recording.isRecorded(FlightDataType.TYPE_POSITION_X))
+			data.setValue(FlightDataType.TYPE_POSITION_X, status.getRocketPosition().x);
+		if (recording.isRecorded(FlightDataType.TYPE_POSITION_Y))
+			data.setValue(FlightDataType.TYPE_POSITION_Y, status.getRocketPosition().y);
 
 		airSpeed = status.getRocketVelocity().add(windSpeed);
 
-		data.setValue(FlightDataType.TYPE_POSITION_XY,
-					  MathUtil.hypot(status.getRocketPosition().x, status.getRocketPosition().y));
-		data.setValue(FlightDataType.TYPE_POSITION_DIRECTION,
-					  Math.atan2(status.getRocketPosition().y, status.getRocketPosition().x));
-		
-		data.setValue(FlightDataType.TYPE_VELOCITY_XY,
-					  MathUtil.hypot(status.getRocketVelocity().x, status.getRocketVelocity().y));
-		data.setValue(FlightDataType.TYPE_ACCELERATION_XY,
-					  MathUtil.hypot(linearAcceleration.x, linearAcceleration.y));
-		
-		data.setValue(FlightDataType.TYPE_ACCELERATION_TOTAL, linearAcceleration.length());
-		
-		double Re = airSpeed.length() *
-			status.getConfiguration().getLengthAerodynamic() /
-			atmosphere.getKinematicViscosity();
-		data.setValue(FlightDataType.TYPE_REYNOLDS_NUMBER, Re);
+		if (recording.isRecorded(FlightDataType.TYPE_POSITION_XY))
+			data.setValue(FlightDataType.TYPE_POSITION_XY,
+						  MathUtil.hypot(status.getRocketPosition().x, status.getRocketPosition().y));
+		if (recording.isRecorded(FlightDataType.TYPE_POSITION_DIRECTION))
+			data.setValue(FlightDataType.TYPE_POSITION_DIRECTION,
+						  Math.atan2(status.getRocketPosition().y, status.getRocketPosition().x));
+		
+		if (recording.isRecorded(FlightDataType.TYPE_VELOCITY_XY))
+			data.setValue(FlightDataType.TYPE_VELOCITY_XY,
+						  MathUtil.hypot(status.getRocketVelocity().x, status.getRocketVelocity().y));
+		if (recording.isRecorded(FlightDataType.TYPE_ACCELERATION_XY))
+			data.setValue(FlightDataType.TYPE_ACCELERATION_XY,
+						  MathUtil.hypot(linearAcceleration.x, linearAcceleration.y));
+		
+		if (recording.isRecorded(FlightDataType.TYPE_ACCELERATION_TOTAL))
+			data.setValue(FlightDataType.TYPE_ACCELERATION_TOTAL, linearAcceleration.length());
+		
+		if (recording.isRecorded(FlightDataType.TYPE_REYNOLDS_NUMBER)) {
+			double Re = airSpeed.length() *
+				status.getConfiguration().getLengthAerodynamic() /
+				atmosphere.getKinematicViscosity();
+			data.setValue(FlightDataType.TYPE_REYNOLDS_NUMBER, Re);
+		}
 		
 
-		data.setValue(FlightDataType.TYPE_LATITUDE, status.getRocketWorldPosition().getLatitudeRad());
-		data.setValue(FlightDataType.TYPE_LONGITUDE, status.getRocketWorldPosition().getLongitudeRad());
-		data.setValue(FlightDataType.TYPE_GRAVITY, gravity);
+		if (recording.isRecorded(FlightDataType.TYPE_LATITUDE))
+			data.setValue(FlightDataType.TYPE_LATITUDE, status.getRocketWorldPosition().getLatitudeRad());
+		if (recording.isRecorded(FlightDataType.TYPE_LONGITUDE))
+			data.setValue(FlightDataType.TYPE_LONGITUDE, status.getRocketWorldPosition().getLongitudeRad());
+		if (recording.isRecorded(FlightDataType.TYPE_GRAVITY))
+			data.setValue(FlightDataType.TYPE_GRAVITY, gravity);
 		
-		if (status.getSimulationConditions().getGeodeticComputation() != GeodeticComputationStrategy.FLAT) {
+		if (status.getSimulationConditions().getGeodeticComputation() != GeodeticComputationStrategy.FLAT &&
+				recording.isRecorded(FlightDataType.TYPE_CORIOLIS_ACCELERATION)) {
 			data.setValue(FlightDataType.TYPE_CORIOLIS_ACCELERATION, coriolisAcceleration.length());
 		}
 		
 
-		data.setValue(FlightDataType.TYPE_VELOCITY_Z, status.getRocketVelocity().z);
-		data.setValue(FlightDataType.TYPE_ACCELERATION_Z, linearAcceleration.z);
+		if (recording.isRecorded(FlightDataType.TYPE_VELOCITY_Z))
+			data.setValue(FlightDataType.TYPE_VELOCITY_Z, status.getRocketVelocity().z);
+		if (recording.isRecorded(FlightDataType.TYPE_ACCELERATION_Z))
+			data.setValue(FlightDataType.TYPE_ACCELERATION_Z, linearAcceleration.z);
 		
-		data.setValue(FlightDataType.TYPE_VELOCITY_TOTAL, airSpeed.length());
-		data.setValue(FlightDataType.TYPE_MACH_NUMBER, mach);
+		if (recording.isRecorded(FlightDataType.TYPE_VELOCITY_TOTAL))
+			data.setValue(FlightDataType.TYPE_VELOCITY_TOTAL, airSpeed.length());
+		if (recording.isRecorded(FlightDataType.TYPE_MACH_NUMBER))
+			data.setValue(FlightDataType.TYPE_MACH_NUMBER, mach);
 		
-		data.setValue(FlightDataType.TYPE_MASS, mass);
-		data.setValue(FlightDataType.TYPE_MOTOR_MASS, motorMass);
+		if (recording.isRecorded(FlightDataType.TYPE_MASS))
+			data.setValue(FlightDataType.TYPE_MASS, mass);
+		if (recording.isRecorded(FlightDataType.TYPE_MOTOR_MASS))
+			data.setValue(FlightDataType.TYPE_MOTOR_MASS, motorMass);
 		
 		data.setValue(FlightDataType.TYPE_THRUST_FORCE, 0);
-		data.setValue(FlightDataType.TYPE_DRAG_FORCE, dragForce);
-		
-		data.setValue(FlightDataType.TYPE_WIND_VELOCITY, windSpeed.length());
-		data.setValue(FlightDataType.TYPE_AIR_TEMPERATURE, atmosphere.getTemperature());
-		data.setValue(FlightDataType.TYPE_AIR_PRESSURE, atmosphere.getPressure());
-		data.setValue(FlightDataType.TYPE_SPEED_OF_SOUND, atmosphere.getMachSpeed());
-		
-		data.setValue(FlightDataType.TYPE_TIME_STEP, timeStep);
-		data.setValue(FlightDataType.TYPE_COMPUTATION_TIME,
-				(System.nanoTime() - status.getSimulationStartWallTime()) / 1000000000.0);
-		log.trace("time " + data.getLast(FlightDataType.TYPE_TIME) + ", altitude " + data.getLast(FlightDataType.TYPE_ALTITUDE) + ", velocity " + data.getLast(FlightDataType.TYPE_VELOCITY_Z));
+		if (recording.isRecorded(FlightDataType.TYPE_DRAG_FORCE))
+			data.setValue(FlightDataType.TYPE_DRAG_FORCE, dragForce);
+		
+		if (recording.isRecorded(FlightDataType.TYPE_WIND_VELOCITY))
+			data.setValue(FlightDataType.TYPE_WIND_VELOCITY, windSpeed.length());
+		if (recording.isRecorded(FlightDataType.TYPE_AIR_TEMPERATURE))
+			data.setValue(FlightDataType.TYPE_AIR_TEMPERATURE, atmosphere.getTemperature());
+		if (recording.isRecorded(FlightDataType.TYPE_AIR_PRESSURE))
+			data.setValue(FlightDataType.TYPE_AIR_PRESSURE, atmosphere.getPressure());
+		if (recording.isRecorded(FlightDataType.TYPE_SPEED_OF_SOUND))
+			data.setValue(FlightDataType.TYPE_SPEED_OF_SOUND, atmosphere.getMachSpeed());
+		
+		if (recording.isRecorded(FlightDataType.TYPE_TIME_STEP))
+			data.setValue(FlightDataType.TYPE_TIME_STEP, timeStep);
+		if (recording.isRecorded(FlightDataType.TYPE_COMPUTATION_TIME))
+			data.setValue(FlightDataType.TYPE_COMPUTATION_TIME,
+					(System.nanoTime() - status.getSimulationStartWallTime()) / 1000000000.0);
+		if (log.isTraceEnabled()) {
+			log.trace("time " + status.getSimulationTime() + ", altitude " + status.getRocketPosition().z + ", velocity " + status.getRocketVelocity().z);
+		}
 	}
 	
 }
@@ -2,7 +2,6 @@ package net.sf.openrocket.simulation;
 
 import java.util.Collection;
 
-import net.sf.openrocket.masscalc.MassCalculator;
 import net.sf.openrocket.masscalc.RigidBody;
 import net.sf.openrocket.models.atmosphere.AtmosphericConditions;
 import net.sf.openrocket.simulation.exception.SimulationException;
@@ -121,7 +120,7 @@ public abstract class AbstractSimulationStepper implements SimulationStepper {
 			return structureMass;
 		}
 		
-		structureMass = MassCalculator.calculateStructure( status.getConfiguration() );  
+		structureMass = status.getSimulationConditions().getMassCalculator().getStructureMass(status);
 						
 		// Call post-listener
 		structureMass = SimulationListenerHelper.firePostMassCalculation(status, structureMass);
@@ -142,7 +141,7 @@ public abstract class AbstractSimulationStepper implements SimulationStepper {
 			return motorMass;
 		}
 		
-		motorMass = MassCalculator.calculateMotor( status );  
+		motorMass = status.getSimulationConditions().getMassCalculator().getMotorMass(status);
 
 				
 		// Call post-listener
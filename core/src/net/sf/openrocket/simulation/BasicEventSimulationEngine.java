@@ -1,6 +1,9 @@
 package net.sf.openrocket.simulation;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import net.sf.openrocket.aerodynamics.AerodynamicForces;
 import net.sf.openrocket.aerodynamics.barrowman.RocketComponentCalc;
@@ -10,6 +13,7 @@ import net.sf.openrocket.rocketcomponent.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sf.openrocket.aerodynamics.ControlSurfaceState;
 import net.sf.openrocket.aerodynamics.FlightConditions;
 import net.sf.openrocket.logging.SimulationAbort;
 import net.sf.openrocket.logging.Warning;
@@ -19,10 +23,12 @@ import net.sf.openrocket.motor.MotorConfiguration;
 import net.sf.openrocket.motor.MotorConfigurationId;
 import net.sf.openrocket.motor.ThrustCurveMotor;
 import net.sf.openrocket.simulation.exception.SimulationCalculationException;
+import net.sf.openrocket.simulation.exception.SimulationCancelledException;
 import net.sf.openrocket.simulation.exception.SimulationException;
 import net.sf.openrocket.simulation.listeners.SimulationListenerHelper;
 import net.sf.openrocket.simulation.listeners.system.OptimumCoastListener;
 import net.sf.openrocket.startup.Application;
+import net.sf.openrocket.util.BugException;
 import net.sf.openrocket.util.Coordinate;
 import net.sf.openrocket.util.MathUtil;
 import net.sf.openrocket.util.Pair;
@@ -34,7 +40,7 @@ public class BasicEventSimulationEngine implements SimulationEngine {
 	private static final Logger log = LoggerFactory.getLogger(BasicEventSimulationEngine.class);
 	
 	// TODO: MEDIUM: Allow selecting steppers
-	private final SimulationStepper flightStepper  = new RK4SimulationStepper();
+	private final RK4SimulationStepper flightStepper  = new RK4SimulationStepper();
 	private final SimulationStepper landingStepper = new BasicLandingStepper();
 	private final SimulationStepper tumbleStepper  = new BasicTumbleStepper();
 	private final SimulationStepper groundStepper  = new GroundStepper();
@@ -65,8 +71,11 @@ public class BasicEventSimulationEngine implements SimulationEngine {
 	private boolean variableWindBoolean = false; //used for Variable wind
 	private SimulationConditions simCond; //used for Variable wind
 
+	// Records the trajectory of the main branch, nothing is recorded by default
+	private TrajectoryRecorder trajectory = TrajectoryRecorder.none();
+	private boolean recordTrajectory = false;
+
 	//Guidance
-	private ArrayList<SimulationStatus> fullFlightStatus = new ArrayList<>(); //used to store all flight conditions every time step
 
 	private RollControlModel rollControlModel; // implements a roll control model
 	private ArrayList<Double> canard1Angle = new ArrayList<>(); //used to track canard 1 angle over flight
@@ -132,6 +141,9 @@ public class BasicEventSimulationEngine implements SimulationEngine {
 		currentStatus.getEventQueue().add(new FlightEvent(FlightEvent.Type.LAUNCH, 0, simulationConditions.getRocket()));
 		toSimulate.push(currentStatus);
 		
+		trajectory.reset();
+		recordTrajectory = true;
+		
 		SimulationListenerHelper.fireStartSimulation(currentStatus);
 		do {
 			if (toSimulate.peek() == null) {
@@ -141,18 +153,12 @@ public class BasicEventSimulationEngine implements SimulationEngine {
 			log.info(">>Starting simulation of branch: "+currentStatus.getFlightData().getBranchName());
 			
 			FlightDataBranch dataBranch = simulateLoop(); //ACTUALLY SIM RUNS HERE
-			flightData.addBranch(dataBranch);
-			flightData.getWarningSet().addAll(currentStatus.getWarnings());
+			recordTrajectory = false; // only the main branch is recorded
+			addBranch(dataBranch);
 			
-			log.info(String.format("<<Finished simulating branch: %s    curTime:%s    finTime:%s", 
-							dataBranch.getBranchName(),
-							currentStatus.getSimulationTime(),
-							dataBranch.getLast(FlightDataType.TYPE_TIME)));
-
-
-			// Did the branch generate any data?
-			if (dataBranch.getLength() == 0) {
-				flightData.getWarningSet().add(Warning.EMPTY_BRANCH, dataBranch.getBranchName());
+			// The branches separated from the main branch may be simulated concurrently
+			if (simulationConditions.getBranchThreadCount() > 1 && !toSimulate.isEmpty()) {
+				simulateBranchesConcurrently(simulationConditions.getBranchThreadCount());
 			}
 		} while (!toSimulate.isEmpty());
 		
@@ -165,6 +171,123 @@ public class BasicEventSimulationEngine implements SimulationEngine {
 		return flightData;
 	}
 
+	/**
+	 * Add a simulated branch and the warnings of the current status to the flight data.
+	 */
+	private void addBranch(FlightDataBranch dataBranch) {
+		flightData.addBranch(dataBranch);
+		flightData.getWarningSet().addAll(currentStatus.getWarnings());
+		
+		log.info(String.format("<<Finished simulating branch: %s    curTime:%s    finTime:%s", 
+						dataBranch.getBranchName(),
+						currentStatus.getSimulationTime(),
+						dataBranch.getLast(FlightDataType.TYPE_TIME)));
+
+
+		// Did the branch generate any data?
+		if (dataBranch.getLength() == 0) {
+			flightData.getWarningSet().add(Warning.EMPTY_BRANCH, dataBranch.getBranchName());
+		}
+	}
+	
+	/**
+	 * Simulate the branches waiting to be simulated concurrently, each branch on its own engine
+	 * with its own steppers.  The branches separated from these branches are simulated
+	 * concurrently as well.
+	 * <p>
+	 * The branches are added to the flight data in the order they are simulated serially, and
+	 * a failing branch is reported as in a serial simulation, so the result does not depend on
+	 * the number of threads.  The main branch has been simulated before, so the lazily computed
+	 * properties of the rocket components shared by the branches are already in place.
+	 * 
+	 * @param threadCount	the number of threads to use
+	 */
+	private void simulateBranchesConcurrently(int threadCount) throws SimulationException {
+		List<BranchSimulation> branches = new ArrayList<BranchSimulation>();
+		while (!toSimulate.isEmpty()) {
+			branches.add(new BranchSimulation(toSimulate.pop()));
+		}
+		
+		ForkJoinPool pool = new ForkJoinPool(threadCount);
+		try {
+			for (BranchSimulation branch : branches) {
+				pool.execute(branch);
+			}
+			for (BranchSimulation branch : branches) {
+				branch.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SimulationCancelledException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new BugException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+		
+		addBranches(branches);
+	}
+	
+	/**
+	 * Add concurrently simulated branches and the branches separated from them to the flight
+	 * data, in the order they are simulated serially.  Leaves the current status at the status
+	 * of the last branch added.
+	 */
+	private void addBranches(List<BranchSimulation> branches) throws SimulationException {
+		for (BranchSimulation branch : branches) {
+			currentStatus = branch.engine.currentStatus;
+			SimulationException e = branch.exception;
+			if (e != null) {
+				flightData.addBranch(e.getFlightDataBranch());
+				flightData.getWarningSet().addAll(currentStatus.getWarnings());
+				e.setFlightData(flightData);
+				throw e;
+			}
+			addBranch(branch.dataBranch);
+			addBranches(branch.children);
+		}
+	}
+	
+	/**
+	 * A branch simulated on its own engine, followed by the branches separated from it.
+	 * The status of a branch is a copy made at stage separation, with its own clones of the
+	 * simulation listeners and its own motor states, so branches share no mutable state.
+	 */
+	private class BranchSimulation extends RecursiveAction {
+		private static final long serialVersionUID = -4172895533027181640L;
+		
+		private final BasicEventSimulationEngine engine = new BasicEventSimulationEngine();
+		private final List<BranchSimulation> children = new ArrayList<BranchSimulation>();
+		private FlightDataBranch dataBranch;
+		private SimulationException exception;
+		
+		private BranchSimulation(SimulationStatus status) {
+			engine.fcid = fcid;
+			engine.flightData = new FlightData();
+			engine.currentStatus = status;
+			engine.flightStepper.setScratchState(flightStepper.isScratchState());
+		}
+		
+		@Override
+		protected void compute() {
+			log.info(">>Starting simulation of branch: " + engine.currentStatus.getFlightData().getBranchName());
+			try {
+				dataBranch = engine.simulateLoop();
+			} catch (SimulationException e) {
+				exception = e;
+				return;
+			}
+			
+			while (!engine.toSimulate.isEmpty()) {
+				children.add(new BranchSimulation(engine.toSimulate.pop()));
+			}
+			invokeAll(children);
+		}
+	}
+	
 	//TODO NEW ERIC METHODs, updating wind based on altitude
 
 	public void setAltToWind(double [] altToWind, double[] altToWindDirection){
@@ -191,7 +314,29 @@ public class BasicEventSimulationEngine implements SimulationEngine {
 	public SimulationStatus getCurrentStatus(){
 		return currentStatus;
 	}
-	public ArrayList<SimulationStatus> getAllStatus(){return fullFlightStatus;}
+
+	/**
+	 * Set the recorder that captures the trajectory of the main branch in following simulations.
+	 * 
+	 * @param trajectory	the trajectory recorder, see {@link TrajectoryRecorder#finalState()} etc.
+	 */
+	public void setTrajectoryRecorder(TrajectoryRecorder trajectory) {
+		this.trajectory = trajectory;
+	}
+
+	/**
+	 * Return the trajectory of the main branch recorded in the last simulation.
+	 */
+	public TrajectoryRecorder getTrajectoryRecorder() {
+		return trajectory;
+	}
+
+	/**
+	 * Return the stepper used for the free flight phase, e.g. to select its integration mode.
+	 */
+	public SimulationStepper getFlightStepper() {
+		return flightStepper;
+	}
 
 	//GUIDANCE WORK
 	/**
@@ -201,28 +346,19 @@ public class BasicEventSimulationEngine implements SimulationEngine {
 	 * @param cant2
 	 */
 	public void setCanardCant(double cant1, double cant2){
-		// The file path depends on the structure of the rocket, will need to change depending on rocket
-//		TrapezoidFinSet CanardOne = (TrapezoidFinSet) currentStatus.getSimulationConditions().getSimulation().getRocket().getChild(0).getChild(1).getChild(1);
-//		TrapezoidFinSet CanardTwo = (TrapezoidFinSet) currentStatus.getSimulationConditions().getSimulation().getRocket().getChild(0).getChild(1).getChild(2);
-//		CanardOne.setCantAngle(cant1);
-//		CanardTwo.setCantAngle(cant2);
-
-		//Attempt 2, changing active instances
-		InstanceMap imap = currentStatus.getConfiguration().getActiveInstances();
-		for(Map.Entry<RocketComponent, ArrayList<InstanceContext>> mapEntry: imap.entrySet() ) {
-			final RocketComponent comp = mapEntry.getKey();
-			final List<InstanceContext> contextList = mapEntry.getValue();
-			if (comp.getName() == "Canard1"){
-				((TrapezoidFinSet) comp).setCantAngle(cant1);
+		// The canards are actuated through the simulation status, the rocket itself is not modified
+		ControlSurfaceState controlSurfaces = currentStatus.getControlSurfaceState();
+		for (RocketComponent comp : currentStatus.getConfiguration().getActiveInstances().keySet()) {
+			if (!(comp instanceof FinSet)) {
+				continue;
 			}
-			if (comp.getName() == "Canard2"){
-				((TrapezoidFinSet) comp).setCantAngle(cant2);
+			if (comp.getName().equals("Canard1")){
+				controlSurfaces.setCantAngle((FinSet) comp, cant1);
+			}
+			if (comp.getName().equals("Canard2")){
+				controlSurfaces.setCantAngle((FinSet) comp, cant2);
 			}
-
 		}
-
-
-
 	}
 	//Sets roll control, called by guidance engine
 	public void setRollControlModel(RollControlModel rollControlModel){
@@ -253,7 +389,6 @@ public class BasicEventSimulationEngine implements SimulationEngine {
 
 		//TODO NEW ERIC CODE
 //		guidanceSimulationEditor(); //runs at the very beginning, before while loop
-//		fullFlightStatus.add(currentStatus.clone()); //updates full flight status after currentstepper was updated		//end Eric
 		//end
 
 
@@ -275,7 +410,6 @@ public class BasicEventSimulationEngine implements SimulationEngine {
 //					updateWind();
 //				}
 //				guidanceSimulationEditor(); //runs at the very beginning, before while loop
-//				fullFlightStatus.add(currentStatus.clone()); //updates full flight status after currentstepper was updated
 				//End of eric code
 
 				if (SimulationListenerHelper.firePreStep(currentStatus)) {
@@ -297,7 +431,9 @@ public class BasicEventSimulationEngine implements SimulationEngine {
 
 				SimulationListenerHelper.firePostStep(currentStatus);
 				//				guidanceSimulationEditor(); //runs at the very beginning, before while loop
-//				fullFlightStatus.add(currentStatus.clone()); //update
+				if (recordTrajectory) {
+					trajectory.record(currentStatus);
+				}
 				
 				// Check for NaN values in the simulation status
 				checkNaN();
@@ -1,5 +1,6 @@
 package net.sf.openrocket.simulation;
 
+import net.sf.openrocket.aerodynamics.ControlSurfaceState;
 import net.sf.openrocket.aerodynamics.FlightConditions;
 import net.sf.openrocket.document.DataInfo;
 import net.sf.openrocket.document.RollControlModel;
@@ -69,6 +70,8 @@ public class BasicEventSimulationEngineGuidance implements SimulationEngine {
 	private DataInfo datainfo = new DataInfo();
 
 	private RollControlModel rollControlModel; // implements a roll control model
+	private FinSet canard1; //canard fin sets, actuated through the simulation status
+	private FinSet canard2;
 
 
 	private boolean allowRoll = false; //introduces sudden change in roll that can be tested
@@ -176,31 +179,26 @@ public class BasicEventSimulationEngineGuidance implements SimulationEngine {
 	 * @param cant2
 	 */
 	public void setCanardCant(double cant1, double cant2){
-		// The file path depends on the structure of the rocket, will need to change depending on rocket
-//		TrapezoidFinSet CanardOne = (TrapezoidFinSet) currentStatus.getSimulationConditions().getSimulation().getRocket().getChild(0).getChild(1).getChild(1);
-//		TrapezoidFinSet CanardTwo = (TrapezoidFinSet) currentStatus.getSimulationConditions().getSimulation().getRocket().getChild(0).getChild(1).getChild(2);
-//		CanardOne.setCantAngle(cant1);
-//		CanardTwo.setCantAngle(cant2);
-
-		//ACTUAL IMPLEMENTATION- NEED TO CHANGE ACTIVE INSTANCE (currentstatus.getConfiguration().getactiveInstances
-		// NOT DIRECTLY CANARD, not this --> (TrapezoidFinSet) currentStatus.getSimulationConditions().getSimulation().getRocket().getChild(0).getChild(1).getChild(1);
-		InstanceMap imap = currentStatus.getConfiguration().getActiveInstances();
-		for(Map.Entry<RocketComponent, ArrayList<InstanceContext>> mapEntry: imap.entrySet() ) {
-			final RocketComponent comp = mapEntry.getKey();
-
-			if (comp.getName().equals("Canard1")){
-				((TrapezoidFinSet) comp).setCantAngle(cant1);
-				datainfo.addCanard1Angle(cant1);
+		// The canards are actuated through the simulation status, the rocket itself is not modified
+		ControlSurfaceState controlSurfaces = currentStatus.getControlSurfaceState();
+		if (canard1 != null) {
+			controlSurfaces.setCantAngle(canard1, cant1);
+			datainfo.addCanard1Angle(cant1);
+		}
+		if (canard2 != null) {
+			controlSurfaces.setCantAngle(canard2, cant2);
+			datainfo.addCanard2Angle(cant2);
+		}
+	}
 
+	//Finds the active fin set with the given name, or null if there is none
+	private FinSet findFinSet(String name) {
+		for (RocketComponent comp : currentStatus.getConfiguration().getActiveInstances().keySet()) {
+			if (comp instanceof FinSet && comp.getName().equals(name)) {
+				return (FinSet) comp;
 			}
-			if (comp.getName().equals("Canard2")){
-				((TrapezoidFinSet) comp).setCantAngle(cant2);
-				datainfo.addCanard2Angle(cant2);
-			}
-
-
 		}
-
+		return null;
 	}
 
 	//Sets roll control, called by guidance engine
@@ -239,7 +237,7 @@ public class BasicEventSimulationEngineGuidance implements SimulationEngine {
 	 */
 	public void PreStepGuidanceSimulationEditor() {
 		if (currentStepper instanceof RK4SimulationStepper) {
-			datainfo.addFlightStatus(currentStatus.clone()); //updates full flight status after currentstepper was updated
+			datainfo.addFlightStatus(currentStatus); //records the state vector, no status clone needed
 		}
 
 	}
@@ -261,7 +259,8 @@ public class BasicEventSimulationEngineGuidance implements SimulationEngine {
 
 			//IF simulation is above time required for roll control,
 			//DETERMINES ROLL MODEL!!
-			if(flightconds!=null){
+			//engines without roll control model (e.g. the coast time computation) fly uncontrolled
+			if(flightconds!=null && rollControlModel != null){
 				if(allowRoll){ introduceRollRate();}
 
 				//Gets roll values
@@ -310,6 +309,8 @@ public class BasicEventSimulationEngineGuidance implements SimulationEngine {
 		//TODO NEW ERIC CODE
 //		PreStepGuidanceSimulationEditor();
 ////		PostStepGuidanceSimulationEditor();
+		canard1 = findFinSet("Canard1");
+		canard2 = findFinSet("Canard2");
 		setCanardCant(0,0);
 		//End of eric code
 		//end Eric
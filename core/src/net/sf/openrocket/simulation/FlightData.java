@@ -210,31 +210,28 @@ public class FlightData {
 		flightTime = branch.getLast(FlightDataType.TYPE_TIME);
 		
 		// Time to apogee
-		List<Double> time = branch.get(FlightDataType.TYPE_TIME);
-		List<Double> altitude = branch.get(FlightDataType.TYPE_ALTITUDE);
+		int timeChannel = branch.getChannel(FlightDataType.TYPE_TIME);
+		int altitudeChannel = branch.getChannel(FlightDataType.TYPE_ALTITUDE);
 		
-		if (time == null || altitude == null) {
+		if (timeChannel < 0 || altitudeChannel < 0) {
 			timeToApogee = Double.NaN;
 			maxAcceleration = Double.NaN;
 			return;
 		}
+		int length = branch.getLength();
 		int index = 0;
-		for (Double alt : altitude) {
-			if (alt != null) {
-				if (MathUtil.equals(alt, maxAltitude))
-					break;
-			}
-			
+		while (index < length && !MathUtil.equals(branch.getValue(altitudeChannel, index), maxAltitude)) {
 			index++;
 		}
-		if (index < time.size())
-			timeToApogee = time.get(index);
+		if (index < length)
+			timeToApogee = branch.getValue(timeChannel, index);
 		else
 			timeToApogee = Double.NaN;
 		
 		optimumDelay = branch.getOptimumDelay();
 
 		// Launch rod velocity + deployment velocity + ground hit velocity
+		List<Double> time = branch.get(FlightDataType.TYPE_TIME);
 		for (FlightEvent event : branch.getEvents()) {
 			if (event.getType() == FlightEvent.Type.LAUNCHROD) {
 				double t = event.getTime();
@@ -252,7 +249,7 @@ public class FlightData {
 		}
 		
 		// Max. acceleration (must be after apogee time)
-		if (branch.get(FlightDataType.TYPE_ACCELERATION_TOTAL) != null) {
+		if (branch.getChannel(FlightDataType.TYPE_ACCELERATION_TOTAL) >= 0) {
 			maxAcceleration = calculateMaxAcceleration();
 		} else {
 			maxAcceleration = Double.NaN;
@@ -319,20 +316,20 @@ public class FlightData {
 			}
 		}
 		
-		List<Double> time = branch.get(FlightDataType.TYPE_TIME);
-		List<Double> acceleration = branch.get(FlightDataType.TYPE_ACCELERATION_TOTAL);
+		int timeChannel = branch.getChannel(FlightDataType.TYPE_TIME);
+		int accelerationChannel = branch.getChannel(FlightDataType.TYPE_ACCELERATION_TOTAL);
 		
-		if (time == null || acceleration == null) {
+		if (timeChannel < 0 || accelerationChannel < 0) {
 			return Double.NaN;
 		}
 		
 		double max = 0;
 		
-		for (int i = 0; i < time.size(); i++) {
-			if (time.get(i) >= endTime) {
+		for (int i = 0; i < branch.getLength(); i++) {
+			if (branch.getValue(timeChannel, i) >= endTime) {
 				break;
 			}
-			double a = acceleration.get(i);
+			double a = branch.getValue(accelerationChannel, i);
 			if (a > max)
 				max = a;
 		}
@@ -1,10 +1,11 @@
 package net.sf.openrocket.simulation;
 
+import java.util.AbstractList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 
 import net.sf.openrocket.rocketcomponent.AxialStage;
 import net.sf.openrocket.rocketcomponent.Rocket;
@@ -25,18 +26,28 @@ import net.sf.openrocket.util.Mutable;
  * will be created and all previous values will be set to NaN.
  * <p>
  * After populating a FlightDataBranch object it can be made immutable by calling {@link #immute()}.
+ * <p>
+ * The values are stored as primitive columns, one per variable type.  Each variable type is assigned
+ * a channel index when it is added to the branch; the index stays valid for the lifetime of the branch
+ * and its clones, and can be used with {@link #getValue(int, int)} and {@link #setValue(int, double)}
+ * to avoid the type lookup in loops.
  * 
  * @author Sampo Niskanen <sampo.niskanen@iki.fi>
  */
 public class FlightDataBranch implements Monitorable {
 	
+	private static final int INITIAL_CHANNELS = 16;
+	
 	/** The name of this flight data branch. */
 	private final String branchName;
 	
-	private final Map<FlightDataType, ArrayList<Double>> values = new LinkedHashMap<>();
+	private final Map<FlightDataType, Integer> channels = new HashMap<>();
+	private FlightDataType[] channelTypes = new FlightDataType[INITIAL_CHANNELS];
+	private Column[] columns = new Column[INITIAL_CHANNELS];
+	private int channelCount = 0;
 	
-	private final Map<FlightDataType, Double> maxValues = new HashMap<>();
-	private final Map<FlightDataType, Double> minValues = new HashMap<>();
+	/** The number of data points, the same for every column. */
+	private int length = 0;
 	
 	/**
 	 * time for the rocket to reach apogee if the flight had been no recovery deployment
@@ -67,14 +78,12 @@ public class FlightDataBranch implements Monitorable {
 		this.branchName = name;
 		
 		for (FlightDataType t : types) {
-			if (values.containsKey(t)) {
+			if (channels.containsKey(t)) {
 				throw new IllegalArgumentException("Value type " + t + " specified multiple " +
 						"times in constructor.");
 			}
 			
-			values.put(t, new ArrayList<Double>());
-			minValues.put(t, Double.NaN);
-			maxValues.put(t, Double.NaN);
+			addChannel(t);
 		}
 	}
 
@@ -113,26 +122,32 @@ public class FlightDataBranch implements Monitorable {
 	public void addPoint() {
 		mutable.check();
 		
-		for (FlightDataType type : values.keySet()) {
-			sanityCheckValues(type, Double.NaN);
-			values.get(type).add(Double.NaN);
+		for (int i = 0; i < channelCount; i++) {
+			columns[i].add(Double.NaN);
 		}
+		length++;
 		modID++;
 	}
-
-	private void sanityCheckValues(FlightDataType type, Double value) {
-		ArrayList<Double> list = values.get(type);
-
-		if (list == null) {
-			list = new ArrayList<>();
-			int n = getLength();
-			for (int i = 0; i < n; i++) {
-				list.add(Double.NaN);
-			}
-			values.put(type, list);
-			minValues.put(type, value);
-			maxValues.put(type, value);
+	
+	/**
+	 * Add a new column for the type, with all previous values set to NaN.
+	 * 
+	 * @return	the channel index of the type.
+	 */
+	private int addChannel(FlightDataType type) {
+		if (channelCount == columns.length) {
+			columns = Arrays.copyOf(columns, channelCount * 2);
+			channelTypes = Arrays.copyOf(channelTypes, channelCount * 2);
 		}
+		Column column = new Column();
+		for (int i = 0; i < length; i++) {
+			column.add(Double.NaN);
+		}
+		int channel = channelCount++;
+		columns[channel] = column;
+		channelTypes[channel] = type;
+		channels.put(type, channel);
+		return channel;
 	}
 	
 	/**
@@ -145,22 +160,31 @@ public class FlightDataBranch implements Monitorable {
 	 */
 	public void setValue(FlightDataType type, double value) {
 		mutable.check();
-
-		sanityCheckValues(type, value);
-		ArrayList<Double> list = values.get(type);
 		
-		if (list.size() > 0) {
-			list.set(list.size() - 1, value);
-		}
+		Integer channel = channels.get(type);
+		setValue((channel != null) ? channel : addChannel(type), value);
+	}
+	
+	/**
+	 * Set the value for the variable type of a channel at the latest point.
+	 * 
+	 * @param channel	the channel index of the variable, see {@link #getChannel(FlightDataType)}.
+	 * @param value		the value to set.
+	 * @throws IllegalStateException	if this object has been made immutable.
+	 */
+	public void setValue(int channel, double value) {
+		mutable.check();
 		
-		double min = minValues.get(type);
-		double max = maxValues.get(type);
+		Column column = columns[checkChannel(channel)];
+		if (length > 0) {
+			column.set(length - 1, value);
+		}
 		
-		if (Double.isNaN(min) || (value < min)) {
-			minValues.put(type, value);
+		if (Double.isNaN(column.min) || (value < column.min)) {
+			column.min = value;
 		}
-		if (Double.isNaN(max) || (value > max)) {
-			maxValues.put(type, value);
+		if (Double.isNaN(column.max) || (value > column.max)) {
+			column.max = value;
 		}
 		modID++;
 	}
@@ -171,24 +195,28 @@ public class FlightDataBranch implements Monitorable {
 	 * @param srcComponent 	the component that is the source of this branch (used for copying events)
 	 */
 	private void copyValuesFromBranch(FlightDataBranch srcBranch, RocketComponent srcComponent) {
-		this.values.clear();
-
 		// Need to have at least one type to set up values
-		values.put(FlightDataType.TYPE_TIME, new ArrayList<>());
-		minValues.put(FlightDataType.TYPE_TIME, Double.NaN);
-		maxValues.put(FlightDataType.TYPE_TIME, Double.NaN);
+		addChannel(FlightDataType.TYPE_TIME);
 
-		if (srcBranch == null) {
+		if (srcBranch == null || srcBranch.length == 0) {
 			return;
 		}
 
-		// Copy flight data
-		for (int i = 0; i < srcBranch.getLength(); i++) {
-			this.addPoint();
-			for (FlightDataType type : srcBranch.getTypes()) {
-				this.setValue(type, srcBranch.getByIndex(type, i));
+		// Copy flight data, the min and max values are those of the copied points only
+		for (int src = 0; src < srcBranch.channelCount; src++) {
+			FlightDataType type = srcBranch.channelTypes[src];
+			Integer channel = channels.get(type);
+			Column column = srcBranch.columns[src].copy();
+			column.min = column.computeMinimum();
+			column.max = column.computeMaximum();
+			if (channel == null) {
+				addChannel(type);
+				channel = channelCount - 1;
 			}
+			columns[channel] = column;
 		}
+		length = srcBranch.length;
+		modID++;
 
 		// Copy flight events belonging to this branch
 		List<FlightEvent> sustainerEvents = srcBranch.getEvents();
@@ -239,7 +267,7 @@ public class FlightDataBranch implements Monitorable {
 	 * natural order.
 	 */
 	public FlightDataType[] getTypes() {
-		FlightDataType[] array = values.keySet().toArray(new FlightDataType[0]);
+		FlightDataType[] array = Arrays.copyOf(channelTypes, channelCount);
 		Arrays.sort(array);
 		return array;
 	}
@@ -248,24 +276,75 @@ public class FlightDataBranch implements Monitorable {
 	 * Return the number of data points in this branch.
 	 */
 	public int getLength() {
-		for (FlightDataType t : values.keySet()) {
-			return values.get(t).size();
-		}
-		return 0;
+		return (channelCount > 0) ? length : 0;
 	}
 	
 	/**
-	 * Return an array of values for the specified variable type.
+	 * Return the channel index of a variable type.
+	 * 
+	 * @param type	the variable type.
+	 * @return		the channel index, or -1 if the variable type hasn't been added to this branch.
+	 */
+	public int getChannel(FlightDataType type) {
+		Integer channel = channels.get(type);
+		return (channel != null) ? channel : -1;
+	}
+	
+	/**
+	 * Return the variable type of a channel.
+	 */
+	public FlightDataType getChannelType(int channel) {
+		return channelTypes[checkChannel(channel)];
+	}
+	
+	/**
+	 * Return the number of channels (variable types) in this branch.
+	 */
+	public int getChannelCount() {
+		return channelCount;
+	}
+	
+	/**
+	 * Return the values of the specified variable type.  The list is an unmodifiable copy
+	 * of the values, later changes to this branch are not reflected in it.
 	 * 
 	 * @param type	the variable type.
 	 * @return		a list of the variable values, or <code>null</code> if
 	 * 				the variable type hasn't been added to this branch.
 	 */
 	public List<Double> get(FlightDataType type) {
-		ArrayList<Double> list = values.get(type);
-		if (list == null)
+		double[] array = getValues(type);
+		if (array == null)
 			return null;
-		return list.clone();
+		return new DoubleArrayList(array);
+	}
+	
+	/**
+	 * Return a copy of the values of the specified variable type as a primitive array.
+	 * 
+	 * @param type	the variable type.
+	 * @return		an array of the variable values, or <code>null</code> if
+	 * 				the variable type hasn't been added to this branch.
+	 */
+	public double[] getValues(FlightDataType type) {
+		Integer channel = channels.get(type);
+		if (channel == null)
+			return null;
+		return columns[channel].toArray(length);
+	}
+	
+	/**
+	 * Return the value of a channel at the specified index.
+	 * 
+	 * @param channel	the channel index of the variable, see {@link #getChannel(FlightDataType)}.
+	 * @param index		the data index of the value.
+	 * @return			the value at the specified index.
+	 */
+	public double getValue(int channel, int index) {
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds, length " + length);
+		}
+		return columns[checkChannel(channel)].get(index);
 	}
 
 	/**
@@ -278,11 +357,11 @@ public class FlightDataBranch implements Monitorable {
 		if (index < 0 || index >= getLength()) {
 			throw new IllegalArgumentException("Index out of bounds");
 		}
-		ArrayList<Double> list = values.get(type);
-		if (list == null) {
+		Integer channel = channels.get(type);
+		if (channel == null) {
 			return null;
 		}
-		return list.get(index);
+		return columns[channel].get(index);
 	}
 	
 	/**
@@ -293,10 +372,10 @@ public class FlightDataBranch implements Monitorable {
 	 * @return		the last value in this branch, or NaN.
 	 */
 	public double getLast(FlightDataType type) {
-		ArrayList<Double> list = values.get(type);
-		if (list == null || list.isEmpty())
+		Integer channel = channels.get(type);
+		if (channel == null || length == 0)
 			return Double.NaN;
-		return list.get(list.size() - 1);
+		return columns[channel].get(length - 1);
 	}
 	
 	/**
@@ -307,10 +386,10 @@ public class FlightDataBranch implements Monitorable {
 	 * @return		the minimum value in this branch, or NaN.
 	 */
 	public double getMinimum(FlightDataType type) {
-		Double v = minValues.get(type);
-		if (v == null)
+		Integer channel = channels.get(type);
+		if (channel == null)
 			return Double.NaN;
-		return v;
+		return columns[channel].min;
 	}
 	
 	/**
@@ -321,10 +400,10 @@ public class FlightDataBranch implements Monitorable {
 	 * @return		the maximum value in this branch, or NaN.
 	 */
 	public double getMaximum(FlightDataType type) {
-		Double v = maxValues.get(type);
-		if (v == null)
+		Integer channel = channels.get(type);
+		if (channel == null)
 			return Double.NaN;
-		return v;
+		return columns[channel].max;
 	}
 	
 	
@@ -446,13 +525,11 @@ public class FlightDataBranch implements Monitorable {
 	}
 
 	public FlightDataBranch clone() {
-		FlightDataType[] types = getTypes();
-		FlightDataBranch clone = new FlightDataBranch(branchName, types);
-		for (FlightDataType type : values.keySet()) {
-			clone.values.put(type, values.get(type).clone());
+		FlightDataBranch clone = new FlightDataBranch(branchName, Arrays.copyOf(channelTypes, channelCount));
+		for (int i = 0; i < channelCount; i++) {
+			clone.columns[i] = columns[i].copy();
 		}
-		clone.minValues.putAll(minValues);
-		clone.maxValues.putAll(maxValues);
+		clone.length = length;
 		clone.events.addAll(events);
 		clone.timeToOptimumAltitude = timeToOptimumAltitude;
 		clone.optimumAltitude = optimumAltitude;
@@ -460,4 +537,122 @@ public class FlightDataBranch implements Monitorable {
 		return clone;
 	}
 	
+	private int checkChannel(int channel) {
+		if (channel < 0 || channel >= channelCount) {
+			throw new IndexOutOfBoundsException("Channel " + channel + " out of bounds, channel count " + channelCount);
+		}
+		return channel;
+	}
+	
+	
+	/**
+	 * A growable column of primitive values, along with their minimum and maximum.  The values
+	 * are stored in chunks so that growing the column never copies the earlier values.  The first
+	 * chunk grows gradually to keep short branches small.
+	 */
+	private static final class Column {
+		private static final int CHUNK_BITS = 10;
+		private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+		private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+		private static final int INITIAL_SIZE = 16;
+		
+		private double[][] chunks = new double[1][];
+		private int size = 0;
+		
+		double min = Double.NaN;
+		double max = Double.NaN;
+		
+		void add(double value) {
+			int chunk = size >>> CHUNK_BITS;
+			int offset = size & CHUNK_MASK;
+			if (chunk == chunks.length) {
+				chunks = Arrays.copyOf(chunks, chunk * 2);
+			}
+			double[] array = chunks[chunk];
+			if (array == null) {
+				array = new double[(chunk == 0) ? INITIAL_SIZE : CHUNK_SIZE];
+				chunks[chunk] = array;
+			} else if (offset == array.length) {
+				array = Arrays.copyOf(array, Math.min(CHUNK_SIZE, array.length * 2));
+				chunks[chunk] = array;
+			}
+			array[offset] = value;
+			size++;
+		}
+		
+		double get(int index) {
+			return chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+		}
+		
+		void set(int index, double value) {
+			chunks[index >>> CHUNK_BITS][index & CHUNK_MASK] = value;
+		}
+		
+		double[] toArray(int n) {
+			double[] array = new double[n];
+			for (int pos = 0, chunk = 0; pos < n; pos += CHUNK_SIZE, chunk++) {
+				System.arraycopy(chunks[chunk], 0, array, pos, Math.min(CHUNK_SIZE, n - pos));
+			}
+			return array;
+		}
+		
+		Column copy() {
+			Column copy = new Column();
+			copy.chunks = new double[chunks.length][];
+			for (int i = 0; i < chunks.length; i++) {
+				if (chunks[i] != null) {
+					copy.chunks[i] = chunks[i].clone();
+				}
+			}
+			copy.size = size;
+			copy.min = min;
+			copy.max = max;
+			return copy;
+		}
+		
+		double computeMinimum() {
+			double result = Double.NaN;
+			for (int i = 0; i < size; i++) {
+				double value = get(i);
+				if (Double.isNaN(result) || (value < result)) {
+					result = value;
+				}
+			}
+			return result;
+		}
+		
+		double computeMaximum() {
+			double result = Double.NaN;
+			for (int i = 0; i < size; i++) {
+				double value = get(i);
+				if (Double.isNaN(result) || (value > result)) {
+					result = value;
+				}
+			}
+			return result;
+		}
+	}
+	
+	
+	/**
+	 * An unmodifiable list view of a primitive array.
+	 */
+	private static final class DoubleArrayList extends AbstractList<Double> implements RandomAccess {
+		private final double[] array;
+		
+		DoubleArrayList(double[] array) {
+			this.array = array;
+		}
+		
+		@Override
+		public Double get(int index) {
+			return array[index];
+		}
+		
+		@Override
+		public int size() {
+			return array.length;
+		}
+	}
+	
 }
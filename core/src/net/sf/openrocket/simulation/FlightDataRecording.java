@@ -0,0 +1,108 @@
+package net.sf.openrocket.simulation;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A recording profile, defining the flight data types the simulation steppers compute and
+ * store at each step.  Types not recorded are left out of the flight data branches entirely.
+ * <p>
+ * The profile {@link #ALL} records every type and is the default.  Batch simulations that
+ * only need a few values, such as optimization parameters and dispersion trials, can use
+ * {@link #SUMMARY} or a profile of the types they need, which makes every step cheaper.
+ * The types used by the simulation engine itself (time, altitude and the tumble
+ * conditions) are always recorded.  Values stored by simulation listeners are not
+ * affected by the profile.
+ * <p>
+ * Profiles are immutable.
+ */
+public final class FlightDataRecording {
+
+	/** Types used by the simulation engine itself, recorded by every profile. */
+	private static final FlightDataType[] REQUIRED_TYPES = {
+			FlightDataType.TYPE_TIME,
+			FlightDataType.TYPE_ALTITUDE,
+			FlightDataType.TYPE_CG_LOCATION,
+			FlightDataType.TYPE_CP_LOCATION,
+			FlightDataType.TYPE_AOA,
+			FlightDataType.TYPE_THRUST_FORCE
+	};
+
+	/** Types used to compute the summary values of {@link FlightData}. */
+	private static final FlightDataType[] SUMMARY_TYPES = {
+			FlightDataType.TYPE_VELOCITY_TOTAL,
+			FlightDataType.TYPE_ACCELERATION_TOTAL,
+			FlightDataType.TYPE_MACH_NUMBER
+	};
+
+	/** Profile recording every flight data type. */
+	public static final FlightDataRecording ALL = new FlightDataRecording(null);
+
+	/** Profile recording only the types needed for the summary values of {@link FlightData}. */
+	public static final FlightDataRecording SUMMARY = of(SUMMARY_TYPES);
+
+
+	/** The recorded types, or <code>null</code> if all types are recorded. */
+	private final Set<FlightDataType> types;
+
+	private FlightDataRecording(Set<FlightDataType> types) {
+		this.types = types;
+	}
+
+	/**
+	 * Return a profile recording the given types in addition to the types required by the
+	 * simulation engine.
+	 *
+	 * @param types		the types to record.
+	 * @return			the recording profile.
+	 */
+	public static FlightDataRecording of(FlightDataType... types) {
+		Set<FlightDataType> set = new HashSet<FlightDataType>(Arrays.asList(REQUIRED_TYPES));
+		set.addAll(Arrays.asList(types));
+		return new FlightDataRecording(Collections.unmodifiableSet(set));
+	}
+
+	/**
+	 * Return a profile recording the summary types and the given types.
+	 *
+	 * @param types		the types to record in addition to the summary types.
+	 * @return			the recording profile.
+	 */
+	public static FlightDataRecording summaryAnd(FlightDataType... types) {
+		FlightDataType[] all = Arrays.copyOf(SUMMARY_TYPES, SUMMARY_TYPES.length + types.length);
+		System.arraycopy(types, 0, all, SUMMARY_TYPES.length, types.length);
+		return of(all);
+	}
+
+	/**
+	 * Return whether this profile records all flight data types.
+	 */
+	public boolean isAll() {
+		return types == null;
+	}
+
+	/**
+	 * Return whether a flight data type is recorded.
+	 *
+	 * @param type	the flight data type.
+	 * @return		whether the type is computed and stored.
+	 */
+	public boolean isRecorded(FlightDataType type) {
+		return types == null || types.contains(type);
+	}
+
+	/**
+	 * Return the recorded types, or <code>null</code> if all types are recorded.
+	 */
+	public Set<FlightDataType> getTypes() {
+		return types;
+	}
+
+	@Override
+	public String toString() {
+		return "FlightDataRecording[" + (types == null ? "all" : types) + "]";
+	}
+
+}
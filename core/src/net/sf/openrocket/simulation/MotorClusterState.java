@@ -31,6 +31,24 @@ public class MotorClusterState {
 		
 		this.reset();
 	}
+	
+	/**
+	 * Copy a motor state.  The copy is in the same state as the original, but is
+	 * ignited, burnt out and expended independently of it.
+	 * 
+	 * @param orig	the motor state to copy
+	 */
+	public MotorClusterState(final MotorClusterState orig) {
+		this.config = orig.config;
+		this.motor = orig.motor;
+		this.motorCount = orig.motorCount;
+		this.thrustDuration = orig.thrustDuration;
+		
+		this.ignitionTime = orig.ignitionTime;
+		this.cutoffTime = orig.cutoffTime;
+		this.ejectionTime = orig.ejectionTime;
+		this.currentState = orig.currentState;
+	}
 
 	public double getIgnitionTime() {
 		return ignitionTime;
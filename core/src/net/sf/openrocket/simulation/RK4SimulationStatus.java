@@ -70,5 +70,16 @@ public class RK4SimulationStatus extends SimulationStatus implements Cloneable {
 	public RK4SimulationStatus clone() {
 		return (RK4SimulationStatus) super.clone();
 	}
+
+	@Override
+	public void copyFrom(SimulationStatus orig) {
+		super.copyFrom(orig);
+		if (orig instanceof RK4SimulationStatus) {
+			this.launchRodDirection = ((RK4SimulationStatus) orig).launchRodDirection;
+			this.previousAcceleration = ((RK4SimulationStatus) orig).previousAcceleration;
+			this.maxZVelocity = ((RK4SimulationStatus) orig).maxZVelocity;
+			this.startWarningTime = ((RK4SimulationStatus) orig).startWarningTime;
+		}
+	}
 	
 }
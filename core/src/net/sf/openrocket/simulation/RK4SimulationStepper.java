@@ -59,8 +59,23 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 	private static final double MAX_ROLL_RATE_CHANGE = 2 * Math.PI / 180;
 	private static final double MAX_PITCH_CHANGE = 4 * Math.PI / 180;
 	
+	// Layout of the RK4 stage parameters in the scratch arrays
+	private static final int A = 0;
+	private static final int V = 3;
+	private static final int RA = 6;
+	private static final int RV = 9;
+	private static final int K_SIZE = 12;
+	
 	private Random random;
 	DataStore store = new DataStore();
+	
+	// Reusable state for the integration, see setScratchState()
+	private boolean scratchState = true;
+	private RK4SimulationStatus scratch;
+	private RK4SimulationStatus scratchOrigin;
+	private final double[] dt = new double[8];
+	private final double[][] k = new double[4][K_SIZE];
+	private final double[] delta = new double[K_SIZE];
 
 	// NEW ERIC CODE
 	double prevTime = 0;
@@ -82,6 +97,11 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 				));
 		
 		this.random = new Random(original.getSimulationConditions().getRandomSeed() ^ SEED_RANDOMIZATION);
+		this.scratch = null;
+		this.scratchOrigin = null;
+		// The step selection continues from the new status, not from the previous branch or simulation
+		this.store = new DataStore();
+		this.prevTime = original.getSimulationTime();
 		
 		return status;
 	}
@@ -91,28 +111,31 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 
 	@Override
 	public void step(SimulationStatus simulationStatus, double maxTimeStep) throws SimulationException {
-		
+
 		RK4SimulationStatus status = (RK4SimulationStatus) simulationStatus;
-		
+
 		////////  Perform RK4 integration:  ////////
-		
-		RK4SimulationStatus status2;
-		RK4Parameters k1, k2, k3, k4;
+
+		RK4Parameters k1 = null;
 
 		/*
 		 * Get the current atmospheric conditions
 		 */
 		calculateFlightConditions(status, store);
 		store.atmosphericConditions = store.flightConditions.getAtmosphericConditions();
-		
+
 		/*
 		 * Perform RK4 integration.  Decide the time step length after the first step.
 		 */
 
 		//// First position, k1 = f(t, y)
-		
-		k1 = computeParameters(status, store);
-		
+
+		if (scratchState) {
+			computeParameters(status, store, k[0]);
+		} else {
+			k1 = computeParameters(status, store);
+		}
+
 		/*
 		 * Select the actual time step to use.  It is the minimum of the following:
 		 *  dt[0]:  the user-specified time step (or 1/5th of it if still on the launch rod)
@@ -123,13 +146,12 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 		 *  dt[5]:  the maximum pitch change limit
 		 *  dt[6]:  1/10th of the launch rod length if still on the launch rod
 		 *  dt[7]:  1.50 times the previous time step
-		 * 
+		 *
 		 * The limits #5 and #6 are required since near the steady-state roll rate the roll rate
 		 * may oscillate significantly even between the sub-steps of the RK4 integration.
-		 * 
+		 *
 		 * The step is still at least 1/20th of the user-selected time step.
 		 */
-		double[] dt = new double[8];
 		Arrays.fill(dt, Double.MAX_VALUE);
 
 		// If the user selected a really small timestep, use MIN_TIME_STEP instead.
@@ -141,10 +163,11 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 		dt[5] = Math.abs(MAX_PITCH_CHANGE / store.lateralPitchAcceleration);
 		if (!status.isLaunchRodCleared()) {
 			dt[0] /= 5.0;
-			dt[6] = status.getSimulationConditions().getLaunchRodLength() / k1.v.length() / 10;
+			// k1.v is the velocity at the start of the step
+			dt[6] = status.getSimulationConditions().getLaunchRodLength() / status.getRocketVelocity().length() / 10;
 		}
 		dt[7] = 1.5 * store.timestep;
-		
+
 		store.timestep = Double.MAX_VALUE;
 		int limitingValue = -1;
 		for (int i = 0; i < dt.length; i++) {
@@ -161,9 +184,11 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 		}
 
 		//END ERIC
-		
-		log.trace("Selected time step " + store.timestep + " (limiting factor " + limitingValue + ")");
-		
+
+		if (log.isTraceEnabled()) {
+			log.trace("Selected time step " + store.timestep + " (limiting factor " + limitingValue + ")");
+		}
+
 		// If we have a scheduled event coming up before the end of our timestep, truncate step
 		// else if the time from the end of our timestep to the next scheduled event time is less than
 		// minTimeStep, stretch it
@@ -173,19 +198,25 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 			double nextEventTime = nextEvent.getTime();
 			if (status.getSimulationTime() + store.timestep > nextEventTime) {
 				store.timestep = nextEventTime - status.getSimulationTime();
-				log.trace("scheduled event at " + nextEventTime + " truncates timestep to " + store.timestep);
+				if (log.isTraceEnabled()) {
+					log.trace("scheduled event at " + nextEventTime + " truncates timestep to " + store.timestep);
+				}
 			} else if ((status.getSimulationTime() + store.timestep < nextEventTime) &&
 					   (status.getSimulationTime() + store.timestep + minTimeStep > nextEventTime)) {
 				store.timestep = nextEventTime - status.getSimulationTime();
-				log.trace("Scheduled event at " + nextEventTime + " stretches timestep to " + store.timestep);
+				if (log.isTraceEnabled()) {
+					log.trace("Scheduled event at " + nextEventTime + " stretches timestep to " + store.timestep);
+				}
 			}
 		}
 
 		// If we've wound up with a too-small timestep, increase it avoid numerical instability even at the
 		// cost of not being *quite* on an event
 		if (store.timestep < minTimeStep) {
-			log.trace("Too small time step " + store.timestep + " (limiting factor " + limitingValue + "), using " +
-					minTimeStep + " instead.");
+			if (log.isTraceEnabled()) {
+				log.trace("Too small time step " + store.timestep + " (limiting factor " + limitingValue + "), using " +
+						minTimeStep + " instead.");
+			}
 			store.timestep = minTimeStep;
 		}
 		prevTime += store.timestep;
@@ -193,43 +224,78 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 
 		checkNaN(store.timestep);
 
-					  
-		
+		if (scratchState) {
+			integrateInPlace(status);
+		} else {
+			integrateWithClones(status, k1);
+		}
+
+		WorldCoordinate w = status.getSimulationConditions().getLaunchSite();
+		w = status.getSimulationConditions().getGeodeticComputation().addCoordinate(w, status.getRocketPosition());
+		status.setRocketWorldPosition(w);
+
+		if (!(0 <= store.timestep)) {
+			// Also catches NaN
+			throw new IllegalArgumentException("Stepping backwards in time, timestep=" +store.timestep);
+		}
+		status.setSimulationTime(status.getSimulationTime() + store.timestep);
+
+		// Store data
+		// TODO: MEDIUM: Store acceleration etc of entire RK4 step, store should be cloned or something...
+		storeData(status, store);
+
+		// Verify that values don't run out of range
+		if (status.getRocketVelocity().length2() > 1e18 ||
+				status.getRocketPosition().length2() > 1e18 ||
+				status.getRocketRotationVelocity().length2() > 1e18) {
+			throw new SimulationCalculationException(trans.get("error.valuesTooLarge"));
+		}
+	}
+
+
+	/**
+	 * Evaluate the stages k2..k4 on cloned intermediate states and update the status.
+	 */
+	private void integrateWithClones(RK4SimulationStatus status, RK4Parameters k1) throws SimulationException {
+
+		RK4SimulationStatus status2;
+		RK4Parameters k2, k3, k4;
+
 		//// Second position, k2 = f(t + h/2, y + k1*h/2)
-		
+
 		status2 = status.clone();
 		status2.setSimulationTime(status.getSimulationTime() + store.timestep / 2);
 		status2.setRocketPosition(status.getRocketPosition().add(k1.v.multiply(store.timestep / 2)));
 		status2.setRocketVelocity(status.getRocketVelocity().add(k1.a.multiply(store.timestep / 2)));
 		status2.setRocketOrientationQuaternion(status.getRocketOrientationQuaternion().multiplyLeft(Quaternion.rotation(k1.rv.multiply(store.timestep / 2))));
 		status2.setRocketRotationVelocity(status.getRocketRotationVelocity().add(k1.ra.multiply(store.timestep / 2)));
-		
+
 		k2 = computeParameters(status2, store);
-		
+
 
 		//// Third position, k3 = f(t + h/2, y + k2*h/2)
-		
+
 		status2 = status.clone();
 		status2.setSimulationTime(status.getSimulationTime() + store.timestep / 2);
 		status2.setRocketPosition(status.getRocketPosition().add(k2.v.multiply(store.timestep / 2)));
 		status2.setRocketVelocity(status.getRocketVelocity().add(k2.a.multiply(store.timestep / 2)));
 		status2.setRocketOrientationQuaternion(status2.getRocketOrientationQuaternion().multiplyLeft(Quaternion.rotation(k2.rv.multiply(store.timestep / 2))));
 		status2.setRocketRotationVelocity(status.getRocketRotationVelocity().add(k2.ra.multiply(store.timestep / 2)));
-		
+
 		k3 = computeParameters(status2, store);
-		
+
 
 		//// Fourth position, k4 = f(t + h, y + k3*h)
-		
+
 		status2 = status.clone();
 		status2.setSimulationTime(status.getSimulationTime() + store.timestep);
 		status2.setRocketPosition(status.getRocketPosition().add(k3.v.multiply(store.timestep)));
 		status2.setRocketVelocity(status.getRocketVelocity().add(k3.a.multiply(store.timestep)));
 		status2.setRocketOrientationQuaternion(status2.getRocketOrientationQuaternion().multiplyLeft(Quaternion.rotation(k3.rv.multiply(store.timestep))));
 		status2.setRocketRotationVelocity(status.getRocketRotationVelocity().add(k3.ra.multiply(store.timestep)));
-		
+
 		k4 = computeParameters(status2, store);
-		
+
 
 		//// Sum all together,  y(n+1) = y(n) + h*(k1 + 2*k2 + 2*k3 + k4)/6
 		Coordinate deltaV, deltaP, deltaR, deltaO;
@@ -237,70 +303,187 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 		deltaP = k2.v.add(k3.v).multiply(2).add(k1.v).add(k4.v).multiply(store.timestep / 6);
 		deltaR = k2.ra.add(k3.ra).multiply(2).add(k1.ra).add(k4.ra).multiply(store.timestep / 6);
 		deltaO = k2.rv.add(k3.rv).multiply(2).add(k1.rv).add(k4.rv).multiply(store.timestep / 6);
-		
+
 
 		status.setRocketVelocity(status.getRocketVelocity().add(deltaV));
 		status.setRocketPosition(status.getRocketPosition().add(deltaP));
 		status.setRocketRotationVelocity(status.getRocketRotationVelocity().add(deltaR));
 		status.setRocketOrientationQuaternion(status.getRocketOrientationQuaternion().multiplyLeft(Quaternion.rotation(deltaO)).normalizeIfNecessary());
-		
-		WorldCoordinate w = status.getSimulationConditions().getLaunchSite();
-		w = status.getSimulationConditions().getGeodeticComputation().addCoordinate(w, status.getRocketPosition());
-		status.setRocketWorldPosition(w);
-		
-		if (!(0 <= store.timestep)) {
-			// Also catches NaN
-			throw new IllegalArgumentException("Stepping backwards in time, timestep=" +store.timestep);
+	}
+
+
+	/**
+	 * Evaluate the stages k2..k4 on a single reused intermediate state and update the status.
+	 * The status is not cloned for each stage and the derivatives are kept in the primitive
+	 * scratch arrays.  The state values handed to the intermediate and final status are still
+	 * new immutable objects, and the force and mass models allocate as usual.  The arithmetic
+	 * is performed in the same order as in {@link #integrateWithClones}, giving identical results.
+	 */
+	private void integrateInPlace(RK4SimulationStatus status) throws SimulationException {
+		final double h = store.timestep;
+
+		//// Second position, k2 = f(t + h/2, y + k1*h/2)
+		prepareStage(status, k[0], h / 2);
+		computeParameters(scratch, store, k[1]);
+
+		//// Third position, k3 = f(t + h/2, y + k2*h/2)
+		prepareStage(status, k[1], h / 2);
+		computeParameters(scratch, store, k[2]);
+
+		//// Fourth position, k4 = f(t + h, y + k3*h)
+		prepareStage(status, k[2], h);
+		computeParameters(scratch, store, k[3]);
+
+		//// Sum all together,  y(n+1) = y(n) + h*(k1 + 2*k2 + 2*k3 + k4)/6
+		final double[] k1 = k[0], k2 = k[1], k3 = k[2], k4 = k[3];
+		for (int i = 0; i < K_SIZE; i++) {
+			delta[i] = ((k2[i] + k3[i]) * 2 + k1[i] + k4[i]) * (h / 6);
 		}
-		status.setSimulationTime(status.getSimulationTime() + store.timestep);
-		
-		// Store data
-		// TODO: MEDIUM: Store acceleration etc of entire RK4 step, store should be cloned or something...
-		storeData(status, store);
-		
-		// Verify that values don't run out of range
-		if (status.getRocketVelocity().length2() > 1e18 ||
-				status.getRocketPosition().length2() > 1e18 ||
-				status.getRocketRotationVelocity().length2() > 1e18) {
-			throw new SimulationCalculationException(trans.get("error.valuesTooLarge"));
+
+		Coordinate v = status.getRocketVelocity();
+		Coordinate p = status.getRocketPosition();
+		Coordinate r = status.getRocketRotationVelocity();
+		status.setRocketVelocity(new Coordinate(v.x + delta[A], v.y + delta[A + 1], v.z + delta[A + 2]));
+		status.setRocketPosition(new Coordinate(p.x + delta[V], p.y + delta[V + 1], p.z + delta[V + 2]));
+		status.setRocketRotationVelocity(new Coordinate(r.x + delta[RA], r.y + delta[RA + 1], r.z + delta[RA + 2]));
+		status.setRocketOrientationQuaternion(rotate(status.getRocketOrientationQuaternion(),
+				delta[RV], delta[RV + 1], delta[RV + 2]).normalizeIfNecessary());
+	}
+
+	/**
+	 * Set the scratch status to y + kn*step at time t + step.
+	 */
+	private void prepareStage(RK4SimulationStatus status, double[] kn, double step) {
+		if (scratch == null || scratchOrigin != status) {
+			scratch = status.clone();
+			scratchOrigin = status;
+		} else {
+			scratch.copyFrom(status);
 		}
+
+		Coordinate p = status.getRocketPosition();
+		Coordinate v = status.getRocketVelocity();
+		Coordinate r = status.getRocketRotationVelocity();
+		scratch.setSimulationTime(status.getSimulationTime() + step);
+		scratch.setRocketPosition(new Coordinate(p.x + kn[V] * step, p.y + kn[V + 1] * step, p.z + kn[V + 2] * step));
+		scratch.setRocketVelocity(new Coordinate(v.x + kn[A] * step, v.y + kn[A + 1] * step, v.z + kn[A + 2] * step));
+		scratch.setRocketOrientationQuaternion(rotate(status.getRocketOrientationQuaternion(),
+				kn[RV] * step, kn[RV + 1] * step, kn[RV + 2] * step));
+		scratch.setRocketRotationVelocity(new Coordinate(r.x + kn[RA] * step, r.y + kn[RA + 1] * step, r.z + kn[RA + 2] * step));
 	}
-	
-	
+
+	/**
+	 * Return <code>q.multiplyLeft(Quaternion.rotation(new Coordinate(x, y, z)))</code> without
+	 * creating the intermediate rotation.
+	 */
+	private static Quaternion rotate(Quaternion q, double x, double y, double z) {
+		double length = MathUtil.safeSqrt(x * x + y * y + z * z);
+		double a, b, c, d;
+		if (length < 0.000001) {
+			a = 1;
+			b = 0;
+			c = 0;
+			d = 0;
+		} else {
+			double sin = Math.sin(length / 2);
+			a = Math.cos(length / 2);
+			b = sin * x / length;
+			c = sin * y / length;
+			d = sin * z / length;
+		}
+
+		/*  (abcd) * q(wxyz)  */
+		double w = q.getW(), qx = q.getX(), qy = q.getY(), qz = q.getZ();
+		return new Quaternion(a * w - b * qx - c * qy - d * qz,
+				a * qx + b * w + c * qz - d * qy,
+				a * qy + c * w + d * qx - b * qz,
+				a * qz + d * w + b * qy - c * qx);
+	}
+
+	/**
+	 * Select whether to evaluate the intermediate RK4 stages on a single reused scratch
+	 * status (the default) or on a new clone of the status for each stage.  Both modes
+	 * produce identical results.  The scratch mode avoids the status clones, which makes the
+	 * step faster, but allocates only slightly less per step, since most of the allocation is
+	 * in the aerodynamic calculation and the flight data recording.
+	 */
+	public void setScratchState(boolean scratchState) {
+		this.scratchState = scratchState;
+	}
+
+	public boolean isScratchState() {
+		return scratchState;
+	}
+
 
 
 
 	private RK4Parameters computeParameters(RK4SimulationStatus status, DataStore dataStore)
 			throws SimulationException {
 		RK4Parameters params = new RK4Parameters();
-		
-		// Call pre-listeners
-		store.accelerationData = SimulationListenerHelper.firePreAccelerationCalculation(status);
 
-		// Calculate acceleration (if not overridden by pre-listeners)
-		if (store.accelerationData == null) {
-			store.accelerationData = calculateAcceleration(status, dataStore);
-		}
-		
-		// Call post-listeners
-		store.accelerationData = SimulationListenerHelper.firePostAccelerationCalculation(status, store.accelerationData);
-		
+		calculateAccelerationData(status, dataStore);
+
 		params.a = dataStore.linearAcceleration;
 		params.ra = dataStore.angularAcceleration;
 		params.v = status.getRocketVelocity();
 		params.rv = status.getRocketRotationVelocity();
-		
+
 		checkNaN(params.a);
 		checkNaN(params.ra);
 		checkNaN(params.v);
 		checkNaN(params.rv);
-		
+
 		return params;
 	}
-	
-	
 
+	/**
+	 * Compute the parameters of one RK4 stage into a scratch array laid out as
+	 * {@link #A}, {@link #V}, {@link #RA} and {@link #RV}.
+	 */
+	private void computeParameters(RK4SimulationStatus status, DataStore dataStore, double[] dest)
+			throws SimulationException {
+
+		calculateAccelerationData(status, dataStore);
+
+		Coordinate a = dataStore.linearAcceleration;
+		Coordinate ra = dataStore.angularAcceleration;
+		Coordinate v = status.getRocketVelocity();
+		Coordinate rv = status.getRocketRotationVelocity();
+
+		checkNaN(a);
+		checkNaN(ra);
+		checkNaN(v);
+		checkNaN(rv);
+
+		dest[A] = a.x;
+		dest[A + 1] = a.y;
+		dest[A + 2] = a.z;
+		dest[V] = v.x;
+		dest[V + 1] = v.y;
+		dest[V + 2] = v.z;
+		dest[RA] = ra.x;
+		dest[RA + 1] = ra.y;
+		dest[RA + 2] = ra.z;
+		dest[RV] = rv.x;
+		dest[RV + 1] = rv.y;
+		dest[RV + 2] = rv.z;
+	}
 
+	private void calculateAccelerationData(RK4SimulationStatus status, DataStore dataStore)
+			throws SimulationException {
+
+		// Call pre-listeners
+		store.accelerationData = SimulationListenerHelper.firePreAccelerationCalculation(status);
+
+		// Calculate acceleration (if not overridden by pre-listeners)
+		if (store.accelerationData == null) {
+			store.accelerationData = calculateAcceleration(status, dataStore);
+		}
+
+		// Call post-listeners
+		store.accelerationData = SimulationListenerHelper.firePostAccelerationCalculation(status, store.accelerationData);
+	}
 
 	/**
 	 * Calculate the linear and angular acceleration at the given status.  The results
@@ -478,6 +661,7 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 		AtmosphericConditions atmosphere = modelAtmosphericConditions(status);
 		store.flightConditions = new FlightConditions(status.getConfiguration());
 		store.flightConditions.setAtmosphericConditions(atmosphere);
+		store.flightConditions.setControlSurfaceState(status.getControlSurfaceState());
 		
 
 		//// Local wind speed and direction
@@ -542,49 +726,63 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 	private void storeData(RK4SimulationStatus status, DataStore store) {
 		
 		FlightDataBranch data = status.getFlightData();
+		FlightDataRecording recording = status.getSimulationConditions().getRecording();
 		
 		data.addPoint();
 		data.setValue(FlightDataType.TYPE_TIME, status.getSimulationTime());
 		data.setValue(FlightDataType.TYPE_ALTITUDE, status.getRocketPosition().z);
-		data.setValue(FlightDataType.TYPE_POSITION_X, status.getRocketPosition().x);
-		data.setValue(FlightDataType.TYPE_POSITION_Y, status.getRocketPosition().y);
-		
-		data.setValue(FlightDataType.TYPE_LATITUDE, status.getRocketWorldPosition().getLatitudeRad());
-		data.setValue(FlightDataType.TYPE_LONGITUDE, status.getRocketWorldPosition().getLongitudeRad());
-		if (status.getSimulationConditions().getGeodeticComputation() != GeodeticComputationStrategy.FLAT) {
+		if (recording.isRecorded(FlightDataType.TYPE_POSITION_X))
+			data.setValue(FlightDataType.TYPE_POSITION_X, status.getRocketPosition().x);
+		if (recording.isRecorded(FlightDataType.TYPE_POSITION_Y))
+			data.setValue(FlightDataType.TYPE_POSITION_Y, status.getRocketPosition().y);
+		
+		if (recording.isRecorded(FlightDataType.TYPE_LATITUDE))
+			data.setValue(FlightDataType.TYPE_LATITUDE, status.getRocketWorldPosition().getLatitudeRad());
+		if (recording.isRecorded(FlightDataType.TYPE_LONGITUDE))
+			data.setValue(FlightDataType.TYPE_LONGITUDE, status.getRocketWorldPosition().getLongitudeRad());
+		if (status.getSimulationConditions().getGeodeticComputation() != GeodeticComputationStrategy.FLAT &&
+				recording.isRecorded(FlightDataType.TYPE_CORIOLIS_ACCELERATION)) {
 			data.setValue(FlightDataType.TYPE_CORIOLIS_ACCELERATION, store.coriolisAcceleration.length());
 		}
 		
-		data.setValue(FlightDataType.TYPE_POSITION_XY,
-					  MathUtil.hypot(status.getRocketPosition().x, status.getRocketPosition().y));
-		data.setValue(FlightDataType.TYPE_POSITION_DIRECTION,
-					  Math.atan2(status.getRocketPosition().y, status.getRocketPosition().x));
+		if (recording.isRecorded(FlightDataType.TYPE_POSITION_XY))
+			data.setValue(FlightDataType.TYPE_POSITION_XY,
+						  MathUtil.hypot(status.getRocketPosition().x, status.getRocketPosition().y));
+		if (recording.isRecorded(FlightDataType.TYPE_POSITION_DIRECTION))
+			data.setValue(FlightDataType.TYPE_POSITION_DIRECTION,
+						  Math.atan2(status.getRocketPosition().y, status.getRocketPosition().x));
 		
-		data.setValue(FlightDataType.TYPE_VELOCITY_XY,
-					  MathUtil.hypot(status.getRocketVelocity().x, status.getRocketVelocity().y));
+		if (recording.isRecorded(FlightDataType.TYPE_VELOCITY_XY))
+			data.setValue(FlightDataType.TYPE_VELOCITY_XY,
+						  MathUtil.hypot(status.getRocketVelocity().x, status.getRocketVelocity().y));
 		
 		if (store.linearAcceleration != null) {
-			data.setValue(FlightDataType.TYPE_ACCELERATION_XY,
-						  MathUtil.hypot(store.linearAcceleration.x, store.linearAcceleration.y));
+			if (recording.isRecorded(FlightDataType.TYPE_ACCELERATION_XY))
+				data.setValue(FlightDataType.TYPE_ACCELERATION_XY,
+							  MathUtil.hypot(store.linearAcceleration.x, store.linearAcceleration.y));
 			
-			data.setValue(FlightDataType.TYPE_ACCELERATION_TOTAL, store.linearAcceleration.length());
+			if (recording.isRecorded(FlightDataType.TYPE_ACCELERATION_TOTAL))
+				data.setValue(FlightDataType.TYPE_ACCELERATION_TOTAL, store.linearAcceleration.length());
 		}
 			
-		if (store.flightConditions != null) {
+		if (store.flightConditions != null && recording.isRecorded(FlightDataType.TYPE_REYNOLDS_NUMBER)) {
 			double Re = (store.flightConditions.getVelocity() *
 						 status.getConfiguration().getLengthAerodynamic() /
 						 store.flightConditions.getAtmosphericConditions().getKinematicViscosity());
 			data.setValue(FlightDataType.TYPE_REYNOLDS_NUMBER, Re);
 		}
 		
-		data.setValue(FlightDataType.TYPE_VELOCITY_Z, status.getRocketVelocity().z);
-		if (store.linearAcceleration != null) {
+		if (recording.isRecorded(FlightDataType.TYPE_VELOCITY_Z))
+			data.setValue(FlightDataType.TYPE_VELOCITY_Z, status.getRocketVelocity().z);
+		if (store.linearAcceleration != null && recording.isRecorded(FlightDataType.TYPE_ACCELERATION_Z)) {
 			data.setValue(FlightDataType.TYPE_ACCELERATION_Z, store.linearAcceleration.z);
 		}
 		
 		if (store.flightConditions != null) {
-			data.setValue(FlightDataType.TYPE_VELOCITY_TOTAL, status.getRocketVelocity().length());
-			data.setValue(FlightDataType.TYPE_MACH_NUMBER, store.flightConditions.getMach());
+			if (recording.isRecorded(FlightDataType.TYPE_VELOCITY_TOTAL))
+				data.setValue(FlightDataType.TYPE_VELOCITY_TOTAL, status.getRocketVelocity().length());
+			if (recording.isRecorded(FlightDataType.TYPE_MACH_NUMBER))
+				data.setValue(FlightDataType.TYPE_MACH_NUMBER, store.flightConditions.getMach());
 		}
 		
 		if (store.rocketMass != null) {
@@ -595,88 +793,125 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 			if (store.forces != null) {
 				data.setValue(FlightDataType.TYPE_CP_LOCATION, store.forces.getCP().x);
 			}
-			if (store.forces != null && store.flightConditions != null && store.rocketMass != null) {
+			if (store.forces != null && store.flightConditions != null && store.rocketMass != null &&
+					recording.isRecorded(FlightDataType.TYPE_STABILITY)) {
 				data.setValue(FlightDataType.TYPE_STABILITY,
 						(store.forces.getCP().x - store.rocketMass.getCM().x) / store.flightConditions.getRefLength());
 			}
 		}
 
-		if( null != store.motorMass ){
+		if( null != store.motorMass && recording.isRecorded(FlightDataType.TYPE_MOTOR_MASS)){
 			data.setValue(FlightDataType.TYPE_MOTOR_MASS, store.motorMass.getMass());
 			//data.setValue(FlightDataType.TYPE_MOTOR_LONGITUDINAL_INERTIA, store.motorMassData.getLongitudinalInertia());
 			//data.setValue(FlightDataType.TYPE_MOTOR_ROTATIONAL_INERTIA, store.motorMassData.getRotationalInertia());
 		}
 		if (store.rocketMass != null) {
 			// N.B.: These refer to total mass
-			data.setValue(FlightDataType.TYPE_MASS, store.rocketMass.getMass());
-			data.setValue(FlightDataType.TYPE_LONGITUDINAL_INERTIA, store.rocketMass.getLongitudinalInertia());
-			data.setValue(FlightDataType.TYPE_ROTATIONAL_INERTIA, store.rocketMass.getRotationalInertia());
+			if (recording.isRecorded(FlightDataType.TYPE_MASS))
+				data.setValue(FlightDataType.TYPE_MASS, store.rocketMass.getMass());
+			if (recording.isRecorded(FlightDataType.TYPE_LONGITUDINAL_INERTIA))
+				data.setValue(FlightDataType.TYPE_LONGITUDINAL_INERTIA, store.rocketMass.getLongitudinalInertia());
+			if (recording.isRecorded(FlightDataType.TYPE_ROTATIONAL_INERTIA))
+				data.setValue(FlightDataType.TYPE_ROTATIONAL_INERTIA, store.rocketMass.getRotationalInertia());
 		}
 		
 		data.setValue(FlightDataType.TYPE_THRUST_FORCE, store.thrustForce);
-		double weight = store.rocketMass.getMass() * store.gravity;
-		data.setValue(FlightDataType.TYPE_THRUST_WEIGHT_RATIO, store.thrustForce / weight);
-		data.setValue(FlightDataType.TYPE_DRAG_FORCE, store.dragForce);
-		data.setValue(FlightDataType.TYPE_GRAVITY, store.gravity);
+		if (recording.isRecorded(FlightDataType.TYPE_THRUST_WEIGHT_RATIO)) {
+			double weight = store.rocketMass.getMass() * store.gravity;
+			data.setValue(FlightDataType.TYPE_THRUST_WEIGHT_RATIO, store.thrustForce / weight);
+		}
+		if (recording.isRecorded(FlightDataType.TYPE_DRAG_FORCE))
+			data.setValue(FlightDataType.TYPE_DRAG_FORCE, store.dragForce);
+		if (recording.isRecorded(FlightDataType.TYPE_GRAVITY))
+			data.setValue(FlightDataType.TYPE_GRAVITY, store.gravity);
 		
 		if (status.isLaunchRodCleared() && store.forces != null) {
 			if (store.rocketMass != null && store.flightConditions != null) {
-				data.setValue(FlightDataType.TYPE_PITCH_MOMENT_COEFF,
-						store.forces.getCm() - store.forces.getCN() * store.rocketMass.getCM().x / store.flightConditions.getRefLength());
-				data.setValue(FlightDataType.TYPE_YAW_MOMENT_COEFF,
-						store.forces.getCyaw() - store.forces.getCside() * store.rocketMass.getCM().x / store.flightConditions.getRefLength());
+				if (recording.isRecorded(FlightDataType.TYPE_PITCH_MOMENT_COEFF))
+					data.setValue(FlightDataType.TYPE_PITCH_MOMENT_COEFF,
+							store.forces.getCm() - store.forces.getCN() * store.rocketMass.getCM().x / store.flightConditions.getRefLength());
+				if (recording.isRecorded(FlightDataType.TYPE_YAW_MOMENT_COEFF))
+					data.setValue(FlightDataType.TYPE_YAW_MOMENT_COEFF,
+							store.forces.getCyaw() - store.forces.getCside() * store.rocketMass.getCM().x / store.flightConditions.getRefLength());
 			}
-			data.setValue(FlightDataType.TYPE_NORMAL_FORCE_COEFF, store.forces.getCN());
-			data.setValue(FlightDataType.TYPE_SIDE_FORCE_COEFF, store.forces.getCside());
-			data.setValue(FlightDataType.TYPE_ROLL_MOMENT_COEFF, store.forces.getCroll());
-			data.setValue(FlightDataType.TYPE_ROLL_FORCING_COEFF, store.forces.getCrollForce());
-			data.setValue(FlightDataType.TYPE_ROLL_DAMPING_COEFF, store.forces.getCrollDamp());
-			data.setValue(FlightDataType.TYPE_PITCH_DAMPING_MOMENT_COEFF,
-					store.forces.getPitchDampingMoment());
+			if (recording.isRecorded(FlightDataType.TYPE_NORMAL_FORCE_COEFF))
+				data.setValue(FlightDataType.TYPE_NORMAL_FORCE_COEFF, store.forces.getCN());
+			if (recording.isRecorded(FlightDataType.TYPE_SIDE_FORCE_COEFF))
+				data.setValue(FlightDataType.TYPE_SIDE_FORCE_COEFF, store.forces.getCside());
+			if (recording.isRecorded(FlightDataType.TYPE_ROLL_MOMENT_COEFF))
+				data.setValue(FlightDataType.TYPE_ROLL_MOMENT_COEFF, store.forces.getCroll());
+			if (recording.isRecorded(FlightDataType.TYPE_ROLL_FORCING_COEFF))
+				data.setValue(FlightDataType.TYPE_ROLL_FORCING_COEFF, store.forces.getCrollForce());
+			if (recording.isRecorded(FlightDataType.TYPE_ROLL_DAMPING_COEFF))
+				data.setValue(FlightDataType.TYPE_ROLL_DAMPING_COEFF, store.forces.getCrollDamp());
+			if (recording.isRecorded(FlightDataType.TYPE_PITCH_DAMPING_MOMENT_COEFF))
+				data.setValue(FlightDataType.TYPE_PITCH_DAMPING_MOMENT_COEFF,
+						store.forces.getPitchDampingMoment());
 		}
 		
 		if (store.forces != null) {
-			data.setValue(FlightDataType.TYPE_DRAG_COEFF, store.forces.getCD());
-			data.setValue(FlightDataType.TYPE_AXIAL_DRAG_COEFF, store.forces.getCDaxial());
-			data.setValue(FlightDataType.TYPE_FRICTION_DRAG_COEFF, store.forces.getFrictionCD());
-			data.setValue(FlightDataType.TYPE_PRESSURE_DRAG_COEFF, store.forces.getPressureCD());
-			data.setValue(FlightDataType.TYPE_BASE_DRAG_COEFF, store.forces.getBaseCD());
+			if (recording.isRecorded(FlightDataType.TYPE_DRAG_COEFF))
+				data.setValue(FlightDataType.TYPE_DRAG_COEFF, store.forces.getCD());
+			if (recording.isRecorded(FlightDataType.TYPE_AXIAL_DRAG_COEFF))
+				data.setValue(FlightDataType.TYPE_AXIAL_DRAG_COEFF, store.forces.getCDaxial());
+			if (recording.isRecorded(FlightDataType.TYPE_FRICTION_DRAG_COEFF))
+				data.setValue(FlightDataType.TYPE_FRICTION_DRAG_COEFF, store.forces.getFrictionCD());
+			if (recording.isRecorded(FlightDataType.TYPE_PRESSURE_DRAG_COEFF))
+				data.setValue(FlightDataType.TYPE_PRESSURE_DRAG_COEFF, store.forces.getPressureCD());
+			if (recording.isRecorded(FlightDataType.TYPE_BASE_DRAG_COEFF))
+				data.setValue(FlightDataType.TYPE_BASE_DRAG_COEFF, store.forces.getBaseCD());
 		}
 		
 		if (store.flightConditions != null) {
-			data.setValue(FlightDataType.TYPE_REFERENCE_LENGTH, store.flightConditions.getRefLength());
-			data.setValue(FlightDataType.TYPE_REFERENCE_AREA, store.flightConditions.getRefArea());
+			if (recording.isRecorded(FlightDataType.TYPE_REFERENCE_LENGTH))
+				data.setValue(FlightDataType.TYPE_REFERENCE_LENGTH, store.flightConditions.getRefLength());
+			if (recording.isRecorded(FlightDataType.TYPE_REFERENCE_AREA))
+				data.setValue(FlightDataType.TYPE_REFERENCE_AREA, store.flightConditions.getRefArea());
 			
-			data.setValue(FlightDataType.TYPE_PITCH_RATE, store.flightConditions.getPitchRate());
-			data.setValue(FlightDataType.TYPE_YAW_RATE, store.flightConditions.getYawRate());
-			data.setValue(FlightDataType.TYPE_ROLL_RATE, store.flightConditions.getRollRate());
+			if (recording.isRecorded(FlightDataType.TYPE_PITCH_RATE))
+				data.setValue(FlightDataType.TYPE_PITCH_RATE, store.flightConditions.getPitchRate());
+			if (recording.isRecorded(FlightDataType.TYPE_YAW_RATE))
+				data.setValue(FlightDataType.TYPE_YAW_RATE, store.flightConditions.getYawRate());
+			if (recording.isRecorded(FlightDataType.TYPE_ROLL_RATE))
+				data.setValue(FlightDataType.TYPE_ROLL_RATE, store.flightConditions.getRollRate());
 			
 			data.setValue(FlightDataType.TYPE_AOA, store.flightConditions.getAOA());
 		}
 		
-		Coordinate c = status.getRocketOrientationQuaternion().rotateZ();
-		double theta = Math.atan2(c.z, MathUtil.hypot(c.x, c.y));
-		double phi = Math.atan2(c.y, c.x);
-		if (phi < -(Math.PI - 0.0001))
-			phi = Math.PI;
-		data.setValue(FlightDataType.TYPE_ORIENTATION_THETA, theta);
-		data.setValue(FlightDataType.TYPE_ORIENTATION_PHI, phi);
+		if (recording.isRecorded(FlightDataType.TYPE_ORIENTATION_THETA) ||
+				recording.isRecorded(FlightDataType.TYPE_ORIENTATION_PHI)) {
+			Coordinate c = status.getRocketOrientationQuaternion().rotateZ();
+			double theta = Math.atan2(c.z, MathUtil.hypot(c.x, c.y));
+			double phi = Math.atan2(c.y, c.x);
+			if (phi < -(Math.PI - 0.0001))
+				phi = Math.PI;
+			if (recording.isRecorded(FlightDataType.TYPE_ORIENTATION_THETA))
+				data.setValue(FlightDataType.TYPE_ORIENTATION_THETA, theta);
+			if (recording.isRecorded(FlightDataType.TYPE_ORIENTATION_PHI))
+				data.setValue(FlightDataType.TYPE_ORIENTATION_PHI, phi);
+		}
 		
-		data.setValue(FlightDataType.TYPE_WIND_VELOCITY, store.windSpeed);
+		if (recording.isRecorded(FlightDataType.TYPE_WIND_VELOCITY))
+			data.setValue(FlightDataType.TYPE_WIND_VELOCITY, store.windSpeed);
 		
 		if (store.flightConditions != null) {
-			data.setValue(FlightDataType.TYPE_AIR_TEMPERATURE,
-					store.flightConditions.getAtmosphericConditions().getTemperature());
-			data.setValue(FlightDataType.TYPE_AIR_PRESSURE,
-					store.flightConditions.getAtmosphericConditions().getPressure());
-			data.setValue(FlightDataType.TYPE_SPEED_OF_SOUND,
-					store.flightConditions.getAtmosphericConditions().getMachSpeed());
+			if (recording.isRecorded(FlightDataType.TYPE_AIR_TEMPERATURE))
+				data.setValue(FlightDataType.TYPE_AIR_TEMPERATURE,
+						store.flightConditions.getAtmosphericConditions().getTemperature());
+			if (recording.isRecorded(FlightDataType.TYPE_AIR_PRESSURE))
+				data.setValue(FlightDataType.TYPE_AIR_PRESSURE,
+						store.flightConditions.getAtmosphericConditions().getPressure());
+			if (recording.isRecorded(FlightDataType.TYPE_SPEED_OF_SOUND))
+				data.setValue(FlightDataType.TYPE_SPEED_OF_SOUND,
+						store.flightConditions.getAtmosphericConditions().getMachSpeed());
 		}
 		
 
-		data.setValue(FlightDataType.TYPE_TIME_STEP, store.timestep);
-		data.setValue(FlightDataType.TYPE_COMPUTATION_TIME,
-				(System.nanoTime() - status.getSimulationStartWallTime()) / 1000000000.0);
+		if (recording.isRecorded(FlightDataType.TYPE_TIME_STEP))
+			data.setValue(FlightDataType.TYPE_TIME_STEP, store.timestep);
+		if (recording.isRecorded(FlightDataType.TYPE_COMPUTATION_TIME))
+			data.setValue(FlightDataType.TYPE_COMPUTATION_TIME,
+					(System.nanoTime() - status.getSimulationStartWallTime()) / 1000000000.0);
 	}
 
 	//NEW ERIC CODE
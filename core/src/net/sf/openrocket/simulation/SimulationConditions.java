@@ -29,6 +29,8 @@ public class SimulationConditions implements Monitorable, Cloneable {
 	
 	private Simulation simulation; // The parent simulation 
 	
+	private Rocket rocket = null; // Overrides the simulation rocket when set
+	
 	private double launchRodLength = 1;
 	
 	/** Launch rod angle >= 0, radians from vertical */
@@ -53,7 +55,7 @@ public class SimulationConditions implements Monitorable, Cloneable {
 	private GravityModel gravityModel;
 	
 	private AerodynamicCalculator aerodynamicCalculator;
-	private MassCalculator massCalculator;
+	private MassCalculator massCalculator = new MassCalculator();
 	
 	
 	private double timeStep = RK4SimulationStepper.RECOMMENDED_TIME_STEP;
@@ -61,6 +63,12 @@ public class SimulationConditions implements Monitorable, Cloneable {
 	
 	private List<SimulationListener> simulationListeners = new ArrayList<SimulationListener>();
 	
+	private SimulationStudy study = new SingleRunStudy();
+	
+	private FlightDataRecording recording = FlightDataRecording.ALL;
+	
+	private int branchThreadCount = 1;
+	
 	
 	private int randomSeed = 0;
 	
@@ -96,8 +104,24 @@ public class SimulationConditions implements Monitorable, Cloneable {
 	
 	
 	public Rocket getRocket() {
+		if (rocket != null) {
+			return rocket;
+		}
 		return simulation.getRocket();
 	}
+	
+	/**
+	 * Set a rocket to simulate in place of the rocket of the parent simulation.  This allows
+	 * several simulations of private rocket copies to run concurrently without accessing
+	 * the (non-thread-safe) parent simulation.  Setting <code>null</code> reverts to the
+	 * rocket of the parent simulation.
+	 * 
+	 * @param rocket	the rocket to simulate, or <code>null</code> to use the simulation rocket.
+	 */
+	public void setRocket(Rocket rocket) {
+		this.rocket = rocket;
+		this.modID++;
+	}
 
 
 	public FlightConfigurationId getMotorConfigurationID() {
@@ -271,6 +295,56 @@ public class SimulationConditions implements Monitorable, Cloneable {
 		return this.simulation;
 	}
 	
+	/**
+	 * Return the study run when simulating, by default a single flight.
+	 */
+	public SimulationStudy getStudy() {
+		return study;
+	}
+	
+	/**
+	 * Set the study run when simulating.  Simulation extensions may select a study when
+	 * they are initialized.
+	 */
+	public void setStudy(SimulationStudy study) {
+		this.study = study;
+	}
+	
+	/**
+	 * Return the recording profile defining the flight data stored at each step.
+	 */
+	public FlightDataRecording getRecording() {
+		return recording;
+	}
+	
+	/**
+	 * Set the recording profile defining the flight data stored at each step, by default
+	 * {@link FlightDataRecording#ALL}.
+	 */
+	public void setRecording(FlightDataRecording recording) {
+		this.recording = recording;
+	}
+	
+	/**
+	 * Return the number of threads simulating the branches separated from the main branch.
+	 */
+	public int getBranchThreadCount() {
+		return branchThreadCount;
+	}
+	
+	/**
+	 * Set the number of threads simulating the branches separated from the main branch.
+	 * With one thread (the default) the branches are simulated one after another, with more
+	 * threads sibling branches are simulated concurrently.  The flight data is the same in
+	 * both cases.
+	 */
+	public void setBranchThreadCount(int branchThreadCount) {
+		if (branchThreadCount < 1) {
+			throw new IllegalArgumentException("branchThreadCount must be at least 1: " + branchThreadCount);
+		}
+		this.branchThreadCount = branchThreadCount;
+	}
+	
 	// TODO: HIGH: Make cleaner
 	public List<SimulationListener> getSimulationListenerList() {
 		return simulationListeners;
@@ -281,7 +355,7 @@ public class SimulationConditions implements Monitorable, Cloneable {
 	public int getModID() {
 		//return (modID + modIDadd + rocket.getModID() + windModel.getModID() + atmosphericModel.getModID() +
 		//		gravityModel.getModID() + aerodynamicCalculator.getModID() + massCalculator.getModID());
-		return (modID + modIDadd + simulation.getRocket().getModID() + windModel.getModID() + atmosphericModel.getModID() +
+		return (modID + modIDadd + getRocket().getModID() + windModel.getModID() + atmosphericModel.getModID() +
 				aerodynamicCalculator.getModID() + massCalculator.getModID());
 	}
 	
@@ -295,6 +369,21 @@ public class SimulationConditions implements Monitorable, Cloneable {
 			for (SimulationListener listener : this.simulationListeners) {
 				clone.simulationListeners.add(listener.clone());
 			}
+			// The mass calculator caches per simulation
+			if (this.massCalculator != null) {
+				clone.massCalculator = this.massCalculator.newInstance();
+			}
+			// Aerodynamic calculators are not thread-safe, the new instance shares the compiled model
+			if (this.aerodynamicCalculator != null) {
+				clone.aerodynamicCalculator = this.aerodynamicCalculator.newInstance();
+			}
+			// The wind and gravity models keep state between calls
+			if (this.windModel != null) {
+				clone.windModel = this.windModel.newInstance();
+			}
+			if (this.gravityModel != null) {
+				clone.gravityModel = this.gravityModel.newInstance();
+			}
 			
 			return clone;
 		} catch (CloneNotSupportedException e) {
@@ -80,6 +80,9 @@ public class SimulationOptions implements ChangeSource, Cloneable, SimulationOpt
 	
 	private int randomSeed = new Random().nextInt();
 	
+	/* The number of threads simulating the separated branches, which does not affect the results */
+	private int branchThreadCount = preferences.getBranchThreadCount();
+	
 	private List<EventListener> listeners = new ArrayList<EventListener>();
 	
 	public SimulationOptions() {
@@ -357,6 +360,26 @@ public class SimulationOptions implements ChangeSource, Cloneable, SimulationOpt
 	/**
 	 * Randomize the random seed value.
 	 */
+	/**
+	 * Return the number of threads simulating the branches separated from the main branch.
+	 */
+	public int getBranchThreadCount() {
+		return branchThreadCount;
+	}
+	
+	/**
+	 * Set the number of threads simulating the branches separated from the main branch.
+	 * The branches are simulated one after another with 1 thread, and the flight data
+	 * is the same with any number of threads.
+	 */
+	public void setBranchThreadCount(int branchThreadCount) {
+		branchThreadCount = Math.max(1, branchThreadCount);
+		if (this.branchThreadCount == branchThreadCount)
+			return;
+		this.branchThreadCount = branchThreadCount;
+		fireChangeEvent();
+	}
+	
 	public void randomizeSeed() {
 		this.randomSeed = new Random().nextInt();
 		//		fireChangeEvent();
@@ -443,6 +466,8 @@ public class SimulationOptions implements ChangeSource, Cloneable, SimulationOpt
 			isChanged = true;
 			this.geodeticComputation = src.geodeticComputation;
 		}
+		// The branch thread count does not change the results and is not compared in equals
+		this.branchThreadCount = src.branchThreadCount;
 		
 		if (isChanged) {
 			// Only copy the randomSeed if something else has changed.
@@ -542,6 +567,7 @@ public class SimulationOptions implements ChangeSource, Cloneable, SimulationOpt
 		
 		conditions.setTimeStep(getTimeStep());
 		conditions.setMaximumAngleStep(getMaximumStepAngle());
+		conditions.setBranchThreadCount(getBranchThreadCount());
 		
 		return conditions;
 	}
@@ -3,10 +3,12 @@ package net.sf.openrocket.simulation;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import net.sf.openrocket.aerodynamics.ControlSurfaceState;
 import net.sf.openrocket.aerodynamics.FlightConditions;
 import net.sf.openrocket.simulation.exception.SimulationException;
 import net.sf.openrocket.simulation.listeners.SimulationListenerHelper;
@@ -88,6 +90,9 @@ public class SimulationStatus implements Monitorable {
 	/** Available for special purposes by the listeners. */
 	private final Map<String, Object> extraData = new HashMap<String, Object>();
 	
+	/** Actuated control surfaces, shared by intermediate copies made with clone(). */
+	private final ControlSurfaceState controlSurfaceState = new ControlSurfaceState();
+	
 	double maxAlt = Double.NEGATIVE_INFINITY;
 	double maxAltTime = 0;
 	
@@ -194,11 +199,24 @@ public class SimulationStatus implements Monitorable {
 		this.deployedRecoveryDevices.clear();
 		this.deployedRecoveryDevices.addAll(orig.deployedRecoveryDevices);
 		
+		// Motor states are copied so that the branches burn their motors independently,
+		// the queued events refer to the copies
+		Map<MotorClusterState, MotorClusterState> motorStates = new IdentityHashMap<MotorClusterState, MotorClusterState>();
 		this.motorStateList.clear();
-		this.motorStateList.addAll(orig.motorStateList);
+		for (MotorClusterState state : orig.motorStateList) {
+			MotorClusterState copy = new MotorClusterState(state);
+			motorStates.put(state, copy);
+			this.motorStateList.add(copy);
+		}
 		
 		this.eventQueue.clear();
-		this.eventQueue.addAll(orig.eventQueue);
+		for (FlightEvent event : orig.eventQueue) {
+			MotorClusterState copy = motorStates.get(event.getData());
+			if (copy != null) {
+				event = new FlightEvent(event, event.getSource(), copy);
+			}
+			this.eventQueue.add(event);
+		}
 		
 		// WarningSet is not cloned.
 		this.warnings = new WarningSet();
@@ -206,6 +224,8 @@ public class SimulationStatus implements Monitorable {
 		this.extraData.clear();
 		this.extraData.putAll(orig.extraData);
 		
+		this.controlSurfaceState.copyFrom(orig.controlSurfaceState);
+		
 		this.modID = orig.modID;
 		this.modIDadd = orig.modIDadd;
 	}
@@ -497,6 +517,15 @@ public class SimulationStatus implements Monitorable {
 		return extraData.get(key);
 	}
 	
+	/**
+	 * Return the state of the actuated control surfaces of the rocket.  Controllers
+	 * should change e.g. fin cant angles through this object instead of modifying the
+	 * rocket components, so that no component change events are fired.
+	 */
+	public ControlSurfaceState getControlSurfaceState() {
+		return controlSurfaceState;
+	}
+	
 	/**
 	 * Returns a copy of this object.  The general purpose is that the conditions,
 	 * rocket configuration, flight data etc. point to the same objects.  However,
@@ -514,7 +543,45 @@ public class SimulationStatus implements Monitorable {
 			throw new BugException("CloneNotSupportedException?!?", e);
 		}
 	}
-	
+
+	/**
+	 * Reset this object to the current state of the status it was cloned from.  After the
+	 * call this object is equivalent to a new {@link #clone()} of <code>orig</code>, which
+	 * allows reusing a single intermediate copy during step computation.
+	 *
+	 * @param orig	the status from which this object was cloned
+	 * @throws IllegalArgumentException	if this object is not a clone of <code>orig</code>
+	 */
+	public void copyFrom(SimulationStatus orig) {
+		if (orig.eventQueue != this.eventQueue) {
+			throw new IllegalArgumentException("Status is not a clone of " + orig);
+		}
+		this.simulationConditions = orig.simulationConditions;
+		this.configuration = orig.configuration;
+		this.flightData = orig.flightData;
+		this.time = orig.time;
+		this.previousTimeStep = orig.previousTimeStep;
+		this.position = orig.position;
+		this.worldPosition = orig.worldPosition;
+		this.velocity = orig.velocity;
+		this.acceleration = orig.acceleration;
+		this.orientation = orig.orientation;
+		this.rotationVelocity = orig.rotationVelocity;
+		this.effectiveLaunchRodLength = orig.effectiveLaunchRodLength;
+		this.simulationStartWallTime = orig.simulationStartWallTime;
+		this.motorIgnited = orig.motorIgnited;
+		this.liftoff = orig.liftoff;
+		this.launchRodCleared = orig.launchRodCleared;
+		this.apogeeReached = orig.apogeeReached;
+		this.tumbling = orig.tumbling;
+		this.landed = orig.landed;
+		this.warnings = orig.warnings;
+		this.maxAlt = orig.maxAlt;
+		this.maxAltTime = orig.maxAltTime;
+		this.modID = orig.modID;
+		this.modIDadd = orig.modIDadd;
+	}
+
 	@Override
 	public int getModID() {
 		return (modID + modIDadd + simulationConditions.getModID() + configuration.getModID() +
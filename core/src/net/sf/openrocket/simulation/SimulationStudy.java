@@ -0,0 +1,32 @@
+package net.sf.openrocket.simulation;
+
+import net.sf.openrocket.simulation.exception.SimulationException;
+
+/**
+ * A study run when a simulation is simulated.  The default study flies the simulation
+ * once; other studies, selected by a simulation extension in
+ * {@link net.sf.openrocket.simulation.extension.SimulationExtension#initialize(SimulationConditions)},
+ * may fly it many times, for example a dispersion campaign or the tuning of a controller.
+ */
+public interface SimulationStudy {
+	
+	/**
+	 * Return a short name of the study, used when reporting it.
+	 *
+	 * @return	the name of the study.
+	 */
+	public String getName();
+	
+	/**
+	 * Run the study.
+	 *
+	 * @param engine		the simulation engine of the simulation.
+	 * @param conditions	the simulation conditions to study.
+	 * @return				the flight data stored in the simulation, or <code>null</code> if the
+	 * 						study produces no single flight.
+	 * @throws SimulationException	if an error occurs during simulation
+	 */
+	public FlightData run(SimulationEngine engine, SimulationConditions conditions)
+			throws SimulationException;
+	
+}
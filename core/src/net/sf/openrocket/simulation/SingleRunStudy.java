@@ -0,0 +1,21 @@
+package net.sf.openrocket.simulation;
+
+import net.sf.openrocket.simulation.exception.SimulationException;
+
+/**
+ * The default simulation study, which flies the simulation once with the simulation engine.
+ */
+public class SingleRunStudy implements SimulationStudy {
+	
+	@Override
+	public String getName() {
+		return "Simulation";
+	}
+	
+	@Override
+	public FlightData run(SimulationEngine engine, SimulationConditions conditions)
+			throws SimulationException {
+		return engine.simulate(conditions);
+	}
+	
+}
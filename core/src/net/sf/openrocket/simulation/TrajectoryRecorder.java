@@ -0,0 +1,245 @@
+package net.sf.openrocket.simulation;
+
+import java.util.Arrays;
+
+import net.sf.openrocket.util.Coordinate;
+import net.sf.openrocket.util.Quaternion;
+
+/**
+ * Records the trajectory of a simulation as primitive state vectors.  Each sample
+ * consists of the simulation time, position, velocity, orientation quaternion and
+ * rotation rate of the rocket, stored in a preallocated <code>double</code> array.
+ * Unlike storing {@link SimulationStatus} clones, recording a step does not allocate
+ * and the recorded history is not affected by later changes to the status.
+ * <p>
+ * The capture mode determines which steps are kept:
+ * <ul>
+ * <li>{@link Mode#NONE} records nothing</li>
+ * <li>{@link Mode#FINAL} keeps only the latest step</li>
+ * <li>{@link Mode#EVERY_NTH} keeps every Nth step, growing the storage as needed</li>
+ * <li>{@link Mode#RING_BUFFER} keeps the latest N steps</li>
+ * </ul>
+ *
+ * This class is not thread-safe; use one recorder per simulation engine.
+ */
+public class TrajectoryRecorder {
+
+	public enum Mode {
+		NONE,
+		FINAL,
+		EVERY_NTH,
+		RING_BUFFER
+	}
+
+	public static final int TIME = 0;
+	public static final int POSITION_X = 1;
+	public static final int POSITION_Y = 2;
+	public static final int POSITION_Z = 3;
+	public static final int VELOCITY_X = 4;
+	public static final int VELOCITY_Y = 5;
+	public static final int VELOCITY_Z = 6;
+	public static final int ORIENTATION_W = 7;
+	public static final int ORIENTATION_X = 8;
+	public static final int ORIENTATION_Y = 9;
+	public static final int ORIENTATION_Z = 10;
+	public static final int ROTATION_RATE_X = 11;
+	public static final int ROTATION_RATE_Y = 12;
+	public static final int ROTATION_RATE_Z = 13;
+
+	/** Number of values in each sample. */
+	public static final int STATE_SIZE = 14;
+
+	private static final int DEFAULT_CAPACITY = 1024;
+
+	private final Mode mode;
+	private final int interval;
+
+	private double[] samples;
+	private int capacity;
+
+	/** Index of the next sample to write. */
+	private int next = 0;
+	/** Number of valid samples. */
+	private int count = 0;
+	/** Number of steps offered to the recorder. */
+	private long steps = 0;
+
+
+	/**
+	 * Construct a recorder.
+	 *
+	 * @param mode		the capture mode.
+	 * @param interval	record every <code>interval</code> steps (only for {@link Mode#EVERY_NTH}).
+	 * @param capacity	the number of preallocated samples; the fixed size of a {@link Mode#RING_BUFFER}.
+	 */
+	public TrajectoryRecorder(Mode mode, int interval, int capacity) {
+		if (interval < 1) {
+			throw new IllegalArgumentException("interval must be positive: " + interval);
+		}
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		}
+		this.mode = mode;
+		this.interval = interval;
+		switch (mode) {
+		case NONE:
+			this.capacity = 0;
+			break;
+		case FINAL:
+			this.capacity = 1;
+			break;
+		default:
+			this.capacity = capacity;
+		}
+		this.samples = new double[this.capacity * STATE_SIZE];
+	}
+
+	public static TrajectoryRecorder none() {
+		return new TrajectoryRecorder(Mode.NONE, 1, 1);
+	}
+
+	public static TrajectoryRecorder finalState() {
+		return new TrajectoryRecorder(Mode.FINAL, 1, 1);
+	}
+
+	public static TrajectoryRecorder everyNth(int interval) {
+		return new TrajectoryRecorder(Mode.EVERY_NTH, interval, DEFAULT_CAPACITY);
+	}
+
+	public static TrajectoryRecorder ringBuffer(int capacity) {
+		return new TrajectoryRecorder(Mode.RING_BUFFER, 1, capacity);
+	}
+
+
+	/**
+	 * Offer the current state of a simulation step to the recorder.
+	 *
+	 * @param status	the simulation status after the step.
+	 */
+	public void record(SimulationStatus status) {
+		long step = steps++;
+
+		switch (mode) {
+		case NONE:
+			return;
+		case FINAL:
+			write(0, status);
+			count = 1;
+			return;
+		case EVERY_NTH:
+			if (step % interval != 0) {
+				return;
+			}
+			if (count == capacity) {
+				capacity *= 2;
+				samples = Arrays.copyOf(samples, capacity * STATE_SIZE);
+			}
+			write(count, status);
+			count++;
+			return;
+		case RING_BUFFER:
+			write(next, status);
+			next = (next + 1) % capacity;
+			if (count < capacity) {
+				count++;
+			}
+			return;
+		}
+	}
+
+	private void write(int sample, SimulationStatus status) {
+		final int offset = sample * STATE_SIZE;
+		final Coordinate position = status.getRocketPosition();
+		final Coordinate velocity = status.getRocketVelocity();
+		final Quaternion orientation = status.getRocketOrientationQuaternion();
+		final Coordinate rotation = status.getRocketRotationVelocity();
+
+		samples[offset + TIME] = status.getSimulationTime();
+		samples[offset + POSITION_X] = position.x;
+		samples[offset + POSITION_Y] = position.y;
+		samples[offset + POSITION_Z] = position.z;
+		samples[offset + VELOCITY_X] = velocity.x;
+		samples[offset + VELOCITY_Y] = velocity.y;
+		samples[offset + VELOCITY_Z] = velocity.z;
+		samples[offset + ORIENTATION_W] = orientation.getW();
+		samples[offset + ORIENTATION_X] = orientation.getX();
+		samples[offset + ORIENTATION_Y] = orientation.getY();
+		samples[offset + ORIENTATION_Z] = orientation.getZ();
+		samples[offset + ROTATION_RATE_X] = rotation.x;
+		samples[offset + ROTATION_RATE_Y] = rotation.y;
+		samples[offset + ROTATION_RATE_Z] = rotation.z;
+	}
+
+
+	/**
+	 * Discard all recorded samples, keeping the allocated storage.
+	 */
+	public void reset() {
+		next = 0;
+		count = 0;
+		steps = 0;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Return the number of samples available, in chronological order from 0.
+	 */
+	public int getSampleCount() {
+		return count;
+	}
+
+	/**
+	 * Return the number of steps offered to the recorder since the last reset.
+	 */
+	public long getStepCount() {
+		return steps;
+	}
+
+	/**
+	 * Return one value of a recorded sample.
+	 *
+	 * @param sample	the sample index, 0 being the oldest available sample.
+	 * @param field		the state field, e.g. {@link #POSITION_X}.
+	 */
+	public double get(int sample, int field) {
+		return samples[offset(sample) + field];
+	}
+
+	/**
+	 * Return one value of the latest sample, or NaN if nothing has been recorded.
+	 */
+	public double getLast(int field) {
+		if (count == 0) {
+			return Double.NaN;
+		}
+		return get(count - 1, field);
+	}
+
+	/**
+	 * Copy a complete sample into the destination array.
+	 *
+	 * @param sample	the sample index, 0 being the oldest available sample.
+	 * @param dest		an array of at least {@link #STATE_SIZE} values, or null to allocate one.
+	 * @return			the destination array.
+	 */
+	public double[] getState(int sample, double[] dest) {
+		if (dest == null) {
+			dest = new double[STATE_SIZE];
+		}
+		System.arraycopy(samples, offset(sample), dest, 0, STATE_SIZE);
+		return dest;
+	}
+
+	private int offset(int sample) {
+		if (sample < 0 || sample >= count) {
+			throw new IndexOutOfBoundsException("sample=" + sample + " count=" + count);
+		}
+		if (mode == Mode.RING_BUFFER && count == capacity) {
+			sample = (next + sample) % capacity;
+		}
+		return sample * STATE_SIZE;
+	}
+}
@@ -0,0 +1,168 @@
+package net.sf.openrocket.simulation.customexpression;
+
+import java.util.Arrays;
+
+import net.sf.openrocket.logging.Markers;
+import net.sf.openrocket.simulation.FlightDataBranch;
+import net.sf.openrocket.simulation.FlightDataType;
+import net.sf.openrocket.simulation.SimulationStatus;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.congrace.exp4j.Calculable;
+import de.congrace.exp4j.PostfixExpression;
+import de.congrace.exp4j.Variable;
+
+/**
+ * A custom expression compiled for evaluation during a single simulation.  The expression is
+ * parsed once, and only the flight data variables it references are bound to the current flight
+ * data branch.  Expressions consisting of numbers, variables, operators and built-in functions are
+ * evaluated on primitive values without allocating intermediate objects; others, such as those
+ * containing index or range expressions, fall back to the general exp4j evaluation.
+ * <p>
+ * Instances are not thread-safe and should be used by one simulation only, see
+ * {@link CustomExpression#compile()}.
+ */
+public class CompiledExpression {
+
+	private static final Logger log = LoggerFactory.getLogger(CompiledExpression.class);
+
+	private final CustomExpression expression;
+	private final FlightDataType type;
+
+	/** The built expression, or null if the expression could not be built. */
+	private final Calculable calc;
+	private final PostfixExpression postfix;
+
+	/** Names of the variables referenced by the expression, and their values for primitive evaluation. */
+	private final String[] variables;
+	private final double[] values;
+	/** The sub expression defining each variable, or null for flight data variables. */
+	private final CustomExpression[] subExpressions;
+	private final boolean primitive;
+
+	/** Binding of the variables to the channels of a flight data branch, -1 for unbound variables. */
+	private FlightDataBranch boundBranch;
+	private int boundChannelCount;
+	private final int[] channels;
+	private boolean allBound;
+
+
+	CompiledExpression(CustomExpression expression) {
+		this.expression = expression;
+		this.type = expression.getType();
+		this.calc = expression.buildExpression();
+		this.postfix = (calc instanceof PostfixExpression) ? (PostfixExpression) calc : null;
+
+		this.variables = (postfix != null) ? postfix.getReferencedVariables() : new String[0];
+		this.values = new double[variables.length];
+		this.channels = new int[variables.length];
+		this.subExpressions = new CustomExpression[variables.length];
+		boolean hasSubExpressions = false;
+		for (CustomExpression sub : expression.getSubExpressions()) {
+			int index = Arrays.asList(variables).indexOf(sub.hash());
+			if (index >= 0) {
+				subExpressions[index] = sub;
+				hasSubExpressions = true;
+			}
+		}
+		this.primitive = (postfix != null) && postfix.isPrimitive() && !hasSubExpressions;
+	}
+
+
+	/**
+	 * Return the expression this was compiled from.
+	 */
+	public CustomExpression getExpression() {
+		return expression;
+	}
+
+	/**
+	 * Return the flight data type of the expression's value, resolved at compile time.
+	 */
+	public FlightDataType getType() {
+		return type;
+	}
+
+	/**
+	 * Evaluate the expression using the last variable values from the simulation status.  The result
+	 * is the same as that of {@link CustomExpression#evaluateDouble(SimulationStatus)}.
+	 *
+	 * @param status	the current simulation status.
+	 * @return			the value of the expression, NaN on any error.
+	 */
+	public double evaluate(SimulationStatus status) {
+		if (calc == null) {
+			return Double.NaN;
+		}
+
+		FlightDataBranch data = status.getFlightData();
+		bind(data);
+
+		double result;
+		if (primitive && allBound) {
+			int last = data.getLength() - 1;
+			for (int i = 0; i < variables.length; i++) {
+				values[i] = (last < 0) ? Double.NaN : data.getValue(channels[i], last);
+			}
+			result = postfix.calculate(values);
+		} else {
+			result = evaluateVariables(status, data);
+		}
+
+		if (result == Double.NEGATIVE_INFINITY || result == Double.POSITIVE_INFINITY)
+			result = Double.NaN;
+		return result;
+	}
+
+	/*
+	 * General evaluation, setting the referenced variables in the calculable.  Unbound flight data
+	 * variables are set to placeholders, as in the uncompiled evaluation.
+	 */
+	private double evaluateVariables(SimulationStatus status, FlightDataBranch data) {
+		int last = data.getLength() - 1;
+		for (int i = 0; i < variables.length; i++) {
+			if (subExpressions[i] != null) {
+				calc.setVariable(subExpressions[i].evaluate(status));
+			} else if (channels[i] < 0) {
+				calc.setVariable(new Variable(variables[i]));
+			} else {
+				calc.setVariable(new Variable(variables[i], (last < 0) ? Double.NaN : data.getValue(channels[i], last)));
+			}
+		}
+
+		try {
+			return calc.calculate().getDoubleValue();
+		} catch (java.util.EmptyStackException e) {
+			log.info(Markers.USER_MARKER, "Unable to calculate expression " + expression.getExpressionString() + " due to empty stack exception");
+			return Double.NaN;
+		}
+	}
+
+	/*
+	 * Resolve the channels of the referenced variables if the branch or its channels have changed.
+	 * If several data types have the same symbol, the last one in type order is used.
+	 */
+	private void bind(FlightDataBranch data) {
+		if (data == boundBranch && data.getChannelCount() == boundChannelCount) {
+			return;
+		}
+
+		Arrays.fill(channels, -1);
+		for (FlightDataType t : data.getTypes()) {
+			for (int i = 0; i < variables.length; i++) {
+				if (subExpressions[i] == null && variables[i].equals(t.getSymbol())) {
+					channels[i] = data.getChannel(t);
+				}
+			}
+		}
+		allBound = true;
+		for (int i = 0; i < variables.length; i++) {
+			allBound &= (channels[i] >= 0);
+		}
+
+		boundBranch = data;
+		boundChannelCount = data.getChannelCount();
+	}
+}
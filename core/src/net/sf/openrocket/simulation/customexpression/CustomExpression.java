@@ -372,6 +372,22 @@ public class CustomExpression implements Cloneable {
 		return true;
 	}
 	
+	/**
+	 * Compile this expression for repeated evaluation during a simulation.  The compiled
+	 * expression reflects the current expression string; it should be used by one
+	 * simulation only.
+	 */
+	public CompiledExpression compile() {
+		return new CompiledExpression(this);
+	}
+	
+	/*
+	 * Returns the index and range expressions substituted in this expression.
+	 */
+	List<CustomExpression> getSubExpressions() {
+		return subExpressions;
+	}
+	
 	public Double evaluateDouble(SimulationStatus status) {
 		double result = evaluate(status).getDoubleValue();
 		if (result == Double.NEGATIVE_INFINITY || result == Double.POSITIVE_INFINITY)
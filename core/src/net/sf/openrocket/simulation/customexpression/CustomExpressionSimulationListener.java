@@ -14,26 +14,57 @@ public class CustomExpressionSimulationListener extends AbstractSimulationListen
 	
 	private static final Logger log = LoggerFactory.getLogger(CustomExpressionSimulationListener.class);
 	private final List<CustomExpression> expressions;
+	// compiled at the start of each simulation, clones of this listener compile their own
+	private CompiledExpression[] compiled;
 	
 	public CustomExpressionSimulationListener(List<CustomExpression> expressions) {
 		super();
 		this.expressions = expressions;
 	}
 	
+	@Override
+	public void startSimulation(SimulationStatus status) throws SimulationException {
+		compiled = null;
+	}
+	
 	@Override
 	public void postStep(SimulationStatus status) throws SimulationException {
 		if (expressions == null || expressions.size() == 0) {
 			return;
 		}
+		if (compiled == null) {
+			compiled = new CompiledExpression[expressions.size()];
+			for (int i = 0; i < compiled.length; i++) {
+				compiled[i] = expressions.get(i).compile();
+			}
+		}
 		// Calculate values for custom expressions
 		FlightDataBranch data = status.getFlightData();
-		for (CustomExpression expression : expressions) {
-			double value = expression.evaluateDouble(status);
+		for (CompiledExpression expression : compiled) {
+			double value = expression.evaluate(status);
 			//log.debug("Setting value of custom expression "+expression.toString()+" = "+value);
 			data.setValue(expression.getType(), value);
 		}
 	}
 	
+	/**
+	 * Return a copy of this listener.  Compiled expressions keep state while evaluating, so
+	 * the copy compiles its own.
+	 */
+	@Override
+	public CustomExpressionSimulationListener clone() {
+		CustomExpressionSimulationListener clone = (CustomExpressionSimulationListener) super.clone();
+		clone.compiled = null;
+		return clone;
+	}
+	
+	/**
+	 * Return the compiled expressions, or <code>null</code> if not compiled yet.
+	 */
+	CompiledExpression[] getCompiled() {
+		return compiled;
+	}
+	
 	@Override
 	public boolean isSystemListener() {
 		return true;
@@ -72,13 +72,13 @@ public class DampingMoment extends AbstractSimulationExtension {
 			// dm/dt = (thrust - ma)/v
 			FlightDataBranch data = status.getFlightData();
 			
-			List<Double> mpAll = data.get(FlightDataType.TYPE_MOTOR_MASS);
-			List<Double> time = data.get(FlightDataType.TYPE_TIME);
-			if (mpAll == null || time == null) {
+			int mpChannel = data.getChannel(FlightDataType.TYPE_MOTOR_MASS);
+			int timeChannel = data.getChannel(FlightDataType.TYPE_TIME);
+			if (mpChannel < 0 || timeChannel < 0) {
 				return Double.NaN;
 			}
 			
-			int len = mpAll.size();
+			int len = data.getLength();
 			
 			// This isn't as accurate as I would like
 			double mdot = Double.NaN;
@@ -91,7 +91,8 @@ public class DampingMoment extends AbstractSimulationExtension {
 				//double dt = .01;
 				//mdot = (interp.eval(x[4], coeff) - interp.eval(x[4]-dt, coeff))/dt; 
 				
-				mdot = (mpAll.get(len - 1) - mpAll.get(len - 2)) / (time.get(len - 1) - time.get(len - 2));
+				mdot = (data.getValue(mpChannel, len - 1) - data.getValue(mpChannel, len - 2))
+						/ (data.getValue(timeChannel, len - 1) - data.getValue(timeChannel, len - 2));
 			}
 			
 			double cg = data.getLast(FlightDataType.TYPE_CG_LOCATION);
@@ -0,0 +1,38 @@
+package net.sf.openrocket.simulation.extension.example;
+
+import net.sf.openrocket.document.DispersionStudy;
+import net.sf.openrocket.simulation.SimulationConditions;
+import net.sf.openrocket.simulation.exception.SimulationException;
+import net.sf.openrocket.simulation.extension.AbstractSimulationExtension;
+
+/**
+ * An extension that runs a dispersion campaign of a configurable number of trials
+ * instead of a single flight.
+ */
+public class DispersionAnalysisExtension extends AbstractSimulationExtension {
+	
+	@Override
+	public void initialize(SimulationConditions conditions) throws SimulationException {
+		conditions.setStudy(new DispersionStudy(getTrialCount()));
+	}
+	
+	@Override
+	public String getName() {
+		return "Dispersion Analysis";
+	}
+	
+	@Override
+	public String getDescription() {
+		return "Run a dispersion campaign of many trials instead of a single flight";
+	}
+	
+	public int getTrialCount() {
+		return config.getInt("trialCount", 20);
+	}
+	
+	public void setTrialCount(int trialCount) {
+		config.put("trialCount", trialCount);
+		fireChangeEvent();
+	}
+	
+}
@@ -0,0 +1,13 @@
+package net.sf.openrocket.simulation.extension.example;
+
+import net.sf.openrocket.plugin.Plugin;
+import net.sf.openrocket.simulation.extension.AbstractSimulationExtensionProvider;
+
+@Plugin
+public class DispersionAnalysisExtensionProvider extends AbstractSimulationExtensionProvider {
+	
+	public DispersionAnalysisExtensionProvider() {
+		super(DispersionAnalysisExtension.class, "Studies", "Dispersion Analysis");
+	}
+	
+}
@@ -0,0 +1,38 @@
+package net.sf.openrocket.simulation.extension.example;
+
+import net.sf.openrocket.document.GuidanceTuningStudy;
+import net.sf.openrocket.simulation.SimulationConditions;
+import net.sf.openrocket.simulation.exception.SimulationException;
+import net.sf.openrocket.simulation.extension.AbstractSimulationExtension;
+
+/**
+ * An extension that tunes the roll controller of the guided rocket over a configurable
+ * number of iterations instead of flying once.
+ */
+public class GuidanceTuningExtension extends AbstractSimulationExtension {
+	
+	@Override
+	public void initialize(SimulationConditions conditions) throws SimulationException {
+		conditions.setStudy(new GuidanceTuningStudy(getIterationCount()));
+	}
+	
+	@Override
+	public String getName() {
+		return "Guidance Tuning";
+	}
+	
+	@Override
+	public String getDescription() {
+		return "Tune the roll controller gains over repeated flights";
+	}
+	
+	public int getIterationCount() {
+		return config.getInt("iterationCount", 50);
+	}
+	
+	public void setIterationCount(int iterationCount) {
+		config.put("iterationCount", iterationCount);
+		fireChangeEvent();
+	}
+	
+}
@@ -0,0 +1,13 @@
+package net.sf.openrocket.simulation.extension.example;
+
+import net.sf.openrocket.plugin.Plugin;
+import net.sf.openrocket.simulation.extension.AbstractSimulationExtensionProvider;
+
+@Plugin
+public class GuidanceTuningExtensionProvider extends AbstractSimulationExtensionProvider {
+	
+	public GuidanceTuningExtensionProvider() {
+		super(GuidanceTuningExtension.class, "Studies", "Guidance Tuning");
+	}
+	
+}
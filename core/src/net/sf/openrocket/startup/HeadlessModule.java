@@ -0,0 +1,199 @@
+package net.sf.openrocket.startup;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Provider;
+import com.google.inject.Scopes;
+
+import net.sf.openrocket.database.ComponentPresetDao;
+import net.sf.openrocket.database.ComponentPresetDatabase;
+import net.sf.openrocket.database.motor.MotorDatabase;
+import net.sf.openrocket.database.motor.ThrustCurveMotorSetDatabase;
+import net.sf.openrocket.file.iterator.DirectoryIterator;
+import net.sf.openrocket.file.iterator.FileIterator;
+import net.sf.openrocket.file.motor.GeneralMotorLoader;
+import net.sf.openrocket.file.motor.MotorDatabaseFile;
+import net.sf.openrocket.formatting.RocketDescriptor;
+import net.sf.openrocket.formatting.RocketDescriptorImpl;
+import net.sf.openrocket.gui.util.SimpleFileFilter;
+import net.sf.openrocket.l10n.ResourceBundleTranslator;
+import net.sf.openrocket.l10n.Translator;
+import net.sf.openrocket.motor.ThrustCurveMotor;
+import net.sf.openrocket.preset.ComponentPresetDatabaseFile;
+import net.sf.openrocket.util.BugException;
+import net.sf.openrocket.util.Pair;
+
+/**
+ * Guice module binding the application services for running OpenRocket without a user
+ * interface, for example on compute nodes.  Use together with the plugin module:
+ * <pre>
+ * Application.setInjector(Guice.createInjector(new HeadlessModule(), new PluginModule()));
+ * </pre>
+ * The preferences are kept in memory and the texts are in English regardless of the
+ * platform locale.  The motor database is read from the bundled thrust curves and the
+ * given motor files when first needed, and the component presets from the compiled preset
+ * catalog when it is on the classpath.  Nothing here initializes AWT.
+ */
+public class HeadlessModule extends AbstractModule {
+	private static final Logger log = LoggerFactory.getLogger(HeadlessModule.class);
+
+	private static final String THRUSTCURVE_DIRECTORY = "datafiles/thrustcurves/";
+	private static final String PRESET_CATALOG_DIRECTORY = "datafiles/presets/";
+
+	private final List<File> motorFiles;
+
+
+	public HeadlessModule() {
+		this(Collections.<File> emptyList());
+	}
+
+	/**
+	 * @param motorFiles	additional motor files, or directories of motor files, to load
+	 * 						into the motor database.
+	 */
+	public HeadlessModule(List<File> motorFiles) {
+		this.motorFiles = new ArrayList<File>(motorFiles);
+	}
+
+
+	@Override
+	protected void configure() {
+		bind(Preferences.class).to(HeadlessPreferences.class).in(Scopes.SINGLETON);
+		bind(Translator.class).toInstance(new ResourceBundleTranslator("l10n.messages", Locale.ROOT));
+		bind(RocketDescriptor.class).to(RocketDescriptorImpl.class).in(Scopes.SINGLETON);
+
+		MotorDatabaseProvider motorDatabase = new MotorDatabaseProvider(motorFiles);
+		bind(ThrustCurveMotorSetDatabase.class).toProvider(motorDatabase).in(Scopes.SINGLETON);
+		bind(MotorDatabase.class).toProvider(motorDatabase).in(Scopes.SINGLETON);
+		bind(ComponentPresetDao.class).toProvider(ComponentPresetDaoProvider.class).in(Scopes.SINGLETON);
+	}
+
+
+	/**
+	 * Provides the motor database, loading it on first use.
+	 */
+	private static class MotorDatabaseProvider implements Provider<ThrustCurveMotorSetDatabase> {
+		private final List<File> motorFiles;
+		private ThrustCurveMotorSetDatabase database = null;
+
+		MotorDatabaseProvider(List<File> motorFiles) {
+			this.motorFiles = motorFiles;
+		}
+
+		@Override
+		public synchronized ThrustCurveMotorSetDatabase get() {
+			if (database == null) {
+				ThrustCurveMotorSetDatabase db = new ThrustCurveMotorSetDatabase();
+				loadMotorDatabase(db);
+				loadMotorFiles(db);
+				log.info("Loaded " + db.getMotorSets().size() + " motor sets");
+				database = db;
+			}
+			return database;
+		}
+
+		private void loadMotorDatabase(ThrustCurveMotorSetDatabase db) {
+			FileIterator iterator = DirectoryIterator.findDirectory(THRUSTCURVE_DIRECTORY, new SimpleFileFilter("", false, "bin"));
+			if (iterator == null) {
+				log.warn("No motor database found");
+				return;
+			}
+			try {
+				while (iterator.hasNext()) {
+					Pair<File, InputStream> f = iterator.next();
+					log.debug("Reading motors from file " + f.getU().getPath());
+					final MotorDatabaseFile file;
+					try {
+						if (f.getU().isFile()) {
+							file = MotorDatabaseFile.open(f.getU());
+						} else {
+							file = MotorDatabaseFile.read(f.getV());
+						}
+					} finally {
+						f.getV().close();
+					}
+					db.addMotors(file.getMotors());
+				}
+			} catch (IOException e) {
+				throw new BugException("Unable to read the motor database", e);
+			} finally {
+				iterator.close();
+			}
+		}
+
+		private void loadMotorFiles(ThrustCurveMotorSetDatabase db) {
+			GeneralMotorLoader loader = new GeneralMotorLoader();
+			SimpleFileFilter filter = new SimpleFileFilter("", loader.getSupportedExtensions());
+			List<File> files = new ArrayList<File>();
+			for (File file : motorFiles) {
+				if (file.isDirectory()) {
+					try {
+						files.addAll(DirectoryIterator.listFiles(file, filter, true));
+					} catch (IOException e) {
+						log.warn("Unable to read directory " + file + ": " + e, e);
+					}
+				} else {
+					files.add(file);
+				}
+			}
+
+			for (File file : files) {
+				List<ThrustCurveMotor> motors = new ArrayList<ThrustCurveMotor>();
+				try (InputStream is = new FileInputStream(file)) {
+					for (ThrustCurveMotor.Builder builder : loader.load(is, file.getName())) {
+						motors.add(builder.build());
+					}
+				} catch (Exception e) {
+					log.warn("Unable to read motor file " + file + ": " + e, e);
+					continue;
+				}
+				db.addMotors(motors);
+			}
+		}
+	}
+
+
+	/**
+	 * Provides the component preset database, which is empty if the compiled preset
+	 * catalog is not available.
+	 */
+	private static class ComponentPresetDaoProvider implements Provider<ComponentPresetDao> {
+		@Override
+		public ComponentPresetDao get() {
+			ComponentPresetDatabase db = new ComponentPresetDatabase();
+			// The catalog is built with the Swing module, check for it to avoid logging an error
+			FileIterator iterator = null;
+			if (ClassLoader.getSystemResource(PRESET_CATALOG_DIRECTORY) != null) {
+				iterator = DirectoryIterator.findDirectory(PRESET_CATALOG_DIRECTORY, new SimpleFileFilter("", false, "bin"));
+			}
+			if (iterator == null) {
+				log.info("No compiled component preset catalog found, component presets are not available");
+				return db;
+			}
+			try {
+				while (iterator.hasNext()) {
+					Pair<File, InputStream> f = iterator.next();
+					try (InputStream is = f.getV()) {
+						db.addAll(ComponentPresetDatabaseFile.read(is));
+					}
+				}
+			} catch (IOException e) {
+				throw new BugException("Unable to read the component preset catalog", e);
+			} finally {
+				iterator.close();
+			}
+			return db;
+		}
+	}
+}
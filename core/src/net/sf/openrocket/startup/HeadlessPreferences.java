@@ -0,0 +1,195 @@
+package net.sf.openrocket.startup;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.prefs.AbstractPreferences;
+
+import net.sf.openrocket.material.Material;
+import net.sf.openrocket.preset.ComponentPreset;
+
+/**
+ * Preferences for running OpenRocket without a user interface.  The preferences are kept
+ * in memory only, so every run starts from the default values and the preferences of an
+ * interactive user on the same machine are neither read nor changed.
+ */
+public class HeadlessPreferences extends Preferences {
+
+	private final java.util.prefs.Preferences root = new MemoryPreferences(null, "");
+	private final Set<Material> userMaterials = new HashSet<Material>();
+	private final Map<ComponentPreset.Type, Set<String>> favorites = new HashMap<ComponentPreset.Type, Set<String>>();
+
+	@Override
+	public boolean getBoolean(String key, boolean defaultValue) {
+		return root.getBoolean(key, defaultValue);
+	}
+
+	@Override
+	public void putBoolean(String key, boolean value) {
+		root.putBoolean(key, value);
+	}
+
+	@Override
+	public int getInt(String key, int defaultValue) {
+		return root.getInt(key, defaultValue);
+	}
+
+	@Override
+	public void putInt(String key, int value) {
+		root.putInt(key, value);
+	}
+
+	@Override
+	public double getDouble(String key, double defaultValue) {
+		return root.getDouble(key, defaultValue);
+	}
+
+	@Override
+	public void putDouble(String key, double value) {
+		root.putDouble(key, value);
+	}
+
+	@Override
+	public String getString(String key, String defaultValue) {
+		return root.get(key, defaultValue);
+	}
+
+	@Override
+	public void putString(String key, String value) {
+		if (value == null) {
+			root.remove(key);
+		} else {
+			root.put(key, value);
+		}
+	}
+
+	@Override
+	public String getString(String directory, String key, String defaultValue) {
+		return root.node(directory).get(key, defaultValue);
+	}
+
+	@Override
+	public void putString(String directory, String key, String value) {
+		java.util.prefs.Preferences p = root.node(directory);
+		if (value == null) {
+			p.remove(key);
+		} else {
+			p.put(key, value);
+		}
+	}
+
+	@Override
+	public java.util.prefs.Preferences getNode(String nodeName) {
+		return root.node(nodeName);
+	}
+
+	@Override
+	public java.util.prefs.Preferences getPreferences() {
+		return root;
+	}
+
+	@Override
+	public synchronized void addUserMaterial(Material m) {
+		userMaterials.add(m);
+	}
+
+	@Override
+	public synchronized Set<Material> getUserMaterials() {
+		return new HashSet<Material>(userMaterials);
+	}
+
+	@Override
+	public synchronized void removeUserMaterial(Material m) {
+		userMaterials.remove(m);
+	}
+
+	@Override
+	public synchronized void setComponentFavorite(ComponentPreset preset, ComponentPreset.Type type, boolean favorite) {
+		Set<String> set = favorites.get(type);
+		if (set == null) {
+			set = new HashSet<String>();
+			favorites.put(type, set);
+		}
+		if (favorite) {
+			set.add(preset.preferenceKey());
+		} else {
+			set.remove(preset.preferenceKey());
+		}
+	}
+
+	@Override
+	public synchronized Set<String> getComponentFavorites(ComponentPreset.Type type) {
+		Set<String> set = favorites.get(type);
+		if (set == null) {
+			return Collections.emptySet();
+		}
+		return new HashSet<String>(set);
+	}
+
+
+	/**
+	 * A preference node stored in memory only.  AbstractPreferences handles the locking.
+	 */
+	private static class MemoryPreferences extends AbstractPreferences {
+
+		private final Map<String, String> values = new HashMap<String, String>();
+		private final Map<String, MemoryPreferences> children = new HashMap<String, MemoryPreferences>();
+
+		MemoryPreferences(MemoryPreferences parent, String name) {
+			super(parent, name);
+		}
+
+		@Override
+		protected void putSpi(String key, String value) {
+			values.put(key, value);
+		}
+
+		@Override
+		protected String getSpi(String key) {
+			return values.get(key);
+		}
+
+		@Override
+		protected void removeSpi(String key) {
+			values.remove(key);
+		}
+
+		@Override
+		protected void removeNodeSpi() {
+			values.clear();
+			children.clear();
+		}
+
+		@Override
+		protected String[] keysSpi() {
+			return values.keySet().toArray(new String[0]);
+		}
+
+		@Override
+		protected String[] childrenNamesSpi() {
+			return children.keySet().toArray(new String[0]);
+		}
+
+		@Override
+		protected AbstractPreferences childSpi(String name) {
+			MemoryPreferences child = children.get(name);
+			if (child == null) {
+				child = new MemoryPreferences(this, name);
+				children.put(name, child);
+			}
+			return child;
+		}
+
+		@Override
+		protected void syncSpi() {
+			// Nothing to synchronize with
+		}
+
+		@Override
+		protected void flushSpi() {
+			// Nothing to flush
+		}
+	}
+}
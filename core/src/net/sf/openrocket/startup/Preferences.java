@@ -115,6 +115,7 @@ public abstract class Preferences implements ChangeSource {
 	public static final String LAUNCH_PRESSURE = "LaunchPressure";
 	public static final String LAUNCH_USE_ISA = "LaunchUseISA";
 	public static final String SIMULATION_TIME_STEP = "SimulationTimeStep";
+	public static final String SIMULATION_BRANCH_THREADS = "SimulationBranchThreads";
 	public static final String GEODETIC_COMPUTATION = "GeodeticComputationStrategy";
 
 	public static final String UI_THEME = "UITheme";
@@ -570,6 +571,21 @@ public abstract class Preferences implements ChangeSource {
 		fireChangeEvent();
 	}
 	
+	/**
+	 * Return the number of threads simulating the separated branches of a simulation, by default 1.
+	 */
+	public int getBranchThreadCount() {
+		return Math.max(1, this.getInt(SIMULATION_BRANCH_THREADS, 1));
+	}
+	
+	public void setBranchThreadCount(int branchThreadCount) {
+		branchThreadCount = Math.max(1, branchThreadCount);
+		if (this.getInt(SIMULATION_BRANCH_THREADS, 1) == branchThreadCount)
+			return;
+		this.putInt(SIMULATION_BRANCH_THREADS, branchThreadCount);
+		fireChangeEvent();
+	}
+	
 	/**
 	 * Enable/Disable the auto-opening of the last edited design file on startup.
 	 */
@@ -4,6 +4,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
 import net.sf.openrocket.logging.WarningSet;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -13,9 +17,11 @@ import com.google.inject.Injector;
 import com.google.inject.Module;
 
 import net.sf.openrocket.ServicesForTesting;
+import net.sf.openrocket.aerodynamics.barrowman.RocketComponentCalc;
 import net.sf.openrocket.plugin.PluginModule;
 import net.sf.openrocket.rocketcomponent.AxialStage;
 import net.sf.openrocket.rocketcomponent.BodyTube;
+import net.sf.openrocket.rocketcomponent.ExternalComponent;
 import net.sf.openrocket.rocketcomponent.FinSet;
 import net.sf.openrocket.rocketcomponent.FlightConfiguration;
 import net.sf.openrocket.rocketcomponent.NoseCone;
@@ -23,8 +29,10 @@ import net.sf.openrocket.rocketcomponent.ParallelStage;
 import net.sf.openrocket.rocketcomponent.PodSet;
 import net.sf.openrocket.rocketcomponent.RailButton;
 import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.rocketcomponent.RocketComponent;
 import net.sf.openrocket.rocketcomponent.Transition;
 import net.sf.openrocket.rocketcomponent.TrapezoidFinSet;
+import net.sf.openrocket.rocketcomponent.position.AxialMethod;
 import net.sf.openrocket.startup.Application;
 import net.sf.openrocket.util.Coordinate;
 import net.sf.openrocket.util.MathUtil;
@@ -635,5 +643,321 @@ public class BarrowmanCalculatorTest {
 		final double zeroCD = zeroForces.getCD();
 		assertEquals("drag at mach 0 should equal drag at mach MathUtil.EPSILON", epsCD, zeroCD, EPSILON);
 	}
+
+	/**
+	 * Changing the cant of a fin set rebuilds only the calculator of that fin set.
+	 */
+	@Test
+	public void testCantChangeRebuildsOnlyFinSet() {
+		final Rocket rocket = TestRockets.makeEstesAlphaIII();
+		final FlightConfiguration config = rocket.getSelectedConfiguration();
+		final BarrowmanCalculator calc = new BarrowmanCalculator();
+		final FlightConditions conditions = new FlightConditions(config);
+		conditions.setAOA(Math.toRadians(5));
+		final WarningSet warnings = new WarningSet();
+
+		FinSet fins = null;
+		RocketComponent body = null;
+		for (RocketComponent c : rocket) {
+			if (c instanceof FinSet) {
+				fins = (FinSet) c;
+			} else if (c instanceof BodyTube) {
+				body = c;
+			}
+		}
+		calc.getAerodynamicForces(config, conditions, warnings);
+		final RocketComponentCalc finCalc = calc.getComponentCalc(fins);
+		final RocketComponentCalc bodyCalc = calc.getComponentCalc(body);
+
+		final int globalModID = rocket.getGlobalAerodynamicModID();
+		final int aeroModID = rocket.getAerodynamicModID();
+		fins.setCantAngle(Math.toRadians(2));
+		assertEquals(globalModID, rocket.getGlobalAerodynamicModID());
+		assertTrue(aeroModID != rocket.getAerodynamicModID());
+
+		final AerodynamicForces forces = calc.getAerodynamicForces(config, conditions, warnings);
+		assertTrue(finCalc != calc.getComponentCalc(fins));
+		assertTrue(bodyCalc == calc.getComponentCalc(body));
+
+		// Same result as a calculator built from scratch
+		final AerodynamicForces expected = new BarrowmanCalculator().getAerodynamicForces(config, conditions, warnings);
+		assertEquals(expected.getCroll(), forces.getCroll(), EPSILON);
+		assertEquals(expected.getCrollForce(), forces.getCrollForce(), EPSILON);
+		assertTrue(Math.abs(forces.getCrollForce()) > EPSILON);
+
+		// Other aerodynamic changes still void the whole cache
+		((BodyTube) body).setFinish(ExternalComponent.Finish.ROUGH);
+		calc.getAerodynamicForces(config, conditions, warnings);
+		assertTrue(bodyCalc != calc.getComponentCalc(body));
+	}
+
+	/**
+	 * A cant set through the control surface state acts like the cant of the component
+	 * without modifying the rocket.
+	 */
+	@Test
+	public void testControlSurfaceCantOverride() {
+		final Rocket rocket = TestRockets.makeEstesAlphaIII();
+		final FlightConfiguration config = rocket.getSelectedConfiguration();
+		final BarrowmanCalculator calc = new BarrowmanCalculator();
+		final FlightConditions conditions = new FlightConditions(config);
+		conditions.setAOA(Math.toRadians(5));
+		final WarningSet warnings = new WarningSet();
+
+		FinSet fins = null;
+		for (RocketComponent c : rocket) {
+			if (c instanceof FinSet) {
+				fins = (FinSet) c;
+			}
+		}
+
+		final ControlSurfaceState controlSurfaces = new ControlSurfaceState();
+		assertEquals(FinSet.MAX_CANT_RADIANS, controlSurfaces.setCantAngle(fins, Math.toRadians(30)), 0);
+		controlSurfaces.setCantAngle(fins, Math.toRadians(2));
+		conditions.setControlSurfaceState(controlSurfaces);
+
+		final int modID = rocket.getModID();
+		final AerodynamicForces actuated = calc.getAerodynamicForces(config, conditions, warnings);
+		assertEquals(modID, rocket.getModID());
+		assertEquals(0, fins.getCantAngle(), 0);
+
+		conditions.setControlSurfaceState(null);
+		fins.setCantAngle(Math.toRadians(2));
+		final AerodynamicForces canted = calc.getAerodynamicForces(config, conditions, warnings);
+		// The component cant also displaces the fin roots slightly, which the override does not
+		assertEquals(canted.getCrollForce(), actuated.getCrollForce(), 1e-3 * Math.abs(canted.getCrollForce()));
+		assertTrue(Math.abs(actuated.getCrollForce()) > EPSILON);
+
+		// Removing the override reverts to the cant of the component
+		controlSurfaces.clearCantAngle(fins.getID());
+		conditions.setControlSurfaceState(controlSurfaces);
+		assertEquals(canted.getCrollForce(), calc.getAerodynamicForces(config, conditions, warnings).getCrollForce(), EPSILON);
+	}
+
+	/**
+	 * New instances share the compiled model, also for copies of the rocket.
+	 */
+	@Test
+	public void testNewInstanceSharesModel() {
+		final Rocket rocket = TestRockets.makeEstesAlphaIII();
+		final FlightConfiguration config = rocket.getSelectedConfiguration();
+		final BarrowmanCalculator calc = new BarrowmanCalculator();
+		final FlightConditions conditions = new FlightConditions(config);
+		conditions.setAOA(Math.toRadians(5));
+		conditions.setRollRate(3);
+
+		FinSet fins = null;
+		for (RocketComponent c : rocket) {
+			if (c instanceof FinSet) {
+				fins = (FinSet) c;
+			}
+		}
+		final AerodynamicForces expected = calc.getAerodynamicForces(config, conditions, null);
+		final RocketComponentCalc finCalc = calc.getComponentCalc(fins);
+
+		final Rocket copy = rocket.copyWithOriginalID();
+		final FlightConfiguration copyConfig = copy.getSelectedConfiguration();
+		final BarrowmanCalculator instance = calc.newInstance();
+		final FlightConditions copyConditions = new FlightConditions(copyConfig);
+		copyConditions.setAOA(Math.toRadians(5));
+		copyConditions.setRollRate(3);
+		final AerodynamicForces forces = instance.getAerodynamicForces(copyConfig, copyConditions, null);
+		assertTrue(finCalc == instance.getComponentCalc(fins));
+		assertEquals(expected, forces);
+
+		// Changing the copy does not affect the original calculator
+		((FinSet) copy.findComponent(fins.getID())).setCantAngle(Math.toRadians(3));
+		instance.getAerodynamicForces(copyConfig, new FlightConditions(copyConfig), null);
+		assertTrue(finCalc != instance.getComponentCalc(fins));
+		assertTrue(finCalc == calc.getComponentCalc(fins));
+		assertEquals(expected, calc.getAerodynamicForces(config, conditions, null));
+	}
+
+	/**
+	 * Instances sharing a model give the same results concurrently as sequentially.
+	 */
+	@Test
+	public void testConcurrentInstances() throws Exception {
+		final Rocket rocket = TestRockets.makeFalcon9Heavy();
+		final BarrowmanCalculator calc = new BarrowmanCalculator();
+		final int threadCount = 4;
+		final int sampleCount = 200;
+
+		final AerodynamicForces[] expected = new AerodynamicForces[sampleCount];
+		final FlightConfiguration config = rocket.getSelectedConfiguration();
+		for (int i = 0; i < sampleCount; i++) {
+			expected[i] = calc.getAerodynamicForces(config, createConditions(config, i), null);
+		}
+
+		final AerodynamicForces[][] results = new AerodynamicForces[threadCount][sampleCount];
+		Thread[] threads = new Thread[threadCount];
+		for (int t = 0; t < threadCount; t++) {
+			final int thread = t;
+			final Rocket copy = rocket.copyWithOriginalID();
+			final BarrowmanCalculator instance = calc.newInstance();
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					final FlightConfiguration copyConfig = copy.getSelectedConfiguration();
+					for (int i = 0; i < sampleCount; i++) {
+						results[thread][i] = instance.getAerodynamicForces(copyConfig, createConditions(copyConfig, i), null);
+					}
+				}
+			};
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		for (int t = 0; t < threadCount; t++) {
+			for (int i = 0; i < sampleCount; i++) {
+				assertEquals(expected[i], results[t][i]);
+			}
+		}
+	}
+
+	/**
+	 * The symmetry-reduced, coarse-to-fine worst CP search finds the same CP as a full scan,
+	 * in the calling thread and in a fork-join pool.
+	 */
+	@Test
+	public void testWorstCPMatchesFullScan() {
+		final List<Rocket> rockets = new ArrayList<Rocket>();
+		rockets.add(TestRockets.makeEstesAlphaIII());
+		for (int finCount : new int[] { 1, 2, 4 }) {
+			final Rocket rocket = TestRockets.makeEstesAlphaIII();
+			for (RocketComponent c : rocket) {
+				if (c instanceof FinSet) {
+					((FinSet) c).setFinCount(finCount);
+					((FinSet) c).setBaseRotation(Math.toRadians(25));
+				}
+			}
+			rockets.add(rocket);
+		}
+		rockets.add(TestRockets.makeEstesAlphaIIIWithPods());
+		rockets.add(TestRockets.makeEndPlateRocket());
+		rockets.add(TestRockets.makeFalcon9Heavy());
+
+		final BarrowmanCalculator fullScan = new BarrowmanCalculator() {
+			@Override
+			protected int getWorstCPSector(FlightConfiguration configuration) {
+				return DIVISIONS;
+			}
+		};
+		final ForkJoinPool pool = new ForkJoinPool(3);
+		try {
+			for (Rocket rocket : rockets) {
+				final FlightConfiguration config = rocket.getSelectedConfiguration();
+				for (double aoa : new double[] { 0, Math.toRadians(8) }) {
+					final FlightConditions conditions = new FlightConditions(config);
+					conditions.setMach(0.3);
+					conditions.setAOA(aoa);
+					final Coordinate expected = fullScan.getWorstCP(config, conditions, null);
+
+					final BarrowmanCalculator calc = new BarrowmanCalculator();
+					final Coordinate sequential = calc.getWorstCP(config, conditions, null);
+					final Coordinate parallel = calc.getWorstCP(config, conditions, null, pool);
+					final String name = rocket.getName() + " aoa=" + aoa;
+					assertEquals(name, expected.x, sequential.x, 1e-12);
+					assertEquals(name, expected.weight, sequential.weight, 1e-9);
+					assertEquals(name, expected.x, parallel.x, 1e-12);
+					assertEquals(name, sequential.x, calc.getCP(config, conditions, null).x, 1e-12);
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * With two fin sets of different size, fin count and orientation, neither symmetric, the
+	 * worst CP search still finds the CP of a full scan.
+	 */
+	@Test
+	public void testWorstCPMismatchedFinSets() {
+		final Rocket rocket = TestRockets.makeEstesAlphaIII();
+		BodyTube body = null;
+		for (RocketComponent c : rocket) {
+			if (c instanceof FinSet) {
+				((FinSet) c).setFinCount(2);
+				((FinSet) c).setBaseRotation(Math.toRadians(10));
+			} else if (c instanceof BodyTube) {
+				body = (BodyTube) c;
+			}
+		}
+		final TrapezoidFinSet canards = new TrapezoidFinSet(1, 0.03, 0.02, 0.01, 0.04);
+		canards.setBaseRotation(Math.toRadians(70));
+		canards.setAxialMethod(AxialMethod.TOP);
+		canards.setAxialOffset(0.02);
+		body.addChild(canards);
+
+		final BarrowmanCalculator fullScan = new BarrowmanCalculator() {
+			@Override
+			protected int getWorstCPSector(FlightConfiguration configuration) {
+				return DIVISIONS;
+			}
+		};
+		final int[] calculations = new int[1];
+		final BarrowmanCalculator calc = new BarrowmanCalculator() {
+			@Override
+			public Coordinate getCP(FlightConfiguration configuration, FlightConditions conditions, WarningSet warnings) {
+				calculations[0]++;
+				return super.getCP(configuration, conditions, warnings);
+			}
+		};
+		final FlightConfiguration config = rocket.getSelectedConfiguration();
+		for (double aoa : new double[] { 0, Math.toRadians(3), Math.toRadians(12) }) {
+			calculations[0] = 0;
+			final FlightConditions conditions = new FlightConditions(config);
+			conditions.setMach(0.3);
+			conditions.setAOA(aoa);
+			final Coordinate expected = fullScan.getWorstCP(config, conditions, null);
+			final double expectedTheta = conditions.getTheta();
+			final Coordinate actual = calc.getWorstCP(config, conditions, null);
+			assertEquals("aoa=" + aoa, expected.x, actual.x, 1e-12);
+			assertEquals("aoa=" + aoa, expectedTheta, conditions.getTheta(), 1e-12);
+			// The coarse scan found a single minimum, the sector was not calculated in full
+			assertTrue("aoa=" + aoa, calculations[0] < AbstractAerodynamicCalculator.DIVISIONS / 4);
+		}
+	}
+
+	/**
+	 * A CP with several minima in the sector, the foremost narrower than the coarse scan, is
+	 * found by calculating the whole sector.
+	 */
+	@Test
+	public void testWorstCPMultimodalFallsBackToFullSector() {
+		final BarrowmanCalculator calc = new BarrowmanCalculator() {
+			@Override
+			protected int getWorstCPSector(FlightConfiguration configuration) {
+				return DIVISIONS / 2;
+			}
+			
+			@Override
+			public Coordinate getCP(FlightConfiguration configuration, FlightConditions conditions, WarningSet warnings) {
+				final double theta = conditions.getTheta();
+				final double degrees = Math.toDegrees(theta);
+				final double x = 1 - 0.1 * MathUtil.pow2(Math.sin(2 * theta)) * ((degrees < 90) ? 1 : 0.9)
+						- 0.5 * Math.exp(-MathUtil.pow2(degrees - 135));
+				return new Coordinate(x, 0, 0, 1);
+			}
+		};
+		final FlightConfiguration config = TestRockets.makeEstesAlphaIII().getSelectedConfiguration();
+		final FlightConditions conditions = new FlightConditions(config);
+		final Coordinate cp = calc.getWorstCP(config, conditions, null);
+		assertEquals(Math.toRadians(135), conditions.getTheta(), 1e-12);
+		assertEquals(0.41, cp.x, 1e-9);
+	}
+
+	private static FlightConditions createConditions(FlightConfiguration config, int sample) {
+		final FlightConditions conditions = new FlightConditions(config);
+		conditions.setMach(0.01 + 1.5 * sample / 200.0);
+		conditions.setAOA(Math.toRadians(sample % 20));
+		conditions.setRollRate(sample % 7 - 3);
+		conditions.setPitchRate(0.1 * (sample % 5));
+		return conditions;
+	}
 }
-	
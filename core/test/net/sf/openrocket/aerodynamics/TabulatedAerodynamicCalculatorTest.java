@@ -0,0 +1,141 @@
+package net.sf.openrocket.aerodynamics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import net.sf.openrocket.aerodynamics.TabulatedAerodynamicsReport.Coefficient;
+import net.sf.openrocket.rocketcomponent.FinSet;
+import net.sf.openrocket.rocketcomponent.FlightConfiguration;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.rocketcomponent.RocketComponent;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+import net.sf.openrocket.util.TestRockets;
+
+public class TabulatedAerodynamicCalculatorTest extends BaseTestCase {
+
+	private static final double EPSILON = 1e-9;
+
+	private static FlightConditions createConditions(FlightConfiguration config, double mach, double aoa) {
+		FlightConditions conditions = new FlightConditions(config);
+		conditions.setMach(mach);
+		conditions.setAOA(aoa);
+		return conditions;
+	}
+
+	/**
+	 * Test that the forces on a grid point are those of the direct calculation.
+	 */
+	@Test
+	public void testGridPointMatchesDirect() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		FlightConfiguration config = rocket.getSelectedConfiguration();
+		FlightConditions conditions = createConditions(config, 0.3, Math.toRadians(2));
+
+		AerodynamicForces direct = new BarrowmanCalculator().getAerodynamicForces(config, conditions, null);
+		AerodynamicForces tabulated = new TabulatedAerodynamicCalculator().getAerodynamicForces(config, conditions, null);
+
+		assertEquals(direct.getCN(), tabulated.getCN(), EPSILON);
+		assertEquals(direct.getCm(), tabulated.getCm(), EPSILON);
+		assertEquals(direct.getCNa(), tabulated.getCNa(), EPSILON);
+		assertEquals(direct.getCP().x, tabulated.getCP().x, EPSILON);
+		assertEquals(direct.getCD(), tabulated.getCD(), EPSILON);
+		assertEquals(direct.getCDaxial(), tabulated.getCDaxial(), EPSILON);
+	}
+
+	/**
+	 * Test that the roll moments on a grid point follow the roll rate and the actuated
+	 * control surfaces exactly.
+	 */
+	@Test
+	public void testRollMatchesDirect() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		FlightConfiguration config = rocket.getSelectedConfiguration();
+		FinSet fins = null;
+		for (RocketComponent c : rocket) {
+			if (c instanceof FinSet) {
+				fins = (FinSet) c;
+			}
+		}
+		FlightConditions conditions = createConditions(config, 0.3, Math.toRadians(2));
+		conditions.setRollRate(12);
+		ControlSurfaceState controlSurfaces = new ControlSurfaceState();
+		controlSurfaces.setCantAngle(fins, Math.toRadians(4));
+		conditions.setControlSurfaceState(controlSurfaces);
+
+		AerodynamicForces direct = new BarrowmanCalculator().getAerodynamicForces(config, conditions, null);
+		AerodynamicForces tabulated = new TabulatedAerodynamicCalculator().getAerodynamicForces(config, conditions, null);
+
+		assertTrue(Math.abs(direct.getCrollForce()) > EPSILON);
+		assertEquals(direct.getCroll(), tabulated.getCroll(), EPSILON);
+		assertEquals(direct.getCrollForce(), tabulated.getCrollForce(), EPSILON);
+		assertEquals(direct.getCrollDamp(), tabulated.getCrollDamp(), EPSILON);
+	}
+
+	/**
+	 * Test that a new instance shares the table with copies of the rocket, and follows the
+	 * fin cant of the copy.
+	 */
+	@Test
+	public void testNewInstanceOnCopy() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		FlightConfiguration config = rocket.getSelectedConfiguration();
+		TabulatedAerodynamicCalculator calculator = new TabulatedAerodynamicCalculator();
+		FlightConditions conditions = createConditions(config, 0.43, Math.toRadians(4.5));
+		conditions.setRollRate(5);
+		AerodynamicForces expected = calculator.getAerodynamicForces(config, conditions, null);
+
+		Rocket copy = rocket.copyWithOriginalID();
+		FlightConfiguration copyConfig = copy.getSelectedConfiguration();
+		FlightConditions copyConditions = createConditions(copyConfig, 0.43, Math.toRadians(4.5));
+		copyConditions.setRollRate(5);
+		TabulatedAerodynamicCalculator instance = calculator.newInstance();
+		assertEquals(expected, instance.getAerodynamicForces(copyConfig, copyConditions, null));
+
+		for (RocketComponent c : copy) {
+			if (c instanceof FinSet) {
+				((FinSet) c).setCantAngle(Math.toRadians(3));
+			}
+		}
+		AerodynamicForces canted = instance.getAerodynamicForces(copyConfig, copyConditions, null);
+		AerodynamicForces fresh = new TabulatedAerodynamicCalculator().getAerodynamicForces(copyConfig, copyConditions, null);
+		assertTrue(Math.abs(canted.getCrollForce()) > EPSILON);
+		assertEquals(fresh.getCroll(), canted.getCroll(), EPSILON);
+		assertEquals(expected, calculator.getAerodynamicForces(config, conditions, null));
+	}
+
+	/**
+	 * Test that flight conditions beyond the table are calculated directly.
+	 */
+	@Test
+	public void testBeyondTableIsDirect() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		FlightConfiguration config = rocket.getSelectedConfiguration();
+		TabulatedAerodynamicCalculator calculator = new TabulatedAerodynamicCalculator();
+		FlightConditions conditions = createConditions(config, calculator.getMaxMach() + 0.37, Math.toRadians(5));
+
+		AerodynamicForces direct = new BarrowmanCalculator().getAerodynamicForces(config, conditions, null);
+		assertEquals(direct, calculator.getAerodynamicForces(config, conditions, null));
+	}
+
+	/**
+	 * Test the accuracy of the interpolated forces between grid points.
+	 */
+	@Test
+	public void testInterpolationAccuracy() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		FlightConfiguration config = rocket.getSelectedConfiguration();
+
+		TabulatedAerodynamicsReport report = TabulatedAerodynamicsReport.compare(config,
+				new TabulatedAerodynamicCalculator(), 2000, Math.toRadians(15), 1234);
+
+		assertEquals(2000, report.getSampleCount());
+		assertTrue(report.toString(), report.getRelativeMaxError(Coefficient.CN) < 0.02);
+		assertTrue(report.toString(), report.getRelativeMaxError(Coefficient.CM) < 0.02);
+		assertTrue(report.toString(), report.getRelativeMaxError(Coefficient.CPX) < 0.01);
+		assertTrue(report.toString(), report.getRelativeMaxError(Coefficient.CROLL) < 0.02);
+		assertTrue(report.toString(), report.getRMSError(Coefficient.CD) < 0.05);
+		assertTrue(report.toString(), report.getSpeedup() > 1);
+	}
+}
@@ -0,0 +1,92 @@
+package net.sf.openrocket.aerodynamics;
+
+import java.util.concurrent.ForkJoinPool;
+
+import net.sf.openrocket.rocketcomponent.FinSet;
+import net.sf.openrocket.rocketcomponent.FlightConfiguration;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.rocketcomponent.RocketComponent;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+import net.sf.openrocket.util.Coordinate;
+import net.sf.openrocket.util.TestRockets;
+
+/**
+ * Microbenchmark of the worst CP search on multi-fin, multi-stage and pod designs.
+ * Compares the full scan over all roll angles to the symmetry-reduced coarse-to-fine
+ * search, both in the calling thread and in a fork-join pool, and reports the largest
+ * difference of the CP position from the full scan.
+ * <p>
+ * Run with <code>java -cp ... net.sf.openrocket.aerodynamics.WorstCPBenchmark [rounds]</code>.
+ */
+public class WorstCPBenchmark {
+
+	private static final int WARMUP_ROUNDS = 50;
+
+	private static final BarrowmanCalculator FULL_SCAN = new BarrowmanCalculator() {
+		@Override
+		protected int getWorstCPSector(FlightConfiguration configuration) {
+			return DIVISIONS;
+		}
+	};
+
+	private static void run(String name, Rocket rocket, ForkJoinPool pool, int rounds) {
+		FlightConfiguration config = rocket.getSelectedConfiguration();
+		FlightConditions conditions = new FlightConditions(config);
+		conditions.setMach(0.3);
+		conditions.setAOA(Math.toRadians(5));
+		BarrowmanCalculator calculator = new BarrowmanCalculator();
+
+		Coordinate expected = FULL_SCAN.getWorstCP(config, conditions, null);
+		double error = Math.max(Math.abs(calculator.getWorstCP(config, conditions, null).x - expected.x),
+				Math.abs(calculator.getWorstCP(config, conditions, null, pool).x - expected.x));
+
+		measure(FULL_SCAN, config, conditions, null, WARMUP_ROUNDS);
+		double full = measure(FULL_SCAN, config, conditions, null, rounds);
+		measure(calculator, config, conditions, null, WARMUP_ROUNDS);
+		double sequential = measure(calculator, config, conditions, null, rounds);
+		measure(calculator, config, conditions, pool, WARMUP_ROUNDS);
+		double parallel = measure(calculator, config, conditions, pool, rounds);
+
+		System.out.printf("%-20s full %9.1f us   search %9.1f us (%5.1fx)   pool %9.1f us (%5.1fx)   error %.2g%n",
+				name, full, sequential, full / sequential, parallel, full / parallel, error);
+	}
+
+	/**
+	 * Return the average time of a worst CP search in microseconds.
+	 */
+	private static double measure(BarrowmanCalculator calculator, FlightConfiguration config,
+			FlightConditions conditions, ForkJoinPool pool, int rounds) {
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			calculator.getWorstCP(config, conditions, null, pool);
+		}
+		return (System.nanoTime() - start) / 1000.0 / rounds;
+	}
+
+	private static Rocket withFinCount(Rocket rocket, int finCount) {
+		for (RocketComponent c : rocket) {
+			if (c instanceof FinSet) {
+				((FinSet) c).setFinCount(finCount);
+			}
+		}
+		return rocket;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int rounds = (args.length > 0) ? Integer.parseInt(args[0]) : 200;
+		BaseTestCase.setUp();
+
+		ForkJoinPool pool = new ForkJoinPool();
+		try {
+			run("Alpha III, 2 fins", withFinCount(TestRockets.makeEstesAlphaIII(), 2), pool, rounds);
+			run("Alpha III, 3 fins", TestRockets.makeEstesAlphaIII(), pool, rounds);
+			run("Alpha III, 4 fins", withFinCount(TestRockets.makeEstesAlphaIII(), 4), pool, rounds);
+			run("Alpha III, pods", TestRockets.makeEstesAlphaIIIWithPods(), pool, rounds);
+			run("End plates", TestRockets.makeEndPlateRocket(), pool, rounds);
+			run("Beta", TestRockets.makeBeta(), pool, rounds);
+			run("Falcon 9 Heavy", TestRockets.makeFalcon9Heavy(), pool, rounds);
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
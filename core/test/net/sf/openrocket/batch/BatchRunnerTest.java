@@ -0,0 +1,262 @@
+package net.sf.openrocket.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.inject.Guice;
+
+import net.sf.openrocket.document.OpenRocketDocument;
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.file.GeneralRocketLoader;
+import net.sf.openrocket.plugin.PluginModule;
+import net.sf.openrocket.rocketcomponent.NoseCone;
+import net.sf.openrocket.startup.Application;
+import net.sf.openrocket.startup.HeadlessModule;
+
+public class BatchRunnerTest {
+
+	private static final String ROCKET = "/net/sf/openrocket/file/rasaero/export/01.One-stage.ork";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+	private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+	@BeforeClass
+	public static void setup() {
+		Application.setInjector(Guice.createInjector(new HeadlessModule(), new PluginModule()));
+	}
+
+	private BatchRunner newRunner() {
+		return new BatchRunner(new PrintStream(out, true), new PrintStream(err, true));
+	}
+
+	private File copyRocket() throws IOException {
+		File file = new File(folder.getRoot(), "rocket.ork");
+		try (InputStream is = BatchRunnerTest.class.getResourceAsStream(ROCKET)) {
+			Files.copy(is, file.toPath());
+		}
+		return file;
+	}
+
+	@Test
+	public void testSimulations() throws Exception {
+		File rocket = copyRocket();
+		File output = new File(folder.getRoot(), "output");
+		File csv = new File(folder.getRoot(), "csv");
+		File summary = new File(folder.getRoot(), "summary.json");
+
+		BatchRunner runner = newRunner();
+		assertTrue(runner.parseArguments(new String[] { "--threads", "2", "--branch-threads", "2", "--output", output.getPath(),
+				"--csv", csv.getPath(), "--summary", summary.getPath(), rocket.getPath() }));
+		assertEquals(err.toString(), BatchRunner.EXIT_OK, runner.run());
+
+		JsonArray results;
+		try (JsonReader reader = Json.createReader(new FileInputStream(summary))) {
+			results = reader.readArray();
+		}
+		assertEquals(2, results.size());
+		for (int i = 0; i < results.size(); i++) {
+			JsonObject result = results.getJsonObject(i);
+			assertEquals("rocket.ork", result.getString("file"));
+			assertEquals(BatchResult.SIMULATION, result.getString("kind"));
+			assertEquals("Simulation " + (i + 1), result.getString("name"));
+			assertEquals(BatchResult.OK, result.getString("status"));
+			assertTrue(result.getJsonNumber("maxAltitude").doubleValue() > 100);
+			assertTrue(new File(csv, "rocket-Simulation_" + (i + 1) + ".csv").isFile());
+		}
+
+		// The saved file contains the flight data
+		OpenRocketDocument document = new GeneralRocketLoader(new File(output, "rocket.ork")).load();
+		for (Simulation s : document.getSimulations()) {
+			assertTrue(s.hasSimulationData());
+			assertTrue(s.getSimulatedData().getBranch(0).getLength() > 10);
+		}
+	}
+
+	@Test
+	public void testSelectedSimulation() throws Exception {
+		File rocket = copyRocket();
+
+		BatchRunner runner = newRunner();
+		assertTrue(runner.parseArguments(new String[] { "--simulation", "Simulation 2", rocket.getPath() }));
+		assertEquals(BatchRunner.EXIT_OK, runner.run());
+		String[] lines = out.toString().trim().split("\r\n");
+		assertEquals(2, lines.length);
+		assertTrue(lines[0].startsWith("file,kind,name,status,message,maxAltitude,"));
+		assertTrue(lines[1].startsWith("rocket.ork,simulation,Simulation 2,ok,,"));
+
+		runner = newRunner();
+		assertTrue(runner.parseArguments(new String[] { "--simulation", "Unknown", rocket.getPath() }));
+		assertEquals(BatchRunner.EXIT_FAILED, runner.run());
+		assertTrue(err.toString().contains("Unknown"));
+	}
+
+	@Test
+	public void testInvalidArguments() {
+		assertFalse(newRunner().parseArguments(new String[0]));
+		assertFalse(newRunner().parseArguments(new String[] { "--unknown", "rocket.ork" }));
+		assertFalse(newRunner().parseArguments(new String[] { "--threads", "none", "rocket.ork" }));
+		assertFalse(newRunner().parseArguments(new String[] { "--branch-threads", "0", "rocket.ork" }));
+		assertFalse(newRunner().parseArguments(new String[] { "--save", "--output", "dir", "rocket.ork" }));
+		assertFalse(newRunner().parseArguments(new String[] { "rocket.ork", "--simulation" }));
+		assertTrue(err.toString().contains("Usage:"));
+
+		BatchRunner runner = newRunner();
+		assertTrue(runner.parseArguments(new String[] { new File(folder.getRoot(), "missing.ork").getPath() }));
+		assertEquals(BatchRunner.EXIT_FAILED, runner.run());
+	}
+
+	/**
+	 * Test an optimization end to end: the optimum is applied to the simulation, which is then
+	 * simulated and saved, and both are reported in the summary.
+	 */
+	@Test
+	public void testOptimization() throws Exception {
+		File rocket = copyRocket();
+		File output = new File(folder.getRoot(), "output");
+		File summary = new File(folder.getRoot(), "summary.json");
+		File spec = new File(folder.getRoot(), "apogee.properties");
+		Properties properties = new Properties();
+		properties.setProperty("simulation", "Simulation 1");
+		properties.setProperty("parameter", "Apogee altitude");
+		properties.setProperty("goal", "maximize");
+		properties.setProperty("modifier.1", "Nose cone/Length : 0.05 : 0.3");
+		properties.setProperty("maxSteps", "3");
+		try (OutputStream os = new FileOutputStream(spec)) {
+			properties.store(os, null);
+		}
+
+		BatchRunner runner = newRunner();
+		assertTrue(runner.parseArguments(new String[] { "--optimize", spec.getPath(), "--simulation", "Simulation 1",
+				"--output", output.getPath(), "--summary", summary.getPath(), rocket.getPath() }));
+		// The optimization services are registered in the sources, which are not on the test classpath
+		Thread thread = Thread.currentThread();
+		ClassLoader loader = thread.getContextClassLoader();
+		try (URLClassLoader services = new URLClassLoader(new URL[] { new File("src").toURI().toURL() }, loader)) {
+			thread.setContextClassLoader(services);
+			assertEquals(err.toString(), BatchRunner.EXIT_OK, runner.run());
+		} finally {
+			thread.setContextClassLoader(loader);
+		}
+
+		JsonArray results;
+		try (JsonReader reader = Json.createReader(new FileInputStream(summary))) {
+			results = reader.readArray();
+		}
+		assertEquals(2, results.size());
+		JsonObject optimization = results.getJsonObject(0);
+		assertEquals(BatchResult.OPTIMIZATION, optimization.getString("kind"));
+		assertEquals("apogee.properties", optimization.getString("name"));
+		assertEquals(optimization.getString("message"), BatchResult.OK, optimization.getString("status"));
+		assertTrue(optimization.getInt("steps") > 0);
+		double length = optimization.getJsonNumber("Nose cone/Length").doubleValue();
+		assertTrue(length >= 0.05 && length <= 0.3);
+		double apogee = optimization.getJsonNumber("parameterValue").doubleValue();
+
+		JsonObject simulation = results.getJsonObject(1);
+		assertEquals("Simulation 1", simulation.getString("name"));
+		assertEquals(BatchResult.OK, simulation.getString("status"));
+		// Every evaluation flies with the seed of the simulation, so the optimum is simulated again exactly
+		assertEquals(apogee, simulation.getJsonNumber("maxAltitude").doubleValue(), apogee * 1e-9);
+
+		OpenRocketDocument document = new GeneralRocketLoader(new File(output, "rocket.ork")).load();
+		NoseCone nose = (NoseCone) document.getRocket().getChild(0).getChild(0);
+		assertEquals(length, nose.getLength(), 1e-9);
+	}
+
+	@Test
+	public void testOptimizationSpec() {
+		Properties properties = new Properties();
+		properties.setProperty("simulation", "Simulation 1");
+		properties.setProperty("parameter", "Apogee altitude");
+		properties.setProperty("goal", "maximize");
+		properties.setProperty("modifier.2", "Body tube/Length");
+		properties.setProperty("modifier.1", "Nose cone/Length : 0.05 : 0.2");
+		OptimizationSpec spec = new OptimizationSpec("apogee", properties);
+		assertEquals("Simulation 1", spec.getSimulationName());
+		assertEquals("Apogee altitude", spec.getParameterName());
+		assertEquals(2, spec.getModifiers().size());
+		assertEquals("Nose cone/Length : 0.05 : 0.2", spec.getModifiers().get(0));
+		assertFalse(spec.isSurrogate());
+
+		properties.setProperty("goal", "150");
+		new OptimizationSpec("seek", properties);
+
+		assertInvalid(properties, "goal", "highest");
+		assertInvalid(properties, "modifier.1", "Nose cone/Length : 0.2 : 0.05");
+		assertInvalid(properties, "modifier.1", "Nose cone/Length : 0.05");
+		assertInvalid(properties, "maxSteps", "0");
+		properties.remove("simulation");
+		try {
+			new OptimizationSpec("missing", properties);
+			fail("Missing simulation accepted");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+	}
+
+	private static void assertInvalid(Properties properties, String key, String value) {
+		Properties p = new Properties();
+		p.putAll(properties);
+		p.setProperty(key, value);
+		try {
+			new OptimizationSpec("invalid", p);
+			fail("Invalid " + key + " accepted: " + value);
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void testResultCSV() throws IOException {
+		BatchResult first = new BatchResult("a.ork", BatchResult.SIMULATION, "Simulation 1");
+		first.put("maxAltitude", 100.5);
+		BatchResult second = new BatchResult("b.ork", BatchResult.OPTIMIZATION, "spec, with comma");
+		second.setFailed("No \"parameter\"");
+		second.put("steps", 3);
+
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		BatchResult.writeCSV(Arrays.asList(first, second), stream);
+		assertEquals("file,kind,name,status,message,maxAltitude,steps\r\n" +
+				"a.ork,simulation,Simulation 1,ok,,100.5,\r\n" +
+				"b.ork,optimization,\"spec, with comma\",failed,\"No \"\"parameter\"\"\",,3\r\n",
+				stream.toString("UTF-8"));
+
+		stream.reset();
+		first.put("optimumDelay", Double.NaN);
+		BatchResult.writeJSON(Collections.singletonList(first), stream);
+		JsonObject json = Json.createReader(new StringReader(stream.toString("UTF-8"))).readArray().getJsonObject(0);
+		assertEquals(100.5, json.getJsonNumber("maxAltitude").doubleValue(), 0);
+		assertTrue(json.isNull("optimumDelay"));
+	}
+}
@@ -0,0 +1,147 @@
+package net.sf.openrocket.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import net.sf.openrocket.motor.Manufacturer;
+import net.sf.openrocket.preset.ComponentPreset;
+import net.sf.openrocket.preset.ComponentPresetFactory;
+import net.sf.openrocket.preset.TypedPropertyMap;
+
+import org.junit.Test;
+
+public class ComponentPresetDatabaseTest {
+
+	private static final String[] MANUFACTURERS = { "Estes", "LOC Precision", "Madcow", "Public Missiles" };
+	private static final ComponentPreset.Type[] TYPES = {
+			ComponentPreset.Type.BODY_TUBE, ComponentPreset.Type.TUBE_COUPLER, ComponentPreset.Type.LAUNCH_LUG };
+
+	private static ComponentPreset createPreset(ComponentPreset.Type type, String manufacturer, String partNo,
+			double length) throws Exception {
+		TypedPropertyMap presetspec = new TypedPropertyMap();
+		presetspec.put(ComponentPreset.TYPE, type);
+		presetspec.put(ComponentPreset.MANUFACTURER, Manufacturer.getManufacturer(manufacturer));
+		presetspec.put(ComponentPreset.PARTNO, partNo);
+		presetspec.put(ComponentPreset.LENGTH, length);
+		presetspec.put(ComponentPreset.OUTER_DIAMETER, 2.0);
+		presetspec.put(ComponentPreset.INNER_DIAMETER, 1.0);
+		return ComponentPresetFactory.create(presetspec);
+	}
+
+	private static List<ComponentPreset> createPresets(int count, long seed) throws Exception {
+		Random rnd = new Random(seed);
+		List<ComponentPreset> presets = new ArrayList<ComponentPreset>();
+		for (int i = 0; i < count; i++) {
+			presets.add(createPreset(TYPES[rnd.nextInt(TYPES.length)], MANUFACTURERS[rnd.nextInt(MANUFACTURERS.length)],
+					"P" + rnd.nextInt(count / 2), 1.0 + rnd.nextInt(3)));
+		}
+		return presets;
+	}
+
+	private static List<ComponentPreset> scanForTypes(ComponentPresetDatabase db, ComponentPreset.Type... types) {
+		List<ComponentPreset> result = new ArrayList<ComponentPreset>();
+		for (ComponentPreset preset : db.listAll()) {
+			if (Arrays.asList(types).contains(preset.get(ComponentPreset.TYPE))) {
+				result.add(preset);
+			}
+		}
+		return result;
+	}
+
+	private static class CountingListener implements DatabaseListener<ComponentPreset> {
+		private int events = 0;
+		private int added = 0;
+
+		@Override
+		public void elementAdded(ComponentPreset element, Database<ComponentPreset> source) {
+			events++;
+			added++;
+		}
+
+		@Override
+		public void elementsAdded(List<ComponentPreset> elements, Database<ComponentPreset> source) {
+			events++;
+			added += elements.size();
+		}
+
+		@Override
+		public void elementRemoved(ComponentPreset element, Database<ComponentPreset> source) {
+			events++;
+		}
+	}
+
+	@Test
+	public void testAddAllMatchesAdd() throws Exception {
+		List<ComponentPreset> presets = createPresets(400, 1);
+		ComponentPresetDatabase single = new ComponentPresetDatabase();
+		for (ComponentPreset preset : presets) {
+			single.add(preset);
+		}
+
+		ComponentPresetDatabase bulk = new ComponentPresetDatabase();
+		CountingListener listener = new CountingListener();
+		bulk.addDatabaseListener(listener);
+		assertTrue(bulk.addAll(presets.subList(0, 150)));
+		assertTrue(bulk.addAll(presets));
+		assertFalse(bulk.addAll(presets.subList(100, 200)));
+
+		assertEquals(single.size(), bulk.size());
+		assertEquals(2, listener.events);
+		assertEquals(single.size(), listener.added);
+		List<ComponentPreset> sorted = new ArrayList<ComponentPreset>(bulk.listAll());
+		Collections.sort(sorted);
+		assertEquals(sorted, bulk.listAll());
+		assertEquals(new HashSet<ComponentPreset>(single), new HashSet<ComponentPreset>(bulk));
+	}
+
+	@Test
+	public void testIndexedQueries() throws Exception {
+		ComponentPresetDatabase db = new ComponentPresetDatabase();
+		db.addAll(createPresets(300, 2));
+
+		for (ComponentPreset.Type type : TYPES) {
+			assertEquals(scanForTypes(db, type), db.listForType(type));
+		}
+		assertEquals(Collections.emptyList(), db.listForType(ComponentPreset.Type.NOSE_CONE));
+		assertEquals(scanForTypes(db, TYPES[0], TYPES[2]), db.listForTypes(TYPES[2], TYPES[0], TYPES[2]));
+
+		for (ComponentPreset preset : db) {
+			List<ComponentPreset> found = db.find(preset.getManufacturer().getSimpleName(), preset.getPartNo());
+			assertTrue(found.contains(preset));
+			for (ComponentPreset p : found) {
+				assertEquals(0, p.compareTo(preset));
+			}
+		}
+		assertEquals(Collections.emptyList(), db.find("Estes", "no such part"));
+		assertEquals(Collections.emptyList(), db.find(null, "P1"));
+	}
+
+	@Test
+	public void testIndexUpdated() throws Exception {
+		ComponentPresetDatabase db = new ComponentPresetDatabase();
+		db.addAll(createPresets(50, 3));
+		assertEquals(scanForTypes(db, TYPES[0]), db.listForType(TYPES[0]));
+
+		ComponentPreset preset = createPreset(TYPES[0], "Estes", "BT-20", 5.0);
+		db.insert(preset);
+		assertTrue(db.listForType(TYPES[0]).contains(preset));
+		assertEquals(Collections.singletonList(preset), db.find("Estes", "BT-20"));
+
+		for (Iterator<ComponentPreset> iterator = db.iterator(); iterator.hasNext();) {
+			if (iterator.next() == preset) {
+				iterator.remove();
+			}
+		}
+		assertFalse(db.listForType(TYPES[0]).contains(preset));
+		assertEquals(scanForTypes(db, TYPES[0]), db.listForType(TYPES[0]));
+	}
+}
@@ -0,0 +1,164 @@
+package net.sf.openrocket.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import net.sf.openrocket.database.motor.ThrustCurveMotorSet;
+import net.sf.openrocket.database.motor.ThrustCurveMotorSetDatabase;
+import net.sf.openrocket.motor.Manufacturer;
+import net.sf.openrocket.motor.Motor;
+import net.sf.openrocket.motor.ThrustCurveMotor;
+import net.sf.openrocket.util.Coordinate;
+
+import org.junit.Test;
+
+public class ThrustCurveMotorSetDatabaseTest {
+
+	private static final String[] MANUFACTURERS = { "Aerotech", "Cesaroni", "Estes", "Quest" };
+	private static final String[] CLASSES = { "A", "B", "C", "F", "G", "H" };
+	private static final String[] SUFFIXES = { "", "W", "T", "J" };
+
+	private static ThrustCurveMotor createMotor(String manufacturer, String commonName, String designation,
+			Motor.Type type, double diameter, double length, String digest) {
+		return new ThrustCurveMotor.Builder()
+				.setManufacturer(Manufacturer.getManufacturer(manufacturer))
+				.setCommonName(commonName)
+				.setDesignation(designation)
+				.setDescription("Desc")
+				.setMotorType(type)
+				.setStandardDelays(new double[] { 5 })
+				.setDiameter(diameter)
+				.setLength(length)
+				.setTimePoints(new double[] { 0, 1, 2 })
+				.setThrustPoints(new double[] { 0, 1, 0 })
+				.setCGPoints(new Coordinate[] { Coordinate.NUL, Coordinate.NUL, Coordinate.NUL })
+				.setDigest(digest)
+				.build();
+	}
+
+	/**
+	 * Reference implementation of the search, scanning all motors of the database.
+	 */
+	private static List<ThrustCurveMotor> scanMotors(ThrustCurveMotorSetDatabase db, String digest, Motor.Type type,
+			String manufacturer, String designation, double diameter, double length) {
+		List<ThrustCurveMotor> fullMatches = new ArrayList<ThrustCurveMotor>();
+		List<ThrustCurveMotor> digestMatches = new ArrayList<ThrustCurveMotor>();
+		List<ThrustCurveMotor> descriptionMatches = new ArrayList<ThrustCurveMotor>();
+		for (ThrustCurveMotorSet set : db.getMotorSets()) {
+			for (ThrustCurveMotor m : set.getMotors()) {
+				boolean matchDigest = digest != null && digest.equals(m.getDigest());
+				boolean matchDescription = !((type != null && type != set.getType()) ||
+						(manufacturer != null && !m.getManufacturer().matches(manufacturer)) ||
+						(designation != null &&
+								!m.getDesignation().toUpperCase().contains(designation.toUpperCase()) &&
+								!designation.toUpperCase().contains(m.getCommonName().toUpperCase())) ||
+						(!Double.isNaN(diameter) && Math.abs(diameter - m.getDiameter()) > 0.005) ||
+						(!Double.isNaN(length) && Math.abs(length - m.getLength()) > 0.005));
+				if (matchDigest)
+					digestMatches.add(m);
+				if (matchDescription)
+					descriptionMatches.add(m);
+				if (matchDigest && matchDescription)
+					fullMatches.add(m);
+			}
+		}
+		if (!fullMatches.isEmpty())
+			return fullMatches;
+		if (!digestMatches.isEmpty())
+			return digestMatches;
+		return descriptionMatches;
+	}
+
+	@Test
+	public void testAddMotor() {
+		ThrustCurveMotorSetDatabase db = new ThrustCurveMotorSetDatabase();
+		ThrustCurveMotor m1 = createMotor("Estes", "C6", "C6", Motor.Type.SINGLE, 0.018, 0.07, "digest1");
+		ThrustCurveMotor m2 = createMotor("Estes", "C6", "c6", Motor.Type.SINGLE, 0.018, 0.07, "digest2");
+		ThrustCurveMotor m3 = createMotor("Estes", "C6", "C6", Motor.Type.SINGLE, 0.024, 0.07, "digest3");
+		ThrustCurveMotor m4 = createMotor("Quest", "C6", "C6", Motor.Type.SINGLE, 0.018, 0.07, "digest4");
+		db.addMotor(m1);
+		db.addMotor(m2);
+		db.addMotor(m3);
+		db.addMotor(m4);
+
+		assertEquals(3, db.getMotorSets().size());
+		assertEquals(2, db.getMotorSets().get(0).getMotorCount());
+		assertSame(m3, db.getMotorSets().get(1).getMotors().get(0));
+		assertSame(m4, db.getMotorSets().get(2).getMotors().get(0));
+	}
+
+	@Test
+	public void testFindByDigest() {
+		ThrustCurveMotorSetDatabase db = new ThrustCurveMotorSetDatabase();
+		ThrustCurveMotor m1 = createMotor("Estes", "C6", "C6", Motor.Type.SINGLE, 0.018, 0.07, "digest1");
+		ThrustCurveMotor m2 = createMotor("Estes", "D12", "D12", Motor.Type.SINGLE, 0.024, 0.07, "digest2");
+		db.addMotor(m1);
+		db.addMotor(m2);
+
+		// Digests are compared by value
+		String digest = new String("digest2");
+		List<ThrustCurveMotor> motors = db.findMotors(digest, null, "Estes", "D12-5", 0.024, 0.07);
+		assertEquals(1, motors.size());
+		assertSame(m2, motors.get(0));
+
+		// A digest match is preferred over a description match
+		motors = db.findMotors(digest, null, "Estes", "C6-5", 0.018, 0.07);
+		assertEquals(1, motors.size());
+		assertSame(m2, motors.get(0));
+
+		// Without a digest match, the description matches are returned
+		motors = db.findMotors("unknown", null, "Estes", "C6-5", 0.018, 0.07);
+		assertEquals(1, motors.size());
+		assertSame(m1, motors.get(0));
+	}
+
+	/**
+	 * Test that the indexed search returns the same motors in the same order as scanning
+	 * the whole database.
+	 */
+	@Test
+	public void testFindMatchesScan() {
+		Random rnd = new Random(0);
+		ThrustCurveMotorSetDatabase db = new ThrustCurveMotorSetDatabase();
+		List<ThrustCurveMotor> added = new ArrayList<ThrustCurveMotor>();
+		for (int i = 0; i < 2000; i++) {
+			String commonName = CLASSES[rnd.nextInt(CLASSES.length)] + (5 + rnd.nextInt(60));
+			String designation = commonName + SUFFIXES[rnd.nextInt(SUFFIXES.length)];
+			Motor.Type type = Motor.Type.values()[rnd.nextInt(Motor.Type.values().length)];
+			ThrustCurveMotor m = createMotor(MANUFACTURERS[rnd.nextInt(MANUFACTURERS.length)], commonName, designation,
+					type, 0.013 + 0.001 * rnd.nextInt(40), 0.05 + 0.002 * rnd.nextInt(50), "digest" + rnd.nextInt(1500));
+			db.addMotor(m);
+			added.add(m);
+		}
+
+		for (int i = 0; i < 1000; i++) {
+			ThrustCurveMotor m = added.get(rnd.nextInt(added.size()));
+			String digest = rnd.nextBoolean() ? m.getDigest() : (rnd.nextBoolean() ? null : "none");
+			Motor.Type type = rnd.nextInt(4) == 0 ? m.getMotorType() : null;
+			String manufacturer = rnd.nextBoolean() ? m.getManufacturer().getSimpleName() : null;
+			String designation;
+			switch (rnd.nextInt(4)) {
+			case 0:
+				designation = null;
+				break;
+			case 1:
+				designation = m.getDesignation().toLowerCase() + "-5";
+				break;
+			case 2:
+				designation = m.getDesignation().substring(1);
+				break;
+			default:
+				designation = m.getDesignation();
+			}
+			double diameter = rnd.nextBoolean() ? m.getDiameter() + 0.004 * (rnd.nextDouble() - 0.5) : Double.NaN;
+			double length = rnd.nextBoolean() ? m.getLength() + 0.012 * (rnd.nextDouble() - 0.5) : Double.NaN;
+
+			assertEquals(scanMotors(db, digest, type, manufacturer, designation, diameter, length),
+					db.findMotors(digest, type, manufacturer, designation, diameter, length));
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package net.sf.openrocket.document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
+
+import org.junit.Test;
+
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.simulation.SimulationConditions;
+import net.sf.openrocket.simulation.exception.SimulationException;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+import net.sf.openrocket.util.TestRockets;
+
+public class DispersionAnalysisTest extends BaseTestCase {
+	
+	private static SimulationConditions createConditions(Rocket rocket) {
+		Simulation sim = new Simulation(rocket);
+		sim.getOptions().setISAAtmosphere(true);
+		sim.getOptions().setTimeStep(0.05);
+		sim.setFlightConfigurationId(TestRockets.TEST_FCID_0);
+		SimulationConditions conditions = sim.getOptions().toSimulationConditions();
+		conditions.setSimulation(sim);
+		return conditions;
+	}
+	
+	private static DispersionResultStore run(SimulationConditions conditions, int threadCount) throws SimulationException {
+		DispersionAnalysis analysis = new DispersionAnalysis(conditions);
+		analysis.setMasterSeed(0x1234abcdL);
+		analysis.setTrialCount(4);
+		analysis.setThreadCount(threadCount);
+		return analysis.runTrials();
+	}
+	
+	/**
+	 * Test that trials are reproducible from the master seed independent of the thread count.
+	 */
+	@Test
+	public void testReproducibleAcrossThreadCounts() throws SimulationException {
+		SimulationConditions conditions = createConditions(TestRockets.makeEstesAlphaIII());
+		
+		DispersionResultStore serial = run(conditions, 1);
+		DispersionResultStore parallel = run(conditions, 4);
+		
+		assertEquals(4, serial.getCompletedCount());
+		assertEquals(4, parallel.getCompletedCount());
+		for (int trial = 0; trial < serial.getTrialCount(); trial++) {
+			for (int column = 0; column < serial.getColumnCount(); column++) {
+				assertEquals(Double.doubleToLongBits(serial.get(trial, column)),
+						Double.doubleToLongBits(parallel.get(trial, column)));
+			}
+		}
+	}
+	
+	/**
+	 * Test that a campaign streaming into a file sink skips the trials already in the file.
+	 */
+	@Test
+	public void testResumeFromSink() throws SimulationException, IOException {
+		File file = File.createTempFile("dispersion", ".csv");
+		file.deleteOnExit();
+		SimulationConditions conditions = createConditions(TestRockets.makeEstesAlphaIII());
+		
+		DispersionAnalysis analysis = new DispersionAnalysis(conditions);
+		analysis.setTrialCount(2);
+		try (CsvTrialResultSink sink = new CsvTrialResultSink(file)) {
+			analysis.setResultSink(sink);
+			assertNull(analysis.runTrials());
+		}
+		
+		BitSet completed = CsvTrialResultSink.readCompletedTrials(file);
+		assertEquals(2, completed.cardinality());
+		
+		analysis.setTrialCount(3);
+		analysis.setCompletedTrials(completed);
+		try (CsvTrialResultSink sink = new CsvTrialResultSink(file, true)) {
+			analysis.setResultSink(sink);
+			analysis.runTrials();
+		}
+		assertEquals(3, CsvTrialResultSink.readCompletedTrials(file).cardinality());
+	}
+	
+	@Test
+	public void testTrialSeed() {
+		assertEquals(DispersionAnalysis.trialSeed(42, 7), DispersionAnalysis.trialSeed(42, 7));
+		assertNotEquals(DispersionAnalysis.trialSeed(42, 7), DispersionAnalysis.trialSeed(42, 8));
+		assertNotEquals(DispersionAnalysis.trialSeed(42, 7), DispersionAnalysis.trialSeed(43, 7));
+	}
+	
+	@Test
+	public void testResultStore() {
+		DispersionResultStore store = new DispersionResultStore(3, "a", "b");
+		assertEquals(0, store.getCompletedCount());
+		assertEquals(Double.NaN, store.get(1, 0), 0);
+		
+		store.set(1, 1.5, 2.5);
+		assertEquals(1, store.getCompletedCount());
+		assertEquals(2.5, store.get(1, 1), 0);
+		assertEquals(1.5, store.getColumn(0)[1], 0);
+	}
+}
@@ -0,0 +1,113 @@
+package net.sf.openrocket.document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sf.openrocket.optimization.general.OptimizationException;
+import net.sf.openrocket.rocketcomponent.FinSet;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.rocketcomponent.RocketComponent;
+import net.sf.openrocket.simulation.SimulationConditions;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+import net.sf.openrocket.util.TestRockets;
+
+public class GainTunerTest extends BaseTestCase {
+
+	private static final double[] GAINS_A = { 0.233, -0.00679, -1.0e-4 };
+	private static final double[] GAINS_B = { 0.5, -0.01, -1.0e-3 };
+
+	/**
+	 * An Estes Alpha III whose fins are actuated by the roll controller.
+	 */
+	private static SimulationConditions createConditions() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		for (RocketComponent c : rocket) {
+			if (c instanceof FinSet) {
+				c.setName("Canard1");
+			}
+		}
+		Simulation sim = new Simulation(rocket);
+		sim.getOptions().setISAAtmosphere(true);
+		sim.getOptions().setTimeStep(0.05);
+		sim.setFlightConfigurationId(TestRockets.TEST_FCID_0);
+		SimulationConditions conditions = sim.getOptions().toSimulationConditions();
+		conditions.setSimulation(sim);
+		return conditions;
+	}
+
+	private static GainTuner createTuner(SimulationConditions conditions, int threadCount) {
+		return new GainTuner(conditions, GainTuner.DEFAULT_MIN_GAINS, GainTuner.DEFAULT_MAX_GAINS, threadCount);
+	}
+
+	/**
+	 * Test that a gain vector is simulated only once, however often it is evaluated.
+	 */
+	@Test
+	public void testCachedByGainVector() throws OptimizationException {
+		GainTuner tuner = createTuner(createConditions(), 2);
+		try {
+			List<double[]> population = Arrays.asList(GAINS_A, GAINS_B, GAINS_A.clone());
+			double[] costs = tuner.evaluate(population);
+			assertEquals(2, tuner.getSimulationCount());
+			assertEquals(costs[0], costs[2], 0);
+			assertNotEquals(costs[0], costs[1], 0);
+
+			double[] again = tuner.evaluate(population);
+			assertEquals(2, tuner.getSimulationCount());
+			for (int i = 0; i < costs.length; i++) {
+				assertEquals(costs[i], again[i], 0);
+			}
+		} finally {
+			tuner.shutdown();
+		}
+	}
+
+	/**
+	 * Test that the costs do not depend on the number of threads.
+	 */
+	@Test
+	public void testParallelMatchesSerial() throws OptimizationException {
+		SimulationConditions conditions = createConditions();
+		List<double[]> population = Arrays.asList(GAINS_A, GAINS_B);
+
+		GainTuner serial = createTuner(conditions, 1);
+		GainTuner parallel = createTuner(conditions, 4);
+		try {
+			double[] serialCosts = serial.evaluate(population);
+			double[] parallelCosts = parallel.evaluate(population);
+			for (int i = 0; i < serialCosts.length; i++) {
+				assertEquals(Double.doubleToLongBits(serialCosts[i]), Double.doubleToLongBits(parallelCosts[i]));
+			}
+		} finally {
+			serial.shutdown();
+			parallel.shutdown();
+		}
+	}
+
+	/**
+	 * Test that tuning does not end up worse than where it started and updates the roll model.
+	 */
+	@Test
+	public void testTuneImprovesCost() throws OptimizationException {
+		GainTuner tuner = createTuner(createConditions(), 4);
+		try {
+			double initialCost = tuner.evaluate(Arrays.asList(GAINS_A))[0];
+
+			RollControlModel rollModel = new RollControlModel();
+			rollModel.setGains(GAINS_A[GainTuner.KP], GAINS_A[GainTuner.KI], GAINS_A[GainTuner.KD]);
+			tuner.tune(rollModel, 3, 1.0e-3);
+
+			double[] tuned = { rollModel.getKP(), rollModel.getKI(), rollModel.getKD() };
+			double tunedCost = tuner.evaluate(Arrays.asList(tuned))[0];
+			assertTrue("tuned cost " + tunedCost + " > initial cost " + initialCost, tunedCost <= initialCost);
+		} finally {
+			tuner.shutdown();
+		}
+	}
+}
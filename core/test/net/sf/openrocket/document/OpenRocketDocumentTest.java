@@ -0,0 +1,93 @@
+package net.sf.openrocket.document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import net.sf.openrocket.rocketcomponent.FinSet;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.rocketcomponent.RocketComponent;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+import net.sf.openrocket.util.TestRockets;
+
+public class OpenRocketDocumentTest extends BaseTestCase {
+
+	private static FinSet findFinSet(Rocket rocket) {
+		for (RocketComponent c : rocket) {
+			if (c instanceof FinSet) {
+				return (FinSet) c;
+			}
+		}
+		throw new IllegalArgumentException("No fin set in " + rocket);
+	}
+
+	/**
+	 * Test that undo and redo restore the states of the rocket.
+	 */
+	@Test
+	public void testUndoRedo() {
+		Rocket rocket = TestRockets.makeFalcon9Heavy();
+		OpenRocketDocument document = OpenRocketDocumentFactory.createDocumentFromRocket(rocket);
+
+		for (int i = 1; i <= 3; i++) {
+			document.addUndoPosition("Cant " + i);
+			findFinSet(rocket).setCantAngle(Math.toRadians(i));
+		}
+		document.addUndoPosition("Rename");
+		rocket.getChild(0).setName("Renamed stage");
+
+		document.undo();
+		assertEquals("Payload Fairing Stage", rocket.getChild(0).getName());
+		assertEquals(Math.toRadians(3), findFinSet(rocket).getCantAngle(), 0);
+		document.undo();
+		document.undo();
+		assertEquals(Math.toRadians(1), findFinSet(rocket).getCantAngle(), 0);
+		document.undo();
+		assertEquals(0, findFinSet(rocket).getCantAngle(), 0);
+		assertFalse(document.isUndoAvailable());
+
+		document.redo();
+		document.redo();
+		assertEquals(Math.toRadians(2), findFinSet(rocket).getCantAngle(), 0);
+		document.redo();
+		document.redo();
+		assertEquals("Renamed stage", rocket.getChild(0).getName());
+		assertFalse(document.isRedoAvailable());
+	}
+
+	/**
+	 * Test that the undo history shares unchanged components between undo levels, and that
+	 * the oldest levels are removed when the history exceeds its memory limit.
+	 */
+	@Test
+	public void testUndoMemoryLimit() {
+		Rocket rocket = TestRockets.makeFalcon9Heavy();
+		OpenRocketDocument document = OpenRocketDocumentFactory.createDocumentFromRocket(rocket);
+		FinSet fins = findFinSet(rocket);
+		long initial = document.getUndoMemory();
+
+		for (int i = 1; i <= 20; i++) {
+			document.addUndoPosition("Cant " + i);
+			fins.setCantAngle(Math.toRadians(0.1 * i));
+		}
+		long shared = document.getUndoMemory();
+		assertTrue("memory " + shared + " initial " + initial, shared < 20 * initial / 2);
+
+		document.setUndoMemoryLimit(initial * 3);
+		document.addUndoPosition("Cant");
+		fins.setCantAngle(Math.toRadians(3));
+		assertTrue(document.getUndoMemory() <= initial * 3);
+		assertTrue(document.isUndoAvailable());
+
+		int levels = 0;
+		while (document.isUndoAvailable()) {
+			document.undo();
+			levels++;
+		}
+		assertTrue("levels " + levels, levels > 1 && levels < 20);
+		// Undo replaces the components with copies
+		assertEquals(Math.toRadians(0.1 * (21 - levels)), findFinSet(rocket).getCantAngle(), 1e-12);
+	}
+}
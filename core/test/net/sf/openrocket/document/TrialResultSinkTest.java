@@ -0,0 +1,96 @@
+package net.sf.openrocket.document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.BitSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TrialResultSinkTest {
+
+	private static final String[] COLUMNS = { "x", "y" };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testCsvResume() throws IOException {
+		File file = folder.newFile("results.csv");
+		try (CsvTrialResultSink sink = new CsvTrialResultSink(file)) {
+			sink.begin(COLUMNS);
+			sink.append(2, new double[] { 1.0, 2.0 });
+			sink.append(0, new double[] { 3.0, 4.0 });
+		}
+		// Simulate a line that was cut off when the campaign stopped
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.seek(raf.length());
+			raf.writeBytes("5,1.2");
+		}
+
+		BitSet completed = CsvTrialResultSink.readCompletedTrials(file);
+		assertTrue(completed.get(0));
+		assertTrue(completed.get(2));
+		assertFalse(completed.get(5));
+		assertEquals(2, completed.cardinality());
+
+		try (CsvTrialResultSink sink = new CsvTrialResultSink(file, true)) {
+			sink.begin(COLUMNS);
+			sink.append(5, new double[] { 5.0, 6.0 });
+		}
+		completed = CsvTrialResultSink.readCompletedTrials(file);
+		assertEquals(3, completed.cardinality());
+		assertTrue(completed.get(5));
+	}
+
+	@Test
+	public void testBinaryBlocksAndResume() throws IOException {
+		File file = folder.newFile("results.bin");
+		try (BinaryTrialResultSink sink = new BinaryTrialResultSink(file, false, 2)) {
+			sink.begin(COLUMNS);
+			for (int trial = 0; trial < 5; trial++) {
+				sink.append(trial, new double[] { trial, trial * 10 });
+			}
+		}
+		long length = file.length();
+		// Simulate a block that was cut off when the campaign stopped
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.seek(length);
+			raf.writeInt(2);
+			raf.writeInt(7);
+		}
+
+		BitSet completed = BinaryTrialResultSink.readCompletedTrials(file);
+		assertEquals(5, completed.cardinality());
+		assertFalse(completed.get(7));
+
+		try (BinaryTrialResultSink sink = new BinaryTrialResultSink(file, true, 2)) {
+			sink.begin(COLUMNS);
+			sink.append(7, new double[] { 7, 70 });
+		}
+		completed = BinaryTrialResultSink.readCompletedTrials(file);
+		assertEquals(6, completed.cardinality());
+
+		double[] y = BinaryTrialResultSink.readColumn(file, 1);
+		assertEquals(40.0, y[4], 0);
+		assertEquals(70.0, y[7], 0);
+		assertTrue(Double.isNaN(y[5]));
+	}
+
+	@Test(expected = IOException.class)
+	public void testAppendWithDifferentColumns() throws IOException {
+		File file = folder.newFile("columns.bin");
+		try (BinaryTrialResultSink sink = new BinaryTrialResultSink(file)) {
+			sink.begin(COLUMNS);
+		}
+		try (BinaryTrialResultSink sink = new BinaryTrialResultSink(file, true, 10)) {
+			sink.begin(new String[] { "z" });
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package net.sf.openrocket.file.motor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.openrocket.motor.ThrustCurveMotor;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+
+import org.junit.Test;
+
+public class MotorDatabaseFileTest extends BaseTestCase {
+
+	private List<ThrustCurveMotor> loadTestMotors() throws IOException {
+		GeneralMotorLoader loader = new GeneralMotorLoader();
+		List<ThrustCurveMotor> motors = new ArrayList<ThrustCurveMotor>();
+		for (String file : new String[] { "test1.eng", "test2.rse", "test3.rse" }) {
+			try (InputStream is = this.getClass().getResourceAsStream(file)) {
+				for (ThrustCurveMotor.Builder builder : loader.load(is, file)) {
+					motors.add(builder.build());
+				}
+			}
+		}
+		return motors;
+	}
+
+	private static void assertSameMotor(ThrustCurveMotor expected, ThrustCurveMotor actual) {
+		assertEquals(expected.getDigest(), actual.getDigest());
+		assertSame(expected.getManufacturer(), actual.getManufacturer());
+		assertEquals(expected.getCode(), actual.getCode());
+		assertEquals(expected.getCommonName(), actual.getCommonName());
+		assertEquals(expected.getDesignation(), actual.getDesignation());
+		assertEquals(expected.getDescription(), actual.getDescription());
+		assertEquals(expected.getCaseInfo(), actual.getCaseInfo());
+		assertEquals(expected.getPropellantInfo(), actual.getPropellantInfo());
+		assertEquals(expected.getMotorType(), actual.getMotorType());
+		assertEquals(expected.isAvailable(), actual.isAvailable());
+		assertEquals(expected.getDiameter(), actual.getDiameter(), 0);
+		assertEquals(expected.getLength(), actual.getLength(), 0);
+		assertEquals(expected.getInitialMass(), actual.getInitialMass(), 0);
+		assertArrayEquals(expected.getStandardDelays(), actual.getStandardDelays(), 0);
+		assertArrayEquals(expected.getTimePoints(), actual.getTimePoints(), 0);
+		assertArrayEquals(expected.getThrustPoints(), actual.getThrustPoints(), 0);
+		assertArrayEquals(expected.getCGPoints(), actual.getCGPoints());
+		assertEquals(expected.getTotalImpulseEstimate(), actual.getTotalImpulseEstimate(), 0);
+	}
+
+	@Test
+	public void testWriteRead() throws IOException {
+		List<ThrustCurveMotor> motors = loadTestMotors();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		MotorDatabaseFile.write(motors, bytes);
+
+		MotorDatabaseFile file = MotorDatabaseFile.read(new ByteArrayInputStream(bytes.toByteArray()));
+		assertEquals(motors.size(), file.getMotorCount());
+		for (int i = motors.size() - 1; i >= 0; i--) {
+			assertSameMotor(motors.get(i), file.getMotor(i));
+		}
+		assertSame(file.getMotor(0), file.getMotors().get(0));
+	}
+
+	@Test
+	public void testMemoryMapped() throws IOException {
+		List<ThrustCurveMotor> motors = loadTestMotors();
+		File tmp = File.createTempFile("motors", ".bin");
+		try {
+			try (OutputStream os = new FileOutputStream(tmp)) {
+				MotorDatabaseFile.write(motors, os);
+			}
+			List<ThrustCurveMotor> read = MotorDatabaseFile.open(tmp).getMotors();
+			assertEquals(motors.size(), read.size());
+			for (int i = 0; i < motors.size(); i++) {
+				assertSameMotor(motors.get(i), read.get(i));
+			}
+		} finally {
+			tmp.delete();
+		}
+	}
+
+	@Test
+	public void testInvalidFile() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		MotorDatabaseFile.write(loadTestMotors(), bytes);
+		byte[] data = bytes.toByteArray();
+
+		// Unsupported version
+		data[7]++;
+		try {
+			MotorDatabaseFile.read(new ByteArrayInputStream(data));
+			fail("Unsupported version read");
+		} catch (IOException expected) {
+		}
+
+		// Not a motor database
+		try {
+			MotorDatabaseFile.read(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }));
+			fail("Invalid file read");
+		} catch (IOException expected) {
+		}
+	}
+
+	@Test
+	public void testDistributedDatabase() throws IOException {
+		try (InputStream is = this.getClass().getClassLoader().getResourceAsStream("datafiles/thrustcurves/thrustcurves.bin")) {
+			MotorDatabaseFile file = MotorDatabaseFile.read(is);
+			assertTrue(file.getMotorCount() > 1000);
+			ThrustCurveMotor motor = file.getMotor(file.getMotorCount() / 2);
+			assertTrue(motor.getTotalImpulseEstimate() > 0);
+		}
+	}
+}
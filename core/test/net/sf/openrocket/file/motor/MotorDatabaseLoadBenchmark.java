@@ -0,0 +1,128 @@
+package net.sf.openrocket.file.motor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.LoggerFactory;
+
+import net.sf.openrocket.database.motor.ThrustCurveMotorSetDatabase;
+import net.sf.openrocket.motor.Manufacturer;
+import net.sf.openrocket.motor.ThrustCurveMotor;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+
+/**
+ * Startup benchmark of loading the distributed motor database into a
+ * {@link ThrustCurveMotorSetDatabase}, comparing the binary motor database file, both
+ * memory-mapped and read from a stream, to the Java serialized motor list used before.
+ * Each load runs in a new JVM to measure the cold load time, after initializing logging
+ * and the motor classes as the application has done by then.  The heap used by the loaded
+ * database is measured after garbage collection.
+ * <p>
+ * Run with <code>java -cp ... net.sf.openrocket.file.motor.MotorDatabaseLoadBenchmark [runs]</code>.
+ */
+public class MotorDatabaseLoadBenchmark {
+
+	private static final String DATABASE = "datafiles/thrustcurves/thrustcurves.bin";
+
+	public static void main(String[] args) throws Exception {
+		if (args.length == 2) {
+			load(args[0], new File(args[1]));
+			return;
+		}
+		final int runs = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+
+		BaseTestCase.setUp();
+		final File bin = File.createTempFile("thrustcurves", ".bin");
+		final File ser = File.createTempFile("thrustcurves", ".ser");
+		try {
+			final List<ThrustCurveMotor> motors = new ArrayList<ThrustCurveMotor>();
+			try (InputStream is = MotorDatabaseLoadBenchmark.class.getClassLoader().getResourceAsStream(DATABASE);
+					BufferedOutputStream os = new BufferedOutputStream(new FileOutputStream(bin))) {
+				final MotorDatabaseFile file = MotorDatabaseFile.read(is);
+				motors.addAll(file.getMotors());
+				MotorDatabaseFile.write(motors, os);
+			}
+			try (ObjectOutputStream os = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(ser)))) {
+				os.writeObject(motors);
+			}
+			System.out.printf("%d motors, serialized %d kB, binary %d kB%n", motors.size(),
+					ser.length() / 1024, bin.length() / 1024);
+
+			for (int i = 0; i < runs; i++) {
+				run("serialized", ser);
+				run("mapped", bin);
+				run("stream", bin);
+			}
+		} finally {
+			bin.delete();
+			ser.delete();
+		}
+	}
+
+	private static void run(String mode, File file) throws IOException, InterruptedException {
+		final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		final Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+				MotorDatabaseLoadBenchmark.class.getName(), mode, file.getPath()).redirectErrorStream(true).start();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith("RESULT")) {
+					System.out.println(line.substring(7));
+				}
+			}
+		}
+		process.waitFor();
+	}
+
+	private static void load(String mode, File file) throws Exception {
+		LoggerFactory.getLogger(MotorDatabaseLoadBenchmark.class).debug("Loading " + file);
+		Manufacturer.getManufacturer("AeroTech");
+		Class.forName(ThrustCurveMotor.class.getName(), true, MotorDatabaseLoadBenchmark.class.getClassLoader());
+
+		final long startMemory = usedMemory();
+		final long start = System.nanoTime();
+
+		final ThrustCurveMotorSetDatabase database = new ThrustCurveMotorSetDatabase();
+		database.addMotors(loadMotors(mode, file));
+
+		final double time = (System.nanoTime() - start) / 1e6;
+		final long memory = usedMemory() - startMemory;
+		System.out.printf("RESULT %-10s  load %7.1f ms   heap %6d kB   %d motor sets%n",
+				mode, time, memory / 1024, database.getMotorSets().size());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<ThrustCurveMotor> loadMotors(String mode, File file) throws Exception {
+		if (mode.equals("serialized")) {
+			try (ObjectInputStream is = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+				return (List<ThrustCurveMotor>) is.readObject();
+			}
+		} else if (mode.equals("mapped")) {
+			return MotorDatabaseFile.open(file).getMotors();
+		} else {
+			try (InputStream is = new BufferedInputStream(new FileInputStream(file))) {
+				return MotorDatabaseFile.read(is).getMotors();
+			}
+		}
+	}
+
+	private static long usedMemory() throws InterruptedException {
+		final Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
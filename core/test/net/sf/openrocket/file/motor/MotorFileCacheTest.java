@@ -0,0 +1,135 @@
+package net.sf.openrocket.file.motor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.openrocket.motor.ThrustCurveMotor;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MotorFileCacheTest extends BaseTestCase {
+
+	private File dir;
+
+	@Before
+	public void createDirectory() throws IOException {
+		dir = Files.createTempDirectory("motorcache").toFile();
+	}
+
+	@After
+	public void deleteDirectory() {
+		for (File f : dir.listFiles()) {
+			f.delete();
+		}
+		dir.delete();
+	}
+
+	private File copyResource(String name) throws IOException {
+		File file = new File(dir, name);
+		try (InputStream is = this.getClass().getResourceAsStream(name);
+				OutputStream os = new FileOutputStream(file)) {
+			byte[] buf = new byte[4096];
+			int n;
+			while ((n = is.read(buf)) >= 0) {
+				os.write(buf, 0, n);
+			}
+		}
+		return file;
+	}
+
+	private List<ThrustCurveMotor> parse(File file) throws IOException {
+		List<ThrustCurveMotor> motors = new ArrayList<ThrustCurveMotor>();
+		try (InputStream is = Files.newInputStream(file.toPath())) {
+			for (ThrustCurveMotor.Builder builder : new GeneralMotorLoader().load(is, file.getName())) {
+				motors.add(builder.build());
+			}
+		}
+		return motors;
+	}
+
+	private static void assertSameMotors(List<ThrustCurveMotor> expected, List<ThrustCurveMotor> actual) {
+		assertNotNull(actual);
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getDigest(), actual.get(i).getDigest());
+			assertEquals(expected.get(i).getDesignation(), actual.get(i).getDesignation());
+			assertEquals(expected.get(i).getManufacturer(), actual.get(i).getManufacturer());
+		}
+	}
+
+	@Test
+	public void testCachedUntilChanged() throws IOException {
+		File cacheFile = new File(dir, "motors.cache");
+		File eng = copyResource("test1.eng");
+		File zip = copyResource("test.zip");
+		List<ThrustCurveMotor> engMotors = parse(eng);
+		List<ThrustCurveMotor> zipMotors = parse(zip);
+
+		MotorFileCache cache = new MotorFileCache(cacheFile);
+		assertNull(cache.get(eng));
+		cache.put(eng, engMotors);
+		cache.put(zip, zipMotors);
+		assertSameMotors(engMotors, cache.get(eng));
+		cache.save();
+		assertTrue(cacheFile.isFile());
+
+		cache = new MotorFileCache(cacheFile);
+		assertSameMotors(zipMotors, cache.get(zip));
+		assertSameMotors(engMotors, cache.get(eng));
+
+		// A modified file is not read from the cache
+		assertTrue(eng.setLastModified(eng.lastModified() - 10000));
+		assertNull(cache.get(eng));
+		assertSameMotors(zipMotors, cache.get(zip));
+	}
+
+	@Test
+	public void testSaveRemovesUnusedFiles() throws IOException {
+		File cacheFile = new File(dir, "motors.cache");
+		File eng = copyResource("test1.eng");
+		File rse = copyResource("test2.rse");
+
+		MotorFileCache cache = new MotorFileCache(cacheFile);
+		cache.put(eng, parse(eng));
+		cache.put(rse, parse(rse));
+		cache.save();
+
+		// Only the files requested are kept
+		cache = new MotorFileCache(cacheFile);
+		assertNotNull(cache.get(rse));
+		cache.save();
+
+		cache = new MotorFileCache(cacheFile);
+		assertNull(cache.get(eng));
+		assertSameMotors(parse(rse), cache.get(rse));
+	}
+
+	@Test
+	public void testInvalidCacheIgnored() throws IOException {
+		File cacheFile = new File(dir, "motors.cache");
+		try (OutputStream os = new FileOutputStream(cacheFile)) {
+			os.write(new byte[] { 1, 2, 3 });
+		}
+		File eng = copyResource("test1.eng");
+
+		MotorFileCache cache = new MotorFileCache(cacheFile);
+		assertNull(cache.get(eng));
+		cache.put(eng, parse(eng));
+		cache.save();
+		assertSameMotors(parse(eng), new MotorFileCache(cacheFile).get(eng));
+	}
+}
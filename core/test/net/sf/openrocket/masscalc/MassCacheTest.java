@@ -1,14 +1,26 @@
 package net.sf.openrocket.masscalc;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
+import net.sf.openrocket.rocketcomponent.AxialStage;
+import net.sf.openrocket.rocketcomponent.FlightConfiguration;
+import net.sf.openrocket.rocketcomponent.ParallelStage;
 import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.rocketcomponent.RocketComponent;
+import net.sf.openrocket.simulation.MotorClusterState;
+import net.sf.openrocket.simulation.SimulationConditions;
+import net.sf.openrocket.simulation.SimulationStatus;
 import net.sf.openrocket.util.TestRockets;
 import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
 
 public class MassCacheTest extends BaseTestCase {
+
+	private static final double EPSILON = 0.00000001;
 	
 	
 	@Test
@@ -20,6 +32,72 @@ public class MassCacheTest extends BaseTestCase {
 		// .... soooo we have this waste of space. -DMW
 		assertTrue( true );
 	}
+
+	/**
+	 * Test that the cached simulation mass data matches the uncached calculation over the burn,
+	 * and after staging.
+	 */
+	@Test
+	public void testSimulationMassCache() {
+		Rocket rocket = TestRockets.makeFalcon9Heavy();
+		FlightConfiguration config = rocket.getSelectedConfiguration();
+		SimulationStatus status = new SimulationStatus(config, new SimulationConditions());
+		for (MotorClusterState motorState : status.getMotors()) {
+			motorState.ignite(0.5);
+		}
+		MassCalculator calculator = new MassCalculator();
+
+		for (double time = 0; time < 4; time += 0.25) {
+			status.setSimulationTime(time);
+			assertEquals(MassCalculator.calculateStructure(config), calculator.getStructureMass(status), time);
+			assertEquals(MassCalculator.calculateMotor(status), calculator.getMotorMass(status), time);
+		}
+
+		// drop the boosters
+		for (RocketComponent component : rocket) {
+			if (component instanceof ParallelStage) {
+				config._setStageActive(((ParallelStage) component).getStageNumber(), false);
+			}
+		}
+		status.setSimulationTime(1.0);
+		assertEquals(MassCalculator.calculateStructure(config), calculator.getStructureMass(status), 1.0);
+		assertEquals(MassCalculator.calculateMotor(status), calculator.getMotorMass(status), 1.0);
+
+		// stage activity that is not reflected in the configuration modID
+		config.setOnlyStage(((AxialStage) rocket.getChild(0)).getStageNumber());
+		assertEquals(MassCalculator.calculateStructure(config), calculator.getStructureMass(status), 1.0);
+		assertEquals(MassCalculator.calculateMotor(status), calculator.getMotorMass(status), 1.0);
+	}
+
+	/**
+	 * Test that the structure mass data is only recalculated when the rocket changes.
+	 */
+	@Test
+	public void testStructureRecalculatedOnChange() {
+		Rocket rocket = TestRockets.makeFalcon9Heavy();
+		FlightConfiguration config = rocket.getSelectedConfiguration();
+		SimulationStatus status = new SimulationStatus(config, new SimulationConditions());
+		MassCalculator calculator = new MassCalculator();
+
+		RigidBody structure = calculator.getStructureMass(status);
+		assertSame(structure, calculator.getStructureMass(status));
+
+		rocket.getChild(0).getChild(0).setMassOverridden(true);
+		rocket.getChild(0).getChild(0).setOverrideMass(1.0);
+		RigidBody changed = calculator.getStructureMass(status);
+		assertNotSame(structure, changed);
+		assertEquals(MassCalculator.calculateStructure(config), changed, 0);
+	}
+
+	private static void assertEquals(RigidBody expected, RigidBody actual, double time) {
+		String message = " at t=" + time;
+		org.junit.Assert.assertEquals("Mass incorrect" + message, expected.getMass(), actual.getMass(), EPSILON);
+		org.junit.Assert.assertEquals("CM.x incorrect" + message, expected.cm.x, actual.cm.x, EPSILON);
+		org.junit.Assert.assertEquals("CM.y incorrect" + message, expected.cm.y, actual.cm.y, EPSILON);
+		org.junit.Assert.assertEquals("CM.z incorrect" + message, expected.cm.z, actual.cm.z, EPSILON);
+		org.junit.Assert.assertEquals("Ixx incorrect" + message, expected.Ixx, actual.Ixx, EPSILON);
+		org.junit.Assert.assertEquals("Iyy incorrect" + message, expected.Iyy, actual.Iyy, EPSILON);
+	}
 //		
 //		FlightConfiguration config = rocket.getEmptyConfiguration();
 //		MassCalculator mc = new MassCalculator();
@@ -0,0 +1,198 @@
+package net.sf.openrocket.optimization.general;
+
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.optimization.general.multidim.MultidirectionalSearchOptimizer;
+import net.sf.openrocket.optimization.rocketoptimization.RocketOptimizationFunction;
+import net.sf.openrocket.optimization.rocketoptimization.SimulationModifier;
+import net.sf.openrocket.optimization.rocketoptimization.domains.IdentitySimulationDomain;
+import net.sf.openrocket.optimization.rocketoptimization.goals.MaximizationGoal;
+import net.sf.openrocket.optimization.rocketoptimization.modifiers.GenericComponentModifier;
+import net.sf.openrocket.optimization.rocketoptimization.parameters.MaximumAltitudeParameter;
+import net.sf.openrocket.rocketcomponent.BodyTube;
+import net.sf.openrocket.rocketcomponent.NoseCone;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.rocketcomponent.RocketComponent;
+import net.sf.openrocket.simulation.RK4SimulationStepper;
+import net.sf.openrocket.unit.UnitGroup;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+import net.sf.openrocket.util.TestRockets;
+
+/**
+ * Benchmark of the surrogate screening on analytic test problems and on maximizing the
+ * altitude of the Estes Alpha III.  Every problem is optimized with the multidirectional search
+ * directly and through a {@link SurrogateFunctionCache}, reporting the number of function
+ * evaluations, the evaluations saved and the agreement of the optimum found.
+ * <p>
+ * Run with <code>java -Dlogback.configurationFile=config/logback-stdout-level-error.xml -cp ...
+ * net.sf.openrocket.optimization.general.SurrogateFunctionCacheBenchmark [confidence]</code>.
+ */
+public class SurrogateFunctionCacheBenchmark {
+
+	private static final double MIN_STEP = 1e-4;
+	private static final int MAX_STEPS = 500;
+
+	/**
+	 * A test problem in the unit hypercube, with the optimum point if known.
+	 */
+	private static abstract class Problem implements Function {
+		private final String name;
+		private final int dim;
+		private final Point optimum;
+		int evaluations = 0;
+
+		Problem(String name, int dim, Point optimum) {
+			this.name = name;
+			this.dim = dim;
+			this.optimum = optimum;
+		}
+
+		@Override
+		public double evaluate(Point p) throws InterruptedException, OptimizationException {
+			evaluations++;
+			return value(p);
+		}
+
+		abstract double value(Point p) throws InterruptedException, OptimizationException;
+
+		double distanceToOptimum(Point p) {
+			return (optimum != null) ? p.sub(optimum).length() : Double.NaN;
+		}
+	}
+
+	private static Problem sphere(final Point optimum) {
+		return new Problem("sphere-" + optimum.dim(), optimum.dim(), optimum) {
+			@Override
+			double value(Point p) {
+				return p.sub(optimum).length2();
+			}
+		};
+	}
+
+	private static Problem ellipsoid(final Point optimum) {
+		return new Problem("ellipsoid-" + optimum.dim(), optimum.dim(), optimum) {
+			@Override
+			double value(Point p) {
+				double sum = 0;
+				for (int i = 0; i < p.dim(); i++) {
+					double d = p.get(i) - optimum.get(i);
+					sum += Math.pow(10, i) * d * d;
+				}
+				return sum;
+			}
+		};
+	}
+
+	/**
+	 * The Rosenbrock function on [-2,2]^n scaled into the unit hypercube.
+	 */
+	private static Problem rosenbrock(int dim) {
+		return new Problem("rosenbrock-" + dim, dim, new Point(dim, 0.75)) {
+			@Override
+			double value(Point p) {
+				double sum = 0;
+				for (int i = 0; i < p.dim() - 1; i++) {
+					double x = 4 * p.get(i) - 2;
+					double y = 4 * p.get(i + 1) - 2;
+					sum += 100 * (y - x * x) * (y - x * x) + (1 - x) * (1 - x);
+				}
+				return sum;
+			}
+		};
+	}
+
+	/**
+	 * Maximum altitude of the Estes Alpha III by the nose cone and body tube lengths.
+	 */
+	private static Problem alphaIII() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		Simulation simulation = new Simulation(rocket);
+		simulation.getOptions().setISAAtmosphere(true);
+		simulation.getOptions().setTimeStep(RK4SimulationStepper.RECOMMENDED_TIME_STEP);
+		simulation.setFlightConfigurationId(TestRockets.TEST_FCID_0);
+
+		RocketComponent noseConeComponent = null;
+		RocketComponent bodyTubeComponent = null;
+		for (RocketComponent c : rocket.getAllChildren()) {
+			if (c instanceof NoseCone) {
+				noseConeComponent = c;
+			} else if (c instanceof BodyTube) {
+				bodyTubeComponent = c;
+			}
+		}
+		GenericComponentModifier noseCone = new GenericComponentModifier("Nose cone length", "", noseConeComponent,
+				UnitGroup.UNITS_LENGTH, 1.0, NoseCone.class, noseConeComponent.getID(), "Length");
+		noseCone.setMinValue(0.02);
+		noseCone.setMaxValue(0.2);
+		GenericComponentModifier bodyTube = new GenericComponentModifier("Body tube length", "", bodyTubeComponent,
+				UnitGroup.UNITS_LENGTH, 1.0, BodyTube.class, bodyTubeComponent.getID(), "Length");
+		bodyTube.setMinValue(0.1);
+		bodyTube.setMaxValue(0.4);
+
+		final RocketOptimizationFunction function = new RocketOptimizationFunction(simulation,
+				new MaximumAltitudeParameter(), new MaximizationGoal(), new IdentitySimulationDomain(),
+				new SimulationModifier[] { noseCone, bodyTube });
+		return new Problem("alphaIII-2", 2, null) {
+			@Override
+			double value(Point p) throws InterruptedException, OptimizationException {
+				return function.evaluate(p);
+			}
+		};
+	}
+
+
+	/**
+	 * Optimize the problem, returning the optimum point.
+	 */
+	private static Point optimize(Problem problem, ParallelFunctionCache cache) throws OptimizationException {
+		final int dim = problem.dim;
+		cache.setFunction(problem);
+		MultidirectionalSearchOptimizer optimizer = new MultidirectionalSearchOptimizer(cache);
+		optimizer.optimize(new Point(dim, 0.5), new OptimizationController() {
+			int steps = 0;
+
+			@Override
+			public boolean stepTaken(Point oldPoint, double oldValue, Point newPoint, double newValue, double stepSize) {
+				steps++;
+				return stepSize > MIN_STEP && steps < MAX_STEPS;
+			}
+		});
+		return optimizer.getOptimumPoint();
+	}
+
+	private static void run(Problem direct, Problem screened, double confidence) throws InterruptedException, OptimizationException {
+		ParallelExecutorCache executor = new ParallelExecutorCache(1);
+		Point directOptimum = optimize(direct, executor);
+		executor.getExecutor().shutdownNow();
+
+		executor = new ParallelExecutorCache(1);
+		SurrogateFunctionCache surrogate = new SurrogateFunctionCache(executor);
+		surrogate.setConfidence(confidence);
+		Point surrogateOptimum = optimize(screened, surrogate);
+		executor.getExecutor().shutdownNow();
+
+		System.out.printf("%-14s %6d %6d %5.1f%% saved   value %.3g / %.3g   distance %.2g / %.2g   apart %.2g%n",
+				direct.name, direct.evaluations, screened.evaluations,
+				100.0 * (direct.evaluations - screened.evaluations) / direct.evaluations,
+				direct.value(directOptimum), screened.value(surrogateOptimum),
+				direct.distanceToOptimum(directOptimum), screened.distanceToOptimum(surrogateOptimum),
+				directOptimum.sub(surrogateOptimum).length());
+	}
+
+	public static void main(String[] args) throws Exception {
+		double confidence = (args.length > 0) ? Double.parseDouble(args[0]) : SurrogateFunctionCache.DEFAULT_CONFIDENCE;
+		BaseTestCase.setUp();
+		System.out.println("problem        direct surrogate       value direct / surrogate   distance to optimum");
+
+		for (int dim = 2; dim <= 4; dim++) {
+			double[] coordinates = new double[dim];
+			for (int i = 0; i < dim; i++) {
+				coordinates[i] = 0.2 + 0.15 * i;
+			}
+			Point optimum = new Point(coordinates);
+			run(sphere(optimum), sphere(optimum), confidence);
+			run(ellipsoid(optimum), ellipsoid(optimum), confidence);
+			run(rosenbrock(dim), rosenbrock(dim), confidence);
+		}
+		run(alphaIII(), alphaIII(), confidence);
+	}
+}
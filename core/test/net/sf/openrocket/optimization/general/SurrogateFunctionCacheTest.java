@@ -0,0 +1,139 @@
+package net.sf.openrocket.optimization.general;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import net.sf.openrocket.optimization.general.multidim.MultidirectionalSearchOptimizer;
+import net.sf.openrocket.util.Pair;
+
+public class SurrogateFunctionCacheTest {
+
+	private static final Point OPTIMUM = new Point(0.2, 0.35, 0.5);
+
+	private final List<ParallelExecutorCache> executors = new ArrayList<ParallelExecutorCache>();
+	private volatile int evaluations = 0;
+
+	private final Function sphere = new Function() {
+		@Override
+		public double evaluate(Point p) {
+			evaluations++;
+			return p.sub(OPTIMUM).length2();
+		}
+	};
+
+	@After
+	public void shutdown() {
+		for (ParallelExecutorCache executor : executors) {
+			executor.getExecutor().shutdownNow();
+		}
+	}
+
+	private ParallelExecutorCache newExecutor() {
+		ParallelExecutorCache executor = new ParallelExecutorCache(1);
+		executors.add(executor);
+		return executor;
+	}
+
+	private Point optimize(ParallelFunctionCache cache) throws OptimizationException {
+		cache.setFunction(sphere);
+		MultidirectionalSearchOptimizer optimizer = new MultidirectionalSearchOptimizer(cache);
+		optimizer.optimize(new Point(3, 0.5), new OptimizationController() {
+			@Override
+			public boolean stepTaken(Point oldPoint, double oldValue, Point newPoint, double newValue, double stepSize) {
+				return stepSize > 1e-4;
+			}
+		});
+		return optimizer.getOptimumPoint();
+	}
+
+	/**
+	 * Test that the optimization finds the same optimum with fewer function evaluations.
+	 */
+	@Test
+	public void testOptimization() throws OptimizationException {
+		Point direct = optimize(newExecutor());
+		int directEvaluations = evaluations;
+
+		evaluations = 0;
+		SurrogateFunctionCache surrogate = new SurrogateFunctionCache(newExecutor());
+		Point screened = optimize(surrogate);
+
+		assertEquals(0, direct.sub(OPTIMUM).length(), 1e-3);
+		assertEquals(0, direct.sub(screened).length(), 1e-3);
+		assertTrue(surrogate.getScreenedCount() > 0);
+		assertTrue(evaluations + " >= " + directEvaluations, evaluations < directEvaluations);
+	}
+
+	@Test
+	public void testScreening() throws Exception {
+		SurrogateFunctionCache surrogate = new SurrogateFunctionCache(newExecutor());
+		surrogate.setFunction(sphere);
+		List<Point> points = new ArrayList<Point>();
+		points.add(OPTIMUM);
+		for (int i = 0; i < 3; i++) {
+			for (double d : new double[] { -0.1, 0.1 }) {
+				double[] x = OPTIMUM.asArray();
+				x[i] += d;
+				points.add(new Point(x));
+			}
+		}
+		surrogate.compute(points);
+		surrogate.waitFor(points);
+		assertEquals(7, evaluations);
+		assertEquals(7, surrogate.getComputedCount());
+
+		// A point far from the optimum is screened with its estimated value
+		Point far = new Point(0.9, 0.9, 0.9);
+		surrogate.compute(far);
+		assertEquals(1, surrogate.getScreenedCount());
+		surrogate.waitFor(far);
+		assertTrue(surrogate.abort(far));
+		assertTrue(surrogate.getValue(far) > 0);
+		assertEquals(7, evaluations);
+
+		// Points outside the range are passed on
+		Point outside = new Point(1.5, 0.5, 0.5);
+		surrogate.compute(outside);
+		surrogate.waitFor(outside);
+		assertEquals(Double.MAX_VALUE, surrogate.getValue(outside), 0);
+
+		surrogate.clearCache();
+		surrogate.compute(far);
+		surrogate.waitFor(far);
+		assertEquals(8, evaluations);
+		assertEquals(far.sub(OPTIMUM).length2(), surrogate.getValue(far), 0);
+	}
+
+	@Test
+	public void testModel() {
+		GaussianProcessModel model = new GaussianProcessModel();
+		assertNull(model.predict(OPTIMUM));
+
+		for (double x = 0; x <= 1; x += 0.25) {
+			for (double y = 0; y <= 1; y += 0.25) {
+				Point p = new Point(x, y);
+				model.add(p, Math.sin(3 * x) + y * y);
+			}
+		}
+
+		// The model interpolates the samples and is uncertain away from them
+		Pair<Double, Double> sample = model.predict(new Point(0.25, 0.5));
+		assertEquals(Math.sin(0.75) + 0.25, sample.getU(), 1e-3);
+		Pair<Double, Double> between = model.predict(new Point(0.375, 0.625));
+		assertEquals(Math.sin(1.125) + 0.390625, between.getU(), 1e-2);
+		assertTrue(between.getV() > sample.getV());
+		assertTrue(model.getCorrelationLength() > 0);
+
+		model.clear();
+		assertEquals(0, model.size());
+		assertFalse(model.getCorrelationLength() > 0);
+	}
+}
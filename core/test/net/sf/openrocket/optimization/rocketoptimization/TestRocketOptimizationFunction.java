@@ -228,6 +228,7 @@ public class TestRocketOptimizationFunction extends BaseTestCase {
 		rocket.setName("Foobar");
 		final Simulation simulation = new Simulation(rocket);
 		simulation.setName("MySim");
+		simulation.getOptions().setRandomSeed(1234);
 		
 
 		RocketOptimizationFunction function = new RocketOptimizationFunction(simulation,
@@ -238,6 +239,7 @@ public class TestRocketOptimizationFunction extends BaseTestCase {
 		assertEquals("MySim", sim.getName());
 		assertFalse(rocket == sim.getRocket());
 		assertEquals("Foobar", sim.getRocket().getName());
+		assertEquals(1234, sim.getOptions().getRandomSeed());
 	}
 	
 }
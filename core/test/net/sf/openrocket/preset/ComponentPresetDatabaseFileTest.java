@@ -0,0 +1,176 @@
+package net.sf.openrocket.preset;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.sf.openrocket.database.Databases;
+import net.sf.openrocket.material.Material;
+import net.sf.openrocket.motor.Manufacturer;
+import net.sf.openrocket.rocketcomponent.ExternalComponent.Finish;
+import net.sf.openrocket.rocketcomponent.Transition.Shape;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ComponentPresetDatabaseFileTest extends BaseTestCase {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static List<ComponentPreset> createPresets() throws InvalidComponentPresetException {
+		List<ComponentPreset> presets = new ArrayList<ComponentPreset>();
+
+		TypedPropertyMap bodyTube = new TypedPropertyMap();
+		bodyTube.put(ComponentPreset.TYPE, ComponentPreset.Type.BODY_TUBE);
+		bodyTube.put(ComponentPreset.MANUFACTURER, Manufacturer.getManufacturer("Estes"));
+		bodyTube.put(ComponentPreset.PARTNO, "BT-20");
+		bodyTube.put(ComponentPreset.DESCRIPTION, "Body tube \u00D8 18 mm");
+		bodyTube.put(ComponentPreset.LEGACY, true);
+		bodyTube.put(ComponentPreset.LENGTH, 0.3);
+		bodyTube.put(ComponentPreset.OUTER_DIAMETER, 0.0187);
+		bodyTube.put(ComponentPreset.INNER_DIAMETER, 0.018);
+		bodyTube.put(ComponentPreset.FINISH, Finish.SMOOTH);
+		bodyTube.put(ComponentPreset.MATERIAL, Databases.findMaterial(Material.Type.BULK, "Cardboard"));
+		bodyTube.put(ComponentPreset.IMAGE, new byte[] { 1, 2, 3, -1 });
+		presets.add(ComponentPresetFactory.create(bodyTube));
+
+		TypedPropertyMap noseCone = new TypedPropertyMap();
+		noseCone.put(ComponentPreset.TYPE, ComponentPreset.Type.NOSE_CONE);
+		noseCone.put(ComponentPreset.MANUFACTURER, Manufacturer.getManufacturer("Some New Manufacturer"));
+		noseCone.put(ComponentPreset.PARTNO, "NC-1");
+		noseCone.put(ComponentPreset.LENGTH, 0.1);
+		noseCone.put(ComponentPreset.SHAPE, Shape.OGIVE);
+		noseCone.put(ComponentPreset.AFT_OUTER_DIAMETER, 0.025);
+		noseCone.put(ComponentPreset.FILLED, false);
+		// A material not in the database, as created when loading a component file
+		noseCone.put(ComponentPreset.MATERIAL, Databases.findMaterial(Material.Type.BULK, "Unobtainium", 123.4));
+		presets.add(ComponentPresetFactory.create(noseCone));
+
+		TypedPropertyMap parachute = new TypedPropertyMap();
+		parachute.put(ComponentPreset.TYPE, ComponentPreset.Type.PARACHUTE);
+		parachute.put(ComponentPreset.MANUFACTURER, Manufacturer.getManufacturer("Estes"));
+		parachute.put(ComponentPreset.PARTNO, "P-12");
+		parachute.put(ComponentPreset.DIAMETER, 0.3);
+		parachute.put(ComponentPreset.SIDES, 6);
+		parachute.put(ComponentPreset.LINE_COUNT, 6);
+		parachute.put(ComponentPreset.LINE_LENGTH, 0.3);
+		parachute.put(ComponentPreset.LINE_MATERIAL, Databases.findMaterial(Material.Type.LINE, "Elastic cord (round 2 mm, 1/16 in)"));
+		presets.add(ComponentPresetFactory.create(parachute));
+
+		return presets;
+	}
+
+	@Test
+	public void testWriteRead() throws Exception {
+		List<ComponentPreset> presets = createPresets();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ComponentPresetDatabaseFile.write(presets, bytes);
+
+		List<ComponentPreset> read = ComponentPresetDatabaseFile.read(new ByteArrayInputStream(bytes.toByteArray()));
+		assertEquals(presets.size(), read.size());
+		for (int i = 0; i < presets.size(); i++) {
+			ComponentPreset expected = presets.get(i);
+			ComponentPreset actual = read.get(i);
+			assertEquals(expected.getDigest(), actual.getDigest());
+			assertEquals(expected, actual);
+			assertSame(expected.getManufacturer(), actual.getManufacturer());
+			assertSame(expected.getType(), actual.getType());
+			for (TypedKey<?> key : ComponentPreset.ORDERED_KEY_LIST) {
+				assertEquals(key.getName(), expected.has(key), actual.has(key));
+				if (expected.has(key)) {
+					assertEquals(key.getName(), expected.get(key), actual.get(key));
+				}
+			}
+		}
+		assertArrayEquals(presets.get(0).get(ComponentPreset.IMAGE), read.get(0).get(ComponentPreset.IMAGE));
+		assertSame(presets.get(0).get(ComponentPreset.MATERIAL), read.get(0).get(ComponentPreset.MATERIAL));
+		assertSame(presets.get(2).get(ComponentPreset.LINE_MATERIAL), read.get(2).get(ComponentPreset.LINE_MATERIAL));
+	}
+
+	@Test
+	public void testInvalidFile() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ComponentPresetDatabaseFile.write(createPresets(), bytes);
+		byte[] data = bytes.toByteArray();
+
+		// Unsupported version
+		data[7]++;
+		try {
+			ComponentPresetDatabaseFile.read(new ByteArrayInputStream(data));
+			fail("Unsupported version read");
+		} catch (IOException expected) {
+		}
+
+		// Not a preset file
+		try {
+			ComponentPresetDatabaseFile.read(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }));
+			fail("Invalid file read");
+		} catch (IOException expected) {
+		}
+	}
+
+	@Test
+	public void testSourceHash() throws Exception {
+		List<ComponentPreset> presets = createPresets();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ComponentPresetDatabaseFile.write(presets, "0123abcd", bytes);
+		assertEquals("0123abcd", ComponentPresetDatabaseFile.readSourceHash(new ByteArrayInputStream(bytes.toByteArray())));
+		assertEquals(presets.size(), ComponentPresetDatabaseFile.read(new ByteArrayInputStream(bytes.toByteArray())).size());
+
+		bytes = new ByteArrayOutputStream();
+		ComponentPresetDatabaseFile.write(presets, bytes);
+		assertNull(ComponentPresetDatabaseFile.readSourceHash(new ByteArrayInputStream(bytes.toByteArray())));
+	}
+
+	@Test
+	public void testHashSources() throws Exception {
+		File dir = folder.newFolder("presets");
+		File sub = new File(dir, "sub");
+		sub.mkdir();
+		File a = new File(dir, "a.orc");
+		File b = new File(sub, "b.orc");
+		Files.write(a.toPath(), "a".getBytes(StandardCharsets.UTF_8));
+		Files.write(b.toPath(), "b".getBytes(StandardCharsets.UTF_8));
+		Files.write(new File(dir, "ignored.txt").toPath(), "x".getBytes(StandardCharsets.UTF_8));
+		FileFilter filter = new FileFilter() {
+			@Override
+			public boolean accept(File file) {
+				return file.getName().endsWith(".orc");
+			}
+		};
+		List<File> dirs = Collections.singletonList(dir);
+		String hash = ComponentPresetDatabaseFile.hashSources(dirs, filter);
+
+		// The modification time and files not selected do not matter
+		a.setLastModified(a.lastModified() + 100000);
+		Files.write(new File(dir, "ignored.txt").toPath(), "y".getBytes(StandardCharsets.UTF_8));
+		assertEquals(hash, ComponentPresetDatabaseFile.hashSources(dirs, filter));
+
+		// Editing, renaming or adding a source file does
+		Files.write(b.toPath(), "c".getBytes(StandardCharsets.UTF_8));
+		String edited = ComponentPresetDatabaseFile.hashSources(dirs, filter);
+		assertFalse(hash.equals(edited));
+		b.renameTo(new File(dir, "b.orc"));
+		String renamed = ComponentPresetDatabaseFile.hashSources(dirs, filter);
+		assertFalse(edited.equals(renamed));
+		Files.write(new File(sub, "d.orc").toPath(), new byte[0]);
+		assertFalse(renamed.equals(ComponentPresetDatabaseFile.hashSources(dirs, filter)));
+	}
+}
@@ -0,0 +1,152 @@
+package net.sf.openrocket.rocketcomponent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Test;
+
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+import net.sf.openrocket.util.TestRockets;
+
+public class RocketSnapshotTest extends BaseTestCase {
+
+	private static FinSet findFinSet(Rocket rocket) {
+		for (RocketComponent c : rocket) {
+			if (c instanceof FinSet) {
+				return (FinSet) c;
+			}
+		}
+		throw new IllegalArgumentException("No fin set in " + rocket);
+	}
+
+	private static void assertSameState(Rocket expected, Rocket actual) {
+		assertEquals(expected.getModID(), actual.getModID());
+		// Update the derived state of both as when a snapshot is loaded for undo
+		expected.fireComponentChangeEvent(ComponentChangeEvent.UNDO_CHANGE | ComponentChangeEvent.TREE_CHANGE);
+		actual.fireComponentChangeEvent(ComponentChangeEvent.UNDO_CHANGE | ComponentChangeEvent.TREE_CHANGE);
+		assertEquals(expected.toDebugTree(), actual.toDebugTree());
+		assertEquals(expected.getStageCount(), actual.getStageCount());
+
+		Iterator<RocketComponent> expectedComponents = expected.iterator(true);
+		Iterator<RocketComponent> actualComponents = actual.iterator(true);
+		while (expectedComponents.hasNext()) {
+			RocketComponent e = expectedComponents.next();
+			RocketComponent a = actualComponents.next();
+			assertNotSame(e, a);
+			assertEquals(e.getID(), a.getID());
+			assertEquals(e.getClass(), a.getClass());
+			assertEquals(e.getComponentMass(), a.getComponentMass(), 0);
+			if (e instanceof FinSet) {
+				assertEquals(((FinSet) e).getCantAngle(), ((FinSet) a).getCantAngle(), 0);
+			}
+		}
+		assertFalse(actualComponents.hasNext());
+
+		assertEquals(expected.getConfigurationCount(), actual.getConfigurationCount());
+		assertEquals(expected.getSelectedConfiguration().getId(), actual.getSelectedConfiguration().getId());
+		for (FlightConfigurationId id : expected.getIds()) {
+			FlightConfiguration e = expected.getFlightConfiguration(id);
+			FlightConfiguration a = actual.getFlightConfiguration(id);
+			assertEquals(actual, a.getRocket());
+			assertEquals(e.getNameRaw(), a.getNameRaw());
+			for (int stage = 0; stage < expected.getStageCount(); stage++) {
+				assertEquals(e.isStageActive(stage), a.isStageActive(stage));
+			}
+		}
+	}
+
+	/**
+	 * Test that a snapshot restores the state of the rocket when it was taken, including
+	 * the flight configurations and stage activeness.
+	 */
+	@Test
+	public void testToRocket() {
+		Rocket rocket = TestRockets.makeFalcon9Heavy();
+		FlightConfiguration config = rocket.getSelectedConfiguration();
+		config.setName("Core only");
+		config.clearStage(1);
+		Rocket expected = rocket.copyWithOriginalID();
+
+		RocketSnapshot snapshot = RocketSnapshot.create(rocket, null);
+		assertEquals(rocket.getModID(), snapshot.getModID());
+		findFinSet(rocket).setCantAngle(Math.toRadians(2));
+		rocket.getSelectedConfiguration().setAllStages();
+
+		assertSameState(expected, snapshot.toRocket());
+		assertSameState(rocket.copyWithOriginalID(), RocketSnapshot.create(rocket, snapshot).toRocket());
+	}
+
+	/**
+	 * Test that consecutive snapshots share the copies of the unchanged components.
+	 */
+	@Test
+	public void testUnchangedComponentsShared() {
+		Rocket rocket = TestRockets.makeFalcon9Heavy();
+		Map<Object, Integer> references = new IdentityHashMap<Object, Integer>();
+
+		RocketSnapshot first = RocketSnapshot.create(rocket, null);
+		long firstSize = first.retain(references);
+		assertEquals(first.getSize(), firstSize);
+
+		FinSet fins = findFinSet(rocket);
+		fins.setCantAngle(Math.toRadians(3));
+		Rocket expected = rocket.copyWithOriginalID();
+		RocketSnapshot second = RocketSnapshot.create(rocket, first);
+		long added = second.retain(references);
+		assertEquals(firstSize, second.getSize());
+		assertTrue("added " + added + " of " + firstSize, added > 0 && added < firstSize / 3);
+		assertSameState(expected, second.toRocket());
+		assertEquals(0, findFinSet(first.toRocket()).getCantAngle(), 0);
+
+		// A snapshot without changes shares all components except the rocket
+		RocketSnapshot third = RocketSnapshot.create(rocket, second);
+		long thirdAdded = third.retain(references);
+		assertTrue(thirdAdded < added);
+
+		// Releasing all snapshots releases the memory accounted for them
+		long released = second.release(references) + first.release(references) + third.release(references);
+		assertTrue(references.isEmpty());
+		assertEquals(firstSize + added + thirdAdded, released);
+	}
+
+	/**
+	 * Test that a change event fired by the rocket itself causes all components to be copied.
+	 */
+	@Test
+	public void testRocketChangeCopiesAll() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		Map<Object, Integer> references = new IdentityHashMap<Object, Integer>();
+		RocketSnapshot first = RocketSnapshot.create(rocket, null);
+		first.retain(references);
+
+		rocket.fireComponentChangeEvent(ComponentChangeEvent.NONFUNCTIONAL_CHANGE);
+		RocketSnapshot second = RocketSnapshot.create(rocket, first);
+		assertEquals(second.getSize(), second.retain(references));
+	}
+
+	/**
+	 * Test that components changed through config listeners, whose events are bypassed,
+	 * are copied.
+	 */
+	@Test
+	public void testConfigListenerChangesCopied() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		FinSet source = findFinSet(rocket);
+		FinSet listener = (FinSet) source.copy();
+		source.getParent().addChild(listener);
+		RocketSnapshot first = RocketSnapshot.create(rocket, null);
+
+		source.addConfigListener(listener);
+		source.setCantAngle(Math.toRadians(4));
+		source.clearConfigListeners();
+		assertEquals(Math.toRadians(4), listener.getCantAngle(), 1e-12);
+
+		assertSameState(rocket.copyWithOriginalID(), RocketSnapshot.create(rocket, first).toRocket());
+	}
+}
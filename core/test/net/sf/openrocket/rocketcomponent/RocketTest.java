@@ -4,9 +4,13 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.Matchers.closeTo;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
+import java.util.List;
 
 import net.sf.openrocket.util.ArrayList;
 import org.junit.Test;
@@ -490,4 +494,54 @@ public class RocketTest extends BaseTestCase {
 		assertEquals(  0.12069451, bounds.max.z, EPSILON);
 	}
 
+	@Test
+	public void testFreezeCoalescesEvents() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		final List<ComponentChangeEvent> events = new ArrayList<>();
+		rocket.addComponentChangeListener(new ComponentChangeListener() {
+			@Override
+			public void componentChanged(ComponentChangeEvent e) {
+				events.add(e);
+			}
+		});
+		AxialStage stage = rocket.getStage(0);
+		BodyTube body = (BodyTube) stage.getChild(1);
+		FinSet fins = (FinSet) body.getChild(0);
+		int modID = rocket.getModID();
+
+		// Nested freezes fire a single combined event when the outermost is thawed
+		rocket.freeze();
+		fins.setCantAngle(Math.toRadians(2));
+		rocket.freeze();
+		body.setLength(body.getLength() * 2);
+		body.addChild(new LaunchLug());
+		rocket.thaw();
+		assertTrue(rocket.isFrozen());
+		assertEquals(0, events.size());
+		assertNotEquals(modID, rocket.getModID());
+		rocket.thaw();
+		assertFalse(rocket.isFrozen());
+
+		assertEquals(1, events.size());
+		ComponentChangeEvent e = events.get(0);
+		assertTrue(e.isTreeChange());
+		assertTrue(e.isMassChange());
+		assertTrue(e.isAerodynamicChange());
+		assertFalse(e.isLocalChange());
+		assertEquals(e.getSource().getID(), body.getID());
+
+		// A freeze without changes fires no events
+		rocket.freeze();
+		rocket.thaw();
+		assertEquals(1, events.size());
+
+		// Events from a single component keep their source
+		rocket.freeze();
+		fins.setCantAngle(Math.toRadians(3));
+		fins.setCantAngle(Math.toRadians(4));
+		rocket.thaw();
+		assertEquals(2, events.size());
+		assertSame(fins, events.get(1).getSource());
+	}
+
 }
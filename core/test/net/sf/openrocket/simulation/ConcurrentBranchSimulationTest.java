@@ -0,0 +1,144 @@
+package net.sf.openrocket.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.models.wind.PinkNoiseWindModel;
+import net.sf.openrocket.models.wind.WindModel;
+import net.sf.openrocket.rocketcomponent.FlightConfiguration;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.rocketcomponent.RocketComponent;
+import net.sf.openrocket.simulation.exception.SimulationException;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+import net.sf.openrocket.util.TestRockets;
+
+/**
+ * Tests that simulating the separated branches concurrently yields the same flight data as
+ * simulating them one after another.
+ */
+public class ConcurrentBranchSimulationTest extends BaseTestCase {
+
+	private static final double RELATIVE_EPSILON = 1e-6;
+	// Repeated simulations differ slightly in the descent
+	private static final double TIME_EPSILON = 0.01;
+
+	private static FlightData simulate(Rocket rocket, int branchThreadCount) throws SimulationException {
+		Simulation sim = new Simulation(rocket);
+		sim.getOptions().setISAAtmosphere(true);
+		sim.getOptions().setTimeStep(0.05);
+		sim.getOptions().setRandomSeed(1234);
+		sim.getOptions().setBranchThreadCount(branchThreadCount);
+		sim.setFlightConfigurationId(rocket.getSelectedConfiguration().getFlightConfigurationID());
+
+		SimulationConditions conditions = sim.getOptions().toSimulationConditions();
+		conditions.setSimulation(sim);
+		assertEquals(branchThreadCount, conditions.getBranchThreadCount());
+		return new BasicEventSimulationEngine().simulate(conditions);
+	}
+
+	private static void assertSameFlight(FlightData serial, FlightData concurrent) {
+		assertEquals(serial.getBranchCount(), concurrent.getBranchCount());
+		assertEquals(serial.getWarningSet(), concurrent.getWarningSet());
+		for (int b = 0; b < serial.getBranchCount(); b++) {
+			FlightDataBranch expected = serial.getBranch(b);
+			FlightDataBranch actual = concurrent.getBranch(b);
+			assertEquals(expected.getBranchName(), actual.getBranchName());
+
+			List<FlightEvent> expectedEvents = expected.getEvents();
+			List<FlightEvent> actualEvents = actual.getEvents();
+			assertEquals(expected.getBranchName(), expectedEvents.size(), actualEvents.size());
+			for (int i = 0; i < expectedEvents.size(); i++) {
+				String message = expected.getBranchName() + " event " + i;
+				assertEquals(message, expectedEvents.get(i).getType(), actualEvents.get(i).getType());
+				// Every simulation flies its own copy of the rocket
+				RocketComponent source = expectedEvents.get(i).getSource();
+				if (source == null) {
+					assertNull(message, actualEvents.get(i).getSource());
+				} else {
+					assertEquals(message, source.getID(), actualEvents.get(i).getSource().getID());
+				}
+				assertEquals(message, expectedEvents.get(i).getTime(), actualEvents.get(i).getTime(), TIME_EPSILON);
+			}
+
+			double maxAltitude = expected.getMaximum(FlightDataType.TYPE_ALTITUDE);
+			assertEquals(expected.getBranchName(), maxAltitude,
+					actual.getMaximum(FlightDataType.TYPE_ALTITUDE), maxAltitude * RELATIVE_EPSILON);
+		}
+	}
+
+	@Test
+	public void testFalcon9Heavy() throws SimulationException {
+		Rocket rocket = TestRockets.makeFalcon9Heavy();
+		TestRockets.addCoreFins(rocket);
+		rocket.getSelectedConfiguration().setAllStages();
+
+		FlightData serial = simulate(rocket, 1);
+		assertEquals(3, serial.getBranchCount());
+		assertSameFlight(serial, simulate(rocket, 2));
+		assertSameFlight(serial, simulate(rocket, 4));
+	}
+
+	@Test
+	public void testBeta() throws SimulationException {
+		Rocket rocket = TestRockets.makeBeta();
+		rocket.getSelectedConfiguration().setAllStages();
+
+		FlightData serial = simulate(rocket, 1);
+		assertEquals(2, serial.getBranchCount());
+		assertSameFlight(serial, simulate(rocket, 2));
+	}
+
+	/**
+	 * Test that a copy of a status, as made for every branch, burns its motors independently
+	 * of the original, and that the queued events refer to the motors of the copy.
+	 */
+	@Test
+	public void testStatusCopyMotors() throws SimulationException {
+		Rocket rocket = TestRockets.makeBeta();
+		FlightConfiguration config = rocket.getSelectedConfiguration();
+		config.setAllStages();
+		SimulationStatus status = new SimulationStatus(config, new SimulationConditions());
+		MotorClusterState motor = status.getMotors().iterator().next();
+		motor.ignite(0.5);
+		status.getEventQueue().add(new FlightEvent(FlightEvent.Type.BURNOUT, 2, null, motor));
+
+		SimulationStatus copy = new SimulationStatus(status);
+		assertEquals(status.getMotors().size(), copy.getMotors().size());
+		MotorClusterState copiedMotor = copy.getMotors().iterator().next();
+		assertNotSame(motor, copiedMotor);
+		assertEquals(0.5, copiedMotor.getIgnitionTime(), 0);
+		assertSame(copiedMotor, copy.getEventQueue().peek().getData());
+
+		motor.burnOut(2);
+		assertFalse(copiedMotor.isDelaying());
+		assertTrue(copiedMotor.getThrust(1) > 0);
+	}
+
+	/**
+	 * Test that a copy of the wind model, as used by every branch, produces the same wind
+	 * however far the original has been queried.
+	 */
+	@Test
+	public void testWindModelInstance() {
+		PinkNoiseWindModel wind = new PinkNoiseWindModel(1234);
+		wind.setAverage(5);
+		wind.setStandardDeviation(1);
+		wind.setDirection(1);
+		wind.getWindVelocity(10, 0);
+
+		WindModel copy = wind.newInstance();
+		assertEquals(wind.getModID(), copy.getModID());
+		for (double t = 2; t < 20; t += 0.37) {
+			assertEquals(wind.getWindVelocity(t, 0), copy.getWindVelocity(t, 0));
+		}
+	}
+}
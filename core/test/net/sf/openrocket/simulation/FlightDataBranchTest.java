@@ -0,0 +1,124 @@
+package net.sf.openrocket.simulation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class FlightDataBranchTest {
+
+	private static final int POINTS = 3000;
+
+	private static FlightDataBranch createBranch() {
+		FlightDataBranch branch = new FlightDataBranch("Test", FlightDataType.TYPE_TIME, FlightDataType.TYPE_ALTITUDE);
+		for (int i = 0; i < POINTS; i++) {
+			branch.addPoint();
+			branch.setValue(FlightDataType.TYPE_TIME, i * 0.01);
+			branch.setValue(FlightDataType.TYPE_ALTITUDE, Math.sin(i * 0.01));
+		}
+		return branch;
+	}
+
+	/**
+	 * Test that values spanning several chunks are stored and returned in order.
+	 */
+	@Test
+	public void testValuesAcrossChunks() {
+		FlightDataBranch branch = createBranch();
+
+		assertEquals(POINTS, branch.getLength());
+		int channel = branch.getChannel(FlightDataType.TYPE_ALTITUDE);
+		double[] values = branch.getValues(FlightDataType.TYPE_ALTITUDE);
+		List<Double> list = branch.get(FlightDataType.TYPE_ALTITUDE);
+		assertEquals(POINTS, values.length);
+		assertEquals(POINTS, list.size());
+		for (int i = 0; i < POINTS; i++) {
+			assertEquals(Math.sin(i * 0.01), values[i], 0);
+			assertEquals(Math.sin(i * 0.01), list.get(i), 0);
+			assertEquals(Math.sin(i * 0.01), branch.getValue(channel, i), 0);
+			assertEquals(Math.sin(i * 0.01), branch.getByIndex(FlightDataType.TYPE_ALTITUDE, i), 0);
+		}
+		assertEquals((POINTS - 1) * 0.01, branch.getLast(FlightDataType.TYPE_TIME), 0);
+		assertEquals(1.0, branch.getMaximum(FlightDataType.TYPE_ALTITUDE), 1e-6);
+		assertEquals(-1.0, branch.getMinimum(FlightDataType.TYPE_ALTITUDE), 1e-6);
+
+		assertEquals(-1, branch.getChannel(FlightDataType.TYPE_MACH_NUMBER));
+		assertNull(branch.get(FlightDataType.TYPE_MACH_NUMBER));
+		assertNull(branch.getValues(FlightDataType.TYPE_MACH_NUMBER));
+		assertTrue(Double.isNaN(branch.getMaximum(FlightDataType.TYPE_MACH_NUMBER)));
+	}
+
+	/**
+	 * Test that a type added after the first points has NaN for the earlier points.
+	 */
+	@Test
+	public void testLateType() {
+		FlightDataBranch branch = new FlightDataBranch("Test", FlightDataType.TYPE_TIME);
+		branch.addPoint();
+		branch.setValue(FlightDataType.TYPE_TIME, 0);
+		branch.addPoint();
+		branch.setValue(FlightDataType.TYPE_TIME, 1);
+		branch.setValue(FlightDataType.TYPE_VELOCITY_TOTAL, 5);
+		branch.addPoint();
+		branch.setValue(FlightDataType.TYPE_TIME, 2);
+
+		double[] velocity = branch.getValues(FlightDataType.TYPE_VELOCITY_TOTAL);
+		assertEquals(3, velocity.length);
+		assertTrue(Double.isNaN(velocity[0]));
+		assertEquals(5, velocity[1], 0);
+		assertTrue(Double.isNaN(velocity[2]));
+		assertEquals(5, branch.getMaximum(FlightDataType.TYPE_VELOCITY_TOTAL), 0);
+		assertEquals(5, branch.getMinimum(FlightDataType.TYPE_VELOCITY_TOTAL), 0);
+		assertEquals(FlightDataType.TYPE_VELOCITY_TOTAL,
+				branch.getChannelType(branch.getChannel(FlightDataType.TYPE_VELOCITY_TOTAL)));
+	}
+
+	/**
+	 * Test that the returned values and clones are independent of the branch.
+	 */
+	@Test
+	public void testCopiesAreIndependent() {
+		FlightDataBranch branch = createBranch();
+		List<Double> list = branch.get(FlightDataType.TYPE_TIME);
+		double[] array = branch.getValues(FlightDataType.TYPE_TIME);
+		FlightDataBranch clone = branch.clone();
+
+		branch.addPoint();
+		branch.setValue(FlightDataType.TYPE_TIME, 100);
+		array[0] = -1;
+
+		assertEquals(POINTS, list.size());
+		assertEquals(0, branch.getValues(FlightDataType.TYPE_TIME)[0], 0);
+		assertEquals(POINTS, clone.getLength());
+		assertEquals((POINTS - 1) * 0.01, clone.getLast(FlightDataType.TYPE_TIME), 0);
+		assertEquals((POINTS - 1) * 0.01, clone.getMaximum(FlightDataType.TYPE_TIME), 0);
+		assertEquals(100, branch.getMaximum(FlightDataType.TYPE_TIME), 0);
+	}
+
+	/**
+	 * Test that a branch copied from a parent contains all of its points.
+	 */
+	@Test
+	public void testCopyFromParent() {
+		FlightDataBranch parent = createBranch();
+		FlightDataBranch child = new FlightDataBranch("Child", null, parent);
+
+		assertEquals(POINTS, child.getLength());
+		assertArrayEquals(parent.getTypes(), child.getTypes());
+		for (FlightDataType type : parent.getTypes()) {
+			assertArrayEquals(parent.getValues(type), child.getValues(type), 0);
+			assertEquals(parent.getMinimum(type), child.getMinimum(type), 0);
+			assertEquals(parent.getMaximum(type), child.getMaximum(type), 0);
+		}
+
+		child.addPoint();
+		child.setValue(FlightDataType.TYPE_ALTITUDE, 2);
+		assertEquals(POINTS + 1, child.getLength());
+		assertEquals(2, child.getMaximum(FlightDataType.TYPE_ALTITUDE), 0);
+		assertEquals(POINTS, parent.getLength());
+	}
+}
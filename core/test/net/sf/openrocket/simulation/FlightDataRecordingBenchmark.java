@@ -0,0 +1,71 @@
+package net.sf.openrocket.simulation;
+
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.simulation.exception.SimulationException;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+import net.sf.openrocket.util.TestRockets;
+
+/**
+ * Microbenchmark comparing the flight data recording profiles on the test rocket designs.
+ * Reports the time per complete simulation when recording all flight data, only the
+ * summary values and the summary values with the landing distance.
+ * <p>
+ * Run with <code>java -Dlogback.configurationFile=config/logback-stdout-level-error.xml -cp ...
+ * net.sf.openrocket.simulation.FlightDataRecordingBenchmark [rounds]</code>, logging every
+ * simulation would dominate the measurement.
+ */
+public class FlightDataRecordingBenchmark {
+
+	private static final int WARMUP_ROUNDS = 20;
+
+	private static void run(String name, Rocket rocket, int rounds) throws SimulationException {
+		Simulation sim = new Simulation(rocket);
+		sim.getOptions().setISAAtmosphere(true);
+		sim.getOptions().setTimeStep(RK4SimulationStepper.RECOMMENDED_TIME_STEP);
+		sim.setFlightConfigurationId(rocket.getSelectedConfiguration().getFlightConfigurationID());
+
+		String[] names = { "all", "summary", "summary+XY" };
+		FlightDataRecording[] recordings = { FlightDataRecording.ALL, FlightDataRecording.SUMMARY,
+				FlightDataRecording.summaryAnd(FlightDataType.TYPE_POSITION_XY) };
+		for (FlightDataRecording recording : recordings) {
+			measure(sim, recording, WARMUP_ROUNDS);
+		}
+		double all = Double.NaN;
+		for (int i = 0; i < recordings.length; i++) {
+			double ms = measure(sim, recordings[i], rounds) / 1e6 / rounds;
+			if (i == 0) {
+				all = ms;
+			}
+			System.out.printf("%-16s %-12s %8.2f ms/simulation %6.2fx%n", name, names[i], ms, all / ms);
+		}
+	}
+
+	/**
+	 * Run the simulation repeatedly, returning the elapsed nanoseconds.
+	 */
+	private static long measure(Simulation sim, FlightDataRecording recording, int rounds) throws SimulationException {
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			SimulationConditions conditions = sim.getOptions().toSimulationConditions();
+			conditions.setSimulation(sim);
+			conditions.setRecording(recording);
+			new BasicEventSimulationEngine().simulate(conditions);
+		}
+		return System.nanoTime() - start;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int rounds = (args.length > 0) ? Integer.parseInt(args[0]) : 50;
+		BaseTestCase.setUp();
+
+		Rocket alpha = TestRockets.makeEstesAlphaIII();
+		alpha.setSelectedConfiguration(TestRockets.TEST_FCID_0);
+		run("EstesAlphaIII", alpha, rounds);
+		run("Beta", TestRockets.makeBeta(), rounds);
+		Rocket falcon = TestRockets.makeFalcon9Heavy();
+		TestRockets.addCoreFins(falcon);
+		falcon.getSelectedConfiguration().setAllStages();
+		run("Falcon9Heavy", falcon, rounds);
+	}
+}
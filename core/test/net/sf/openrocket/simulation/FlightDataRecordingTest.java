@@ -0,0 +1,120 @@
+package net.sf.openrocket.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import net.sf.openrocket.document.OpenRocketDocument;
+import net.sf.openrocket.document.OpenRocketDocumentFactory;
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.simulation.customexpression.CustomExpression;
+import net.sf.openrocket.simulation.exception.SimulationException;
+import net.sf.openrocket.simulation.extension.AbstractSimulationExtension;
+import net.sf.openrocket.simulation.listeners.AbstractSimulationListener;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+import net.sf.openrocket.util.TestRockets;
+
+public class FlightDataRecordingTest extends BaseTestCase {
+
+	private static final double RELATIVE_EPSILON = 1e-9;
+
+	private static FlightData simulate(FlightDataRecording recording) throws SimulationException {
+		return simulate(new Simulation(TestRockets.makeEstesAlphaIII()), recording);
+	}
+
+	private static FlightData simulate(Simulation sim, FlightDataRecording recording) throws SimulationException {
+		sim.getOptions().setISAAtmosphere(true);
+		sim.getOptions().setTimeStep(0.05);
+		sim.getOptions().setRandomSeed(1234);
+		sim.setFlightConfigurationId(TestRockets.TEST_FCID_0);
+		sim.simulate(recording);
+		return sim.getSimulatedData();
+	}
+
+	private static void assertClose(double expected, double actual) {
+		assertEquals(expected, actual, Math.abs(expected) * RELATIVE_EPSILON);
+	}
+
+	@Test
+	public void testProfileTypes() {
+		assertTrue(FlightDataRecording.ALL.isAll());
+		assertTrue(FlightDataRecording.ALL.isRecorded(FlightDataType.TYPE_DRAG_COEFF));
+
+		FlightDataRecording recording = FlightDataRecording.of(FlightDataType.TYPE_DRAG_COEFF);
+		assertFalse(recording.isAll());
+		assertTrue(recording.isRecorded(FlightDataType.TYPE_DRAG_COEFF));
+		assertTrue(recording.isRecorded(FlightDataType.TYPE_TIME));
+		assertTrue(recording.isRecorded(FlightDataType.TYPE_THRUST_FORCE));
+		assertFalse(recording.isRecorded(FlightDataType.TYPE_MACH_NUMBER));
+
+		recording = FlightDataRecording.summaryAnd(FlightDataType.TYPE_POSITION_XY);
+		assertTrue(recording.isRecorded(FlightDataType.TYPE_POSITION_XY));
+		assertTrue(recording.isRecorded(FlightDataType.TYPE_VELOCITY_TOTAL));
+		assertFalse(recording.isRecorded(FlightDataType.TYPE_DRAG_COEFF));
+	}
+
+	/**
+	 * Test that a summary recording stores only the summary channels and yields the same
+	 * summary values as a full recording.
+	 */
+	@Test
+	public void testSummaryRecording() throws SimulationException {
+		FlightData all = simulate(FlightDataRecording.ALL);
+		FlightData summary = simulate(FlightDataRecording.SUMMARY);
+
+		FlightDataBranch branch = summary.getBranch(0);
+		assertTrue(branch.getChannel(FlightDataType.TYPE_ALTITUDE) >= 0);
+		assertTrue(branch.getChannel(FlightDataType.TYPE_VELOCITY_TOTAL) >= 0);
+		assertEquals(-1, branch.getChannel(FlightDataType.TYPE_DRAG_COEFF));
+		assertEquals(-1, branch.getChannel(FlightDataType.TYPE_REYNOLDS_NUMBER));
+		assertEquals(-1, branch.getChannel(FlightDataType.TYPE_COMPUTATION_TIME));
+		assertTrue(branch.getTypes().length < all.getBranch(0).getTypes().length);
+
+		assertClose(all.getMaxAltitude(), summary.getMaxAltitude());
+		assertClose(all.getMaxVelocity(), summary.getMaxVelocity());
+		assertClose(all.getMaxAcceleration(), summary.getMaxAcceleration());
+		assertClose(all.getMaxMachNumber(), summary.getMaxMachNumber());
+		assertClose(all.getTimeToApogee(), summary.getTimeToApogee());
+		assertClose(all.getDeploymentVelocity(), summary.getDeploymentVelocity());
+		assertClose(all.getLaunchRodVelocity(), summary.getLaunchRodVelocity());
+		// Repeated simulations differ slightly in the descent even with the same recording
+		assertEquals(all.getFlightTime(), summary.getFlightTime(), 0.1);
+		assertEquals(all.getGroundHitVelocity(), summary.getGroundHitVelocity(), 0.5);
+	}
+
+	/**
+	 * Test that all flight data is recorded when the simulation has extensions or custom
+	 * expressions, which may read any flight data type.
+	 */
+	@Test
+	public void testExtensionsAndExpressionsRecordAll() throws SimulationException {
+		Simulation sim = new Simulation(TestRockets.makeEstesAlphaIII());
+		final FlightDataType[] read = new FlightDataType[1];
+		sim.getSimulationExtensions().add(new AbstractSimulationExtension() {
+			@Override
+			public void initialize(SimulationConditions conditions) {
+				conditions.getSimulationListenerList().add(new AbstractSimulationListener() {
+					@Override
+					public void postStep(SimulationStatus status) {
+						FlightDataBranch branch = status.getFlightData();
+						if (branch.getLast(FlightDataType.TYPE_DRAG_COEFF) > 0) {
+							read[0] = FlightDataType.TYPE_DRAG_COEFF;
+						}
+					}
+				});
+			}
+		});
+		FlightData data = simulate(sim, FlightDataRecording.SUMMARY);
+		assertTrue(data.getBranch(0).getChannel(FlightDataType.TYPE_DRAG_COEFF) >= 0);
+		assertEquals(FlightDataType.TYPE_DRAG_COEFF, read[0]);
+
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		OpenRocketDocument document = OpenRocketDocumentFactory.createDocumentFromRocket(rocket);
+		document.addCustomExpression(new CustomExpression(document, "Drag", "Dr", "N", "Cd"));
+		data = simulate(new Simulation(document, rocket), FlightDataRecording.SUMMARY);
+		assertTrue(data.getBranch(0).getChannel(FlightDataType.TYPE_DRAG_COEFF) >= 0);
+	}
+}
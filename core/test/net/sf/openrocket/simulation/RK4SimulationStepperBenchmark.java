@@ -0,0 +1,97 @@
+package net.sf.openrocket.simulation;
+
+import java.lang.management.ManagementFactory;
+
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.simulation.exception.SimulationException;
+import net.sf.openrocket.simulation.listeners.AbstractSimulationListener;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+import net.sf.openrocket.util.TestRockets;
+
+/**
+ * Microbenchmark comparing the RK4 integration modes on the test rocket designs.
+ * Reports the flight steps per second and the bytes allocated per step of complete
+ * simulations, which include the aerodynamic, mass and atmosphere models.
+ * <p>
+ * Run with <code>java -cp ... net.sf.openrocket.simulation.RK4SimulationStepperBenchmark [rounds]</code>.
+ * The allocation figures require a JVM supporting thread allocation measurement.
+ */
+public class RK4SimulationStepperBenchmark {
+
+	private static final int WARMUP_ROUNDS = 20;
+
+	// Listeners are cloned for each simulation, the shallow copies share the counter
+	private static class StepCounter extends AbstractSimulationListener {
+		final long[] steps = new long[1];
+
+		@Override
+		public void postStep(SimulationStatus status) {
+			steps[0]++;
+		}
+	}
+
+	private static void run(String name, Rocket rocket, int rounds) throws SimulationException {
+		Simulation sim = new Simulation(rocket);
+		sim.getOptions().setISAAtmosphere(true);
+		sim.getOptions().setTimeStep(RK4SimulationStepper.RECOMMENDED_TIME_STEP);
+		sim.setFlightConfigurationId(rocket.getSelectedConfiguration().getFlightConfigurationID());
+
+		for (boolean scratchState : new boolean[] { false, true }) {
+			measure(sim, scratchState, WARMUP_ROUNDS);
+			long[] result = measure(sim, scratchState, rounds);
+			long steps = result[0];
+			double seconds = result[1] / 1e9;
+			System.out.printf("%-16s %-8s %10.0f steps/s %10.0f bytes/step%n", name,
+					scratchState ? "scratch" : "clone", steps / seconds,
+					result[2] < 0 ? Double.NaN : (double) result[2] / steps);
+		}
+	}
+
+	/**
+	 * Run the simulation repeatedly, returning the number of steps, elapsed nanoseconds
+	 * and allocated bytes (-1 if not supported).
+	 */
+	private static long[] measure(Simulation sim, boolean scratchState, int rounds) throws SimulationException {
+		StepCounter counter = new StepCounter();
+		long bytes = allocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			SimulationConditions conditions = sim.getOptions().toSimulationConditions();
+			conditions.setSimulation(sim);
+			conditions.getSimulationListenerList().add(counter);
+
+			BasicEventSimulationEngine engine = new BasicEventSimulationEngine();
+			((RK4SimulationStepper) engine.getFlightStepper()).setScratchState(scratchState);
+			engine.simulate(conditions);
+		}
+		long elapsed = System.nanoTime() - start;
+		long end = allocatedBytes();
+		return new long[] { counter.steps[0], elapsed, (bytes < 0 || end < 0) ? -1 : end - bytes };
+	}
+
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+			if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+				return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int rounds = (args.length > 0) ? Integer.parseInt(args[0]) : 50;
+		BaseTestCase.setUp();
+
+		Rocket alpha = TestRockets.makeEstesAlphaIII();
+		alpha.setSelectedConfiguration(TestRockets.TEST_FCID_0);
+		run("EstesAlphaIII", alpha, rounds);
+		run("Beta", TestRockets.makeBeta(), rounds);
+		Rocket falcon = TestRockets.makeFalcon9Heavy();
+		TestRockets.addCoreFins(falcon);
+		falcon.getSelectedConfiguration().setAllStages();
+		run("Falcon9Heavy", falcon, rounds);
+	}
+}
@@ -0,0 +1,106 @@
+package net.sf.openrocket.simulation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.rocketcomponent.FlightConfiguration;
+import net.sf.openrocket.rocketcomponent.FlightConfigurationId;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.simulation.exception.SimulationException;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+import net.sf.openrocket.util.TestRockets;
+
+public class RK4SimulationStepperTest extends BaseTestCase {
+
+	private static TrajectoryRecorder simulate(Simulation sim, boolean scratchState) throws SimulationException {
+		SimulationConditions conditions = sim.getOptions().toSimulationConditions();
+		conditions.setSimulation(sim);
+
+		BasicEventSimulationEngine engine = new BasicEventSimulationEngine();
+		((RK4SimulationStepper) engine.getFlightStepper()).setScratchState(scratchState);
+		TrajectoryRecorder recorder = TrajectoryRecorder.everyNth(1);
+		engine.setTrajectoryRecorder(recorder);
+		engine.simulate(conditions);
+		return recorder;
+	}
+
+	private static void assertSameTrajectory(Rocket rocket, FlightConfigurationId fcid) throws SimulationException {
+		Simulation sim = new Simulation(rocket);
+		sim.getOptions().setISAAtmosphere(true);
+		sim.getOptions().setTimeStep(0.05);
+		sim.setFlightConfigurationId(fcid);
+
+		TrajectoryRecorder cloned = simulate(sim, false);
+		TrajectoryRecorder scratch = simulate(sim, true);
+
+		assertTrue(cloned.getSampleCount() > 0);
+		assertEquals(cloned.getSampleCount(), scratch.getSampleCount());
+		double[] expected = new double[TrajectoryRecorder.STATE_SIZE];
+		double[] actual = new double[TrajectoryRecorder.STATE_SIZE];
+		for (int i = 0; i < cloned.getSampleCount(); i++) {
+			cloned.getState(i, expected);
+			scratch.getState(i, actual);
+			for (int field = 0; field < TrajectoryRecorder.STATE_SIZE; field++) {
+				assertEquals("sample " + i + " field " + field, expected[field], actual[field], 0);
+			}
+		}
+	}
+
+	@Test
+	public void testScratchStateMatchesClonedStages() throws SimulationException {
+		assertSameTrajectory(TestRockets.makeEstesAlphaIII(), TestRockets.TEST_FCID_0);
+	}
+
+	@Test
+	public void testScratchStateMatchesClonedStagesMultiStage() throws SimulationException {
+		Rocket rocket = TestRockets.makeBeta();
+		assertSameTrajectory(rocket, rocket.getSelectedConfiguration().getFlightConfigurationID());
+	}
+
+	private static double[] step(RK4SimulationStepper stepper, SimulationStatus start, int steps) throws SimulationException {
+		SimulationStatus status = stepper.initialize(new SimulationStatus(start));
+		double timeStep = start.getSimulationConditions().getTimeStep();
+		double[] result = new double[2 * steps];
+		for (int i = 0; i < steps; i++) {
+			stepper.step(status, timeStep);
+			result[2 * i] = status.getSimulationTime();
+			result[2 * i + 1] = status.getRocketPosition().z;
+		}
+		return result;
+	}
+
+	/**
+	 * Test that initialize() resets the step selection, so that a branch simulated by a
+	 * stepper after another branch, as the separated stages are in a serial simulation,
+	 * takes the same steps as with a new stepper.  The steps used to depend on the time
+	 * and step size where the previous branch ended.
+	 */
+	@Test
+	public void testInitializeResetsStepSelection() throws SimulationException {
+		Rocket rocket = TestRockets.makeBeta();
+		FlightConfiguration config = rocket.getSelectedConfiguration();
+		config.setAllStages();
+		Simulation sim = new Simulation(rocket);
+		sim.getOptions().setISAAtmosphere(true);
+		sim.getOptions().setTimeStep(0.05);
+		SimulationConditions conditions = sim.getOptions().toSimulationConditions();
+		conditions.setSimulation(sim);
+
+		// A branch separating at 1.234 s, after the previous branch has been simulated further
+		SimulationStatus previous = new SimulationStatus(config, conditions);
+		previous.setFlightData(new FlightDataBranch("previous", FlightDataType.TYPE_TIME));
+		SimulationStatus branch = new SimulationStatus(config, conditions);
+		branch.setFlightData(new FlightDataBranch("branch", FlightDataType.TYPE_TIME));
+		branch.setSimulationTime(1.234);
+
+		double[] expected = step(new RK4SimulationStepper(), branch, 50);
+
+		RK4SimulationStepper stepper = new RK4SimulationStepper();
+		step(stepper, previous, 100);
+		assertArrayEquals(expected, step(stepper, branch, 50), 0);
+	}
+}
@@ -0,0 +1,79 @@
+package net.sf.openrocket.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.simulation.exception.SimulationException;
+import net.sf.openrocket.simulation.extension.AbstractSimulationExtension;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+import net.sf.openrocket.util.TestRockets;
+
+public class SimulationStudyTest extends BaseTestCase {
+	
+	private static Simulation createSimulation() {
+		Simulation sim = new Simulation(TestRockets.makeEstesAlphaIII());
+		sim.getOptions().setISAAtmosphere(true);
+		sim.getOptions().setTimeStep(0.05);
+		sim.setFlightConfigurationId(TestRockets.TEST_FCID_0);
+		return sim;
+	}
+	
+	/**
+	 * Test that a plain simulation flies once and stores its flight data.
+	 */
+	@Test
+	public void testSingleRun() throws SimulationException {
+		Simulation sim = createSimulation();
+		assertTrue(sim.getOptions().toSimulationConditions().getStudy() instanceof SingleRunStudy);
+		
+		sim.simulate();
+		
+		assertNotNull(sim.getSimulatedData());
+		assertTrue(sim.getSimulatedData().getMaxAltitude() > 10);
+	}
+	
+	/**
+	 * Test that a study selected by an extension replaces the single flight.
+	 */
+	@Test
+	public void testExtensionStudy() throws SimulationException {
+		final CountingStudy study = new CountingStudy();
+		Simulation sim = createSimulation();
+		sim.getSimulationExtensions().add(new AbstractSimulationExtension() {
+			@Override
+			public void initialize(SimulationConditions conditions) {
+				conditions.setStudy(study);
+			}
+		});
+		
+		sim.simulate();
+		
+		assertEquals(1, study.runs);
+		assertSame(sim, study.conditions.getSimulation());
+		assertNull(sim.getSimulatedData());
+		assertEquals(Simulation.Status.UPTODATE, sim.getStatus());
+	}
+	
+	private static class CountingStudy implements SimulationStudy {
+		private int runs = 0;
+		private SimulationConditions conditions;
+		
+		@Override
+		public String getName() {
+			return "Counting study";
+		}
+		
+		@Override
+		public FlightData run(SimulationEngine engine, SimulationConditions conditions) {
+			this.runs++;
+			this.conditions = conditions;
+			return null;
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package net.sf.openrocket.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.simulation.exception.SimulationException;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+import net.sf.openrocket.util.TestRockets;
+
+public class TrajectoryRecorderTest extends BaseTestCase {
+	
+	private Simulation sim;
+	
+	private FlightData simulate(TrajectoryRecorder recorder) throws SimulationException {
+		if (sim == null) {
+			sim = new Simulation(TestRockets.makeEstesAlphaIII());
+			sim.getOptions().setISAAtmosphere(true);
+			sim.getOptions().setTimeStep(0.05);
+			sim.setFlightConfigurationId(TestRockets.TEST_FCID_0);
+		}
+		SimulationConditions conditions = sim.getOptions().toSimulationConditions();
+		conditions.setSimulation(sim);
+		
+		BasicEventSimulationEngine engine = new BasicEventSimulationEngine();
+		engine.setTrajectoryRecorder(recorder);
+		return engine.simulate(conditions);
+	}
+	
+	@Test
+	public void testCaptureModes() throws SimulationException {
+		TrajectoryRecorder none = TrajectoryRecorder.none();
+		simulate(none);
+		assertEquals(0, none.getSampleCount());
+		assertTrue(none.getStepCount() > 0);
+		
+		TrajectoryRecorder all = TrajectoryRecorder.everyNth(1);
+		FlightData data = simulate(all);
+		long steps = all.getStepCount();
+		assertEquals(steps, all.getSampleCount());
+		
+		// Recorded times are increasing
+		for (int i = 1; i < all.getSampleCount(); i++) {
+			assertTrue(all.get(i, TrajectoryRecorder.TIME) >= all.get(i - 1, TrajectoryRecorder.TIME));
+		}
+		
+		// The final state matches the end of the flight data
+		FlightDataBranch branch = data.getBranch(0);
+		assertEquals(branch.getLast(FlightDataType.TYPE_POSITION_X), all.getLast(TrajectoryRecorder.POSITION_X), 1e-9);
+		assertEquals(branch.getLast(FlightDataType.TYPE_POSITION_Y), all.getLast(TrajectoryRecorder.POSITION_Y), 1e-9);
+		
+		TrajectoryRecorder last = TrajectoryRecorder.finalState();
+		simulate(last);
+		assertEquals(1, last.getSampleCount());
+		assertEquals(all.getLast(TrajectoryRecorder.POSITION_X), last.getLast(TrajectoryRecorder.POSITION_X), 0);
+		
+		TrajectoryRecorder every10 = TrajectoryRecorder.everyNth(10);
+		simulate(every10);
+		assertEquals((steps + 9) / 10, every10.getSampleCount());
+		assertEquals(all.get(10, TrajectoryRecorder.TIME), every10.get(1, TrajectoryRecorder.TIME), 0);
+		
+		TrajectoryRecorder ring = TrajectoryRecorder.ringBuffer(5);
+		simulate(ring);
+		assertEquals(5, ring.getSampleCount());
+		double[] state = ring.getState(4, null);
+		assertEquals(all.getLast(TrajectoryRecorder.TIME), state[TrajectoryRecorder.TIME], 0);
+		assertEquals(all.get(all.getSampleCount() - 5, TrajectoryRecorder.TIME), ring.get(0, TrajectoryRecorder.TIME), 0);
+	}
+}
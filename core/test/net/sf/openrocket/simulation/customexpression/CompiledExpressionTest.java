@@ -0,0 +1,161 @@
+package net.sf.openrocket.simulation.customexpression;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sf.openrocket.document.OpenRocketDocument;
+import net.sf.openrocket.document.OpenRocketDocumentFactory;
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.simulation.BasicEventSimulationEngine;
+import net.sf.openrocket.simulation.SimulationConditions;
+import net.sf.openrocket.simulation.SimulationStatus;
+import net.sf.openrocket.simulation.exception.SimulationException;
+import net.sf.openrocket.simulation.listeners.AbstractSimulationListener;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+import net.sf.openrocket.util.TestRockets;
+
+import de.congrace.exp4j.Calculable;
+import de.congrace.exp4j.ExpressionBuilder;
+import de.congrace.exp4j.PostfixExpression;
+import de.congrace.exp4j.Variable;
+
+public class CompiledExpressionTest extends BaseTestCase {
+
+	/**
+	 * Test that the primitive calculation gives the same results as the general one.
+	 */
+	@Test
+	public void testPrimitiveCalculation() throws Exception {
+		String[] expressions = { "x+y*2", "-x^2%3", "sqrt(abs(x))-y/0.5", "(x+1)*(y-1)/(x*y)", "x/0", "2^10" };
+		double[][] values = { { 1.5, -2 }, { 0, 0 }, { -3.25, 7 } };
+
+		for (String expression : expressions) {
+			PostfixExpression postfix = (PostfixExpression) new ExpressionBuilder(expression)
+					.withVariable(new Variable("x")).withVariable(new Variable("y")).build();
+			assertTrue(expression, postfix.isPrimitive());
+			String[] names = postfix.getReferencedVariables();
+
+			for (double[] v : values) {
+				Calculable reference = new ExpressionBuilder(expression)
+						.withVariable(new Variable("x", v[0])).withVariable(new Variable("y", v[1])).build();
+				double[] bound = new double[names.length];
+				for (int i = 0; i < names.length; i++) {
+					bound[i] = names[i].equals("x") ? v[0] : v[1];
+				}
+				assertEquals(expression, reference.calculate().getDoubleValue(), postfix.calculate(bound), 0);
+			}
+		}
+	}
+
+	/**
+	 * Test that compiled expressions evaluate to the same values as uncompiled ones during a simulation,
+	 * for both primitive expressions and those with index expressions.
+	 */
+	@Test
+	public void testCompiledMatchesUncompiled() throws SimulationException {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		OpenRocketDocument doc = OpenRocketDocumentFactory.createDocumentFromRocket(rocket);
+		Simulation sim = new Simulation(rocket);
+		sim.getOptions().setISAAtmosphere(true);
+		sim.getOptions().setTimeStep(0.05);
+		sim.setFlightConfigurationId(TestRockets.TEST_FCID_0);
+
+		final List<CustomExpression> expressions = new ArrayList<CustomExpression>();
+		expressions.add(new CustomExpression(doc, "Kinetic energy", "Ek", "J", ".5*m*Vt^2"));
+		expressions.add(new CustomExpression(doc, "Test function", "Tf", "", "sqrt(abs(At))+sin(t)*-2"));
+		expressions.add(new CustomExpression(doc, "Divided", "Dv", "", "h/0"));
+		expressions.add(new CustomExpression(doc, "Indexed", "Ix", "", "h[0.5]*2"));
+
+		final int[] steps = new int[1];
+		AbstractSimulationListener checker = new AbstractSimulationListener() {
+			private final List<CompiledExpression> compiled = new ArrayList<CompiledExpression>();
+
+			@Override
+			public void postStep(SimulationStatus status) {
+				if (compiled.isEmpty()) {
+					for (CustomExpression expression : expressions) {
+						compiled.add(expression.compile());
+					}
+				}
+				steps[0]++;
+				// Index expressions are linear in the data length, so not every step is checked
+				if (steps[0] % 4 != 0) {
+					return;
+				}
+				for (int i = 0; i < expressions.size(); i++) {
+					double expected = expressions.get(i).evaluateDouble(status);
+					assertEquals(expressions.get(i).toString(), expected, compiled.get(i).evaluate(status), 0);
+				}
+			}
+		};
+
+		SimulationConditions conditions = sim.getOptions().toSimulationConditions();
+		conditions.setSimulation(sim);
+		conditions.getSimulationListenerList().add(new CustomExpressionSimulationListener(expressions));
+		conditions.getSimulationListenerList().add(checker);
+		new BasicEventSimulationEngine().simulate(conditions);
+
+		assertTrue(steps[0] > 40);
+	}
+
+	/**
+	 * Test that a clone of a started listener compiles its own expressions, which evaluate
+	 * independently of those of the original listener.
+	 */
+	@Test
+	public void testClonedListener() throws SimulationException {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		OpenRocketDocument doc = OpenRocketDocumentFactory.createDocumentFromRocket(rocket);
+		Simulation sim = new Simulation(rocket);
+		sim.getOptions().setISAAtmosphere(true);
+		sim.getOptions().setTimeStep(0.05);
+		sim.setFlightConfigurationId(TestRockets.TEST_FCID_0);
+
+		final List<CustomExpression> expressions = new ArrayList<CustomExpression>();
+		expressions.add(new CustomExpression(doc, "Kinetic energy", "Ek", "J", ".5*m*Vt^2"));
+		expressions.add(new CustomExpression(doc, "Test function", "Tf", "", "sqrt(abs(At))+sin(t)*-2"));
+
+		final CustomExpressionSimulationListener listener = new CustomExpressionSimulationListener(expressions);
+		final CustomExpressionSimulationListener[] clone = new CustomExpressionSimulationListener[1];
+		final int[] steps = new int[1];
+		AbstractSimulationListener checker = new AbstractSimulationListener() {
+			@Override
+			public void postStep(SimulationStatus status) throws SimulationException {
+				listener.postStep(status);
+				if (clone[0] == null) {
+					clone[0] = listener.clone();
+					assertNull(clone[0].getCompiled());
+				}
+				clone[0].postStep(status);
+
+				steps[0]++;
+				for (int i = 0; i < expressions.size(); i++) {
+					CompiledExpression original = listener.getCompiled()[i];
+					CompiledExpression copy = clone[0].getCompiled()[i];
+					assertNotSame(original, copy);
+					double expected = expressions.get(i).evaluateDouble(status);
+					// Evaluate the copy between two evaluations of the original
+					double first = original.evaluate(status);
+					assertEquals(expected, copy.evaluate(status), 0);
+					assertEquals(first, original.evaluate(status), 0);
+					assertEquals(expected, first, 0);
+				}
+			}
+		};
+
+		SimulationConditions conditions = sim.getOptions().toSimulationConditions();
+		conditions.setSimulation(sim);
+		conditions.getSimulationListenerList().add(checker);
+		new BasicEventSimulationEngine().simulate(conditions);
+
+		assertTrue(steps[0] > 40);
+	}
+}
@@ -3,15 +3,22 @@ package net.sf.openrocket.database;
 import java.io.*;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 
 import com.google.common.io.Files;
+import net.sf.openrocket.arch.SystemInfo;
 import net.sf.openrocket.file.iterator.DirectoryIterator;
 import net.sf.openrocket.file.iterator.FileIterator;
 import net.sf.openrocket.gui.util.SimpleFileFilter;
 import net.sf.openrocket.gui.util.SwingPreferences;
 import net.sf.openrocket.preset.ComponentPreset;
+import net.sf.openrocket.preset.ComponentPresetDatabaseFile;
+import net.sf.openrocket.preset.ComponentPresetFileCache;
 import net.sf.openrocket.preset.xml.OpenRocketComponentLoader;
 import net.sf.openrocket.startup.Application;
 import net.sf.openrocket.util.Pair;
@@ -29,11 +36,19 @@ public class ComponentPresetDatabaseLoader extends AsynchronousDatabaseLoader {
 	private final static Logger log = LoggerFactory.getLogger(ComponentPresetDatabaseLoader.class);
 	
 	private static final String SYSTEM_PRESET_DIR = "datafiles/components";
+	/** The directory of the system preset files loaded at startup, see loadPresetComponents() */
+	private static final String SYSTEM_PRESET_SOURCE_DIR = "./swing/resources-src/datafiles/components-openrocket";
+	/** The directory of the binary preset catalog compiled from the system preset files at build time */
+	private static final String SYSTEM_PRESET_CATALOG_DIR = "datafiles/presets/";
+	/** The cache of the parsed user component files, in the user application directory */
+	private static final String PRESET_CACHE_FILE = "ComponentPresets.cache";
 	private int fileCount = 0;
 	private int presetCount = 0;
 	
 	/** the database is immutable*/
 	private final ComponentPresetDatabase componentPresetDao = new ComponentPresetDatabase();
+	/** the presets read from the files, added to the database at once */
+	private final List<ComponentPreset> loadedPresets = new ArrayList<ComponentPreset>();
 	
 	public ComponentPresetDatabaseLoader() {
 		super(0);
@@ -55,6 +70,8 @@ public class ComponentPresetDatabaseLoader extends AsynchronousDatabaseLoader {
 		long startTime = System.currentTimeMillis();
 		loadPresetComponents();
 		loadUserComponents();
+		componentPresetDao.addAll(loadedPresets);
+		loadedPresets.clear();
 		long end = System.currentTimeMillis();
 		log.debug("Time to load presets: " + (end - startTime) + "ms " + presetCount + " loaded from " + fileCount + " files");
 		
@@ -63,12 +80,15 @@ public class ComponentPresetDatabaseLoader extends AsynchronousDatabaseLoader {
 	/**
 	 * loads the user defined defined components into the database
 	 * uses the directory defined in the preferences
+	 * 
+	 * The files are parsed in parallel, and the presets of files unchanged since the
+	 * previous startup are read from the preset cache instead.
 	 */
 	private void loadUserComponents() {
 		SimpleFileFilter orcFilter = new SimpleFileFilter("", false, "orc");
-		FileIterator iterator;
+		List<File> files;
 		try {
-			iterator = new DirectoryIterator(
+			files = DirectoryIterator.listFiles(
 					((SwingPreferences) Application.getPreferences()).getDefaultUserComponentDirectory(),
 					orcFilter,
 					true);
@@ -76,13 +96,55 @@ public class ComponentPresetDatabaseLoader extends AsynchronousDatabaseLoader {
 			log.debug("Error opening UserComponentDirectory", ioex);
 			return;
 		}
-		while (iterator.hasNext()) {
-			Pair<File, InputStream> f = iterator.next();
-			Collection<ComponentPreset> presets = loadFile(f.getU().getName(), f.getV());
-			componentPresetDao.addAll(presets);
-			fileCount++;
-			presetCount += presets.size();
+		
+		final ComponentPresetFileCache cache = new ComponentPresetFileCache(
+				new File(SystemInfo.getUserApplicationDirectory(), PRESET_CACHE_FILE));
+		List<Callable<List<ComponentPreset>>> tasks = new ArrayList<Callable<List<ComponentPreset>>>(files.size());
+		for (final File file : files) {
+			tasks.add(new Callable<List<ComponentPreset>>() {
+				@Override
+				public List<ComponentPreset> call() throws IOException {
+					return loadUserFile(cache, file);
+				}
+			});
 		}
+		try {
+			for (List<ComponentPreset> presets : runInParallel(tasks)) {
+				loadedPresets.addAll(presets);
+				fileCount++;
+				presetCount += presets.size();
+			}
+		} catch (InterruptedException e) {
+			log.warn("Interrupted while reading user components");
+			Thread.currentThread().interrupt();
+			return;
+		}
+		
+		try {
+			cache.save();
+		} catch (IOException e) {
+			log.warn("Unable to save component preset cache: " + e, e);
+		}
+	}
+	
+	/**
+	 * loads the presets of a user component file, from the preset cache if the file is unchanged
+	 * 
+	 * @param cache	the preset cache
+	 * @param file	the component file
+	 * @return		the presets of the file
+	 */
+	private List<ComponentPreset> loadUserFile(ComponentPresetFileCache cache, File file) throws IOException {
+		List<ComponentPreset> presets = cache.get(file);
+		if (presets != null) {
+			log.debug("Using cached presets of file " + file);
+			return presets;
+		}
+		try (InputStream is = new BufferedInputStream(new FileInputStream(file))) {
+			presets = new ArrayList<ComponentPreset>(loadFile(file.getName(), is));
+		}
+		cache.put(file, presets);
+		return presets;
 	}
 
 	/**
@@ -90,6 +152,9 @@ public class ComponentPresetDatabaseLoader extends AsynchronousDatabaseLoader {
 	 * uses the file directory from "datafiles/presets"
 	 */
 	private void loadPresetComponents() {
+		if (loadPresetCatalog()) {
+			return;
+		}
 		log.info("Loading component presets from " + SYSTEM_PRESET_DIR);
 		//New Eric Code
 //		String dirPath = "./swing/resources-src/datafiles/components-openrocket/newfile.txt";
@@ -120,7 +185,7 @@ public class ComponentPresetDatabaseLoader extends AsynchronousDatabaseLoader {
 //			e.printStackTrace();
 //		}
 		/** Very Important, changed file updator to "./swing/resources-src/datafiles/components-openrocket", instead of Systems_Present_DIR"*/
-		FileIterator iterator = DirectoryIterator.findDirectory("./swing/resources-src/datafiles/components-openrocket", new SimpleFileFilter("", false, "orc"));
+		FileIterator iterator = DirectoryIterator.findDirectory(SYSTEM_PRESET_SOURCE_DIR, new SimpleFileFilter("", false, "orc"));
 
 		//END eric code
 
@@ -132,12 +197,80 @@ public class ComponentPresetDatabaseLoader extends AsynchronousDatabaseLoader {
 		while (iterator.hasNext()) {
 			Pair<File, InputStream> f = iterator.next();
 			Collection<ComponentPreset> presets = loadFile(f.getU().getName(), f.getV());
-			componentPresetDao.addAll(presets);
+			loadedPresets.addAll(presets);
 			fileCount++;
 			presetCount += presets.size();
 		}
 	}
 	
+	/**
+	 * loads the default preset components from the binary catalog compiled at build time
+	 * uses the file directory from "datafiles/presets"
+	 * 
+	 * The catalog is not used if it is empty, or if the system preset files are present and
+	 * differ from the files the catalog was compiled from, in which case they are loaded instead.
+	 * 
+	 * @return	whether the catalog was found and loaded
+	 */
+	private boolean loadPresetCatalog() {
+		FileIterator iterator = DirectoryIterator.findDirectory(SYSTEM_PRESET_CATALOG_DIR, new SimpleFileFilter("", false, "bin"));
+		if (iterator == null) {
+			log.info("No compiled component preset catalog found");
+			return false;
+		}
+		
+		String sourceHash = getPresetSourceHash();
+		List<ComponentPreset> catalog = new ArrayList<ComponentPreset>();
+		int catalogFiles = 0;
+		try {
+			while (iterator.hasNext()) {
+				Pair<File, InputStream> f = iterator.next();
+				try (InputStream is = new BufferedInputStream(f.getV())) {
+					// The source hash is compared rather than the file times, which a checkout or a jar does not preserve
+					is.mark(1024);
+					if (sourceHash != null && !sourceHash.equals(ComponentPresetDatabaseFile.readSourceHash(is))) {
+						log.info("Component preset catalog " + f.getU() + " was not compiled from the current preset files, loading the preset files instead");
+						return false;
+					}
+					is.reset();
+					log.info("Loading component preset catalog " + f.getU());
+					catalog.addAll(ComponentPresetDatabaseFile.read(is));
+				}
+				catalogFiles++;
+			}
+		} catch (IOException | RuntimeException e) {
+			log.warn("Unable to read component preset catalog, loading the component files instead: " + e, e);
+			return false;
+		} finally {
+			iterator.close();
+		}
+		if (catalog.isEmpty()) {
+			log.info("Component preset catalog is empty, loading the preset files instead");
+			return false;
+		}
+		loadedPresets.addAll(catalog);
+		fileCount += catalogFiles;
+		presetCount += catalog.size();
+		return true;
+	}
+	
+	/**
+	 * returns the hash of the system preset files, as written in the catalog compiled from them,
+	 * or null if the files are not present
+	 */
+	private String getPresetSourceHash() {
+		File directory = new File(SYSTEM_PRESET_SOURCE_DIR);
+		if (!directory.isDirectory()) {
+			return null;
+		}
+		try {
+			return ComponentPresetDatabaseFile.hashSources(Collections.singletonList(directory), new SimpleFileFilter("", false, "orc"));
+		} catch (IOException e) {
+			log.warn("Unable to read the preset files in " + directory + ": " + e, e);
+			return null;
+		}
+	}
+	
 	/**
 	 * load components from a custom component file
 	 * uses an OpenRocketComponentLoader for the job
@@ -6,18 +6,22 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectInputStream;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import net.sf.openrocket.l10n.Translator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sf.openrocket.arch.SystemInfo;
 import net.sf.openrocket.database.motor.ThrustCurveMotorSetDatabase;
 import net.sf.openrocket.file.iterator.DirectoryIterator;
 import net.sf.openrocket.file.iterator.FileIterator;
 import net.sf.openrocket.file.motor.GeneralMotorLoader;
+import net.sf.openrocket.file.motor.MotorDatabaseFile;
+import net.sf.openrocket.file.motor.MotorFileCache;
 import net.sf.openrocket.gui.util.SimpleFileFilter;
 import net.sf.openrocket.gui.util.SwingPreferences;
 import net.sf.openrocket.motor.ThrustCurveMotor;
@@ -41,6 +45,8 @@ public class MotorDatabaseLoader extends AsynchronousDatabaseLoader {
 	private final static Logger log = LoggerFactory.getLogger(MotorDatabaseLoader.class);
 
 	private static final String THRUSTCURVE_DIRECTORY = "datafiles/thrustcurves/";
+	/** The cache of the parsed user-defined motor files, in the user application directory */
+	private static final String MOTOR_CACHE_FILE = "ThrustCurves.cache";
 	private static final long STARTUP_DELAY = 0;
 	
 	private final ThrustCurveMotorSetDatabase database = new ThrustCurveMotorSetDatabase();
@@ -56,7 +62,7 @@ public class MotorDatabaseLoader extends AsynchronousDatabaseLoader {
 	
 	@Override
 	protected void loadDatabase() {
-		loadSerializedMotorDatabase();
+		loadMotorDatabase();
 		loadUserDefinedMotors();
 	}
 
@@ -64,90 +70,126 @@ public class MotorDatabaseLoader extends AsynchronousDatabaseLoader {
 	/**
 	 * Loads the user defined motors
 	 * the directories are defined in the preferences
+	 * 
+	 * The files are parsed in parallel, and the motors of files unchanged since the
+	 * previous startup are read from the motor cache instead.
 	 */
 	private void loadUserDefinedMotors() {
 		GeneralMotorLoader loader = new GeneralMotorLoader();
 		SimpleFileFilter fileFilter = new SimpleFileFilter("", loader.getSupportedExtensions());
 		log.info("Starting reading user-defined motors");
+		List<File> files = new ArrayList<>();
 		for (File file : ((SwingPreferences) Application.getPreferences()).getUserThrustCurveFiles()) {
 			if (file.isFile()) {
-				loadFile(loader, file);
+				files.add(file);
 			} else if (file.isDirectory()) {
-				loadDirectory(loader, fileFilter, file);
+				addDirectory(fileFilter, file, files);
 			} else {
 				log.warn("User-defined motor file " + file + " is neither file nor directory");
 			}
 		}
+		
+		final MotorFileCache cache = new MotorFileCache(new File(SystemInfo.getUserApplicationDirectory(), MOTOR_CACHE_FILE));
+		List<Callable<List<ThrustCurveMotor>>> tasks = new ArrayList<>(files.size());
+		for (final File file : files) {
+			tasks.add(new Callable<List<ThrustCurveMotor>>() {
+				@Override
+				public List<ThrustCurveMotor> call() {
+					return loadFile(cache, file);
+				}
+			});
+		}
+		try {
+			for (List<ThrustCurveMotor> motors : runInParallel(tasks)) {
+				addMotors(motors);
+			}
+		} catch (InterruptedException e) {
+			log.warn("Interrupted while reading user-defined motors");
+			Thread.currentThread().interrupt();
+			return;
+		}
+		
+		try {
+			cache.save();
+		} catch (IOException e) {
+			log.warn("Unable to save motor cache: " + e, e);
+		}
 		log.info("Ending reading user-defined motors, motorCount=" + motorCount);
 	}
 
 
 	/**
-	 * Loads the default, with established serialized manufacturing and data
+	 * Loads the default motor database distributed with OpenRocket
 	 * uses directory "datafiles/thrustcurves" for data  
 	 */
-	private void loadSerializedMotorDatabase() {
-		log.info("Starting reading serialized motor database");
-		FileIterator iterator = DirectoryIterator.findDirectory(THRUSTCURVE_DIRECTORY, new SimpleFileFilter("", false, "ser"));
+	private void loadMotorDatabase() {
+		log.info("Starting reading motor database");
+		FileIterator iterator = DirectoryIterator.findDirectory(THRUSTCURVE_DIRECTORY, new SimpleFileFilter("", false, "bin"));
 		while (iterator.hasNext()) {
 			Pair<File, InputStream> f = iterator.next();
-			loadSerialized(f);
+			loadMotorDatabaseFile(f);
 		}
-		log.info("Ending reading serialized motor database, motorCount=" + motorCount);
+		log.info("Ending reading motor database, motorCount=" + motorCount);
 	}
 	
 	
 	/**
-	 * loads a serailized motor data from an stream
+	 * loads a binary motor database file, memory-mapping it when it is a file on disk
 	 * 
-	 * @param f	the pair of a File (for logging) and the input stream
+	 * @param f	the pair of a File and the input stream
 	 */
-	@SuppressWarnings("unchecked")
-	private void loadSerialized(Pair<File, InputStream> f) {
+	private void loadMotorDatabaseFile(Pair<File, InputStream> f) {
 		try {
 			log.debug("Reading motors from file " + f.getU().getPath());
-			ObjectInputStream ois = new ObjectInputStream(f.getV());
-			List<ThrustCurveMotor> motors = (List<ThrustCurveMotor>) ois.readObject();
-			addMotors(motors);
+			final MotorDatabaseFile file;
+			try {
+				if (f.getU().isFile()) {
+					file = MotorDatabaseFile.open(f.getU());
+				} else {
+					file = MotorDatabaseFile.read(f.getV());
+				}
+			} finally {
+				f.getV().close();
+			}
+			addMotors(file.getMotors());
 		} catch (Exception ex) {
 			throw new BugException(ex);
 		}
 	}
 	
 	/**
-	 * loads a single motor file into the database using a simple file handler object
+	 * loads the motors of a single motor file, from the motor cache if the file is unchanged
 	 * 
-	 * @param loader	the motor loading handler object
-	 * @param file		the File to the file itself
+	 * @param cache	the motor cache
+	 * @param file	the motor file
+	 * @return		the motors of the file
 	 */
-	private void loadFile(GeneralMotorLoader loader, File file) {
+	private List<ThrustCurveMotor> loadFile(MotorFileCache cache, File file) {
+		List<ThrustCurveMotor> motors = cache.get(file);
+		if (motors != null) {
+			log.debug("Using cached motors of file " + file);
+			return motors;
+		}
+		
+		log.debug("Loading motors from file " + file);
+		motors = new ArrayList<>();
+		final InputStream is;
 		try {
-			log.debug("Loading motors from file " + file);
-			loadFile(
-					loader,
-					new Pair<>(
-							file,
-							new BufferedInputStream(new FileInputStream(file))));
+			is = new BufferedInputStream(new FileInputStream(file));
 		} catch (Exception e) {
 			log.warn("Exception while reading " + file + ": " + e, e);
+			return motors;
 		}
-	}
-	
-	/**
-	 * loads a single motor file into the database using inputStream instead of file object
-	 * 
-	 * @param loader	an object to handle the loading
-	 * @param f			the pair of File name and its input stream
-	 */
-	private void loadFile(GeneralMotorLoader loader, Pair<File, InputStream> f) {
 		try {
 			try {
-				List<ThrustCurveMotor.Builder> motors = loader.load(f.getV(), f.getU().getName());
-				addMotorsFromBuilders(motors);
+				for (ThrustCurveMotor.Builder builder : new GeneralMotorLoader().load(is, file.getName())) {
+					motors.add(builder.build());
+				}
+				cache.put(file, motors);
 			}
 			catch (IllegalArgumentException | IOException e) {
 				Translator trans = Application.getTranslator();
-				String fullPath = f.getU().getPath();
+				String fullPath = file.getPath();
 				String message = "<html><body><p style='width: 400px;'><i>" + e.getMessage() +
 						"</i>.<br><br>" + MessageFormat.format( trans.get("MotorDbLoaderDlg.message1"), fullPath) +
 						"<br>" + trans.get("MotorDbLoaderDlg.message2") + "</p></body></html>";
@@ -162,33 +204,29 @@ public class MotorDatabaseLoader extends AsynchronousDatabaseLoader {
 					}
 				});
 			}
-			f.getV().close();
 		} catch (Exception e) {
-			log.warn("Exception while loading file " + f.getU() + ": " + e, e);
+			log.warn("Exception while loading file " + file + ": " + e, e);
+		} finally {
 			try {
-				f.getV().close();
+				is.close();
 			} catch (IOException e1) {
 			}
 		}
+		return motors;
 	}
 	
 	/**
-	 * loads an entire directory of motor files
+	 * adds the motor files of an entire directory to a list
 	 * 
-	 * @param loader 		a motor loading handler object
 	 * @param fileFilter	the supported extensions of files
-	 * @param file			the directory file object
+	 * @param dir			the directory file object
+	 * @param files			the list of files to add to
 	 */
-	private void loadDirectory(GeneralMotorLoader loader, SimpleFileFilter fileFilter, File file) {
-		FileIterator iterator;
+	private void addDirectory(SimpleFileFilter fileFilter, File dir, List<File> files) {
 		try {
-			iterator = new DirectoryIterator(file, fileFilter, true);
+			files.addAll(DirectoryIterator.listFiles(dir, fileFilter, true));
 		} catch (Exception e) {
-			log.warn("Unable to read directory " + file + ": " + e, e);
-			return;
-		}
-		while (iterator.hasNext()) {
-			loadFile(loader, iterator.next());
+			log.warn("Unable to read directory " + dir + ": " + e, e);
 		}
 	}
 
@@ -200,22 +238,8 @@ public class MotorDatabaseLoader extends AsynchronousDatabaseLoader {
 	 * @param motors	the list of motors to be added
 	 */
 	private synchronized void addMotors(List<ThrustCurveMotor> motors) {
-		for (ThrustCurveMotor m : motors) {
-			motorCount++;
-			database.addMotor(m);
-		}
-	}
-	
-	/**
-	 * builds the motors while building them
-	 * 
-	 * @param motorBuilders List of motor builders to be used for adding motor into the database
-	 */
-	private synchronized void addMotorsFromBuilders(List<ThrustCurveMotor.Builder> motorBuilders) {
-		for (ThrustCurveMotor.Builder m : motorBuilders) {
-			motorCount++;
-			database.addMotor(m.build());
-		}
+		motorCount += motors.size();
+		database.addMotors(motors);
 	}
 	
 	/**
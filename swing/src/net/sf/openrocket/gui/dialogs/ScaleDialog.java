@@ -461,12 +461,7 @@ public class ScaleDialog extends JDialog {
 			@Override
 			public void actionPerformed(ActionEvent e) {
 
-				final Rocket rocket = document.getRocket();
-				rocket.enableEvents(false);
 				doScale();
-				rocket.enableEvents(true);
-
-				ScaleDialog.this.document.getRocket().fireComponentChangeEvent( ComponentChangeEvent.AEROMASS_CHANGE);
 
 				ScaleDialog.this.setVisible(false);
 			}
@@ -530,17 +525,23 @@ public class ScaleDialog extends JDialog {
 			throw new BugException("Unknown item selected, item=" + item);
 		}
 
-		// Perform the scaling
+		// Perform the scaling, firing a single change event for all the scaled components
+		final Rocket rocket = document.getRocket();
 		try {
-			// Scale the offsets
-			if (scaleOffsets.isSelected()) {
+			rocket.freeze();
+			try {
+				// Scale the offsets
+				if (scaleOffsets.isSelected()) {
+					for (RocketComponent component : scaleComponents) {
+						scaleOffset(component, mul, scaleMass);
+					}
+				}
+				// Scale the components
 				for (RocketComponent component : scaleComponents) {
-					scaleOffset(component, mul, scaleMass);
+					scale(component, mul, scaleMass);
 				}
-			}
-			// Scale the components
-			for (RocketComponent component : scaleComponents) {
-				scale(component, mul, scaleMass);
+			} finally {
+				rocket.thaw();
 			}
 		} finally {
 			document.stopUndo();
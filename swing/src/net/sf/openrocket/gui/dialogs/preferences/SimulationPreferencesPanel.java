@@ -15,6 +15,7 @@ import net.miginfocom.swing.MigLayout;
 import net.sf.openrocket.gui.SpinnerEditor;
 import net.sf.openrocket.gui.adaptors.DoubleModel;
 import net.sf.openrocket.gui.adaptors.EnumModel;
+import net.sf.openrocket.gui.adaptors.IntegerModel;
 import net.sf.openrocket.gui.components.BasicSlider;
 import net.sf.openrocket.gui.components.StyledLabel;
 import net.sf.openrocket.gui.components.UnitSelector;
@@ -167,6 +168,20 @@ public class SimulationPreferencesPanel extends PreferencesPanel {
 		slider.setToolTipText(tip);
 		subsub.add(slider, "w 100");
 
+		// // Threads for separated stages:
+		label = new JLabel(trans.get("pref.dlg.lbl.BranchThreads"));
+		tip = trans.get("pref.dlg.lbl.ttip.BranchThreads");
+		label.setToolTipText(tip);
+		subsub.add(label, "gapright para");
+
+		IntegerModel m_bt = new IntegerModel(preferences, "BranchThreadCount", 1,
+				Math.max(1, Runtime.getRuntime().availableProcessors()));
+
+		spin = new JSpinner(m_bt.getSpinnerModel());
+		spin.setEditor(new SpinnerEditor(spin));
+		spin.setToolTipText(tip);
+		subsub.add(spin, "wrap");
+
 		sub.add(subsub, "spanx, wrap para");
 
 		// Reset to default button
@@ -180,6 +195,7 @@ public class SimulationPreferencesPanel extends PreferencesPanel {
 			@Override
 			public void actionPerformed(ActionEvent e) {
 				m_ts.setValue(RK4SimulationStepper.RECOMMENDED_TIME_STEP);
+				m_bt.setValue(1);
 				gcsModel.setSelectedItem(GeodeticComputationStrategy.SPHERICAL);
 				gcsCombo.repaint();
 			}
@@ -728,22 +728,32 @@ public class RocketActions {
 			}
 
 			List<RocketComponent> successfullyPasted = new LinkedList<>();
-			for (int i = 0; i < pasted.size(); i++) {
-				if (positions.get(i) == null) {
-					JOptionPane.showMessageDialog(null,
-							String.format(trans.get("RocketActions.PasteAct.invalidPosition.msg"),
-									pasted.get(i).getComponentName()),
-							trans.get("RocketActions.PasteAct.invalidPosition.title"), JOptionPane.WARNING_MESSAGE);
-				} else {
-					RocketComponent parent = positions.get(i).getU();
-					RocketComponent child = pasted.get(i);
-					if (parent != null && parent.isCompatible(child)) {
-						parent.addChild(child, positions.get(i).getV());
-						successfullyPasted.add(pasted.get(i));
+			List<Integer> invalidPositions = new LinkedList<>();
+			// Insert all components with a single change event
+			rocket.freeze();
+			try {
+				for (int i = 0; i < pasted.size(); i++) {
+					if (positions.get(i) == null) {
+						invalidPositions.add(i);
 					} else {
-						log.warn("Pasted component {} is not compatible with {}", child, parent);
+						RocketComponent parent = positions.get(i).getU();
+						RocketComponent child = pasted.get(i);
+						if (parent != null && parent.isCompatible(child)) {
+							parent.addChild(child, positions.get(i).getV());
+							successfullyPasted.add(pasted.get(i));
+						} else {
+							log.warn("Pasted component {} is not compatible with {}", child, parent);
+						}
 					}
 				}
+			} finally {
+				rocket.thaw();
+			}
+			for (int i : invalidPositions) {
+				JOptionPane.showMessageDialog(null,
+						String.format(trans.get("RocketActions.PasteAct.invalidPosition.msg"),
+								pasted.get(i).getComponentName()),
+						trans.get("RocketActions.PasteAct.invalidPosition.title"), JOptionPane.WARNING_MESSAGE);
 			}
 
 			selectionModel.setSelectedComponents(successfullyPasted);
@@ -839,8 +849,13 @@ public class RocketActions {
 			Collections.reverse(duplicateComponents);
 			Collections.reverse(positions);
 
-			for (int i = 0; i < duplicateComponents.size(); i++) {
-				positions.get(i).getU().addChild(duplicateComponents.get(i), positions.get(i).getV());
+			rocket.freeze();
+			try {
+				for (int i = 0; i < duplicateComponents.size(); i++) {
+					positions.get(i).getU().addChild(duplicateComponents.get(i), positions.get(i).getV());
+				}
+			} finally {
+				rocket.thaw();
 			}
 
 			selectionModel.setSelectedComponents(duplicateComponents);
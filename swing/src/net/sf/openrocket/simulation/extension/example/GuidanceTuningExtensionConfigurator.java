@@ -0,0 +1,38 @@
+package net.sf.openrocket.simulation.extension.example;
+
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JSpinner;
+
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.gui.SpinnerEditor;
+import net.sf.openrocket.gui.adaptors.IntegerModel;
+import net.sf.openrocket.gui.components.BasicSlider;
+import net.sf.openrocket.plugin.Plugin;
+import net.sf.openrocket.simulation.extension.AbstractSwingSimulationExtensionConfigurator;
+
+@Plugin
+public class GuidanceTuningExtensionConfigurator extends AbstractSwingSimulationExtensionConfigurator<GuidanceTuningExtension> {
+	
+	public GuidanceTuningExtensionConfigurator() {
+		super(GuidanceTuningExtension.class);
+	}
+	
+	@Override
+	protected JComponent getConfigurationComponent(GuidanceTuningExtension extension, Simulation simulation, JPanel panel) {
+		panel.add(new JLabel("Iterations:"));
+		
+		IntegerModel m = new IntegerModel(extension, "IterationCount", 1, 500);
+		
+		JSpinner spin = new JSpinner(m.getSpinnerModel());
+		spin.setEditor(new SpinnerEditor(spin));
+		panel.add(spin, "w 65lp!");
+		
+		BasicSlider slider = new BasicSlider(m.getSliderModel());
+		panel.add(slider, "w 75lp, wrap");
+		
+		return panel;
+	}
+	
+}
@@ -1,9 +1,13 @@
 package net.sf.openrocket.utils;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.InputStream;
-import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
@@ -13,68 +17,103 @@ import net.sf.openrocket.file.iterator.DirectoryIterator;
 import net.sf.openrocket.file.iterator.FileIterator;
 import net.sf.openrocket.gui.util.SimpleFileFilter;
 import net.sf.openrocket.preset.ComponentPreset;
+import net.sf.openrocket.preset.ComponentPresetDatabaseFile;
 import net.sf.openrocket.preset.xml.OpenRocketComponentLoader;
 import net.sf.openrocket.util.Pair;
 
+/**
+ * Compiles the component preset files (.orc) distributed with OpenRocket into the binary
+ * preset catalog loaded at startup, and reports the time to load the presets from the
+ * component files and from the catalog.
+ */
 public class SerializePresets extends BasicApplication {
 
     private static void printUsage() {
-        System.err.println("SerializePresets <dir> ... ");
+        System.err.println("SerializePresets <dir> ... <output-file>");
         System.err.println("<dir> (may be repeated) is base directory for a set of .orc preset files");
+        System.err.println("<output-file> is the binary preset catalog to write");
     }
-	
+
 	/**
 	 * @param args
 	 */
 	public static void main(String[] args) throws Exception {
-		
+
 		SerializePresets app = new SerializePresets();
 		app.initializeApplication();
-		
-		if (args.length < 1) {
+
+		if (args.length < 2) {
 			printUsage();
             throw new IllegalArgumentException("Invalid Command Line Params");
         }
-		
+
 		Locale.setDefault(Locale.ENGLISH);
-		
+
 		ComponentPresetDatabase componentPresetDao = new ComponentPresetDatabase();
 
-		for (int i = 0; i < args.length; i++) {
+		SimpleFileFilter filter = new SimpleFileFilter("", false, "orc");
+		List<File> directories = new ArrayList<File>();
+		long xmlTime = 0;
+		for (int i = 0; i < args.length - 1; i++) {
 
 			System.err.println("Processing .orc files in directory " + args[i]);
-			
-			FileIterator iterator = DirectoryIterator.findDirectory(args[i], new SimpleFileFilter("", false, "orc"));
+
+			FileIterator iterator = DirectoryIterator.findDirectory(args[i], filter);
 			if (iterator == null) {
 				throw new RuntimeException("Can't find " + args[i] + " directory");
 			}
-			
+			directories.add(new File(args[i]));
+
 			while (iterator.hasNext()) {
 				Pair<File, InputStream> f = iterator.next();
 				String fileName = f.getU().getName();
 				InputStream is = f.getV();
-				
+
+				long start = System.nanoTime();
 				OpenRocketComponentLoader loader = new OpenRocketComponentLoader();
 				Collection<ComponentPreset> presets = loader.load(is, fileName);
-				
+				xmlTime += System.nanoTime() - start;
+				is.close();
+
 				componentPresetDao.addAll(presets);
-				
+
 			}
 
 		}
-		
+
 		List<ComponentPreset> list = componentPresetDao.listAll();
-		
+
 		System.out.println("Total number of presets = " + list.size());
-		
-		File outFile = new File("resources/datafiles/presets", "system.ser");
-		
-		FileOutputStream ofs = new FileOutputStream(outFile);
-		ObjectOutputStream oos = new ObjectOutputStream(ofs);
-		
-		oos.writeObject(list);
-		
-		ofs.flush();
-		ofs.close();
+
+		File outFile = new File(args[args.length - 1]);
+		File parent = outFile.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+
+		try (OutputStream os = new BufferedOutputStream(new FileOutputStream(outFile))) {
+			// The loader compares the hash with the preset files to detect a stale catalog
+			ComponentPresetDatabaseFile.write(list, ComponentPresetDatabaseFile.hashSources(directories, filter), os);
+		}
+
+		// Verify the catalog and report the load time compared to the component files
+		long start = System.nanoTime();
+		List<ComponentPreset> loaded;
+		try (InputStream is = new BufferedInputStream(new FileInputStream(outFile))) {
+			loaded = ComponentPresetDatabaseFile.read(is);
+		}
+		long catalogTime = System.nanoTime() - start;
+		if (loaded.size() != list.size()) {
+			throw new IllegalStateException("Catalog contains " + loaded.size() + " presets, expected " + list.size());
+		}
+		for (int i = 0; i < list.size(); i++) {
+			if (!list.get(i).getDigest().equals(loaded.get(i).getDigest())) {
+				throw new IllegalStateException("Catalog preset " + loaded.get(i) + " differs from the component file");
+			}
+		}
+
+		System.out.printf("Wrote %s (%d kB)%n", outFile, outFile.length() / 1024);
+		System.out.printf("Component files loaded in %d ms, preset catalog loaded in %d ms%n",
+				xmlTime / 1000000, catalogTime / 1000000);
 	}
 }